@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.IOException;
 import java.net.*;
+import java.nio.channels.*;
 
 import org.basex.core.BaseXException;
 import org.basex.core.Context;
@@ -14,6 +15,7 @@ import org.basex.io.*;
 import org.basex.io.in.BufferInput;
 import org.basex.server.ClientListener;
 import org.basex.server.ClientSession;
+import org.basex.server.Dispatcher;
 import org.basex.server.LocalSession;
 import org.basex.server.Log;
 import org.basex.server.LoginException;
@@ -57,6 +59,8 @@ public final class BaseXServer extends Main implements Runnable {
 
   /** Server socket. */
   private ServerSocket socket;
+  /** Dispatcher for client requests. */
+  private Dispatcher dispatcher;
   /** Initial commands. */
   private StringList commands;
 
@@ -121,7 +125,9 @@ public final class BaseXServer extends Main implements Runnable {
       log = new Log(context, quiet);
       log.write(SRV_STARTED);
 
-      socket = new ServerSocket();
+      dispatcher = new Dispatcher(mprop.num(MainProp.WORKERS));
+      dispatcher.start();
+      socket = ServerSocketChannel.open().socket();
       socket.setReuseAddress(true);
       socket.bind(new InetSocketAddress(addr, port));
       esocket = new ServerSocket();
@@ -172,7 +178,7 @@ public final class BaseXServer extends Main implements Runnable {
               if(ms - cs.last > ka) cs.quit();
             }
           }
-          new ClientListener(s, context, log, this).start();
+          dispatcher.login(new ClientListener(s, context, log, this));
         }
       } catch(final SocketException ex) {
         break;
@@ -198,6 +204,7 @@ public final class BaseXServer extends Main implements Runnable {
     if(!running) return;
     running = false;
     for(final ClientListener cs : context.sessions) cs.quit();
+    dispatcher.close();
     super.quit();
     context.close();
 
@@ -389,7 +396,7 @@ public final class BaseXServer extends Main implements Runnable {
           final BufferInput bi = new BufferInput(es.getInputStream());
           final long id = Token.toLong(bi.readString());
           for(final ClientListener s : context.sessions) {
-            if(s.getId() == id) {
+            if(s.id() == id) {
               s.register(es);
               break;
             }
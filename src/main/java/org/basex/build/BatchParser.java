@@ -0,0 +1,94 @@
+package org.basex.build;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * This class parses a batch of inputs and sends the events of all inputs to
+ * the same builder. It is used to add many documents to a database in a
+ * single operation.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class BatchParser extends Parser {
+  /** Parsers. */
+  private final ArrayList<Parser> parsers = new ArrayList<Parser>();
+  /** Current parser. */
+  private Parser parser;
+  /** Number of parsed inputs. */
+  private int c;
+
+  /**
+   * Constructor.
+   * @param pr database properties
+   */
+  public BatchParser(final Prop pr) {
+    super((String) null, pr);
+  }
+
+  /**
+   * Adds a parser to the batch.
+   * @param p parser
+   * @return self reference
+   */
+  public BatchParser add(final Parser p) {
+    parsers.add(p);
+    if(src == null) src = p.src;
+    return this;
+  }
+
+  /**
+   * Returns the number of parsers.
+   * @return number of parsers
+   */
+  public int size() {
+    return parsers.size();
+  }
+
+  /**
+   * Returns the specified parser.
+   * @param i index
+   * @return parser
+   */
+  public Parser parser(final int i) {
+    return parsers.get(i);
+  }
+
+  @Override
+  public void parse(final Builder build) throws IOException {
+    for(final Parser p : parsers) {
+      parser = p;
+      p.parse(build);
+      p.close();
+      c++;
+    }
+    parser = null;
+  }
+
+  @Override
+  public String info() {
+    final TokenBuilder tb = new TokenBuilder();
+    for(final Parser p : parsers) tb.add(p.info());
+    return tb.toString();
+  }
+
+  @Override
+  public String det() {
+    return parser != null ? parser.detail() : "";
+  }
+
+  @Override
+  public double prog() {
+    final int s = parsers.size();
+    return s == 0 ? 1 : (c + (parser != null ? parser.progress() : 0)) / s;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(parser != null) parser.close();
+  }
+}
@@ -45,6 +45,8 @@ public final class DirParser extends Parser {
 
   /** Database path for storing binary files. */
   protected IOFile rawPath;
+  /** Parallel import ({@code null} if files are parsed sequentially). */
+  private ParallelImport pimport;
   /** Last source. */
   private IO lastSrc;
   /** Parser reference. */
@@ -80,7 +82,20 @@ public final class DirParser extends Parser {
   public void parse(final Builder build) throws IOException {
     build.meta.filesize = 0;
     build.meta.original = src.path();
-    parse(build, src);
+
+    // parse files in parallel
+    final int threads = ParallelImport.threads(prop);
+    if(threads > 1 && !rawParser && (src.isDir() || src.isArchive())) {
+      pimport = new ParallelImport(threads, prop, skipped);
+      try {
+        parse(build, src);
+        pimport.finish(build);
+      } finally {
+        pimport.close();
+      }
+    } else {
+      parse(build, src);
+    }
   }
 
   /**
@@ -95,6 +110,8 @@ public final class DirParser extends Parser {
       for(final IO f : ((IOFile) io).children()) parse(b, f);
     } else {
       src = io;
+      // entries of archives are cached before they are parsed in parallel
+      final boolean cache = pimport != null && (!(io instanceof IOFile) || io.isArchive());
 
       // loop through all (potentially zipped) files
       while(io.more(archives)) {
@@ -135,6 +152,13 @@ public final class DirParser extends Parser {
             if(rawPath != null) {
               Store.store(io.inputSource(), new IOFile(rawPath, targ + name));
             }
+          } else if(pimport != null) {
+            IO in = io;
+            if(cache) {
+              in = new IOContent(io.read());
+              in.name(io.name());
+            }
+            pimport.add(in, targ, b);
           } else {
             // store input as XML
             boolean ok = true;
@@ -173,6 +197,7 @@ public final class DirParser extends Parser {
   @Override
   public String info() {
     final TokenBuilder tb = new TokenBuilder();
+    if(pimport != null) tb.add(pimport.info());
     if(!skipped.isEmpty()) {
       tb.add(SKIPPED).add(COL).add(NL);
       final int s = skipped.size();
@@ -0,0 +1,246 @@
+package org.basex.build;
+
+import static org.basex.core.Text.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class parses multiple files in parallel. It is used by the
+ * {@link DirParser} if more than one thread is allowed
+ * ({@link Prop#PARSETHREADS}):</p>
+ *
+ * <ul>
+ * <li> Each file is parsed by a worker thread and stored in a main memory
+ *   database instance.</li>
+ * <li> The instances are passed on to the database builder in the order in
+ *   which the files have been added, so the resulting document order is
+ *   identical to a sequential run.</li>
+ * </ul>
+ *
+ * <p>The number of parsed files that have not been passed on yet is limited,
+ * in order to restrict the required main memory.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class ParallelImport {
+  /** Maximum number of queued files per thread. */
+  private static final int QUEUE = 8;
+
+  /** Queued tasks. */
+  private final ArrayDeque<Task> tasks = new ArrayDeque<Task>();
+  /** Thread pool. */
+  private final ExecutorService pool;
+  /** Maximum number of queued tasks. */
+  private final int max;
+  /** Database properties. */
+  private final Prop prop;
+  /** Skip corrupt files. */
+  private final boolean skip;
+  /** Skipped files. */
+  private final StringList skipped;
+  /** Performance measurement. */
+  private final Performance perf = new Performance();
+  /** Number of parsed files. */
+  private int files;
+  /** Number of parsed bytes. */
+  private long bytes;
+
+  /**
+   * Constructor.
+   * @param threads number of threads
+   * @param pr database properties
+   * @param skp skipped files (will be added if corrupt files are skipped)
+   */
+  ParallelImport(final int threads, final Prop pr, final StringList skp) {
+    pool = Executors.newFixedThreadPool(threads);
+    max = threads * QUEUE;
+    prop = pr;
+    skip = pr.is(Prop.SKIPCORRUPT);
+    skipped = skp;
+  }
+
+  /**
+   * Returns the number of threads for parsing files,
+   * as defined by {@link Prop#PARSETHREADS}.
+   * @param pr database properties
+   * @return number of threads
+   */
+  static int threads(final Prop pr) {
+    final int t = pr.num(Prop.PARSETHREADS);
+    return t > 0 ? t : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Adds a file to be parsed. If the queue is full, the oldest file is
+   * passed on to the builder.
+   * @param in input
+   * @param target target path
+   * @param b builder
+   * @throws IOException I/O exception
+   */
+  void add(final IO in, final String target, final Builder b) throws IOException {
+    if(tasks.size() >= max) write(b);
+    final Task t = new Task(in, target);
+    t.future = pool.submit(t);
+    tasks.add(t);
+  }
+
+  /**
+   * Passes on all remaining files to the builder and stops the threads.
+   * @param b builder
+   * @throws IOException I/O exception
+   */
+  void finish(final Builder b) throws IOException {
+    try {
+      while(!tasks.isEmpty()) write(b);
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Stops all threads.
+   */
+  void close() {
+    for(final Task t : tasks) t.future.cancel(true);
+    tasks.clear();
+    pool.shutdownNow();
+  }
+
+  /**
+   * Returns information on the processed files.
+   * @return info string
+   */
+  String info() {
+    final double s = Math.max(1, perf.time()) / 1000000000d;
+    return Util.info(PARSED_FILES_X_X_X, files, (long) (files / s),
+        Math.round(bytes / s / (1 << 20) * 10) / 10d) + NL;
+  }
+
+  /**
+   * Waits until the oldest file has been parsed, and passes it on to the
+   * builder.
+   * @param b builder
+   * @throws IOException I/O exception
+   */
+  private void write(final Builder b) throws IOException {
+    final Task t = tasks.poll();
+    final MemData md;
+    try {
+      md = t.future.get();
+    } catch(final InterruptedException ex) {
+      throw new BaseXException(ex);
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof IOException) {
+        if(!skip) throw (IOException) th;
+        Util.debug(th.getMessage());
+        skipped.add(t.in.path());
+        return;
+      }
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      if(th instanceof Error) throw (Error) th;
+      throw Util.notexpected(th);
+    }
+    copy(md, b);
+    files++;
+    final long l = t.in.length();
+    if(l != -1) bytes += l;
+  }
+
+  /**
+   * Sends the nodes of a main memory database instance to the builder.
+   * @param md main memory database instance
+   * @param b builder
+   * @throws IOException I/O exception
+   */
+  private static void copy(final MemData md, final Builder b) throws IOException {
+    b.encoding(md.meta.encoding);
+    // pre values of the opened document and element nodes
+    final IntList open = new IntList();
+    final int size = md.meta.size;
+    for(int pre = 0; pre < size;) {
+      close(md, b, open, pre);
+      final int k = md.kind(pre);
+      if(k == Data.DOC) {
+        b.startDoc(md.text(pre, true));
+        open.push(pre++);
+      } else if(k == Data.ELEM) {
+        final Atts ns = md.ns(pre);
+        for(int n = 0; n < ns.size(); n++) b.startNS(ns.name(n), ns.string(n));
+        final Atts atts = new Atts();
+        final int as = md.attSize(pre, k);
+        for(int a = 1; a < as; a++) {
+          atts.add(md.name(pre + a, Data.ATTR), md.text(pre + a, false));
+        }
+        b.startElem(md.name(pre, k), atts);
+        open.push(pre);
+        pre += as;
+      } else {
+        final byte[] txt = md.text(pre, true);
+        if(k == Data.TEXT) b.text(txt);
+        else if(k == Data.COMM) b.comment(txt);
+        else b.pi(txt);
+        pre++;
+      }
+    }
+    close(md, b, open, size);
+  }
+
+  /**
+   * Closes all nodes that end before the specified pre value.
+   * @param md main memory database instance
+   * @param b builder
+   * @param open pre values of the opened nodes
+   * @param pre pre value
+   * @throws IOException I/O exception
+   */
+  private static void close(final MemData md, final Builder b,
+      final IntList open, final int pre) throws IOException {
+
+    while(!open.isEmpty()) {
+      final int p = open.peek();
+      final int k = md.kind(p);
+      if(p + md.size(p, k) > pre) break;
+      open.pop();
+      if(k == Data.DOC) b.endDoc();
+      else b.endElem();
+    }
+  }
+
+  /**
+   * Task for parsing a single file.
+   */
+  private final class Task implements Callable<MemData> {
+    /** Input. */
+    final IO in;
+    /** Target path. */
+    final String target;
+    /** Future result. */
+    Future<MemData> future;
+
+    /**
+     * Constructor.
+     * @param i input
+     * @param t target path
+     */
+    Task(final IO i, final String t) {
+      in = i;
+      target = t;
+    }
+
+    @Override
+    public MemData call() throws IOException {
+      return MemBuilder.build("", Parser.singleParser(in, prop, target));
+    }
+  }
+}
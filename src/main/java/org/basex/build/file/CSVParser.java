@@ -5,6 +5,7 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
@@ -30,6 +31,11 @@ import org.basex.util.list.*;
  *   <li><code>format</code> specifies the XML format, which can be
  *   <code>simple</code> or <code>verbose</code>
  *   (default: <code>verbose</code>).</li>
+ *   <li><code>threads</code> specifies the number of threads that tokenize
+ *   the input. If more than one thread is specified, the input is split into
+ *   chunks of complete records, which are tokenized in parallel and passed on
+ *   to the builder in their original order; <code>0</code> selects the
+ *   number of processors (default: <code>1</code>).</li>
  * </ul>
  *
  * <p>All options are separated by commas, and the keys and values are
@@ -60,6 +66,10 @@ public final class CSVParser extends SingleParser {
   private static final byte[] ENTRY = token("entry");
   /** CSV column attribute. */
   private static final byte[] COLUMN = token("col");
+  /** Minimum size of a chunk that is tokenized in parallel. */
+  private static final int CHUNK = 1 << 20;
+  /** Maximum number of queued chunks per thread. */
+  private static final int QUEUE = 4;
 
   /** Column separator (see {@link ParserProp#SEPARATOR}). */
   private final int separator;
@@ -69,6 +79,8 @@ public final class CSVParser extends SingleParser {
   private final boolean simple;
   /** Encoding. */
   private final String encoding;
+  /** Number of threads for tokenizing the input. */
+  private final int threads;
 
   /** Current row. */
   private int row;
@@ -102,15 +114,31 @@ public final class CSVParser extends SingleParser {
     if(!simple && !s.equals(FORMATS[1])) throw new BaseXException(
         INVALID_VALUE_X_X, ParserProp.FORMAT[0], s);
     encoding = props.get(ParserProp.ENCODING);
+
+    final int t = props.num(ParserProp.THREADS);
+    threads = t > 0 ? t : Runtime.getRuntime().availableProcessors();
   }
 
   @Override
   public void parse() throws IOException {
     builder.startElem(CSV, atts);
-
-    final TokenBuilder tb = new TokenBuilder();
     final NewlineInput nli = new NewlineInput(src).encoding(encoding);
+    try {
+      if(threads > 1) parallel(nli);
+      else serial(nli);
+    } finally {
+      nli.close();
+    }
+    builder.endElem();
+  }
 
+  /**
+   * Parses the input in a single thread.
+   * @param nli input
+   * @throws IOException I/O exception
+   */
+  private void serial(final NewlineInput nli) throws IOException {
+    final TokenBuilder tb = new TokenBuilder();
     boolean quoted = false, open = true;
     int ch = -1;
     while(true) {
@@ -130,9 +158,9 @@ public final class CSVParser extends SingleParser {
           open();
           open = false;
         }
-        add(tb);
+        add(field(tb));
       } else if(ch == '\n') {
-        finish(tb, open);
+        finish(field(tb), open);
         open = true;
       } else if(ch == '"') {
         quoted = true;
@@ -141,10 +169,73 @@ public final class CSVParser extends SingleParser {
       }
       ch = -1;
     }
-    nli.close();
+    finish(field(tb), open);
+  }
 
-    finish(tb, open);
-    builder.endElem();
+  /**
+   * Parses the input in parallel. The input is split into chunks of complete
+   * records, which are tokenized by worker threads. The resulting records
+   * are passed on to the builder in the order of the chunks, so the resulting
+   * document is identical to a sequential run.
+   * @param nli input
+   * @throws IOException I/O exception
+   */
+  private void parallel(final NewlineInput nli) throws IOException {
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    final ArrayDeque<Future<Records>> chunks = new ArrayDeque<Future<Records>>();
+    final int max = threads * QUEUE;
+    try {
+      TokenBuilder tb = new TokenBuilder(CHUNK + (CHUNK >>> 4));
+      boolean quoted = false;
+      for(int ch; (ch = nli.read()) != -1;) {
+        tb.add(ch);
+        // quotes are toggled by all quote characters: escaped quotes ("")
+        // inside quoted fields toggle the state twice
+        if(ch == '"') {
+          quoted ^= true;
+        } else if(ch == '\n' && !quoted && tb.size() >= CHUNK) {
+          if(chunks.size() >= max) records(chunks.poll());
+          chunks.add(pool.submit(new Records(tb.finish(), false)));
+          tb = new TokenBuilder(CHUNK + (CHUNK >>> 4));
+        }
+      }
+      chunks.add(pool.submit(new Records(tb.finish(), true)));
+      while(!chunks.isEmpty()) records(chunks.poll());
+    } finally {
+      for(final Future<Records> f : chunks) f.cancel(true);
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits until the records of a chunk have been tokenized, and passes them
+   * on to the builder.
+   * @param future future result
+   * @throws IOException I/O exception
+   */
+  private void records(final Future<Records> future) throws IOException {
+    final Records recs;
+    try {
+      recs = future.get();
+    } catch(final InterruptedException ex) {
+      throw new BaseXException(ex);
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      if(th instanceof Error) throw (Error) th;
+      throw Util.notexpected(th);
+    }
+
+    final TokenList fields = recs.fields;
+    final int rs = recs.ends.size();
+    for(int r = 0, f = 0; r < rs; r++) {
+      // index of the last field; a single field indicates a missing separator
+      final int l = recs.ends.get(r) - 1;
+      final boolean open = f == l;
+      if(!open) open();
+      for(; f < l; f++) add(fields.get(f));
+      finish(fields.get(f++), open);
+    }
   }
 
   /**
@@ -161,17 +252,17 @@ public final class CSVParser extends SingleParser {
 
   /**
    * Finishes the current record.
-   * @param tb token builder
+   * @param field last field
    * @param open open flag
    * @throws IOException I/O exception
    */
-  private void finish(final TokenBuilder tb, final boolean open) throws IOException {
+  private void finish(final byte[] field, final boolean open) throws IOException {
     boolean close = !open;
-    if(open && !tb.isEmpty()) {
+    if(open && field.length != 0) {
       open();
       close = true;
     }
-    add(tb);
+    add(field);
     if(close) {
       if(simple || row != 0) builder.endElem();
       ++row;
@@ -180,14 +271,24 @@ public final class CSVParser extends SingleParser {
   }
 
   /**
-   * Adds a field.
+   * Returns the contents of the token builder as field and resets it.
    * @param tb token builder
+   * @return field
+   */
+  private static byte[] field(final TokenBuilder tb) {
+    final byte[] f = tb.finish();
+    tb.reset();
+    return f;
+  }
+
+  /**
+   * Adds a field.
+   * @param field field
    * @throws IOException I/O exception
    */
-  private void add(final TokenBuilder tb) throws IOException {
+  private void add(final byte[] field) throws IOException {
     if(row == 0 && !simple) {
-      addHeader(tb.finish());
-      tb.reset();
+      addHeader(field);
       return;
     }
 
@@ -199,11 +300,10 @@ public final class CSVParser extends SingleParser {
       t = headers.get(col);
     }
 
-    if(!tb.isEmpty() || simple) {
+    if(field.length != 0 || simple) {
       builder.startElem(t, atts);
-      builder.text(tb.finish());
+      builder.text(field);
       builder.endElem();
-      tb.reset();
     }
     ++col;
   }
@@ -234,4 +334,66 @@ public final class CSVParser extends SingleParser {
     // add header
     headers.add(fb);
   }
+
+  /**
+   * Tokenizes a chunk of complete records.
+   */
+  private final class Records implements Callable<Records> {
+    /** Flag for the last chunk. */
+    private final boolean last;
+    /** Input chunk. */
+    private byte[] chunk;
+    /** Fields of all records. */
+    final TokenList fields = new TokenList();
+    /** Offsets after the last fields of the records. */
+    final IntList ends = new IntList();
+
+    /**
+     * Constructor.
+     * @param c input chunk
+     * @param l flag for the last chunk
+     */
+    Records(final byte[] c, final boolean l) {
+      chunk = c;
+      last = l;
+    }
+
+    @Override
+    public Records call() {
+      final TokenBuilder tb = new TokenBuilder();
+      final byte[] in = chunk;
+      final int il = in.length;
+      boolean quoted = false;
+      for(int i = 0; i < il;) {
+        final int ch = cp(in, i);
+        i += cl(in, i);
+        if(quoted) {
+          if(ch == '"') {
+            if(i == il || in[i] != '"') {
+              quoted = false;
+              continue;
+            }
+            i++;
+          }
+          tb.add(ch);
+        } else if(ch == separator) {
+          fields.add(field(tb));
+        } else if(ch == '\n') {
+          fields.add(field(tb));
+          ends.add(fields.size());
+        } else if(ch == '"') {
+          quoted = true;
+        } else {
+          tb.add(XMLToken.valid(ch) ? ch : '?');
+        }
+      }
+      // all other chunks end with a record separator
+      if(last) {
+        fields.add(field(tb));
+        ends.add(fields.size());
+      }
+      chunk = null;
+      return this;
+    }
+  }
 }
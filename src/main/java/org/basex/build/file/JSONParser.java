@@ -1,19 +1,21 @@
 package org.basex.build.file;
 
-import java.io.IOException;
-import org.basex.build.xml.XMLParser;
-import org.basex.core.BaseXException;
-import org.basex.core.Prop;
-import org.basex.io.IO;
-import org.basex.io.IOContent;
-import org.basex.io.in.NewlineInput;
-import org.basex.io.out.*;
-import org.basex.io.serial.*;
-import org.basex.query.QueryException;
-import org.basex.query.item.ANode;
-import org.basex.query.util.*;
-import org.basex.query.util.json.JSONConverter;
-import org.basex.query.util.json.JsonMLConverter;
+import static org.basex.core.Text.COLS;
+import static org.basex.core.Text.SCANPOS_X_X;
+import static org.basex.data.DataText.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.build.*;
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.*;
+import org.basex.query.*;
+import org.basex.query.util.json.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * This class parses files in the JSON format
@@ -36,10 +38,60 @@ import org.basex.query.util.json.JsonMLConverter;
  * <b>Description</b>: Use tabs as separator, choose simple XML format,
  * and indicate that the file contains no header.</p>
  *
+ * <p>The input is streamed through the JSON parser of the query processor
+ * ({@link org.basex.query.util.json.JSONParser}), and its events are directly
+ * sent to the builder. The resulting documents are identical to the ones
+ * created by the {@link JSONConverter} and {@link JsonMLConverter} classes.
+ * As the {@link JSONConverter} representation depends on the types of all
+ * values, JSON input is parsed twice: the first pass only collects the types.
+ * Inputs that cannot be read twice (such as archive entries) are cached.</p>
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-public final class JSONParser extends XMLParser {
+public final class JSONParser extends SingleParser {
+  /** Error: unexpected type. */
+  private static final String TYPEEXP = "% expected for %, % found";
+
+  /** Type: boolean. */
+  private static final int BOOLEAN = 0;
+  /** Type: number. */
+  private static final int NUMBER = 1;
+  /** Type: null. */
+  private static final int NULLS = 2;
+  /** Type: array. */
+  private static final int ARRAY = 3;
+  /** Type: object. */
+  private static final int OBJECT = 4;
+  /** Type: string. */
+  private static final int STRING = 5;
+  /** Type: different types. */
+  private static final int MIXED = 6;
+  /** Type names. */
+  private static final byte[][] TYPES = {
+    T_BOOLEAN, T_NUMBER, NULL, T_ARRAY, T_OBJECT, T_STRING
+  };
+  /** Plural. */
+  private static final byte[] S = { 's' };
+
+  /** JsonML flag. */
+  private final boolean jsonml;
+  /** Encoding. */
+  private final String encoding;
+  /** Chop whitespaces. */
+  private final boolean chop;
+  /** Converted names and their types. */
+  private final TokenIntMap types = new TokenIntMap();
+  /** Converted names. */
+  private final TokenMap names = new TokenMap();
+
+  /** Flag for sending events to the builder (second pass). */
+  private boolean emit;
+  /** Input. */
+  private NewlineInput input;
+  /** JSON parser. */
+  private org.basex.query.util.json.JSONParser parser;
+
   /**
    * Constructor.
    * @param source document source
@@ -59,42 +111,346 @@ public final class JSONParser extends XMLParser {
    */
   public JSONParser(final IO source, final Prop pr, final String options)
       throws IOException {
-    super(toXML(source, options), pr);
+
+    super(source, pr);
+    final ParserProp props = new ParserProp(options);
+    jsonml = props.is(ParserProp.JSONML);
+    encoding = props.get(ParserProp.ENCODING);
+    chop = pr.is(Prop.CHOP);
+
+    // cache input if it cannot be read twice
+    if(!jsonml && !(source instanceof IOContent ||
+        source instanceof IOFile && !((IOFile) source).archived())) {
+      src = new IOContent(new BufferInput(source.inputStream()).content());
+      src.name(source.name());
+    }
+  }
+
+  @Override
+  public void parse() throws IOException {
+    if(jsonml) {
+      parse(new JsonMLBuilder());
+    } else {
+      // first pass: collect types
+      parse(new JsonBuilder());
+      // second pass: send events to the builder
+      emit = true;
+      parse(new JsonBuilder());
+    }
+  }
+
+  @Override
+  public String det() {
+    return Util.info(SCANPOS_X_X, src.path(), parser == null ? 1 : parser.line());
+  }
+
+  @Override
+  public double prog() {
+    // the JSON input is parsed twice
+    final long l = src.length();
+    final double p = input == null || l <= 0 ? 0 : Math.min(1, (double) input.size() / l);
+    return jsonml ? p : (emit ? 1 + p : p) / 2;
   }
 
   /**
-   * Converts a JSON document to XML.
-   * @param io io reference
-   * @param options parsing options
-   * @return parser
+   * Parses the input and passes all events to the specified handler.
+   * @param handler handler
    * @throws IOException I/O exception
    */
-  public static IO toXML(final IO io, final String options) throws IOException {
-    // set parser properties
-    final ParserProp props = new ParserProp(options);
-    final boolean jsonml = props.is(ParserProp.JSONML);
-    final String encoding = props.get(ParserProp.ENCODING);
-
-    // parse input, using specified encoding
-    final byte[] content = new NewlineInput(io).encoding(encoding).content();
-
-    // parse input and convert to XML node
-    final ANode node;
+  private void parse(final JsonHandler handler) throws IOException {
+    input = new NewlineInput(src).encoding(encoding);
+    parser = new org.basex.query.util.json.JSONParser(input, null);
     try {
-      final XMLConverter conv = jsonml ?
-          new JsonMLConverter(null) : new JSONConverter(null);
-      node = conv.parse(content);
+      parser.parse(handler);
     } catch(final QueryException ex) {
-      throw new BaseXException(ex.getLocalizedMessage());
+      throw new BuildException(det() + COLS + ex.getLocalizedMessage());
+    } finally {
+      input.close();
     }
+  }
 
-    // serialize node
-    final ArrayOutput ao = new ArrayOutput();
-    node.serialize(Serializer.get(ao));
+  /**
+   * Raises an error with the specified message.
+   * @param msg error message
+   * @param ext error details
+   * @return build exception (indicates that an error is raised)
+   * @throws BuildException build exception
+   */
+  private BuildException error(final String msg, final Object... ext)
+      throws BuildException {
+    throw new BuildException(det() + COLS + msg, ext);
+  }
+
+  /**
+   * Sends the events of JSON documents to the builder.
+   * The element names are derived from the keys of objects, and the types of
+   * values are represented in attributes.
+   */
+  private final class JsonBuilder implements JsonHandler {
+    /** Name of the next element. */
+    private byte[] name = T_JSON;
+
+    @Override
+    public void openObject() throws IOException {
+      start(OBJECT);
+    }
+
+    @Override
+    public void openEntry(final byte[] key) {
+      byte[] nm = names.get(key);
+      if(nm == null) {
+        nm = JSONConverter.convert(key);
+        names.add(key, nm);
+      }
+      name = nm;
+    }
+
+    @Override
+    public void closeObject() throws IOException {
+      if(emit) builder.endElem();
+    }
 
-    // create XML input container
-    final IOContent xml = new IOContent(ao.toArray());
-    xml.name(io.name());
-    return xml;
+    @Override
+    public void openArray() throws IOException {
+      start(ARRAY);
+    }
+
+    @Override
+    public void openItem() {
+      name = T_VALUE;
+    }
+
+    @Override
+    public void closeArray() throws IOException {
+      if(emit) builder.endElem();
+    }
+
+    @Override
+    public void stringLit(final byte[] value) throws IOException {
+      atom(STRING, value);
+    }
+
+    @Override
+    public void numberLit(final byte[] value) throws IOException {
+      atom(NUMBER, value);
+    }
+
+    @Override
+    public void booleanLit(final boolean value) throws IOException {
+      atom(BOOLEAN, value ? TRUE : FALSE);
+    }
+
+    @Override
+    public void nullLit() throws IOException {
+      atom(NULLS, null);
+    }
+
+    /**
+     * Adds an element for an atomic value.
+     * @param type type of the value
+     * @param value value, or {@code null} for the null value
+     * @throws IOException I/O exception
+     */
+    private void atom(final int type, final byte[] value) throws IOException {
+      start(type);
+      if(emit) {
+        if(value != null) builder.text(chop ? trim(value) : value);
+        builder.endElem();
+      }
+    }
+
+    /**
+     * Opens an element for the current name, or registers the type of the
+     * value in the first pass.
+     * @param type type of the value
+     * @throws IOException I/O exception
+     */
+    private void start(final int type) throws IOException {
+      if(emit) {
+        // add type attribute if the name has values of different types
+        atts.reset();
+        if(types.value(name) == MIXED && type != STRING) atts.add(T_TYPE, TYPES[type]);
+        // attach types to root node
+        if(name == T_JSON) attach();
+        builder.startElem(name, atts);
+      } else {
+        final int t = types.value(name);
+        if(t == -1) types.add(name, type);
+        else if(t != type) types.add(name, MIXED);
+      }
+    }
+
+    /**
+     * Attaches the names that have the same type throughout the document
+     * to the root node.
+     */
+    private void attach() {
+      final TokenBuilder tb = new TokenBuilder();
+      for(int t = 0; t < STRING; t++) {
+        tb.reset();
+        for(int i = 1; i <= types.size(); i++) {
+          final byte[] nm = types.key(i);
+          if(types.value(nm) != t) continue;
+          if(!tb.isEmpty()) tb.add(' ');
+          tb.add(nm);
+        }
+        if(!tb.isEmpty()) atts.add(concat(TYPES[t], S), tb.finish());
+      }
+    }
+  }
+
+  /**
+   * Sends the events of JsonML documents to the builder. An element is
+   * opened as soon as its name and attributes have been parsed.
+   */
+  private final class JsonMLBuilder implements JsonHandler {
+    /** Number of parsed members of the opened arrays. */
+    private final IntList members = new IntList();
+    /** Name of an element that has not been opened yet. */
+    private byte[] elem;
+    /** Flag for a preceding text node. */
+    private boolean txt;
+    /** Flag for parsing an attribute object. */
+    private boolean attr;
+    /** Name of the next attribute. */
+    private byte[] key;
+
+    @Override
+    public void openObject() throws IOException {
+      if(attr) attr(T_OBJECT);
+      final int m = member(T_OBJECT);
+      if(m != 1) unexpected(m, T_OBJECT);
+      attr = true;
+    }
+
+    @Override
+    public void openEntry(final byte[] k) {
+      key = k;
+    }
+
+    @Override
+    public void closeObject() {
+      attr = false;
+    }
+
+    @Override
+    public void openArray() throws IOException {
+      if(attr) attr(T_ARRAY);
+      if(members.size() != 0) {
+        final int m = member(T_ARRAY);
+        if(m == 0) unexpected(m, T_ARRAY);
+        open();
+      }
+      members.push(0);
+      txt = false;
+    }
+
+    @Override
+    public void openItem() {
+      // members are counted by their values
+    }
+
+    @Override
+    public void closeArray() throws IOException {
+      if(members.pop() == 0) error("No element name specified in array");
+      open();
+      builder.endElem();
+      txt = false;
+    }
+
+    @Override
+    public void stringLit(final byte[] value) throws IOException {
+      if(attr) {
+        atts.add(qname(key), value);
+      } else if(member(T_STRING) == 0) {
+        elem = qname(value);
+        atts.reset();
+      } else {
+        if(txt) error("No subsequent texts allowed");
+        txt = true;
+        open();
+        builder.text(chop ? trim(value) : value);
+      }
+    }
+
+    @Override
+    public void numberLit(final byte[] value) throws IOException {
+      atom(T_NUMBER);
+    }
+
+    @Override
+    public void booleanLit(final boolean value) throws IOException {
+      atom(T_BOOLEAN);
+    }
+
+    @Override
+    public void nullLit() throws IOException {
+      atom(NULL);
+    }
+
+    /**
+     * Opens the current element if this has not been done yet.
+     * @throws IOException I/O exception
+     */
+    private void open() throws IOException {
+      if(elem == null) return;
+      builder.startElem(elem, atts);
+      elem = null;
+    }
+
+    /**
+     * Rejects a number, boolean or null value.
+     * @param type type of the value
+     * @throws IOException I/O exception
+     */
+    private void atom(final byte[] type) throws IOException {
+      if(attr) attr(type);
+      unexpected(member(type), type);
+    }
+
+    /**
+     * Counts a new member of the current array and returns its position.
+     * @param type type of the member
+     * @return position of the member
+     * @throws IOException I/O exception
+     */
+    private int member(final byte[] type) throws IOException {
+      final int s = members.size() - 1;
+      if(s < 0) error(TYPEEXP, T_ARRAY, "element constructor", type);
+      final int m = members.get(s);
+      members.set(s, m + 1);
+      return m;
+    }
+
+    /**
+     * Raises an error for an array member with an unexpected type.
+     * @param m position of the member
+     * @param type type of the member
+     * @throws IOException I/O exception
+     */
+    private void unexpected(final int m, final byte[] type) throws IOException {
+      if(m == 0) error(TYPEEXP, T_STRING, "element name", type);
+      error("No % allowed at this stage", type);
+    }
+
+    /**
+     * Raises an error for an attribute value that is no string.
+     * @param type type of the value
+     * @throws IOException I/O exception
+     */
+    private void attr(final byte[] type) throws IOException {
+      error(TYPEEXP, T_STRING, "attribute value", type);
+    }
+
+    /**
+     * Checks if the specified name is a valid QName.
+     * @param name name
+     * @return name
+     * @throws IOException I/O exception
+     */
+    private byte[] qname(final byte[] name) throws IOException {
+      if(!XMLToken.isNCName(name)) error("Invalid name: \"%\"", name);
+      return name;
+    }
   }
 }
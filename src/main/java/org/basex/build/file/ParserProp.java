@@ -18,6 +18,8 @@ public final class ParserProp extends AProp {
   public static final Object[] HEADER = { "header", false };
   /** Parser option: XML format. */
   public static final Object[] FORMAT = { "format", "verbose" };
+  /** Parser option: number of CSV parser threads; 0: number of processors. */
+  public static final Object[] THREADS = { "threads", 1 };
   /** Parser option: line. */
   public static final Object[] LINES = { "lines", true };
   /** Parser option: flat. */
@@ -10,12 +10,12 @@ import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
- * SAX Parser wrapper.
+ * SAX Parser wrapper, which sends SAX events to the specified database builder.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-final class SAXHandler extends DefaultHandler implements LexicalHandler {
+public final class SAXHandler extends DefaultHandler implements LexicalHandler {
   /** Temporary attribute array. */
   private final Atts atts = new Atts();
   /** Builder reference. */
@@ -39,7 +39,7 @@ final class SAXHandler extends DefaultHandler implements LexicalHandler {
    * @param build builder reference
    * @param ch chopping flag
    */
-  SAXHandler(final Builder build, final boolean ch) {
+  public SAXHandler(final Builder build, final boolean ch) {
     builder = build;
     chop = ch;
   }
@@ -53,7 +53,10 @@ final class SAXHandler extends DefaultHandler implements LexicalHandler {
       final int as = at.getLength();
       atts.reset();
       for(int a = 0; a < as; ++a) {
-        atts.add(token(at.getQName(a)), token(at.getValue(a)));
+        // namespace declarations are passed on as prefix mappings
+        final byte[] an = token(at.getQName(a));
+        if(eq(an, XMLNS) || startsWith(an, XMLNSC)) continue;
+        atts.add(an, token(at.getValue(a)));
       }
       builder.startElem(token(qn), atts);
       ++nodes;
@@ -74,6 +77,16 @@ final class SAXHandler extends DefaultHandler implements LexicalHandler {
     }
   }
 
+  @Override
+  public void endDocument() throws SAXException {
+    // flush texts on document level (which may be created by XSLT)
+    try {
+      finishText();
+    } catch(final IOException ex) {
+      error(ex);
+    }
+  }
+
   @Override
   public void characters(final char[] ch, final int s, final int l) {
     sb.append(ch, s, l);
@@ -9,6 +9,7 @@ import org.basex.core.cmd.*;
 import org.basex.data.*;
 import org.basex.io.out.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 import org.xml.sax.*;
 
 /**
@@ -142,6 +143,32 @@ public abstract class Command extends Progress {
     return createWrite();
   }
 
+  /**
+   * Checks if the command reads the accessed databases before it performs
+   * updates. If this is the case, write locks will only be acquired before the
+   * updates are performed ({@link Context#upgrade}), and other processes can
+   * read the databases in the meantime.
+   * @return result of check
+   */
+  protected boolean intent() {
+    return false;
+  }
+
+  /**
+   * Collects the names of all databases that will be accessed by the command.
+   * By default, commands that require an opened database will only access this
+   * database, and all other commands may access all databases.
+   * @param ctx database context
+   * @param db database names
+   * @return {@code false} if the accessed databases cannot be determined
+   */
+  public boolean databases(final Context ctx, final StringList db) {
+    final Data d = ctx.data();
+    if(!data || d == null) return false;
+    db.add(d.meta.name);
+    return true;
+  }
+
   /**
    * Checks if the command has updated any data.
    * If this method is called before command execution, it always returns {@code true}.
@@ -294,8 +321,11 @@ public abstract class Command extends Progress {
     // check permissions
     if(!ctx.perm(perm, d != null ? d.meta : null)) return error(PERM_NEEDED_X, perm);
 
-    // set updating flag
+    // set updating flag and accessed databases
     updating = updating(ctx);
+    intent = updating && intent();
+    final StringList dbs = new StringList();
+    databases = databases(ctx, dbs) ? dbs : null;
 
     try {
       // register process
@@ -9,6 +9,7 @@ import org.basex.index.*;
 import org.basex.io.random.*;
 import org.basex.query.util.pkg.*;
 import org.basex.server.*;
+import org.basex.util.list.*;
 
 /**
  * This class serves as a central database context.
@@ -29,6 +30,8 @@ public final class Context {
   public final MainProp mprop;
   /** Client connections. */
   public final Sessions sessions;
+  /** Compiled queries of client sessions. */
+  public final QueryCache queries;
   /** Event pool. */
   public final Events events;
   /** Database pool. */
@@ -86,6 +89,7 @@ public final class Context {
     datas = ctx.datas;
     events = ctx.events;
     sessions = ctx.sessions;
+    queries = ctx.queries;
     lock = ctx.lock;
     users = ctx.users;
     repo = ctx.repo;
@@ -102,7 +106,9 @@ public final class Context {
     datas = new Datas();
     events = new Events();
     sessions = new Sessions();
+    queries = new QueryCache();
     lock = new Lock(this);
+    BufferPool.get().size(mprop.num(MainProp.BUFFERSIZE));
     users = new Users(true);
     repo = new Repo(this);
     user = users.get(ADMIN);
@@ -248,6 +254,16 @@ public final class Context {
     return datas.pinned(db) || TableDiskAccess.locked(db, this);
   }
 
+  /**
+   * Discards all compiled queries that refer to the specified database.
+   * Must be called before a database is dropped or replaced, as compiled
+   * queries keep their databases pinned.
+   * @param db name of database
+   */
+  public void invalidate(final String db) {
+    queries.invalidate(new StringList().add(db));
+  }
+
   /**
    * Locks a writing process and starts the timeout.
    * @param pr process
@@ -258,15 +274,33 @@ public final class Context {
     lock.lock(pr);
   }
 
+  /**
+   * Converts the read locks of a registered process into write locks.
+   * @param pr process
+   */
+  public void upgrade(final Progress pr) {
+    lock.upgrade(pr);
+  }
+
   /**
    * Unlocks the process and stops the timeout.
    * @param pr process
    */
   public void unregister(final Progress pr) {
+    // compiled queries may refer to outdated database contents
+    if(pr.updating) queries.invalidate(pr.databases);
     lock.unlock(pr);
     pr.stopTimeout();
   }
 
+  /**
+   * Returns the process locking.
+   * @return lock instance
+   */
+  public Lock lock() {
+    return lock;
+  }
+
   /**
    * Adds the specified client session.
    * @param s session to be added
@@ -59,6 +59,16 @@ public final class Datas {
     return false;
   }
 
+  /**
+   * Checks if the specified data reference is contained in the pool.
+   * @param data data reference
+   * @return result of check
+   */
+  public synchronized boolean contains(final Data data) {
+    for(final Data d : list) if(d == data) return true;
+    return false;
+  }
+
   /**
    * Adds a data reference to the pool.
    * @param d data reference
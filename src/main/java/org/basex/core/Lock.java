@@ -1,28 +1,53 @@
 package org.basex.core;
 
-import java.util.LinkedList;
+import java.util.*;
+
+import org.basex.data.*;
 import org.basex.util.Util;
+import org.basex.util.list.StringList;
 
 /**
  * Management of executing read/write processes.
- * Supports multiple readers, limited by {@link MainProp#PARALLEL},
- * and a single writer (readers/writer lock).
+ * Locks are assigned per database: multiple readers, limited by
+ * {@link MainProp#PARALLEL}, or a single writer may access a database at the
+ * same time (readers/writer lock). The limit applies to each database: readers
+ * of other databases will not block a reader. Processes with an unknown set of databases
+ * ({@link Progress#databases} is {@code null}) will lock all databases.
+ *
+ * Updating processes with an update intent ({@link Progress#intent}) are
+ * treated as readers until they convert their locks into write locks, but
+ * only one of them may access a database at the same time. This way, other
+ * processes can read a database while updating queries are evaluated, and
+ * readers are only blocked while the updates are applied.
+ *
+ * All locks of a process are acquired in a single step, so that no process
+ * will hold some locks while waiting for others; this prevents deadlocks.
+ * Waiting processes are served in the order of their arrival: a process
+ * will not be started before all earlier processes it conflicts with.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-final class Lock {
+public final class Lock {
   /** Queue for all waiting processes. */
-  private final LinkedList<Object> queue = new LinkedList<Object>();
+  private final LinkedList<Progress> queue = new LinkedList<Progress>();
+  /** Active processes. */
+  private final ArrayList<Progress> active = new ArrayList<Progress>();
+  /** Databases with deferred flush operations. */
+  private final ArrayList<Data> pending = new ArrayList<Data>();
   /** Mutex object. */
   private final Object mutex = new Object();
   /** Database context. */
   private final Context ctx;
 
-  /** Number of active readers. */
-  private int readers;
-  /** Writer flag. */
-  private boolean writer;
+  /** Number of lock requests. */
+  private long requests;
+  /** Number of processes that had to wait for a lock. */
+  private long waits;
+  /** Total waiting time (nano seconds). */
+  private long waitTime;
+  /** Maximum waiting time (nano seconds). */
+  private long maxWait;
 
   /**
    * Default constructor.
@@ -37,32 +62,72 @@ final class Lock {
    * @param pr process
    */
   void lock(final Progress pr) {
-    final Object o = new Object();
+    final ProgressException stopped;
+    synchronized(mutex) {
+      // add process to queue
+      queue.add(pr);
+      ++requests;
+      try {
+        acquire(pr, true);
+        return;
+      } catch(final ProgressException ex) {
+        // the stopped process may have been expected to flush deferred
+        // changes: if no other updating process is waiting for them, it
+        // will be started as writer to flush them before it is finished
+        if(!pr.updating || !orphans(pr)) throw ex;
+        stopped = ex;
+        pr.intent = false;
+        queue.addFirst(pr);
+        acquire(pr, false);
+      }
+    }
+    unlock(pr);
+    throw stopped;
+  }
 
+  /**
+   * Converts the read locks of an active process into write locks. Conflicting
+   * processes that are still running will be finished first. The process is
+   * served before all waiting processes, so no other process can update the
+   * locked databases in the meantime.
+   * @param pr process
+   */
+  void upgrade(final Progress pr) {
     synchronized(mutex) {
-      // add object to queue
-      queue.add(o);
-
-      // maximum number of readers
-      final int maxReaders = Math.max(ctx.mprop.num(MainProp.PARALLEL), 1);
-
-      while(true) {
-        if(!writer && o == queue.get(0)) {
-          if(pr.updating) {
-            // check updating process
-            if(readers == 0) {
-              // start writing process
-              writer = true;
-              break;
-            }
-          } else if(readers < maxReaders) {
-            // increase number of readers
-            ++readers;
-            break;
-          }
-        }
+      upgrade(pr, true);
+    }
+  }
+
+  /**
+   * Converts the read locks of an active process into write locks.
+   * Must be called while the mutex is locked.
+   * @param pr process
+   * @param stoppable stop waiting if the process has been stopped
+   */
+  private void upgrade(final Progress pr, final boolean stoppable) {
+    if(writer(pr) || !active.remove(pr)) return;
+    pr.updating = true;
+    pr.intent = false;
+    queue.addFirst(pr);
+    ++requests;
+    mutex.notifyAll();
+    acquire(pr, stoppable);
+  }
+
+  /**
+   * Waits until the specified process, which has been added to the queue,
+   * can be started, and starts it. Must be called while the mutex is locked.
+   * @param pr process
+   * @param stoppable stop waiting if the process has been stopped
+   */
+  private void acquire(final Progress pr, final boolean stoppable) {
+    final long start = System.nanoTime();
+    boolean waited = false;
+    try {
+      while(!startable(pr)) {
+        waited = true;
         // check if process has already been stopped
-        pr.checkStop();
+        if(stoppable) pr.checkStop();
         // wait for next process to be finalized
         try {
           mutex.wait();
@@ -70,8 +135,50 @@ final class Lock {
           Util.stack(ex);
         }
       }
-      // start process, remove from queue
-      queue.remove(0);
+    } finally {
+      // remove process from queue; waiting processes may be affected
+      queue.remove(pr);
+      if(waited) {
+        final long time = System.nanoTime() - start;
+        ++waits;
+        waitTime += time;
+        maxWait = Math.max(maxWait, time);
+        mutex.notifyAll();
+      }
+    }
+    // start process
+    active.add(pr);
+  }
+
+  /**
+   * Checks if the flush operations of an updated database can be deferred
+   * (group commit). This is the case if other updating processes, including
+   * processes with an update intent, are waiting for the database: the changes
+   * will then be flushed by the last process of the group, which reduces the
+   * number of write operations if many small updates are performed in a row.
+   * If a waiting process is stopped before it is started, or if it does not
+   * perform updates, it will flush the changes when it releases its locks.
+   * Must be called by the updating process.
+   * @param data data reference
+   * @return result of check
+   */
+  public boolean defer(final Data data) {
+    synchronized(mutex) {
+      final boolean defer = writers(data.meta.name);
+      if(!defer) pending.remove(data);
+      else if(!pending.contains(data)) pending.add(data);
+      return defer;
+    }
+  }
+
+  /**
+   * Removes a database from the list of deferred flush operations.
+   * Must be called if the database is closed.
+   * @param data data reference
+   */
+  public void close(final Data data) {
+    synchronized(mutex) {
+      pending.remove(data);
     }
   }
 
@@ -80,13 +187,179 @@ final class Lock {
    * @param pr process
    */
   void unlock(final Progress pr) {
-    synchronized(mutex) {
-      if(pr.updating) {
-        writer = false;
-      } else {
-        --readers;
+    // a process with an update intent needs write locks to flush deferred changes
+    if(pr.intent) {
+      synchronized(mutex) {
+        if(active.contains(pr) && orphans(pr)) upgrade(pr, false);
       }
+    }
+    // flush deferred changes if no other updating processes are waiting;
+    // as the process is still active, no other process can access the data
+    if(writer(pr)) for(final Data d : flushable(pr)) d.flush();
+
+    synchronized(mutex) {
+      if(!active.remove(pr)) return;
       mutex.notifyAll();
     }
   }
+
+  /**
+   * Returns the number of lock requests.
+   * @return number of requests
+   */
+  public long requests() {
+    synchronized(mutex) { return requests; }
+  }
+
+  /**
+   * Returns the number of processes that had to wait for their locks.
+   * @return number of waiting processes
+   */
+  public long waits() {
+    synchronized(mutex) { return waits; }
+  }
+
+  /**
+   * Returns the total time spent on waiting for locks.
+   * @return waiting time (nano seconds)
+   */
+  public long waitTime() {
+    synchronized(mutex) { return waitTime; }
+  }
+
+  /**
+   * Returns the maximum time a single process spent on waiting for its locks.
+   * @return waiting time (nano seconds)
+   */
+  public long maxWait() {
+    synchronized(mutex) { return maxWait; }
+  }
+
+  /**
+   * Returns the databases with deferred flush operations that have been
+   * locked by the specified process, and that will not be accessed by other
+   * waiting updating processes.
+   * @param pr process
+   * @return databases to be flushed
+   */
+  private ArrayList<Data> flushable(final Progress pr) {
+    final ArrayList<Data> list = new ArrayList<Data>();
+    synchronized(mutex) {
+      if(!active.contains(pr)) return list;
+      final Iterator<Data> it = pending.iterator();
+      while(it.hasNext()) {
+        final Data d = it.next();
+        if(orphan(pr, d)) {
+          list.add(d);
+          it.remove();
+        }
+      }
+    }
+    return list;
+  }
+
+  /**
+   * Checks if the specified process locks databases with deferred flush
+   * operations that will not be accessed by other waiting updating processes.
+   * Must be called while the mutex is locked.
+   * @param pr process
+   * @return result of check
+   */
+  private boolean orphans(final Progress pr) {
+    for(final Data d : pending) if(orphan(pr, d)) return true;
+    return false;
+  }
+
+  /**
+   * Checks if the deferred flush operations of the specified database
+   * need to be performed by the specified process.
+   * Must be called while the mutex is locked.
+   * @param pr process
+   * @param data data reference
+   * @return result of check
+   */
+  private boolean orphan(final Progress pr, final Data data) {
+    final String db = data.meta.name;
+    return (pr.databases == null || pr.databases.contains(db)) && !writers(db);
+  }
+
+  /**
+   * Checks if the specified process needs write locks.
+   * @param pr process
+   * @return result of check
+   */
+  private static boolean writer(final Progress pr) {
+    return pr.updating && !pr.intent;
+  }
+
+  /**
+   * Checks if updating processes, or processes with an update intent,
+   * are waiting for the specified database.
+   * Must be called while the mutex is locked.
+   * @param db name of database
+   * @return result of check
+   */
+  private boolean writers(final String db) {
+    for(final Progress p : queue) {
+      if(p.updating && (p.databases == null || p.databases.contains(db))) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks if the specified process can be started.
+   * @param pr process
+   * @return result of check
+   */
+  private boolean startable(final Progress pr) {
+    // check running processes
+    if(blocked(pr)) return false;
+    // count running readers that access the same databases
+    int r = 0;
+    for(final Progress p : active) if(!writer(p) && overlaps(pr, p)) ++r;
+    // check processes that have been queued before
+    for(final Progress p : queue) {
+      if(p == pr) break;
+      if(conflicts(pr, p)) return false;
+      // earlier readers will be started first
+      if(!writer(p) && overlaps(pr, p) && !blocked(p)) ++r;
+    }
+    // maximum number of readers per database
+    return writer(pr) || r < Math.max(ctx.mprop.num(MainProp.PARALLEL), 1);
+  }
+
+  /**
+   * Checks if the specified process conflicts with a running process.
+   * @param pr process
+   * @return result of check
+   */
+  private boolean blocked(final Progress pr) {
+    for(final Progress p : active) if(conflicts(pr, p)) return true;
+    return false;
+  }
+
+  /**
+   * Checks if two processes access the same databases, and if at least one
+   * of them performs updates, or if both have an update intent.
+   * @param pr1 first process
+   * @param pr2 second process
+   * @return result of check
+   */
+  private static boolean conflicts(final Progress pr1, final Progress pr2) {
+    return (writer(pr1) || writer(pr2) || pr1.intent && pr2.intent) &&
+        overlaps(pr1, pr2);
+  }
+
+  /**
+   * Checks if two processes access the same databases.
+   * @param pr1 first process
+   * @param pr2 second process
+   * @return result of check
+   */
+  private static boolean overlaps(final Progress pr1, final Progress pr2) {
+    final StringList db1 = pr1.databases, db2 = pr2.databases;
+    if(db1 == null || db2 == null) return true;
+    for(final String db : db1) if(db2.contains(db)) return true;
+    return false;
+  }
 }
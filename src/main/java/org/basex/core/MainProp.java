@@ -57,10 +57,19 @@ public final class MainProp extends AProp {
   public static final Object[] TIMEOUT = { "TIMEOUT", 0 };
   /** Keep alive time of clients; deactivated if set to 0. */
   public static final Object[] KEEPALIVE = { "KEEPALIVE", 0 };
+  /** Server: timeout (seconds) for waiting for data of a client request;
+   * deactivated if set to 0. */
+  public static final Object[] CLIENTTIMEOUT = { "CLIENTTIMEOUT", 30 };
+  /** Server: maximum number of threads for processing client requests. */
+  public static final Object[] WORKERS = { "WORKERS", 64 };
+  /** Server: maximum number of compiled queries to be cached; deactivated if set to 0. */
+  public static final Object[] QUERYCACHE = { "QUERYCACHE", 64 };
   /** Debug mode. */
   public static final Object[] DEBUG = { "DEBUG", false };
   /** Defines the number of parallel readers. */
   public static final Object[] PARALLEL = { "PARALLEL", 8 };
+  /** Size of the buffer pool for database files (MB). */
+  public static final Object[] BUFFERSIZE = { "BUFFERSIZE", 16 };
 
   /**
    * Constructor, reading properties from disk.
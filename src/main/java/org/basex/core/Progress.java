@@ -2,6 +2,7 @@ package org.basex.core;
 
 import static org.basex.core.Text.*;
 import org.basex.util.Performance;
+import org.basex.util.list.StringList;
 
 /**
  * This class is implemented by all kinds of processes.
@@ -14,6 +15,14 @@ import org.basex.util.Performance;
 public abstract class Progress {
   /** Updating flag. */
   public boolean updating;
+  /**
+   * Update intent: the updating process reads the accessed databases first,
+   * and its read locks will be converted into write locks before updates
+   * are performed ({@link Context#upgrade}).
+   */
+  public boolean intent;
+  /** Names of the databases accessed by the process ({@code null}: all databases). */
+  public StringList databases;
 
   /** Stopped flag. */
   private boolean stopped;
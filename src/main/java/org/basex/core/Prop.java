@@ -78,6 +78,8 @@ public final class Prop extends AProp {
   public static final Object[] ADDARCHIVES = { "ADDARCHIVES", true };
   /** Flag for adding remaining files as raw files. */
   public static final Object[] ADDRAW = { "ADDRAW", false };
+  /** Number of threads for parsing multiple files; 0: number of processors. */
+  public static final Object[] PARSETHREADS = { "PARSETHREADS", 1 };
   /** Flag for skipping corrupt files. */
   public static final Object[] SKIPCORRUPT = { "SKIPCORRUPT", false };
   /** Define import parser. */
@@ -101,12 +103,20 @@ public final class Prop extends AProp {
   /** Flag for creating a full-text index. */
   public static final Object[] FTINDEX = { "FTINDEX", false };
 
+  /** Names of elements whose texts are indexed (all if empty). */
+  public static final Object[] TEXTINCLUDE = { "TEXTINCLUDE", "" };
+  /** Names of attributes whose values are indexed (all if empty). */
+  public static final Object[] ATTRINCLUDE = { "ATTRINCLUDE", "" };
   /** Maximum length of index entries. */
   public static final Object[] MAXLEN = { "MAXLEN", 96 };
   /** Maximum number of name categories. */
   public static final Object[] MAXCATS = { "MAXCATS", 100 };
   /** Flag for automatic index update. */
   public static final Object[] UPDINDEX = { "UPDINDEX", false };
+  /** Flag for memory-mapping the table, text and attribute value files. */
+  public static final Object[] MMAP = { "MMAP", false };
+  /** Number of threads for building indexes; 0: number of processors. */
+  public static final Object[] INDEXTHREADS = { "INDEXTHREADS", 0 };
 
   /** Writes original files back after updates. */
   public static final Object[] WRITEBACK = { "WRITEBACK", false };
@@ -116,6 +126,10 @@ public final class Prop extends AProp {
   public static final Object[] FORCECREATE = { "FORCECREATE", false };
   /** Flushes the database after each update. */
   public static final Object[] AUTOFLUSH = { "AUTOFLUSH", true };
+  /** Maximum number of updates that are flushed together; 0: no group commits.
+   * If group commits are enabled, an update may be finished before its
+   * changes have been written to disk. */
+  public static final Object[] GROUPCOMMIT = { "GROUPCOMMIT", 0 };
 
   /** Maximum number of index occurrences to print. */
   public static final Object[] MAXSTAT = { "MAXSTAT", 30 };
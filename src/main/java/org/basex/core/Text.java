@@ -171,6 +171,8 @@ public interface Text {
   String UNKNOWN_HOST_X = lang("unknown_host_x");
   /** Timeout exceeded. */
   String TIMEOUT_EXCEEDED = lang("timeout_exceeded");
+  /** Databases were updated while results were streamed. */
+  String STREAM_UPDATED = lang("stream_updated");
   /** Connection error. */
   String CONNECTION_ERROR = lang("connection_error");
   /** Access denied. */
@@ -293,7 +295,7 @@ public interface Text {
     LI + CmdInfo.DATABASE + ": " + lang("c_info23") + NL +
     LI + CmdInfo.INDEX + ": " + lang("c_info24") + NL +
     LI + CmdInfo.STORAGE + " [start end] | [" + C_QUERY + "]: " +
-      lang("c_info25")
+      lang("c_info25") + NL + lang("c_querycache")
   };
   /** Command help. */
   String[] HELPCLOSE = {
@@ -377,7 +379,7 @@ public interface Text {
     LI + CmdShow.EVENTS + ": " + lang("c_show26") + NL +
     LI + CmdShow.SESSIONS + ": " + lang("c_show23") + NL +
     LI + CmdShow.USERS + " (" + ON + " [database]): " + lang("c_show24") + NL +
-    LI + CmdShow.BACKUPS + ": " + lang("c_show25")
+    LI + CmdShow.BACKUPS + ": " + lang("c_show25") + NL + lang("c_querycache")
   };
   /** Command help. */
   String[] HELPGRANT = {
@@ -489,6 +491,8 @@ public interface Text {
   String DB_CREATED_X_X = lang("db_created_%_%");
   /** Path added. */
   String PATH_ADDED_X_X = lang("path_added_%_%");
+  /** Info on multiple added paths. */
+  String PATHS_ADDED_X_X = lang("paths_added_%_%");
   /** Path deleted. */
   String DOCS_DELETED_X_X = lang("docs_deleted_%_%");
   /** Path renamed. */
@@ -506,6 +510,8 @@ public interface Text {
   String SKIPPED = lang("skipped");
   /** Info on skipped corrupt files. */
   String MORE_SKIPPED_X = lang("more_skipped_%");
+  /** Info on files that have been parsed in parallel. */
+  String PARSED_FILES_X_X_X = lang("parsed_files_%_%_%");
   /** Missing database name. */
   String ENTER_DB_NAME = lang("enter_db_name");
   /** No tokenizer found. */
@@ -587,6 +593,12 @@ public interface Text {
   String LI_SIZE = LI + "Size: ";
   /** Index info. */
   String LI_ENTRIES = LI + "Entries: ";
+  /** Index info. */
+  String LI_CACHE = LI + "Cache: ";
+  /** Index info. */
+  String LI_NUMERIC = LI + "Numeric Keys: ";
+  /** Index info. */
+  String LI_INCLUDE = LI + "Included Names: ";
 
   /** Index info. */
   String TRIE = "Trie";
@@ -794,6 +806,26 @@ public interface Text {
   String GENERAL_INFO = lang("general_info");
   /** "Main Options". */
   String MAIN_OPTIONS = lang("main_options");
+  /** "Locking". */
+  String LOCKING = lang("locking");
+  /** "Lock Requests". */
+  String LOCK_REQUESTS = lang("lock_requests");
+  /** "Waiting Processes". */
+  String LOCK_WAITS = lang("lock_waits");
+  /** "Waiting Time". */
+  String LOCK_WAIT_TIME = lang("lock_wait_time");
+  /** "Buffer Pool". */
+  String BUFFER_POOL = lang("buffer_pool");
+  /** "Hits". */
+  String BUFFER_HITS = lang("buffer_hits");
+  /** "Misses". */
+  String BUFFER_MISSES = lang("buffer_misses");
+  /** "Evictions". */
+  String BUFFER_EVICTIONS = lang("buffer_evictions");
+  /** "Query Cache". */
+  String QUERY_CACHE = lang("query_cache");
+  /** "Saved Time". */
+  String SAVED_TIME = lang("saved_time");
 
   /** "(chopped)". */
   String CHOPPED = " (" + lang("chopped") + ')';
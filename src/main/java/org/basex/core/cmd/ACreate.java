@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.data.DataText.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -83,26 +84,45 @@ public abstract class ACreate extends Command {
   }
 
   /**
-   * Builds the specified index.
-   * @param index index to be built
+   * Builds the specified indexes. If allowed, the indexes are built
+   * concurrently (see {@link Prop#INDEXTHREADS}).
    * @param data data reference
-   * @param cmd calling command
+   * @param cmd calling command (can be {@code null})
+   * @param indexes indexes to be built
    * @throws IOException I/O exception
    */
-  protected static void create(final IndexType index, final Data data, final ACreate cmd)
-      throws IOException {
+  protected static void create(final Data data, final ACreate cmd,
+      final IndexType... indexes) throws IOException {
 
-    if(data instanceof MemData) return;
+    if(data instanceof MemData || indexes.length == 0) return;
 
-    final IndexBuilder ib;
-    switch(index) {
-      case TEXT:      ib = new ValueBuilder(data, true); break;
-      case ATTRIBUTE: ib = new ValueBuilder(data, false); break;
-      case FULLTEXT:  ib = FTBuilder.get(data); break;
-      default:        throw Util.notexpected();
+    final int il = indexes.length;
+    final IndexBuilder[] ibs = new IndexBuilder[il];
+    for(int i = 0; i < il; i++) {
+      switch(indexes[i]) {
+        case TEXT:      ibs[i] = new ValueBuilder(data, true); break;
+        case ATTRIBUTE: ibs[i] = new ValueBuilder(data, false); break;
+        case FULLTEXT:  ibs[i] = FTBuilder.get(data); break;
+        default:        throw Util.notexpected();
+      }
     }
-    data.closeIndex(index);
-    data.setIndex(index, (cmd == null ? ib : cmd.progress(ib)).build());
+    for(final IndexType index : indexes) data.closeIndex(index);
+    final IndexBuilders ib = new IndexBuilders(data, ibs);
+    final Index[] idx = (cmd == null ? ib : cmd.progress(ib)).build();
+    for(int i = 0; i < il; i++) data.setIndex(indexes[i], idx[i]);
+  }
+
+  /**
+   * Returns the indexes to be built for the specified meta data.
+   * @param md meta data
+   * @return indexes
+   */
+  static IndexType[] indexes(final MetaData md) {
+    final ArrayList<IndexType> il = new ArrayList<IndexType>();
+    if(md.createtext) il.add(IndexType.TEXT);
+    if(md.createattr) il.add(IndexType.ATTRIBUTE);
+    if(md.createftxt) il.add(IndexType.FULLTEXT);
+    return il.toArray(new IndexType[il.size()]);
   }
 
   /**
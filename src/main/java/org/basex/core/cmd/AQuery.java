@@ -18,6 +18,7 @@ import org.basex.query.iter.Iter;
 import static org.basex.query.util.Err.XPSTACK;
 import org.basex.util.Performance;
 import org.basex.util.Util;
+import org.basex.util.list.StringList;
 
 import java.io.IOException;
 
@@ -77,6 +78,7 @@ abstract class AQuery extends Command {
           // reuse existing processor instance
           if(r != 0) qp = null;
           qp = queryProcessor(query, context);
+          qp.ctx.process = this;
           qp.parse();
           pars += init + p.time();
           init = 0;
@@ -178,6 +180,22 @@ abstract class AQuery extends Command {
     return super.updating(ctx) || args[0] != null && updating(ctx, args[0]);
   }
 
+  @Override
+  protected boolean intent() {
+    // updating queries are evaluated before write locks are acquired
+    return true;
+  }
+
+  @Override
+  public boolean databases(final Context ctx, final StringList db) {
+    // erroneous queries will not access any databases
+    if(qe != null) return true;
+    if(qp == null) return super.databases(ctx, db);
+    if(qp.databases == null) return false;
+    db.add(qp.databases.toArray());
+    return true;
+  }
+
   @Override
   public boolean updated() {
     return qp == null || qp.updates() != 0;
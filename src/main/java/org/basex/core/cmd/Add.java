@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import javax.xml.transform.sax.*;
 
@@ -12,6 +13,7 @@ import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Evaluates the 'add' command and adds a document to a collection.<br/>
@@ -23,6 +25,10 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public final class Add extends ACreate {
+  /** Target paths of additional documents. */
+  private final StringList paths = new StringList();
+  /** Inputs of additional documents. */
+  private final ArrayList<IO> inputs = new ArrayList<IO>();
   /** Builder. */
   private Builder build;
   /** Indicates if database should be locked. */
@@ -52,57 +58,55 @@ public final class Add extends ACreate {
     super(Perm.WRITE, true, path == null ? "" : path, input);
   }
 
+  /**
+   * Adds another document to the batch of documents that will be added by
+   * this command. All documents will be parsed in a single run and added to
+   * the database in a single operation.
+   * @param path target path, optionally terminated by a new file name.
+   * If {@code null}, the name of the input will be set as path.
+   * @param input input
+   * @return self reference
+   */
+  public Add add(final String path, final IO input) {
+    paths.add(path == null ? "" : path);
+    inputs.add(input);
+    return this;
+  }
+
   @Override
   protected boolean run() {
-    final boolean create = context.user.has(Perm.CREATE);
-    String name = MetaData.normPath(args[0]);
-    if(name == null || name.endsWith(".")) return error(NAME_INVALID_X, args[0]);
-
-    // add slash to the target if the addressed file is an archive or directory
-    IO io = null;
-    if(in == null) {
-      io = IO.get(args[1]);
-    } else if(in.getSystemId() != null) {
-      io = IO.get(in.getSystemId());
-    } else if(in.getByteStream() != null) {
-      try {
-        io = cache();
-      } catch(final IOException ex) {
-        return error(Util.message(ex));
+    final BatchParser bp = new BatchParser(prop);
+    String name = null;
+    // single input, specified by the command arguments
+    if(args[1] != null || in != null || inputs.isEmpty()) {
+      IO io = null;
+      if(in == null) {
+        io = IO.get(args[1]);
+      } else if(in.getSystemId() != null) {
+        io = IO.get(in.getSystemId());
+      } else if(in.getByteStream() != null) {
+        try {
+          io = cache();
+        } catch(final IOException ex) {
+          return error(Util.message(ex));
+        }
       }
+      name = parser(args[0], io, args[1], bp);
+      if(name == null) return false;
     }
-
-    if(io != null) {
-      if(!io.exists()) return error(RESOURCE_NOT_FOUND_X, create ? io : args[1]);
-      if(!name.endsWith("/") && (io.isDir() || io.isArchive())) name += '/';
-    }
-
-    String target = "";
-    final int s = name.lastIndexOf('/');
-    if(s != -1) {
-      target = name.substring(0, s);
-      name = name.substring(s + 1);
-    }
-
-    final Data data = context.data();
-    final Parser parser;
-    if(io != null) {
-      // set name of document
-      if(!name.isEmpty()) io.name(name);
-      // get name from io reference
-      else if(!(io instanceof IOContent)) name = io.name();
-      parser = new DirParser(io, prop, data.meta.path);
-    } else {
-      parser = new SAXWrapper(new SAXSource(in), name, context.prop);
+    // batch of inputs
+    for(int i = 0; i < inputs.size(); i++) {
+      final IO io = inputs.get(i);
+      final String nm = parser(paths.get(i), io, io.name(), bp);
+      if(nm == null) return false;
+      if(name == null) name = nm;
     }
-    parser.target(target);
-
-    // ensure that the final name is not empty
-    if(name.isEmpty()) return error(NAME_INVALID_X, name);
+    final Parser parser = bp.size() == 1 ? bp.parser(0) : bp;
 
     // create disk instances for large documents
     // (does not work for input streams and directories)
-    final long fl = parser.src.length();
+    long fl = 0;
+    for(int p = 0; p < bp.size(); p++) fl += Math.max(0, bp.parser(p).src.length());
     boolean large = false;
     final Runtime rt = Runtime.getRuntime();
     if(fl > rt.freeMemory() / 3) {
@@ -113,6 +117,7 @@ public final class Add extends ACreate {
     if(prop.is(Prop.MAINMEM)) large = false;
 
     // create random database name for disk-based creation
+    final Data data = context.data();
     final String db = large ? context.mprop.random(data.meta.name) : name;
     build = large ? new DiskBuilder(db, parser, context) : new MemBuilder(db, parser);
 
@@ -133,13 +138,76 @@ public final class Add extends ACreate {
 
     // skip update if fragment is empty
     if(tmp.meta.size > 1) {
+      context.upgrade(this);
       if(lock && !data.startUpdate()) return error(DB_PINNED_X, data.meta.name);
       data.insert(data.meta.size, -1, tmp);
       context.update();
       if(lock) data.finishUpdate();
     }
     // return info message
-    return info(parser.info() + PATH_ADDED_X_X, name, perf);
+    return bp.size() == 1 ? info(parser.info() + PATH_ADDED_X_X, name, perf) :
+      info(parser.info() + PATHS_ADDED_X_X, bp.size(), perf);
+  }
+
+  @Override
+  protected boolean intent() {
+    // the documents are parsed before write locks are acquired
+    return true;
+  }
+
+  /**
+   * Adds a parser for the specified input to the batch parser.
+   * @param path target path
+   * @param io input, or {@code null} if the streamed input is parsed as XML
+   * @param input input string (used for error messages)
+   * @param bp batch parser
+   * @return name of the document, or {@code null} if an error occurred
+   */
+  private String parser(final String path, final IO io, final String input,
+      final BatchParser bp) {
+
+    final boolean create = context.user.has(Perm.CREATE);
+    String name = MetaData.normPath(path);
+    if(name == null || name.endsWith(".")) {
+      error(NAME_INVALID_X, path);
+      return null;
+    }
+
+    // add slash to the target if the addressed file is an archive or directory
+    if(io != null) {
+      if(!io.exists()) {
+        error(RESOURCE_NOT_FOUND_X, create ? io : input);
+        return null;
+      }
+      if(!name.endsWith("/") && (io.isDir() || io.isArchive())) name += '/';
+    }
+
+    String target = "";
+    final int s = name.lastIndexOf('/');
+    if(s != -1) {
+      target = name.substring(0, s);
+      name = name.substring(s + 1);
+    }
+
+    final Parser parser;
+    if(io != null) {
+      // set name of document
+      if(!name.isEmpty()) io.name(name);
+      // get name from io reference
+      else if(!(io instanceof IOContent)) name = io.name();
+      parser = new DirParser(io, prop, context.data().meta.path);
+    } else {
+      parser = new SAXWrapper(new SAXSource(in), name, context.prop);
+    }
+    parser.target(target);
+
+    // ensure that the final name is not empty
+    if(name.isEmpty()) {
+      error(NAME_INVALID_X, name);
+      return null;
+    }
+    bp.add(parser);
+    return name;
   }
 
   @Override
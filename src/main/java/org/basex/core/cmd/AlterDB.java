@@ -6,6 +6,7 @@ import org.basex.core.*;
 import org.basex.core.Commands.Cmd;
 import org.basex.core.Commands.CmdAlter;
 import org.basex.data.*;
+import org.basex.util.list.*;
 
 /**
  * Evaluates the 'alter database' command and renames a database.
@@ -40,6 +41,7 @@ public final class AlterDB extends ACreate {
     if(mprop.dbexists(trg)) return error(DB_EXISTS_X, trg);
 
     // close database if it's currently opened and not opened by others
+    context.invalidate(src);
     if(!closed) closed = close(context, src);
     // check if source database is still opened
     if(context.pinned(src)) return error(DB_PINNED_X, src);
@@ -66,6 +68,12 @@ public final class AlterDB extends ACreate {
     return false;
   }
 
+  @Override
+  public boolean databases(final Context ctx, final StringList db) {
+    db.add(args[0]).add(args[1]);
+    return true;
+  }
+
   @Override
   public boolean newData(final Context ctx) {
     closed = close(ctx, args[0]);
@@ -79,6 +79,12 @@ public final class Copy extends Command {
     return ok;
   }
 
+  @Override
+  public boolean databases(final Context ctx, final StringList db) {
+    db.add(args[0]).add(args[1]);
+    return true;
+  }
+
   @Override
   protected String tit() {
     return COPY;
@@ -19,6 +19,7 @@ import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 import org.xml.sax.*;
 
 /**
@@ -105,6 +106,7 @@ public final class CreateDB extends ACreate {
         context.openDB(data);
         context.pin(data);
       } else {
+        context.invalidate(name);
         if(context.pinned(name)) return error(DB_PINNED_X, name);
 
         // create disk-based instance
@@ -114,9 +116,7 @@ public final class CreateDB extends ACreate {
         if(!open.run(context)) return error(open.info());
         final Data data = context.data();
         try {
-          if(data.meta.createtext) create(IndexType.TEXT,      data, this);
-          if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, this);
-          if(data.meta.createftxt) create(IndexType.FULLTEXT,  data, this);
+          create(data, this, indexes(data.meta));
         } finally {
           data.finishUpdate();
         }
@@ -159,6 +159,7 @@ public final class CreateDB extends ACreate {
     if(prop.is(Prop.MAINMEM)) return MemBuilder.build(name, parser);
 
     // database is currently locked by another process
+    ctx.invalidate(name);
     if(ctx.pinned(name)) throw new BaseXException(DB_PINNED_X, name);
 
     // create disk builder, set database path
@@ -210,6 +211,12 @@ public final class CreateDB extends ACreate {
     return mainMem(new DirParser(source, ctx.prop, null), ctx);
   }
 
+  @Override
+  public boolean databases(final Context ctx, final StringList db) {
+    db.add(args[0]);
+    return true;
+  }
+
   @Override
   public void build(final CommandBuilder cb) {
     cb.init(Cmd.CREATE + " " + CmdCreate.DB).args();
@@ -38,10 +38,12 @@ public final class CreateIndex extends ACreate {
     switch(ci) {
       case TEXT:
         data.meta.createtext = true;
+        data.meta.textinclude = prop.get(Prop.TEXTINCLUDE);
         index = IndexType.TEXT;
         break;
       case ATTRIBUTE:
         data.meta.createattr = true;
+        data.meta.attrinclude = prop.get(Prop.ATTRINCLUDE);
         index = IndexType.ATTRIBUTE;
         break;
       case FULLTEXT:
@@ -60,7 +62,7 @@ public final class CreateIndex extends ACreate {
 
     if(!data.startUpdate()) return error(DB_PINNED_X, data.meta.name);
     try {
-      create(index, data, this);
+      create(data, this, index);
       return info(INDEX_CREATED_X_X, index, perf);
     } catch(final IOException ex) {
       Util.debug(ex);
@@ -36,6 +36,7 @@ public final class DropDB extends ACreate {
     boolean ok = true;
     for(final String db : dbs) {
       // close database if it's currently opened
+      context.invalidate(db);
       close(context, db);
       // check if database is still pinned
       if(context.pinned(db)) {
@@ -84,6 +85,14 @@ public final class DropDB extends ACreate {
     return ok;
   }
 
+  @Override
+  public boolean databases(final Context ctx, final StringList db) {
+    // glob syntax may address all databases
+    if(!MetaData.validName(args[0], false)) return false;
+    db.add(args[0]);
+    return true;
+  }
+
   @Override
   public boolean newData(final Context ctx) {
     return close(ctx, args[0]);
@@ -5,6 +5,7 @@ import static org.basex.core.Text.*;
 import java.io.IOException;
 
 import org.basex.core.*;
+import org.basex.server.QueryCache;
 import org.basex.util.Performance;
 import org.basex.util.TokenBuilder;
 
@@ -45,10 +46,34 @@ public final class Info extends AInfo {
       final AProp prop = context.mprop;
       tb.add(NL + MAIN_OPTIONS + NL);
       for(final String s : prop) format(tb, s, prop.get(s).toString());
+
+      final Lock lock = context.lock();
+      tb.add(NL + LOCKING + NL);
+      format(tb, LOCK_REQUESTS, Long.toString(lock.requests()));
+      format(tb, LOCK_WAITS, Long.toString(lock.waits()));
+      format(tb, LOCK_WAIT_TIME, Performance.getTime(lock.waitTime(), 1) +
+          " (max. " + Performance.getTime(lock.maxWait(), 1) + ')');
+      tb.add(NL + queries(context));
     }
     final AProp prop = context.prop;
     tb.add(NL + OPTIONS + NL);
     for(final String s : prop) format(tb, s, prop.get(s).toString());
     return tb.toString();
   }
+
+  /**
+   * Creates an information string on the cache of compiled queries.
+   * @param context database context
+   * @return info string
+   */
+  public static String queries(final Context context) {
+    final QueryCache qc = context.queries;
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(QUERY_CACHE + NL);
+    format(tb, SIZE, qc.size() + " (max. " + context.mprop.num(MainProp.QUERYCACHE) + ')');
+    format(tb, BUFFER_HITS, Long.toString(qc.hits()));
+    format(tb, BUFFER_MISSES, Long.toString(qc.misses()));
+    format(tb, SAVED_TIME, Performance.getTime(qc.saved(), 1));
+    return tb.toString();
+  }
 }
@@ -11,6 +11,7 @@ import org.basex.core.*;
 import org.basex.core.Commands.Cmd;
 import org.basex.core.Commands.CmdInfo;
 import org.basex.data.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 
 /**
@@ -35,9 +36,26 @@ public final class InfoDB extends AInfo {
   protected boolean run() throws IOException {
     final boolean create = context.user.has(Perm.CREATE);
     out.print(db(context.data().meta, false, true, create));
+    out.print(NL + buffers());
     return true;
   }
 
+  /**
+   * Creates an information string on the buffer pool.
+   * @return info string
+   */
+  public static String buffers() {
+    final BufferPool bp = BufferPool.get();
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(BUFFER_POOL + NL);
+    format(tb, SIZE, Performance.format(bp.size()) + " (max. " +
+        Performance.format(bp.max()) + ')');
+    format(tb, BUFFER_HITS, Long.toString(bp.hits()));
+    format(tb, BUFFER_MISSES, Long.toString(bp.misses()));
+    format(tb, BUFFER_EVICTIONS, Long.toString(bp.evictions()));
+    return tb.toString();
+  }
+
   /**
    * Creates a database information string.
    * @param meta meta data
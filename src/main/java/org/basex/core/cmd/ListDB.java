@@ -15,6 +15,7 @@ import org.basex.io.MimeTypes;
 import org.basex.util.Table;
 import org.basex.util.Util;
 import org.basex.util.list.IntList;
+import org.basex.util.list.StringList;
 import org.basex.util.list.TokenList;
 
 /**
@@ -83,6 +84,14 @@ public final class ListDB extends Command {
     return true;
   }
 
+  @Override
+  public boolean databases(final Context ctx, final StringList db) {
+    final String path = args[0];
+    final int i = path.indexOf('/');
+    db.add(i == -1 ? path : path.substring(0, i));
+    return true;
+  }
+
   @Override
   public void build(final CommandBuilder cb) {
     cb.init(Cmd.LIST.toString()).args();
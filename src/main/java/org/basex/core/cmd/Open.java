@@ -7,6 +7,7 @@ import java.io.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Evaluates the 'open' command and opens a database.
@@ -51,6 +52,14 @@ public final class Open extends Command {
     }
   }
 
+  @Override
+  public boolean databases(final Context ctx, final StringList db) {
+    final String path = args[0];
+    final int i = path.indexOf('/');
+    db.add(i == -1 ? path : path.substring(0, i));
+    return true;
+  }
+
   @Override
   public boolean newData(final Context ctx) {
     return new Close().run(ctx);
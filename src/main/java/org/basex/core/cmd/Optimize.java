@@ -3,6 +3,7 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -119,29 +120,31 @@ public final class Optimize extends ACreate {
     }
 
     // rebuild value indexes
-    optimize(IndexType.ATTRIBUTE, data, md.createattr, md.attrindex, c);
-    optimize(IndexType.TEXT,      data, md.createtext, md.textindex, c);
-    optimize(IndexType.FULLTEXT,  data, md.createftxt, md.ftxtindex, c);
+    final ArrayList<IndexType> il = new ArrayList<IndexType>();
+    optimize(IndexType.ATTRIBUTE, data, md.createattr, md.attrindex, il);
+    optimize(IndexType.TEXT,      data, md.createtext, md.textindex, il);
+    // incrementally updated full-text indexes are rebuilt
+    final boolean ftxt = md.createftxt && data.updated(IndexType.FULLTEXT);
+    optimize(IndexType.FULLTEXT,  data, md.createftxt, md.ftxtindex && !ftxt, il);
+    create(data, c, il.toArray(new IndexType[il.size()]));
   }
 
   /**
-   * Optimizes the specified index.
+   * Drops the specified index, or adds it to the list of indexes to be created.
    * @param type index type
    * @param d data reference
    * @param create create flag
    * @param old old flag
-   * @param c calling command
-   * @throws IOException I/O exception
-   *
+   * @param il indexes to be created
    */
   private static void optimize(final IndexType type, final Data d,
-      final boolean create, final boolean old, final Optimize c) throws IOException {
+      final boolean create, final boolean old, final ArrayList<IndexType> il) {
 
     // check if flags are nothing has changed
     if(create == old) return;
 
     // create or drop index
-    if(create) create(type, d, c);
+    if(create) il.add(type);
     else drop(type, d);
   }
 }
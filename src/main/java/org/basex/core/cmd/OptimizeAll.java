@@ -8,7 +8,6 @@ import org.basex.build.*;
 import org.basex.core.*;
 import org.basex.core.Commands.Cmd;
 import org.basex.data.*;
-import org.basex.index.IndexToken.IndexType;
 import org.basex.io.*;
 import org.basex.io.serial.*;
 import org.basex.util.*;
@@ -44,10 +43,14 @@ public final class OptimizeAll extends ACreate {
       Util.debug(ex);
       return error(Util.message(ex));
     }
+    return info(DB_OPTIMIZED_X, data.meta.name, perf);
+  }
 
-    final Open open = new Open(data.meta.name);
-    return open.run(context) ? info(DB_OPTIMIZED_X, data.meta.name, perf) :
-      error(open.info());
+  @Override
+  protected boolean intent() {
+    // the new database instance is built while the database is locked for
+    // reading; write locks will only be acquired to replace the database files
+    return true;
   }
 
   @Override
@@ -71,8 +74,15 @@ public final class OptimizeAll extends ACreate {
   }
 
   /**
-   * Optimizes all data structures. Recreates the database, drops the
-   * old instance and renames the recreated instance.
+   * Optimizes all data structures. Creates a new instance of the database,
+   * and replaces the files of the existing database.
+   *
+   * If a command reference is specified, the new instance is created while
+   * other processes may still read the database. Before the files are
+   * replaced, the read locks of the command are converted to write locks.
+   * If the database has been updated in the meantime, the new instance is
+   * built again. Otherwise, it is assumed that the caller has already locked
+   * the database for writing.
    * @param data disk data
    * @param ctx database context
    * @param cmd command reference, or {@code null}
@@ -85,31 +95,53 @@ public final class OptimizeAll extends ACreate {
     if(!(data instanceof DiskData)) throw new BaseXException(NO_MAINMEM);
 
     final DiskData old = (DiskData) data;
-    final MetaData m = old.meta;
-    if(cmd != null) cmd.size = m.size;
+    // find unique temporary database name
+    final String tname = ctx.mprop.random(old.meta.name);
+    try {
+      final int updates = old.meta.updates;
+      build(old, tname, ctx, cmd);
+      if(cmd != null) {
+        // acquire exclusive access; rebuild the instance if the database
+        // was updated before the write locks were assigned
+        ctx.upgrade(cmd);
+        if(old.meta.updates != updates) {
+          DropDB.drop(tname, ctx);
+          build(old, tname, ctx, cmd);
+        }
+      }
+      // replace the database files
+      old.replace(ctx.mprop.dbpath(tname), ctx);
+    } finally {
+      DropDB.drop(tname, ctx);
+    }
+  }
 
-    // check if database is also pinned by other users
-    if(ctx.datas.pins(m.name) > 1) throw new BaseXException(DB_PINNED_X, m.name);
+  /**
+   * Builds a new database instance with the contents of the specified database.
+   * @param old disk data
+   * @param tname name of the new database
+   * @param ctx database context
+   * @param cmd command reference, or {@code null}
+   * @throws IOException I/O Exception
+   */
+  private static void build(final DiskData old, final String tname, final Context ctx,
+      final OptimizeAll cmd) throws IOException {
 
-    // find unique temporary database name
-    final String tname = ctx.mprop.random(m.name);
+    final MetaData m = old.meta;
+    if(cmd != null) {
+      cmd.pre = 0;
+      cmd.size = m.size;
+    }
     ctx.databases().add(tname);
 
     // build database and index structures
     final DiskBuilder builder = new DiskBuilder(tname, new DBParser(old, cmd), ctx);
     try {
       final DiskData d = builder.build();
-      if(m.createtext) create(IndexType.TEXT, d, cmd);
-      if(m.createattr) create(IndexType.ATTRIBUTE, d, cmd);
-      if(m.createftxt) create(IndexType.FULLTEXT, d, cmd);
+      create(d, cmd, indexes(m));
       d.meta.filesize = m.filesize;
       d.meta.users    = m.users;
       d.meta.dirty    = true;
-      // move binary files
-      final IOFile bin = data.meta.binaries();
-      if(bin.exists()) bin.rename(d.meta.binaries());
-      final IOFile upd = old.updateFile();
-      if(upd.exists()) upd.copyTo(d.updateFile());
       d.close();
     } finally {
       try {
@@ -118,13 +150,6 @@ public final class OptimizeAll extends ACreate {
         Util.debug(ex);
       }
     }
-    Close.close(data, ctx);
-
-    // drop old database and rename temporary to final name
-    if(!DropDB.drop(m.name, ctx))
-      throw new BaseXException(DB_NOT_DROPPED_X, m.name);
-    if(!AlterDB.alter(tname, m.name, ctx))
-      throw new BaseXException(DB_NOT_RENAMED_X, tname);
   }
 
   /**
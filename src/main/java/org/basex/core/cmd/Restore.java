@@ -47,6 +47,7 @@ public final class Restore extends Command {
     if(!file.exists()) return error(BACKUP_NOT_FOUND_X, db);
 
     // close database if it's currently opened and not opened by others
+    context.invalidate(db);
     if(!closed) closed = close(context, db);
     // check if database is still pinned
     if(context.pinned(db)) return error(DB_PINNED_X, db);
@@ -9,6 +9,7 @@ import java.util.Set;
 import org.basex.core.cmd.*;
 import org.basex.index.*;
 import org.basex.index.IndexToken.IndexType;
+import org.basex.index.ft.*;
 import org.basex.index.path.*;
 import org.basex.io.*;
 import org.basex.io.random.*;
@@ -149,6 +150,12 @@ public abstract class Data {
    */
   public abstract void finishUpdate();
 
+  /**
+   * Writes all buffered data and meta data to disk and finishes the current
+   * update operation.
+   */
+  public abstract void flush();
+
   /**
    * Returns the indexed pre references for the specified token.
    * @param token index token reference
@@ -176,6 +183,17 @@ public abstract class Data {
     return index(type).info();
   }
 
+  /**
+   * Checks if the specified index has been incrementally updated since it
+   * was built. Updated indexes will be rebuilt when the database is optimized.
+   * @param type index type
+   * @return result of check
+   */
+  public final boolean updated(final IndexType type) {
+    final Index index = index(type);
+    return index instanceof FTIndex && ((FTIndex) index).updated();
+  }
+
   /**
    * Returns the index reference for the specified index type.
    * @param type index type
@@ -488,6 +506,7 @@ public abstract class Data {
       final int npre = kind == ATTR ? parent(pre, kind) : pre;
       final int nuri = ne ? nspaces.add(npre, npre, prefix(name), uri) :
         ouri != 0 && eq(nspaces.uri(ouri), uri) ? ouri : 0;
+      indexRename(pre, kind, false);
 
       // write namespace uri reference
       table.write1(pre, kind == ELEM ? 3 : 11, nuri);
@@ -496,6 +515,7 @@ public abstract class Data {
         (kind == ELEM ? tagindex : atnindex).index(name, null, false));
       // write namespace flag
       table.write2(npre, 1, (ne || nsFlag(npre) ? 1 << 15 : 0) | name(npre));
+      indexRename(pre, kind, true);
     }
   }
 
@@ -571,7 +591,6 @@ public abstract class Data {
     }
 
     if(meta.updindex) {
-      indexEnd();
       // update ID -> PRE map:
       idmap.delete(rpre, id(rpre), -rsize);
       idmap.insert(rpre, meta.lastid - dsize + 1, dsize);
@@ -580,6 +599,8 @@ public abstract class Data {
     // update table:
     table.replace(rpre, buffer(), rsize);
     buffer(1);
+    // update indexes after the table, as nodes may be included by their names
+    if(meta.updindex) indexEnd();
 
     // no distance/size update if the two subtrees are of equal size
     if(diff == 0) return;
@@ -1115,6 +1136,16 @@ public abstract class Data {
    */
   protected abstract void indexDelete(final int pre, final int size);
 
+  /**
+   * Notifies the value indexes that a node is renamed. Called before and after
+   * the node is renamed, as value indexes may include nodes by their names.
+   * @param pre pre value of the renamed node
+   * @param kind node kind
+   * @param add add entries (called after renaming) or remove entries
+   */
+  @SuppressWarnings("unused")
+  protected void indexRename(final int pre, final int kind, final boolean add) { }
+
   /**
    * Returns a string representation of the specified table range. Can be called
    * for debugging.
@@ -40,12 +40,24 @@ public interface DataText {
   String DBPTHIDX = "PTHINDEX";
   /** Automatic index update. */
   String DBUPDIDX = "UPDINDEX";
+  /** Memory-mapped files. */
+  String DBMMAP = "MMAP";
   /** Text indexing. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute indexing. */
   String DBATVIDX = "ATVINDEX";
   /** Full-text indexing. */
   String DBFTXIDX = "FTXINDEX";
+  /** Included names of the text index. */
+  String DBTXTINC = "TXTINCLUDE";
+  /** Included names of the attribute index. */
+  String DBATVINC = "ATVINCLUDE";
+  /** Packed id lists of the text index. */
+  String DBTXTPCK = "TXTPACKED";
+  /** Packed id lists of the attribute index. */
+  String DBATVPCK = "ATVPACKED";
+  /** Incremental updates of the full-text index. */
+  String DBFTXUPD = "FTXUPDATE";
   /** Full-text wildcards indexing. */
   String DBWCIDX = "WCINDEX";
   /** Full-text stemming. */
@@ -108,6 +120,8 @@ public interface DataText {
   String DATASWL = "swl";
   /** Database - Updating flag. */
   String DATAUPD = "upd";
+  /** Database - Backup of replaced files. */
+  String DATABAK = "bak";
 
   // XML SERIALIZATION ========================================================
 
@@ -42,6 +42,10 @@ public final class DiskData extends Data {
   private TokenObjMap<IntList> txts;
   /** Attribute values buffered for subsequent index updates. */
   private TokenObjMap<IntList> atvs;
+  /** Process locking, used for group commits (can be {@code null}). */
+  private Lock lock;
+  /** Number of update operations that have not been flushed yet. */
+  private int deferred;
   /** Closed flag. */
   private boolean closed;
 
@@ -53,10 +57,18 @@ public final class DiskData extends Data {
    */
   public DiskData(final String db, final Context ctx) throws IOException {
     meta = new MetaData(db, ctx);
+    lock = ctx.lock();
 
     // don't open databases marked as updating
     if(updateFile().exists()) throw new BaseXException(Text.DB_UPDATED_X, meta.name);
+    read();
+  }
 
+  /**
+   * Reads the meta data and opens the database files and indexes.
+   * @throws IOException I/O Exception
+   */
+  private void read() throws IOException {
     final DataInput in = new DataInput(meta.dbfile(DATAINF));
     try {
       // read meta data and indexes
@@ -115,8 +127,98 @@ public final class DiskData extends Data {
    */
   public void init() throws IOException {
     table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbfile(DATATXT));
-    values = new DataAccess(meta.dbfile(DATAATV));
+    texts = new DataAccess(meta.dbfile(DATATXT), meta.mmap);
+    values = new DataAccess(meta.dbfile(DATAATV), meta.mmap);
+  }
+
+  /**
+   * Replaces the files of this database with the files in the specified
+   * directory and reopens the database, without invalidating the references to
+   * this instance. This method is called by {@link OptimizeAll}, which creates
+   * a new version of the database in the background. The caller must ensure
+   * that no other process accesses the database while the files are replaced.
+   * Directories (containing binary resources) and the file that indicates
+   * ongoing updates will be ignored.
+   *
+   * The current files are moved to a backup directory first. If the new files
+   * cannot be moved or opened, the original files are restored and reopened.
+   * The backup is deleted after the new files have been opened.
+   * @param dir directory with the new database files
+   * @param ctx database context
+   * @throws IOException I/O Exception
+   */
+  public synchronized void replace(final IOFile dir, final Context ctx)
+      throws IOException {
+
+    // close files without writing the current meta data
+    closeFiles();
+
+    final IOFile path = meta.path, bak = new IOFile(path, DATABAK);
+    final String name = meta.name, upd = updateFile().name();
+    final StringList added = new StringList();
+    bak.delete();
+    boolean ok = false;
+    try {
+      // move current files to backup directory, and move new files
+      if(!bak.md()) throw new BaseXException(Text.FILE_NOT_STORED_X, bak);
+      for(final IOFile f : path.children()) {
+        if(!f.isDir() && !f.name().equals(upd)) move(f, new IOFile(bak, f.name()));
+      }
+      for(final IOFile f : dir.children()) {
+        if(f.isDir()) continue;
+        move(f, new IOFile(path, f.name()));
+        added.add(f.name());
+      }
+      reopen(name, ctx);
+      ok = true;
+    } finally {
+      if(!ok) {
+        // restore original files and reopen database
+        closeFiles();
+        for(final String f : added) new IOFile(path, f).delete();
+        for(final IOFile f : bak.children()) move(f, new IOFile(path, f.name()));
+        reopen(name, ctx);
+      }
+      bak.delete();
+    }
+  }
+
+  /**
+   * Moves a file.
+   * @param src source file
+   * @param trg target file
+   * @throws IOException I/O Exception
+   */
+  private static void move(final IOFile src, final IOFile trg) throws IOException {
+    if(!src.rename(trg)) throw new BaseXException(Text.FILE_NOT_STORED_X, trg);
+  }
+
+  /**
+   * Reads the meta data of the specified database and reopens its files.
+   * @param name name of database
+   * @param ctx database context
+   * @throws IOException I/O Exception
+   */
+  private void reopen(final String name, final Context ctx) throws IOException {
+    meta = new MetaData(name, ctx);
+    idmap = null;
+    read();
+  }
+
+  /**
+   * Closes all opened files and indexes without writing the meta data.
+   * @throws IOException I/O Exception
+   */
+  private void closeFiles() throws IOException {
+    if(table != null) table.close();
+    if(texts != null) texts.close();
+    if(values != null) values.close();
+    table = null;
+    texts = null;
+    values = null;
+    closeIndex(IndexType.TEXT);
+    closeIndex(IndexType.ATTRIBUTE);
+    closeIndex(IndexType.FULLTEXT);
   }
 
   /**
@@ -150,11 +252,14 @@ public final class DiskData extends Data {
   public synchronized void close() {
     if(closed) return;
     closed = true;
+    // deferred changes will be written now
+    if(lock != null) lock.close(this);
     try {
       write();
       table.close();
       texts.close();
       values.close();
+      if(ftxindex != null) ((FTIndex) ftxindex).flush();
       closeIndex(IndexType.TEXT);
       closeIndex(IndexType.ATTRIBUTE);
       closeIndex(IndexType.FULLTEXT);
@@ -202,6 +307,21 @@ public final class DiskData extends Data {
     // skip all flush operations if auto flush is off, or file has already been closed
     if(!meta.prop.is(Prop.AUTOFLUSH) || closed) return;
 
+    // group commit: if other updating processes are waiting for this database,
+    // the changes will be flushed by the last process of the group, and the
+    // update file will be kept until then
+    if(lock != null && deferred < meta.prop.num(Prop.GROUPCOMMIT) &&
+        lock.defer(this)) {
+      deferred++;
+      return;
+    }
+    flush();
+  }
+
+  @Override
+  public synchronized void flush() {
+    if(closed) return;
+    deferred = 0;
     try {
       write();
       table.flush();
@@ -209,6 +329,7 @@ public final class DiskData extends Data {
       values.flush();
       if(txtindex != null) ((DiskValues) txtindex).flush();
       if(atvindex != null) ((DiskValues) atvindex).flush();
+      if(ftxindex != null) ((FTIndex) ftxindex).flush();
     } catch(final IOException ex) {
       Util.stack(ex);
     } finally {
@@ -272,9 +393,12 @@ public final class DiskData extends Data {
     final long o = textOff(pre);
     if(num(o)) return numDigits((int) o);
     final DataAccess da = text ? texts : values;
-    final int l = da.readNum(o & IO.OFFCOMP - 1);
-    // compressed: next number contains number of compressed bytes
-    return cpr(o) ? da.readNum() : l;
+    // both numbers must be read in a single step, as the cursor is shared
+    synchronized(da) {
+      final int l = da.readNum(o & IO.OFFCOMP - 1);
+      // compressed: next number contains number of compressed bytes
+      return cpr(o) ? da.readNum() : l;
+    }
   }
 
   /**
@@ -288,6 +412,18 @@ public final class DiskData extends Data {
     return cpr(o) ? comp.unpack(txt) : txt;
   }
 
+  /**
+   * Returns a separate reader for texts or attribute values, which can be used
+   * by a single parallel thread. Pending changes are flushed before the reader
+   * is created. The reader must be closed after use.
+   * @param text text or attribute flag
+   * @return reader
+   * @throws IOException I/O exception
+   */
+  public TextReader reader(final boolean text) throws IOException {
+    return new TextReader(text);
+  }
+
   /**
    * Returns true if the specified value contains a number.
    * @param o offset
@@ -325,8 +461,14 @@ public final class DiskData extends Data {
       final int id = id(pre);
       final byte[] oldval = text(pre, text);
       final DiskValues index = (DiskValues) (text ? txtindex : atvindex);
-      // don't index document names
-      if(index != null && kind != DOC) index.replace(oldval, value, id);
+      // don't index document names, skip nodes that are not included
+      if(index != null && kind != DOC && names(text).contains(this, pre, text))
+        index.replace(oldval, value, id);
+      final FTIndex ft = ftindex();
+      if(ft != null && kind == TEXT) {
+        ft.delete(id, oldval);
+        ft.index(id, value);
+      }
     }
 
     // reference to text store
@@ -372,20 +514,10 @@ public final class DiskData extends Data {
 
   @Override
   protected void indexEnd() {
-    // update all indexes in parallel
-    // [DP] Full-text index updates: update the existing indexes
-    final Thread txtupdater = txts.size() > 0 ?
-        runIndexInsert((DiskValues) txtindex, txts) : null;
-    final Thread atvupdater = atvs.size() > 0 ?
-        runIndexInsert((DiskValues) atvindex, atvs) : null;
-
-    // wait for all tasks to finish
-    try {
-      if(txtupdater != null) txtupdater.join();
-      if(atvupdater != null) atvupdater.join();
-    } catch(final InterruptedException ex) {
-      Util.stack(ex);
-    }
+    // the table has been updated: remove nodes that are not included
+    txts = include(txts, true);
+    atvs = include(atvs, false);
+    updateIndexes(true);
   }
 
   @Override
@@ -414,6 +546,8 @@ public final class DiskData extends Data {
       }
       ids.add(id);
     }
+    final FTIndex ft = ftindex();
+    if(ft != null && kind == TEXT) ft.index(id, value);
 
     // add text to text file
     // inline integer value...
@@ -429,18 +563,56 @@ public final class DiskData extends Data {
 
   @Override
   protected void indexDelete(final int pre, final int size) {
+    final FTIndex ft = ftindex();
+    if(ft != null) {
+      final int l = pre + size;
+      for(int p = pre; p < l; ++p) {
+        if(kind(p) == TEXT) ft.delete(id(p), text(p, true));
+      }
+    }
     if(!(meta.textindex || meta.attrindex)) return;
 
     // collect all keys and ids
     txts = new TokenObjMap<IntList>();
     atvs = new TokenObjMap<IntList>();
+    collect(pre, size);
+    updateIndexes(false);
+  }
+
+  @Override
+  protected void indexRename(final int pre, final int kind, final boolean add) {
+    if(!meta.updindex) return;
+
+    // collect the nodes whose inclusion depends on the name
+    txts = new TokenObjMap<IntList>();
+    atvs = new TokenObjMap<IntList>();
+    if(kind == ATTR) {
+      if(meta.attrindex && !names(false).all()) collect(pre, 1);
+    } else if(kind == ELEM && meta.textindex && !names(true).all()) {
+      final int l = pre + size(pre, kind);
+      for(int p = pre + attSize(pre, kind); p < l; p += size(p, kind(p))) {
+        if(kind(p) == TEXT) collect(p, 1);
+      }
+    }
+    updateIndexes(add);
+  }
+
+  /**
+   * Collects the keys and ids of all text and attribute nodes in the specified
+   * range that are included in the value indexes.
+   * @param pre first pre value
+   * @param size number of nodes
+   */
+  private void collect(final int pre, final int size) {
+    final IndexNames tn = names(true), an = names(false);
     final int l = pre + size;
     for(int p = pre; p < l; ++p) {
       final int k = kind(p);
       final boolean isAttr = k == ATTR;
       // consider nodes which are attribute, text, comment, or proc. instruction
-      if(meta.attrindex && isAttr ||
-         meta.textindex && (k == TEXT || k == COMM || k == PI)) {
+      if(meta.attrindex && isAttr && an.contains(this, p, false) ||
+         meta.textindex && (k == TEXT || k == COMM || k == PI) &&
+         tn.contains(this, p, true)) {
         final byte[] key = text(p, !isAttr);
         if(key.length <= meta.maxlen) {
           final IntList ids;
@@ -456,20 +628,68 @@ public final class DiskData extends Data {
         }
       }
     }
+  }
+
+  /**
+   * Removes all nodes from the specified records that are not included in
+   * the value index.
+   * @param m records
+   * @param text text or attribute index
+   * @return records
+   */
+  private TokenObjMap<IntList> include(final TokenObjMap<IntList> m,
+      final boolean text) {
+
+    final IndexNames names = names(text);
+    if(names.all() || m.size() == 0) return m;
+    final TokenObjMap<IntList> map = new TokenObjMap<IntList>();
+    for(final byte[] key : m) {
+      final IntList ids = m.get(key), il = new IntList();
+      for(int i = 0; i < ids.size(); i++) {
+        final int id = ids.get(i);
+        if(names.contains(this, pre(id), text)) il.add(id);
+      }
+      if(il.size() != 0) map.add(key, il);
+    }
+    return map;
+  }
+
+  /**
+   * Returns the full-text index if it is updated incrementally.
+   * @return index or {@code null}
+   */
+  private FTIndex ftindex() {
+    return meta.updindex && ftxindex != null && ((FTIndex) ftxindex).updatable() ?
+      (FTIndex) ftxindex : null;
+  }
 
+  /**
+   * Returns the names that are included in the text or attribute index.
+   * @param text text or attribute index
+   * @return names
+   */
+  private IndexNames names(final boolean text) {
+    return new IndexNames(text ? meta.textinclude : meta.attrinclude);
+  }
+
+  /**
+   * Inserts or deletes the collected records in all value indexes.
+   * @param insert insert or delete records
+   */
+  private void updateIndexes(final boolean insert) {
     // update all indexes in parallel
-    // [DP] Full-text index updates: update the existing indexes
-    final Thread txtupdater = txts.size() > 0 ?
-        runIndexDelete((DiskValues) txtindex, txts) : null;
-    final Thread atvupdater = atvs.size() > 0 ?
-        runIndexDelete((DiskValues) atvindex, atvs) : null;
+    final DiskValues ti = (DiskValues) txtindex, ai = (DiskValues) atvindex;
+    final Thread txtupdater = txts.size() == 0 ? null :
+      insert ? runIndexInsert(ti, txts) : runIndexDelete(ti, txts);
+    final Thread atvupdater = atvs.size() == 0 ? null :
+      insert ? runIndexInsert(ai, atvs) : runIndexDelete(ai, atvs);
 
     // wait for all tasks to finish
     try {
       if(txtupdater != null) txtupdater.join();
       if(atvupdater != null) atvupdater.join();
     } catch(final InterruptedException ex) {
-      Util.errln(ex);
+      Util.stack(ex);
     }
   }
 
@@ -506,4 +726,57 @@ public final class DiskData extends Data {
     t.start();
     return t;
   }
+
+  /**
+   * Reader for texts or attribute values with its own file access and
+   * decompressor, which is not shared with other threads.
+   */
+  public final class TextReader {
+    /** File access. */
+    private final DataAccess da;
+    /** Text compressor. */
+    private final Compress cmp = new Compress();
+
+    /**
+     * Constructor.
+     * @param text text or attribute flag
+     * @throws IOException I/O exception
+     */
+    TextReader(final boolean text) throws IOException {
+      (text ? texts : values).flush();
+      da = new DataAccess(meta.dbfile(text ? DATATXT : DATAATV), meta.mmap);
+    }
+
+    /**
+     * Returns the text or attribute value of the specified node.
+     * @param pre pre value
+     * @return text
+     */
+    public byte[] text(final int pre) {
+      final long o = textOff(pre);
+      if(num(o)) return token((int) o);
+      final byte[] txt = da.readToken(o & IO.OFFCOMP - 1);
+      return cpr(o) ? cmp.unpack(txt) : txt;
+    }
+
+    /**
+     * Returns the length of the text or attribute value of the specified node.
+     * @param pre pre value
+     * @return length
+     */
+    public int textLen(final int pre) {
+      final long o = textOff(pre);
+      if(num(o)) return numDigits((int) o);
+      final int l = da.readNum(o & IO.OFFCOMP - 1);
+      // compressed: next number contains number of compressed bytes
+      return cpr(o) ? da.readNum() : l;
+    }
+
+    /**
+     * Closes the reader.
+     */
+    public void close() {
+      da.close();
+    }
+  }
 }
@@ -70,12 +70,15 @@ public final class MemData extends Data {
   @Override
   public void setIndex(final IndexType type, final Index index) { }
 
-  @Override
+  @Override
   public boolean startUpdate() { return true; }
 
   @Override
   public void finishUpdate() { }
 
+  @Override
+  public void flush() { }
+
   @Override
   public byte[] text(final int pre, final boolean text) {
     return ((MemValues) (text ? txtindex : atvindex)).key((int) textOff(pre));
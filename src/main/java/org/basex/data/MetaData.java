@@ -51,12 +51,24 @@ public final class MetaData {
   public boolean chop;
   /** Flag for activated automatic index update. */
   public boolean updindex;
+  /** Flag for memory-mapped database files. */
+  public boolean mmap;
   /** Indicates if a text index exists. */
   public boolean textindex;
   /** Indicates if a attribute index exists. */
   public boolean attrindex;
   /** Indicates if a full-text index exists. */
   public boolean ftxtindex;
+  /** Names of elements whose texts are indexed (all if empty). */
+  public String textinclude;
+  /** Names of attributes whose values are indexed (all if empty). */
+  public String attrinclude;
+  /** Indicates if the id lists of the text index are packed. */
+  public boolean textpacked;
+  /** Indicates if the id lists of the attribute index are packed. */
+  public boolean attrpacked;
+  /** Indicates if the full-text index is updated incrementally. */
+  public boolean ftupdate;
   /** Indicates if text index is to be recreated. */
   public boolean createtext;
   /** Indicates if attribute index is to be recreated. */
@@ -96,6 +108,8 @@ public final class MetaData {
   public boolean corrupt;
   /** Dirty flag. */
   public boolean dirty;
+  /** Number of updates since the database has been opened (not stored). */
+  public int updates;
 
   /** Table size. */
   public int size;
@@ -138,8 +152,11 @@ public final class MetaData {
     stemming = prop.is(Prop.STEMMING);
     casesens = prop.is(Prop.CASESENS);
     updindex = prop.is(Prop.UPDINDEX);
+    mmap = prop.is(Prop.MMAP);
     scoring = prop.num(Prop.SCORING);
     maxlen = prop.num(Prop.MAXLEN);
+    textinclude = prop.get(Prop.TEXTINCLUDE);
+    attrinclude = prop.get(Prop.ATTRINCLUDE);
     maxcats = prop.num(Prop.MAXCATS);
     language = Language.get(prop);
     users = new Users(false);
@@ -326,6 +343,9 @@ public final class MetaData {
    */
   public void read(final DataInput in) throws IOException {
     String storage = "", istorage = "";
+    // indexes of older databases include all names
+    textinclude = "";
+    attrinclude = "";
     while(true) {
       final String k = string(in.readToken());
       if(k.isEmpty()) break;
@@ -344,15 +364,21 @@ public final class MetaData {
         else if(k.equals(DBSCTYPE))   scoring    = toInt(v);
         else if(k.equals(DBMAXLEN))   maxlen     = toInt(v);
         else if(k.equals(DBMAXCATS))  maxcats    = toInt(v);
+        else if(k.equals(DBTXTINC))   textinclude = v;
+        else if(k.equals(DBATVINC))   attrinclude = v;
         else if(k.equals(DBLASTID))   lastid     = toInt(v);
         else if(k.equals(DBTIME))     time       = toLong(v);
         else if(k.equals(DBFSIZE))    filesize   = toLong(v);
         else if(k.equals(DBFTDC))     diacritics = toBool(v);
         else if(k.equals(DBCHOP))     chop       = toBool(v);
         else if(k.equals(DBUPDIDX))   updindex   = toBool(v);
+        else if(k.equals(DBMMAP))     mmap       = toBool(v);
         else if(k.equals(DBTXTIDX))   textindex  = toBool(v);
         else if(k.equals(DBATVIDX))   attrindex  = toBool(v);
         else if(k.equals(DBFTXIDX))   ftxtindex  = toBool(v);
+        else if(k.equals(DBTXTPCK))   textpacked = toBool(v);
+        else if(k.equals(DBATVPCK))   attrpacked = toBool(v);
+        else if(k.equals(DBFTXUPD))   ftupdate   = toBool(v);
         else if(k.equals(DBCRTTXT))   createtext = toBool(v);
         else if(k.equals(DBCRTATV))   createattr = toBool(v);
         else if(k.equals(DBCRTFTX))   createftxt = toBool(v);
@@ -392,9 +418,13 @@ public final class MetaData {
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBCHOP,     chop);
     writeInfo(out, DBUPDIDX,   updindex);
+    writeInfo(out, DBMMAP,     mmap);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBFTXIDX,   ftxtindex);
+    writeInfo(out, DBTXTPCK,   textpacked);
+    writeInfo(out, DBATVPCK,   attrpacked);
+    writeInfo(out, DBFTXUPD,   ftupdate);
     writeInfo(out, DBCRTTXT,   createtext);
     writeInfo(out, DBCRTATV,   createattr);
     writeInfo(out, DBCRTFTX,   createftxt);
@@ -407,6 +437,8 @@ public final class MetaData {
     writeInfo(out, DBSCTYPE,   scoring);
     writeInfo(out, DBMAXLEN,   maxlen);
     writeInfo(out, DBMAXCATS,  maxcats);
+    writeInfo(out, DBTXTINC,   textinclude);
+    writeInfo(out, DBATVINC,   attrinclude);
     writeInfo(out, DBUPTODATE, uptodate);
     writeInfo(out, DBLASTID,   lastid);
     if(language != null) writeInfo(out, DBFTLN, language.toString());
@@ -423,11 +455,12 @@ public final class MetaData {
     time = System.currentTimeMillis();
     uptodate = false;
     dirty = true;
+    ++updates;
     if(!updindex) {
       textindex = false;
       attrindex = false;
     }
-    ftxtindex = false;
+    if(!ftupdate) ftxtindex = false;
   }
 
   // PRIVATE METHODS ==========================================================
@@ -3,6 +3,8 @@ package org.basex.index;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -16,6 +18,9 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public abstract class IndexBuilder extends Progress {
+  /** Minimum number of nodes per partition, if indexes are built in parallel. */
+  protected static final int PARTITION = 1 << 16;
+
   /** Data reference. */
   protected final Data data;
   /** Total parsing value. */
@@ -42,6 +47,9 @@ public abstract class IndexBuilder extends Progress {
    */
   public abstract Index build() throws IOException;
 
+  @Override
+  public abstract void abort();
+
   /**
    * Checks if the command was interrupted, and prints some debug output.
    */
@@ -56,18 +64,86 @@ public abstract class IndexBuilder extends Progress {
    * @throws IOException I/O exception
    */
   protected final boolean memFull() throws IOException {
+    final boolean full = memFull(cc);
+    cc = full ? 30 : cc - 1;
+    return full;
+  }
+
+  /**
+   * Checks if enough memory is left to continue index building.
+   * This method can be called by multiple threads, each of which keeps track
+   * of its own free memory threshold.
+   * @param c free memory threshold: an exception is thrown if memory is full,
+   * and if the threshold is not negative
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  protected final boolean memFull(final int c) throws IOException {
     final boolean full = rt.totalMemory() - rt.freeMemory() >= maxMem;
     if(full) {
-      if(cc >= 0) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
+      if(c >= 0) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
       if(Prop.debug) Util.err("!");
       merge = true;
-      cc = 30;
-    } else {
-      --cc;
     }
     return full;
   }
 
+  /**
+   * Returns the number of threads that will be used for building the index.
+   * @return number of threads
+   */
+  protected final int threads() {
+    return Math.max(1, Math.min(threads(data), size / PARTITION));
+  }
+
+  /**
+   * Returns the number of threads that may be used for building the indexes
+   * of the specified database, as defined by {@link Prop#INDEXTHREADS}.
+   * @param d data reference
+   * @return number of threads
+   */
+  static int threads(final Data d) {
+    final int t = d.meta.prop.num(Prop.INDEXTHREADS);
+    return t > 0 ? t : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Adds the specified number of processed nodes to the progress information.
+   * Called by parallel workers.
+   * @param n number of nodes
+   */
+  protected final synchronized void progress(final int n) {
+    pre += n;
+  }
+
+  /**
+   * Waits until all tasks have been finished. If a task has failed, all
+   * remaining tasks are cancelled, and the exception is thrown.
+   * @param tasks tasks
+   * @throws IOException I/O exception
+   */
+  protected static void finish(final List<? extends Future<?>> tasks)
+      throws IOException {
+
+    try {
+      for(final Future<?> f : tasks) {
+        try {
+          f.get();
+        } catch(final InterruptedException ex) {
+          throw new BaseXException(ex);
+        } catch(final ExecutionException ex) {
+          final Throwable th = ex.getCause();
+          if(th instanceof IOException) throw (IOException) th;
+          if(th instanceof RuntimeException) throw (RuntimeException) th;
+          if(th instanceof Error) throw (Error) th;
+          throw Util.notexpected(th);
+        }
+      }
+    } finally {
+      for(final Future<?> f : tasks) f.cancel(true);
+    }
+  }
+
   /**
    * Constructor.
    * @param d reference
@@ -0,0 +1,116 @@
+package org.basex.index;
+
+import static org.basex.core.Text.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+
+/**
+ * This class builds several index structures of a database. If more than one
+ * thread is allowed ({@link Prop#INDEXTHREADS}), the indexes are built
+ * concurrently.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexBuilders extends Progress {
+  /** Index builders. */
+  private final IndexBuilder[] builders;
+  /** Data reference. */
+  private final Data data;
+
+  /**
+   * Constructor.
+   * @param d data reference
+   * @param ib index builders
+   */
+  public IndexBuilders(final Data d, final IndexBuilder... ib) {
+    data = d;
+    builders = ib;
+  }
+
+  /**
+   * Builds the index structures.
+   * @return index instances, in the order of the builders
+   * @throws IOException I/O Exception
+   */
+  public Index[] build() throws IOException {
+    final int bs = builders.length;
+    final Index[] indexes = new Index[bs];
+    if(bs < 2 || IndexBuilder.threads(data) < 2) {
+      for(int b = 0; b < bs; b++) indexes[b] = progress(builders[b]).build();
+      return indexes;
+    }
+
+    final ExecutorService pool = Executors.newFixedThreadPool(bs);
+    try {
+      final ArrayList<Future<Index>> tasks = new ArrayList<Future<Index>>();
+      for(final IndexBuilder ib : builders) {
+        tasks.add(pool.submit(new Callable<Index>() {
+          @Override
+          public Index call() throws IOException {
+            return ib.build();
+          }
+        }));
+      }
+      // wait for the builders, and stop them if the process is interrupted
+      for(final Future<Index> f : tasks) {
+        while(true) {
+          try {
+            f.get(100, TimeUnit.MILLISECONDS);
+            break;
+          } catch(final TimeoutException ex) {
+            try {
+              checkStop();
+            } catch(final ProgressException pe) {
+              for(final IndexBuilder ib : builders) ib.stop();
+              break;
+            }
+          } catch(final InterruptedException ex) {
+            throw new BaseXException(ex);
+          } catch(final ExecutionException ex) {
+            break;
+          }
+        }
+      }
+      IndexBuilder.finish(tasks);
+      for(int b = 0; b < bs; b++) indexes[b] = tasks.get(b).get();
+      return indexes;
+    } catch(final InterruptedException ex) {
+      throw new BaseXException(ex);
+    } catch(final ExecutionException ex) {
+      throw new BaseXException(ex);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Override
+  protected void abort() {
+    for(final IndexBuilder ib : builders) ib.abort();
+  }
+
+  @Override
+  protected String tit() {
+    return CREATING_INDEXES;
+  }
+
+  @Override
+  protected String det() {
+    for(final IndexBuilder ib : builders) {
+      if(ib.progress() < 1) return ib.detail();
+    }
+    return builders[builders.length - 1].detail();
+  }
+
+  @Override
+  protected double prog() {
+    double p = 0;
+    for(final IndexBuilder ib : builders) p += ib.progress();
+    return p / builders.length;
+  }
+}
@@ -1,50 +1,105 @@
 package org.basex.index;
 
+import static org.basex.core.Text.*;
 import static org.basex.util.Token.*;
 
-import java.lang.ref.*;
-
+import org.basex.util.*;
 import org.basex.util.list.*;
 
 /**
- * This class caches sizes and pointers from index results.
+ * This class caches sizes and pointers from index results. Optionally, the
+ * decoded id lists of frequently requested keys are cached as well.
+ *
+ * The memory consumption of the cache is bounded: each entry is assigned a
+ * weight, which consists of the estimated size of the entry object, its key
+ * and its decoded ids. Entries are managed as segmented LRU lists: new entries
+ * are added to a probationary segment, and they are promoted to a protected
+ * segment when they are requested again. If the protected segment exceeds
+ * its share of the maximum weight, its least recently used entries are moved
+ * back to the probationary segment, and their decoded ids are discarded.
+ * If the total weight exceeds the limit, entries are evicted from the
+ * probationary segment. As a result, keys that are only requested once,
+ * e.g. by iterating over all index entries, will not displace keys that are
+ * requested frequently.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Dimitar Popov
  */
 public final class IndexCache {
-  /** Queue used to collect unused keys. */
-  private final ReferenceQueue<CacheEntry> queue = new ReferenceQueue<CacheEntry>();
+  /** Default maximum weight (bytes). */
+  public static final long MAX = 1L << 22;
+  /** Estimated memory consumption of a cache entry, excluding key and ids. */
+  private static final int ENTRY = 64;
+  /** Number of requests after which the decoded ids of an entry are cached. */
+  private static final int HOT = 3;
+
+  /** Maximum weight of all entries. */
+  private final long max;
+  /** Maximum weight of the protected segment. */
+  private final long maxProtected;
+  /** Maximum weight of the decoded ids of a single entry. */
+  private final long maxIds;
+  /** Probationary segment (sentinel of a circular list in LRU order). */
+  private final CacheEntry probation = new CacheEntry(EMPTY, 0, 0, 0);
+  /** Protected segment (sentinel of a circular list in LRU order). */
+  private final CacheEntry prot = new CacheEntry(EMPTY, 0, 0, 0);
   /** Hash table buckets. */
-  private BucketEntry[] bucket = new BucketEntry[ElementList.CAP];
+  private CacheEntry[] bucket = new CacheEntry[ElementList.CAP];
   /** Number of entries in the cache. */
   private int size;
 
+  /** Weight of all entries. */
+  private long weight;
+  /** Weight of the entries in the protected segment. */
+  private long weightProtected;
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+  /** Number of evicted entries. */
+  private long evictions;
+
   /**
-   * Gets cached entry for the specified key.
-   * @param key key
-   * @return cached entry or {@code null} if the entry is stale
+   * Constructor, using the default maximum weight.
    */
-  public CacheEntry get(final byte[] key) {
-    purge();
+  public IndexCache() {
+    this(MAX);
+  }
 
-    final int hash = hash(key);
-    final int i = indexFor(hash, bucket.length);
+  /**
+   * Constructor.
+   * @param m maximum weight (bytes)
+   */
+  public IndexCache(final long m) {
+    max = m;
+    maxProtected = m / 5 * 4;
+    maxIds = m >>> 4;
+    probation.before = probation.after = probation;
+    prot.before = prot.after = prot;
+  }
 
-    BucketEntry e = bucket[i];
-    BucketEntry prev = e;
-    while(e != null) {
-      final BucketEntry next = e.next;
-      final CacheEntry entry = e.get();
-      if(entry == null) {
-        delete(i, e, prev, next);
-      } else if(e.hash == hash && eq(entry.key, key)) {
-        return entry;
-      }
-      prev = e;
-      e = next;
+  /**
+   * Gets the cached entry for the specified key, and marks it as recently used.
+   * @param key key
+   * @return cached entry or {@code null} if the entry is not cached
+   */
+  public synchronized CacheEntry get(final byte[] key) {
+    final CacheEntry e = find(key, hash(key));
+    if(e == null) {
+      ++misses;
+      return null;
     }
-    return null;
+    ++hits;
+    ++e.count;
+    // promote entry to the protected segment, or mark it as most recently used
+    unlink(e);
+    if(!e.prot) {
+      e.prot = true;
+      weightProtected += e.weight;
+    }
+    link(e, prot);
+    balance();
+    return e;
   }
 
   /**
@@ -54,101 +109,210 @@ public final class IndexCache {
    * @param s number of index hits
    * @param p pointer to id list
    */
-  public void add(final byte[] key, final int s, final long p) {
-    purge();
-
+  public synchronized void add(final byte[] key, final int s, final long p) {
     final int hash = hash(key);
-    final int i = indexFor(hash, bucket.length);
-
-    BucketEntry e = bucket[i];
-    BucketEntry prev = e;
-    while(e != null) {
-      final BucketEntry next = e.next;
-      final CacheEntry entry = e.get();
-      if(entry == null) {
-        delete(i, e, prev, next);
-      } else if(e.hash == hash && eq(entry.key, key)) {
-        entry.size = s;
-        entry.pointer = p;
-        return;
-      }
-      prev = e;
-      e = next;
+    CacheEntry e = find(key, hash);
+    if(e != null) {
+      if(e.size == s && e.pointer == p) return;
+      e.size = s;
+      e.pointer = p;
+      ids(e, null);
+      return;
     }
 
-    e = bucket[i];
-    bucket[i] = new BucketEntry(hash, e, new CacheEntry(key, s, p), queue);
+    e = new CacheEntry(key, hash, s, p);
+    final int i = indexFor(hash, bucket.length);
+    e.next = bucket[i];
+    bucket[i] = e;
+    link(e, probation);
+    weight += e.weight;
     if(++size == bucket.length) rehash();
+    balance();
+  }
+
+  /**
+   * Checks if the decoded ids of the specified entry would be cached by
+   * {@link #cache}.
+   * @param e cache entry, returned by {@link #get}
+   * @return result of check
+   */
+  public synchronized boolean cacheable(final CacheEntry e) {
+    return e.ids == null && e.count >= HOT && e.before != null &&
+        (long) e.size << 2 <= maxIds;
+  }
+
+  /**
+   * Caches the decoded ids of the specified entry. The ids are only cached if
+   * the entry has been requested frequently, and if they do not exceed the
+   * maximum weight for a single entry. The array must not be modified anymore
+   * after it has been passed on to this method.
+   * @param e cache entry, returned by {@link #get}
+   * @param ids decoded ids
+   */
+  public synchronized void cache(final CacheEntry e, final int[] ids) {
+    if(e.ids != null || e.count < HOT || e.before == null ||
+       ids.length != e.size || (long) ids.length << 2 > maxIds) return;
+    ids(e, ids);
+    balance();
   }
 
   /**
    * Deletes a cached entry.
    * @param key key
    */
-  public void delete(final byte[] key) {
-    purge();
-
+  public synchronized void delete(final byte[] key) {
     final int hash = hash(key);
     final int i = indexFor(hash, bucket.length);
-
-    BucketEntry e = bucket[i];
-    BucketEntry prev = e;
-    while(e != null) {
-      final BucketEntry next = e.next;
-      final CacheEntry entry = e.get();
-      if(entry == null) {
-        delete(i, e, prev, next);
-      } else if(e.hash == hash && eq(entry.key, key)) {
-        delete(i, e, prev, next);
+    CacheEntry prev = null;
+    for(CacheEntry e = bucket[i]; e != null; prev = e, e = e.next) {
+      if(e.hash == hash && eq(e.key, key)) {
+        remove(i, e, prev);
         return;
       }
-      prev = e;
-      e = next;
     }
   }
 
   /**
-   * Deletes a cached entry from the bucket with the specified index.
+   * Adds information on the cache to the specified token builder.
+   * @param tb token builder
+   */
+  public synchronized void info(final TokenBuilder tb) {
+    final long req = hits + misses;
+    tb.add(LI_CACHE + size + " entries, " + Performance.format(weight, true) +
+        " (max. " + Performance.format(max, true) + "), " +
+        (req == 0 ? 0 : hits * 100 / req) + "% hits, " +
+        evictions + " evictions" + NL);
+  }
+
+  /**
+   * Returns the number of cached entries.
+   * @return number of entries
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Returns the weight of all cached entries.
+   * @return weight (bytes)
+   */
+  public synchronized long weight() {
+    return weight;
+  }
+
+  /**
+   * Returns the number of requests that were answered by the cache.
+   * @return number of hits
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of requests that could not be answered by the cache.
+   * @return number of misses
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of evicted entries.
+   * @return number of evictions
+   */
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  /**
+   * Finds the entry for the specified key.
+   * @param key key
+   * @param hash hash code of the key
+   * @return entry or {@code null}
+   */
+  private CacheEntry find(final byte[] key, final int hash) {
+    for(CacheEntry e = bucket[indexFor(hash, bucket.length)]; e != null;
+        e = e.next) {
+      if(e.hash == hash && eq(e.key, key)) return e;
+    }
+    return null;
+  }
+
+  /**
+   * Assigns new decoded ids to the specified entry and updates its weight.
+   * @param e cache entry
+   * @param ids decoded ids (can be {@code null})
+   */
+  private void ids(final CacheEntry e, final int[] ids) {
+    final long w = (ids == null ? 0 : (long) ids.length << 2) -
+        (e.ids == null ? 0 : (long) e.ids.length << 2);
+    e.ids = ids;
+    e.weight += w;
+    weight += w;
+    if(e.prot) weightProtected += w;
+  }
+
+  /**
+   * Moves entries from the protected to the probationary segment, and evicts
+   * entries from the probationary segment, until the weight limits are met.
+   */
+  private void balance() {
+    while(weightProtected > maxProtected) {
+      final CacheEntry e = prot.after;
+      unlink(e);
+      e.prot = false;
+      weightProtected -= e.weight;
+      ids(e, null);
+      link(e, probation);
+    }
+    while(weight > max && probation.after != probation) {
+      final CacheEntry e = probation.after;
+      final int i = indexFor(e.hash, bucket.length);
+      CacheEntry prev = null;
+      for(CacheEntry b = bucket[i]; b != e; b = b.next) prev = b;
+      remove(i, e, prev);
+      ++evictions;
+    }
+  }
+
+  /**
+   * Removes an entry from the bucket with the specified index and from its
+   * segment.
    * @param i bucket index
    * @param e cached entry to delete
-   * @param p previous cache entry
-   * @param n next cache entry
+   * @param prev previous cache entry in the bucket, or {@code null}
    */
-  private void delete(final int i, final BucketEntry e, final BucketEntry p,
-      final BucketEntry n) {
-    if(p == e) bucket[i] = n;
-    else p.next = n;
+  private void remove(final int i, final CacheEntry e, final CacheEntry prev) {
+    if(prev == null) bucket[i] = e.next;
+    else prev.next = e.next;
     e.next = null;
+    unlink(e);
+    weight -= e.weight;
+    if(e.prot) weightProtected -= e.weight;
     --size;
   }
 
   /**
-   * Purges stale entries from the cache.
-   * [DP] add a minimal load, after which the bucket array should be shrunk
-   */
-  private void purge() {
-    for(Object x; (x = queue.poll()) != null;) {
-      // {@link java.lang.ref.ReferenceQueue} is not thread-safe.
-      synchronized(queue) {
-        final BucketEntry e = (BucketEntry) x;
-        final int i = indexFor(e.hash, bucket.length);
-
-        BucketEntry prev = bucket[i];
-        BucketEntry p = prev;
-        while(p != null) {
-          final BucketEntry next = p.next;
-          if(p == e) {
-            if(prev == e) bucket[i] = next;
-            else prev.next = next;
-            e.next = null;
-            --size;
-            break;
-          }
-          prev = p;
-          p = next;
-        }
-      }
-    }
+   * Adds an entry to the end of the specified segment.
+   * @param e entry
+   * @param seg segment sentinel
+   */
+  private static void link(final CacheEntry e, final CacheEntry seg) {
+    e.after = seg;
+    e.before = seg.before;
+    seg.before.after = e;
+    seg.before = e;
+  }
+
+  /**
+   * Removes an entry from its segment.
+   * @param e entry
+   */
+  private static void unlink(final CacheEntry e) {
+    e.before.after = e.after;
+    e.after.before = e.before;
+    e.before = null;
+    e.after = null;
   }
 
   /**
@@ -165,16 +329,15 @@ public final class IndexCache {
    * Resizes the hash table.
    */
   private void rehash() {
-    purge();
     final int s = size << 1;
-    final BucketEntry[] tmp = new BucketEntry[s];
+    final CacheEntry[] tmp = new CacheEntry[s];
 
     final int l = bucket.length;
     for(int i = 0; i < l; ++i) {
-      BucketEntry e = bucket[i];
+      CacheEntry e = bucket[i];
       bucket[i] = null;
       while(e != null) {
-        final BucketEntry next = e.next;
+        final CacheEntry next = e.next;
         final int p = indexFor(e.hash, tmp.length);
         e.next = tmp[p];
         tmp[p] = e;
@@ -185,50 +348,44 @@ public final class IndexCache {
   }
 
   /** Cache entry data. */
-  public static class CacheEntry {
+  public static final class CacheEntry {
     /** Entry key. */
-    public byte[] key;
+    public final byte[] key;
     /** Number of index hits for the key. */
     public int size;
     /** Pointer to the id list for the key. */
     public long pointer;
+    /** Decoded ids (can be {@code null}). */
+    public int[] ids;
+
+    /** Hash code of the key. */
+    final int hash;
+    /** Weight of the entry. */
+    long weight;
+    /** Number of requests. */
+    int count;
+    /** Flag for the protected segment. */
+    boolean prot;
+    /** Next entry in the bucket, or {@code null}. */
+    CacheEntry next;
+    /** Previous entry in the segment, or {@code null} if entry is not cached. */
+    CacheEntry before;
+    /** Next entry in the segment, or {@code null} if entry is not cached. */
+    CacheEntry after;
 
     /**
      * Constructor.
      * @param k key
+     * @param h hash code of the key
      * @param s number of hits
      * @param p pointer to the id list
      */
-    CacheEntry(final byte[] k, final int s, final long p) {
+    CacheEntry(final byte[] k, final int h, final int s, final long p) {
       key = k;
+      hash = h;
       size = s;
       pointer = p;
-    }
-  }
-
-  /**
-   * Cache bucket entry. Used to implement a linked list of cache entries for
-   * each bucket. It also stores the hash of the current entry for better
-   * performance.
-   */
-  private static class BucketEntry extends SoftReference<CacheEntry> {
-    /** Hash code of the stored cache entry key. */
-    final int hash;
-    /** Next bucket entry or {@code null} if the last one for this bucket. */
-    BucketEntry next;
-
-    /**
-     * Constructor.
-     * @param h hash code of the cache entry key
-     * @param n next bucket entry or {@code null} if the last one
-     * @param v stored cache entry
-     * @param rq reference queue
-     */
-    public BucketEntry(final int h, final BucketEntry n, final CacheEntry v,
-        final ReferenceQueue<CacheEntry> rq) {
-      super(v, rq);
-      hash = h;
-      next = n;
+      weight = ENTRY + k.length;
     }
   }
 }
@@ -0,0 +1,63 @@
+package org.basex.index;
+
+import static org.basex.util.Token.*;
+
+import org.basex.data.*;
+import org.basex.util.hash.*;
+
+/**
+ * This class contains the names of the elements and attributes that are
+ * included in a value index. If no names are specified, all nodes will be
+ * indexed. Names are compared by their local name.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexNames {
+  /** Local names. */
+  private final TokenSet names = new TokenSet();
+
+  /**
+   * Constructor.
+   * @param list comma-separated list of names
+   */
+  public IndexNames(final String list) {
+    for(final byte[] n : split(token(list), ',')) {
+      final byte[] nm = trim(n);
+      if(nm.length != 0) names.add(local(nm));
+    }
+  }
+
+  /**
+   * Checks if all nodes are indexed.
+   * @return result of check
+   */
+  public boolean all() {
+    return names.size() == 0;
+  }
+
+  /**
+   * Checks if the specified local name is included.
+   * @param ln local name
+   * @return result of check
+   */
+  public boolean contains(final byte[] ln) {
+    return all() || names.contains(ln);
+  }
+
+  /**
+   * Checks if the specified text or attribute node is included. A text node
+   * is included if the name of its parent element is included.
+   * @param data data reference
+   * @param pre pre value
+   * @param text text or attribute node
+   * @return result of check
+   */
+  public boolean contains(final Data data, final int pre, final boolean text) {
+    if(all()) return true;
+    if(!text) return names.contains(local(data.name(pre, Data.ATTR)));
+    final int par = data.parent(pre, data.kind(pre));
+    return par >= 0 && data.kind(par) == Data.ELEM &&
+        names.contains(local(data.name(par, Data.ELEM)));
+  }
+}
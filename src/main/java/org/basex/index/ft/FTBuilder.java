@@ -35,6 +35,8 @@ public abstract class FTBuilder extends IndexBuilder {
   private final FTLexer lex;
   /** Current lexer position. */
   int pos;
+  /** Indexed reference to the current text node (id or pre value). */
+  int id;
   /** Scoring mode; see {@link Prop#SCORING}. */
   final int scm;
   /** Number of indexed tokens. */
@@ -105,6 +107,9 @@ public abstract class FTBuilder extends IndexBuilder {
     final Performance perf = Prop.debug ? new Performance() : null;
     Util.debug(det());
 
+    // node ids are indexed if the index is updated incrementally
+    final boolean upd = data.meta.updindex && !data.meta.wildcards && scm == 0;
+
     for(pre = 0; pre < size; ++pre) {
       if((pre & 0xFFFF) == 0) check();
 
@@ -115,6 +120,7 @@ public abstract class FTBuilder extends IndexBuilder {
       }
       if(scm == 2) unit.add(pre);
 
+      id = upd ? data.id(pre) : pre;
       pos = -1;
       final StopWords sw = lex.ftOpt().sw;
       lex.init(data.text(pre, true));
@@ -152,6 +158,7 @@ public abstract class FTBuilder extends IndexBuilder {
       data.meta.minscore = min;
     }
     data.meta.ftxtindex = true;
+    data.meta.ftupdate = upd;
     Util.memory(perf);
   }
 
@@ -308,6 +315,7 @@ public abstract class FTBuilder extends IndexBuilder {
   public final void abort() {
     data.meta.drop(DATAFTX + ".*");
     data.meta.ftxtindex = false;
+    data.meta.ftupdate = false;
   }
 
   @Override
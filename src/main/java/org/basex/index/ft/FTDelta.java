@@ -0,0 +1,295 @@
+package org.basex.index.ft;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.ft.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class contains the updates of a full-text index that have been
+ * performed after the index was built. It is used if the database is updated
+ * incrementally ({@link MetaData#ftupdate}):</p>
+ *
+ * <ul>
+ * <li> The tokens of all inserted and changed text nodes are stored in
+ *   main memory, along with the ids and positions of their occurrences.</li>
+ * <li> The ids of all deleted and changed text nodes are stored as
+ *   tombstones. Entries of the disk-based index with these ids are
+ *   ignored.</li>
+ * </ul>
+ *
+ * <p>As the disk-based index contains ids instead of pre values, the results
+ * of both structures are converted to pre values and sorted. The updates are
+ * stored in the file {@code DATAFTX + 'd'} and merged into the disk-based
+ * index when the database is optimized.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class FTDelta {
+  /** Tokens, with pairs of ids and positions. */
+  private final TokenObjMap<IntList> tokens = new TokenObjMap<IntList>();
+  /** Tombstones: ids of deleted or changed text nodes. */
+  private final IntSet tombs = new IntSet();
+  /** Levenshtein reference. */
+  private final Levenshtein ls = new Levenshtein();
+  /** Lexer. */
+  private final FTLexer lex;
+  /** Data reference. */
+  private final Data data;
+  /** Number of indexed positions. */
+  private int size;
+  /** Dirty flag. */
+  private boolean dirty;
+
+  /**
+   * Constructor.
+   * @param d data reference
+   * @throws IOException I/O exception
+   */
+  FTDelta(final Data d) throws IOException {
+    data = d;
+    final MetaData md = d.meta;
+    final FTOpt fto = new FTOpt();
+    fto.set(FTFlag.DC, md.diacritics);
+    fto.set(FTFlag.CS, md.casesens);
+    fto.set(FTFlag.ST, md.stemming);
+    fto.sw = new StopWords();
+    fto.sw.comp(d);
+    fto.ln = md.language;
+    lex = new FTLexer(fto);
+    read();
+  }
+
+  /**
+   * Checks if no updates have been performed.
+   * @return result of check
+   */
+  synchronized boolean isEmpty() {
+    return size == 0 && tombs.size() == 0;
+  }
+
+  /**
+   * Returns the number of positions that have been added for a token.
+   * @param tok token
+   * @return number of positions
+   */
+  synchronized int count(final byte[] tok) {
+    final IntList il = tokens.get(tok);
+    return il == null ? 0 : il.size() >>> 1;
+  }
+
+  /**
+   * Adds the tokens of a text node.
+   * @param id id of the text node
+   * @param text text
+   */
+  synchronized void index(final int id, final byte[] text) {
+    final StopWords sw = lex.ftOpt().sw;
+    lex.init(text);
+    for(int pos = 0; lex.hasNext(); pos++) {
+      final byte[] tok = lex.nextToken();
+      if(tok.length > data.meta.maxlen || !sw.isEmpty() && sw.contains(tok)) continue;
+      IntList il = tokens.get(tok);
+      if(il == null) {
+        il = new IntList();
+        tokens.add(tok, il);
+      }
+      il.add(id);
+      il.add(pos);
+      size++;
+    }
+    dirty = true;
+  }
+
+  /**
+   * Deletes the tokens of a text node.
+   * @param id id of the text node
+   * @param text text
+   */
+  synchronized void delete(final int id, final byte[] text) {
+    tombs.add(id);
+    lex.init(text);
+    while(lex.hasNext()) {
+      final IntList il = tokens.get(lex.nextToken());
+      if(il == null) continue;
+      // remove all pairs with the specified id
+      int c = 0;
+      final int is = il.size();
+      for(int i = 0; i < is; i += 2) {
+        if(il.get(i) == id) continue;
+        il.set(c++, il.get(i));
+        il.set(c++, il.get(i + 1));
+      }
+      size -= is - c >>> 1;
+      while(il.size() > c) il.pop();
+    }
+    dirty = true;
+  }
+
+  /**
+   * Returns an iterator, which combines the results of the disk-based
+   * index with the updates.
+   * @param base iterator of the disk-based index
+   * @param tok token
+   * @param k number of allowed errors for fuzzy search, or {@code -1}
+   * @return iterator
+   */
+  synchronized FTIndexIterator iter(final FTIndexIterator base,
+      final byte[] tok, final int k) {
+
+    // collect the positions of the updated text nodes
+    final LongList ids = new LongList();
+    if(k == -1) {
+      add(tokens.get(tok), ids);
+    } else {
+      for(final byte[] t : tokens) {
+        if(ls.similar(t, tok, k)) add(tokens.get(t), ids);
+      }
+    }
+    final int ds = ids.size();
+
+    return new FTIndexIterator() {
+      /** Pre values and positions, sorted. */
+      long[] pp;
+      /** Current offset and offset of the next pre value. */
+      int c, n;
+      /** Current matches. */
+      FTMatches all;
+
+      @Override
+      public boolean more() {
+        if(pp == null) init();
+        c = n;
+        if(c == pp.length) return false;
+        all.reset(toknum);
+        final int pre = next();
+        while(n < pp.length && (int) (pp[n] >>> 32) == pre) {
+          all.or((int) pp[n++]);
+        }
+        return true;
+      }
+
+      /**
+       * Combines the results of the disk-based index with the updates.
+       */
+      private void init() {
+        // the disk-based index is read first to avoid nested locks
+        while(base.more()) {
+          final long id = (long) base.next() << 32;
+          for(final FTMatch m : base.matches()) {
+            for(final FTStringMatch sm : m) ids.add(id | sm.s);
+          }
+        }
+        final LongList list = new LongList();
+        synchronized(FTDelta.this) {
+          for(int i = 0; i < ids.size(); i++) {
+            final long ip = ids.get(i);
+            final int id = (int) (ip >>> 32);
+            // skip results of deleted nodes (updated nodes are included twice)
+            if(i >= ds && tombs.contains(id)) continue;
+            list.add((long) data.pre(id) << 32 | ip & 0xFFFFFFFFL);
+          }
+        }
+        pp = list.sort().toArray();
+        all = new FTMatches(toknum);
+      }
+
+      @Override
+      public FTMatches matches() {
+        return all;
+      }
+
+      @Override
+      public int next() {
+        return (int) (pp[c] >>> 32);
+      }
+
+      @Override
+      public double score() {
+        return -1;
+      }
+
+      @Override
+      public int size() {
+        return base.size() + ds;
+      }
+    };
+  }
+
+  /**
+   * Adds the pairs of ids and positions to the specified list.
+   * @param il pairs of ids and positions (can be {@code null})
+   * @param list target list
+   */
+  private static void add(final IntList il, final LongList list) {
+    if(il == null) return;
+    final int is = il.size();
+    for(int i = 0; i < is; i += 2) {
+      list.add((long) il.get(i) << 32 | il.get(i + 1));
+    }
+  }
+
+  /**
+   * Writes the updates to disk.
+   * @throws IOException I/O exception
+   */
+  synchronized void write() throws IOException {
+    if(!dirty) return;
+    final DataOutput out = new DataOutput(file());
+    try {
+      final int ts = tombs.size();
+      out.writeNum(ts);
+      for(int t = 1; t <= ts; t++) out.writeNum(tombs.key(t));
+      int c = 0;
+      for(final byte[] t : tokens) if(tokens.get(t).size() != 0) c++;
+      out.writeNum(c);
+      for(final byte[] t : tokens) {
+        final IntList il = tokens.get(t);
+        if(il.size() == 0) continue;
+        out.writeToken(t);
+        out.writeNums(il.toArray());
+      }
+    } finally {
+      out.close();
+    }
+    dirty = false;
+  }
+
+  /**
+   * Reads the updates from disk.
+   * @throws IOException I/O exception
+   */
+  private void read() throws IOException {
+    final IOFile file = file();
+    if(!file.exists()) return;
+    final DataInput in = new DataInput(file);
+    try {
+      for(int t = in.readNum(); t > 0; t--) tombs.add(in.readNum());
+      for(int c = in.readNum(); c > 0; c--) {
+        final byte[] tok = in.readToken();
+        final IntList il = new IntList(in.readNums());
+        tokens.add(tok, il);
+        size += il.size() >>> 1;
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Returns the file storing the updates.
+   * @return file
+   */
+  private IOFile file() {
+    return data.meta.dbfile(DATAFTX + 'd');
+  }
+}
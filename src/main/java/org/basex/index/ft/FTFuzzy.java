@@ -100,7 +100,7 @@ final class FTFuzzy extends FTIndex {
 
     final byte[] tok = lex.get();
     final CacheEntry e = cache.get(tok);
-    if(e != null) return e.size;
+    if(e != null) return delta != null ? e.size + delta.count(tok) : e.size;
 
     int s = 0;
     long poi = 0;
@@ -110,7 +110,7 @@ final class FTFuzzy extends FTIndex {
       poi = pointer(p, tok.length);
     }
     cache.add(tok, s, poi);
-    return s;
+    return delta != null ? s + delta.count(tok) : s;
   }
 
   @Override
@@ -121,16 +121,21 @@ final class FTFuzzy extends FTIndex {
     if(((FTLexer) ind).ftOpt().is(FZ)) {
       int k = data.meta.prop.num(Prop.LSERROR);
       if(k == 0) k = tok.length >> 2;
-      return fuzzy(tok, k, false);
+      final FTIndexIterator it = fuzzy(tok, k, false);
+      return delta != null ? delta.iter(it, tok, k) : it;
     }
 
     // return cached or new result
     final CacheEntry e = cache.get(tok);
-    if(e != null) return iter(e.pointer, e.size, inZ, false);
-
-    final int p = token(tok);
-    return p > -1 ? iter(pointer(p, tok.length),
-        size(p, tok.length), inZ, false) : FTIndexIterator.FTEMPTY;
+    final FTIndexIterator it;
+    if(e != null) {
+      it = iter(e.pointer, e.size, inZ, false);
+    } else {
+      final int p = token(tok);
+      it = p > -1 ? iter(pointer(p, tok.length),
+          size(p, tok.length), inZ, false) : FTIndexIterator.FTEMPTY;
+    }
+    return delta != null ? delta.iter(it, tok, -1) : it;
   }
 
   @Override
@@ -216,6 +221,7 @@ final class FTFuzzy extends FTIndex {
       tb.addExt("- %: %" + NL, LANGUAGE, data.meta.language);
     final long l = inX.length() + inY.length() + inZ.length();
     tb.add(LI_SIZE + Performance.format(l, true) + NL);
+    cache.info(tb);
 
     final IndexStats stats = new IndexStats(data);
     addOccs(stats);
@@ -309,7 +315,7 @@ final class FTFuzzy extends FTIndex {
    * @param f fast evaluation
    * @return iterator
    */
-  private IndexIterator fuzzy(final byte[] tok, final int k, final boolean f) {
+  private FTIndexIterator fuzzy(final byte[] tok, final int k, final boolean f) {
     FTIndexIterator it = FTIndexIterator.FTEMPTY;
     final int tl = tok.length;
     final int e = Math.min(tp.length - 1, tl + k);
@@ -45,7 +45,7 @@ final class FTFuzzyBuilder extends FTBuilder {
 
   @Override
   void index(final byte[] tok) {
-    tree.index(tok, pre, pos, csize);
+    tree.index(tok, id, pos, csize);
   }
 
   @Override
@@ -8,7 +8,6 @@ import org.basex.index.Index;
 import org.basex.index.IndexCache;
 import org.basex.io.random.DataAccess;
 import org.basex.util.hash.*;
-import org.basex.util.list.IntList;
 
 /**
  * This abstract class defines methods for the available full-text indexes.
@@ -29,6 +28,8 @@ public abstract class FTIndex implements Index {
   final double max;
   /** Minimum scoring value. */
   final double min;
+  /** Incremental updates ({@code null} if the index is not updatable). */
+  final FTDelta delta;
 
   /**
    * Returns a new full-text index instance.
@@ -45,16 +46,61 @@ public abstract class FTIndex implements Index {
   /**
    * Constructor.
    * @param d data reference
+   * @throws IOException I/O Exception
    */
-  FTIndex(final Data d) {
+  FTIndex(final Data d) throws IOException {
     data = d;
     scm = d.meta.scoring;
     max = Math.log(data.meta.maxscore + 1);
     min = Math.log(data.meta.minscore - 1);
+    delta = d.meta.ftupdate ? new FTDelta(d) : null;
   }
 
   /**
-   * Returns an iterator for an index entry.
+   * Checks if the index is updated incrementally.
+   * @return result of check
+   */
+  public final boolean updatable() {
+    return delta != null;
+  }
+
+  /**
+   * Checks if the index has been updated since it was built.
+   * @return result of check
+   */
+  public final boolean updated() {
+    return delta != null && !delta.isEmpty();
+  }
+
+  /**
+   * Indexes the tokens of a text node. Only called if the index is updatable.
+   * @param id id of the text node
+   * @param text text
+   */
+  public final void index(final int id, final byte[] text) {
+    delta.index(id, text);
+  }
+
+  /**
+   * Deletes the tokens of a text node. Only called if the index is updatable.
+   * @param id id of the text node
+   * @param text text
+   */
+  public final void delete(final int id, final byte[] text) {
+    delta.delete(id, text);
+  }
+
+  /**
+   * Writes the incremental updates to disk.
+   * @throws IOException I/O Exception
+   */
+  public final void flush() throws IOException {
+    if(delta != null) delta.write();
+  }
+
+  /**
+   * Returns an iterator for an index entry. The entries are lazily decoded
+   * while the iterator is consumed.
    * @param off offset on entries
    * @param size number of pre/pos entries
    * @param da data source
@@ -64,45 +110,38 @@ public abstract class FTIndex implements Index {
   final synchronized FTIndexIterator iter(final long off, final int size,
       final DataAccess da, final boolean fast) {
 
-    // cache results
-    da.cursor(off);
-    final IntList vals = new IntList();
-    for(int c = 0, lp = 0; c < size;) {
-      if(lp == 0) {
-        if(scm > 0) vals.add(da.readNum());
-        lp = da.readNum();
-        vals.add(lp);
-      }
-      final int pr = lp;
-      vals.add(da.readNum());
-      while(++c < size) {
-        lp = da.readNum();
-        vals.add(lp);
-        if(lp != pr) break;
-        vals.add(da.readNum());
-      }
-    }
-
     return new FTIndexIterator() {
       final FTMatches all = new FTMatches(toknum);
+      long p = off;
       int c, pre, lpre;
       double sc = -1;
 
       @Override
       public synchronized boolean more() {
-        if(c == vals.size()) return false;
-        if(lpre == 0) {
-          if(scm > 0) sc = (Math.log(vals.get(c++)) - min) / (max - min);
-          lpre = vals.get(c++);
-        }
-        pre = lpre;
-
-        all.reset(toknum);
-        all.or(vals.get(c++));
-
-        while(c < vals.size() && (lpre = vals.get(c++)) == pre) {
-          final int n = vals.get(c++);
-          if(!fast) all.or(n);
+        if(c == size && lpre == 0) return false;
+        synchronized(FTIndex.this) {
+          da.cursor(p);
+          if(c == 0) {
+            if(scm > 0) sc = (Math.log(da.readNum()) - min) / (max - min);
+            lpre = da.readNum();
+            c = 1;
+          }
+          pre = lpre;
+          lpre = 0;
+
+          all.reset(toknum);
+          all.or(da.readNum());
+          while(c < size) {
+            final int lp = da.readNum();
+            ++c;
+            if(lp != pre) {
+              lpre = lp;
+              break;
+            }
+            final int n = da.readNum();
+            if(!fast) all.or(n);
+          }
+          p = da.cursor();
         }
         return true;
       }
@@ -187,6 +187,7 @@ final class FTTrie extends FTIndex {
       tb.addExt("- %: %" + NL, LANGUAGE, data.meta.language);
     final long l = inA.length() + inB.length() + inC.length();
     tb.add(LI_SIZE + Performance.format(l, true) + NL);
+    cache.info(tb);
 
     final IndexStats stats = new IndexStats(data);
     addOccs(EMPTY, 0, stats);
@@ -5,10 +5,12 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.IndexCache.CacheEntry;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
@@ -22,14 +24,28 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public class DiskValues implements Index {
+  /** Maximum number of ids that are decoded at once by lazy iterators. */
+  private static final int BLOCK = 1 << 6;
+  /**
+   * Minimum average number of ids per key for merging the id lists of several
+   * keys lazily. Otherwise, all ids will be decoded and sorted at once.
+   */
+  private static final int MERGE = 1 << 4;
+
   /** Number of index entries. */
   int size;
   /** ID references. */
   final DataAccess idxr;
   /** ID lists. */
   final DataAccess idxl;
+  /** Numeric keys (can be {@code null}). */
+  DataAccess idxn;
+  /** Number of numeric keys. */
+  int nsize;
   /** Value type (texts/attributes). */
   final boolean text;
+  /** Packed id lists. */
+  final boolean packed;
   /** Data reference. */
   final Data data;
   /** Cached tokens. */
@@ -57,9 +73,15 @@ public class DiskValues implements Index {
   DiskValues(final Data d, final boolean txt, final String pref) throws IOException {
     data = d;
     text = txt;
+    packed = txt ? d.meta.textpacked : d.meta.attrpacked;
     idxl = new DataAccess(d.meta.dbfile(pref + 'l'));
     idxr = new DataAccess(d.meta.dbfile(pref + 'r'));
     size = idxl.read4();
+    final IOFile num = d.meta.dbfile(pref + 'n');
+    if(num.exists()) {
+      idxn = new DataAccess(num);
+      nsize = idxn.read4(0);
+    }
   }
 
   @Override
@@ -68,6 +90,13 @@ public class DiskValues implements Index {
     tb.add(LI_STRUCTURE + SORTED_LIST + NL);
     final long l = idxl.length() + idxr.length();
     tb.add(LI_SIZE + Performance.format(l, true) + NL);
+    final String inc = text ? data.meta.textinclude : data.meta.attrinclude;
+    if(!inc.isEmpty()) tb.add(LI_INCLUDE + inc + NL);
+    if(idxn != null) {
+      tb.add(LI_NUMERIC + nsize + " (").add(token(number(0))).add(" - ").
+        add(token(number(nsize - 1))).add(')' + NL);
+    }
+    cache.info(tb);
     final IndexStats stats = new IndexStats(data);
     for(int m = 0; m < size; ++m) {
       final long pos = idxr.read5(m * 5L);
@@ -85,18 +114,33 @@ public class DiskValues implements Index {
 
     final byte[] key = it.get();
     final CacheEntry e = cache.get(key);
-    if(e != null) return iter(e.size, e.pointer);
+    if(e != null) {
+      // return cached ids, or cache the ids of frequently requested keys
+      final int[] c = e.ids;
+      if(c != null) return iter(c);
+      if(!cache.cacheable(e)) return iter(e.size, e.pointer);
+      final int[] ids = ids(e.size, e.pointer);
+      cache.cache(e, ids);
+      return iter(ids);
+    }
 
     final int ix = get(key);
     if(ix < 0) return IndexIterator.EMPTY;
     final long pos = idxr.read5(ix * 5L);
-    return iter(idxl.readNum(pos), idxl.cursor());
+    final int nr = idxl.readNum(pos);
+    cache.add(key, nr, pos + Num.length(nr));
+    return iter(nr, idxl.cursor());
   }
 
   @Override
   public synchronized int count(final IndexToken it) {
     if(it instanceof StringRange) return idRange((StringRange) it).size();
-    if(it instanceof NumericRange) return idRange((NumericRange) it).size();
+    if(it instanceof NumericRange) {
+      final NumericRange nr = (NumericRange) it;
+      // without numeric keys, counting would require a full index scan
+      if(idxn == null) return Math.max(1, data.meta.size / 5);
+      return offset(index(nr.max, true)) - offset(index(nr.min, false));
+    }
 
     final byte[] key = it.get();
     if(key.length > data.meta.maxlen) return Integer.MAX_VALUE;
@@ -125,7 +169,7 @@ public class DiskValues implements Index {
         while(++ix < size) {
           final long pos = idxr.read5(ix * 5l);
           nr = idxl.readNum(pos);
-          final byte[] key = data.text(idxl.readNum(), text);
+          final byte[] key = data.text(firstpre(pos), text);
           if(!startsWith(key, prefix)) break;
           if(prefix.length != 0) cache.add(key, nr, pos + Num.length(nr));
           return key;
@@ -149,20 +193,170 @@ public class DiskValues implements Index {
   }
 
   /**
-   * Iterator method.
+   * Decodes the id list at the specified offset.
    * @param s number of values
    * @param ps offset
+   * @return ids
+   */
+  final int[] ids(final int s, final long ps) {
+    final int[] ids = new int[s];
+    decode(s, ps, ids, 0);
+    return ids;
+  }
+
+  /**
+   * Decodes the id list at the specified offset into the specified array.
+   * @param s number of values
+   * @param ps offset
+   * @param ids target array
+   * @param off offset in the target array
+   */
+  private void decode(final int s, final long ps, final int[] ids, final int off) {
+    if(packed) {
+      Postings.decode(idxl, ps, s, ids, off);
+    } else {
+      idxl.cursor(ps);
+      for(int i = 0, id = 0; i < s; i++) {
+        id += idxl.readNum();
+        ids[off + i] = id;
+      }
+    }
+  }
+
+  /**
+   * Returns an iterator for the specified ids. The array will not be modified.
+   * @param ids decoded ids
+   * @return iterator
+   */
+  IndexIterator iter(final int[] ids) {
+    return iter(new IntList(ids));
+  }
+
+  /**
+   * Returns an iterator for the id list at the specified offset. The ids are
+   * lazily decoded in small blocks, so the memory consumption does not depend
+   * on the number of ids, and no more ids are read than requested.
+   * @param s number of ids
+   * @param ps offset
    * @return iterator
    */
   IndexIterator iter(final int s, final long ps) {
-    final IntList pres = new IntList(s);
-    long p = ps;
-    for(int i = 0, pre = 0; i < s; i++) {
-      pre += idxl.readNum(p);
-      p = idxl.cursor();
-      pres.add(pre);
+    if(packed) return packed(s, ps);
+    return new IndexIterator() {
+      final int[] buf = new int[Math.min(s, BLOCK)];
+      long p = ps;
+      int c, b, bs, id;
+
+      @Override
+      public boolean more() {
+        if(++b < bs) return true;
+        if(c == s) return false;
+        // decode next block of ids
+        synchronized(DiskValues.this) {
+          bs = Math.min(buf.length, s - c);
+          idxl.cursor(p);
+          for(int i = 0; i < bs; i++) {
+            id += idxl.readNum();
+            buf[i] = id;
+          }
+          p = idxl.cursor();
+        }
+        c += bs;
+        b = 0;
+        return true;
+      }
+
+      @Override
+      public int next() {
+        return buf[b];
+      }
+
+      @Override
+      public double score() {
+        return -1;
+      }
+
+      @Override
+      public int size() {
+        return s;
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator for the packed id list at the specified offset.
+   * The list is decoded block by block.
+   * @param s number of ids
+   * @param ps offset
+   * @return iterator
+   */
+  private IndexIterator packed(final int s, final long ps) {
+    return new IndexIterator() {
+      final int[] buf = new int[Math.min(s, Postings.BLOCK)];
+      final int bl = Postings.blocks(s);
+      long off = ps;
+      int blk = -1, b, bs;
+
+      @Override
+      public boolean more() {
+        if(++b < bs) return true;
+        if(blk + 1 >= bl) return false;
+        // decode next block
+        final int base = bs > 0 ? buf[bs - 1] : 0;
+        bs = Postings.count(s, ++blk);
+        synchronized(DiskValues.this) {
+          off = Postings.decode(idxl, off, base, bs, buf, 0);
+        }
+        b = 0;
+        return true;
+      }
+
+      @Override
+      public int next() {
+        return buf[b];
+      }
+
+      @Override
+      public double score() {
+        return -1;
+      }
+
+      @Override
+      public int size() {
+        return s;
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator for the union of the id lists at the specified
+   * offsets. If the lists are long enough, they are lazily merged via a heap.
+   * Otherwise, all ids are decoded and sorted at once.
+   * @param pos offsets of the id lists
+   * @return iterator
+   */
+  final IndexIterator union(final long[] pos) {
+    final int k = pos.length;
+    final int[] sizes = new int[k];
+    final long[] offs = new long[k];
+    long total = 0;
+    for(int i = 0; i < k; i++) {
+      sizes[i] = idxl.readNum(pos[i]);
+      offs[i] = idxl.cursor();
+      total += sizes[i];
+    }
+    if(k == 0) return IndexIterator.EMPTY;
+    if(k == 1) return iter(sizes[0], offs[0]);
+
+    if(total >= (long) k * MERGE) {
+      final IndexIterator[] iters = new IndexIterator[k];
+      for(int i = 0; i < k; i++) iters[i] = iter(sizes[i], offs[i]);
+      return merge(iters, (int) total);
     }
-    return iter(pres);
+    final int[] ids = new int[(int) total];
+    for(int i = 0, t = 0; i < k; t += sizes[i++]) decode(sizes[i], offs[i], ids, t);
+    Arrays.sort(ids);
+    return iter(ids);
   }
 
   /**
@@ -171,22 +365,13 @@ public class DiskValues implements Index {
    * @return results
    */
   IndexIterator idRange(final StringRange tok) {
-    // check if min and max are positive integers with the same number of digits
-    final IntList pres = new IntList();
-    final int i = get(tok.min);
-    for(int l = i < 0 ? -i - 1 : tok.mni ? i : i + 1; l < size; l++) {
-      final int ps = idxl.readNum(idxr.read5(l * 5L));
-      int pre = idxl.readNum();
-      // value is too large: skip traversal
-      final int d = diff(data.text(pre, text), tok.max);
-      if(d > 0 || !tok.mxi && d == 0) break;
-      // add pre values
-      for(int p = 0; p < ps; ++p) {
-        pres.add(pre);
-        pre += idxl.readNum();
-      }
-    }
-    return iter(pres.sort());
+    // find first and last key in the range
+    final int i = get(tok.min), j = get(tok.max);
+    final int s = i < 0 ? -i - 1 : tok.mni ? i : i + 1;
+    final int e = j < 0 ? -j - 1 : tok.mxi ? j + 1 : j;
+    final long[] pos = new long[Math.max(0, e - s)];
+    for(int l = s; l < e; l++) pos[l - s] = idxr.read5(l * 5L);
+    return union(pos);
   }
 
   /**
@@ -195,6 +380,8 @@ public class DiskValues implements Index {
    * @return results
    */
   IndexIterator idRange(final NumericRange tok) {
+    if(idxn != null) return numRange(tok);
+
     final double min = tok.min;
     final double max = tok.max;
 
@@ -203,18 +390,17 @@ public class DiskValues implements Index {
     final boolean simple = len != 0 && min > 0 && (long) min == min &&
         token(min).length == len;
 
-    final IntList pres = new IntList();
+    long[] pos = new long[1 << 4];
+    int ps = 0;
     for(int l = 0; l < size; ++l) {
-      final int ds = idxl.readNum(idxr.read5(l * 5L));
-      int pre = idxl.readNum();
+      final long p = idxr.read5(l * 5L);
+      final int pre = firstpre(p);
 
       final double v = data.textDbl(pre, text);
       if(v >= min && v <= max) {
         // value is in range
-        for(int d = 0; d < ds; ++d) {
-          pres.add(pre);
-          pre += idxl.readNum();
-        }
+        if(ps == pos.length) pos = Arrays.copyOf(pos, Array.newSize(ps));
+        pos[ps++] = p;
       } else if(simple && v > max && data.textLen(pre, text) == len) {
         // if limits are integers, if min, max and current value have the same
         // string length, and if current value is larger than max, test can be
@@ -222,7 +408,133 @@ public class DiskValues implements Index {
         break;
       }
     }
-    return iter(pres.sort());
+    return union(Arrays.copyOf(pos, ps));
+  }
+
+  /**
+   * Performs a range query on the numeric keys. All keys in the range are
+   * found via binary search, and their entries are read in a row.
+   * @param tok index term
+   * @return results
+   */
+  private IndexIterator numRange(final NumericRange tok) {
+    final int s = index(tok.min, false), e = index(tok.max, true);
+    final long[] pos = new long[Math.max(0, e - s)];
+    for(int i = s; i < e; i++) pos[i - s] = idxn.read5(entry(i) + 8);
+    return union(pos);
+  }
+
+  /**
+   * Returns the offset of the first entry of a numeric key that is greater
+   * than or equal to the specified value.
+   * @param v value
+   * @param gt return the first entry that is greater than the value
+   * @return index of the entry, or number of numeric keys
+   */
+  private int index(final double v, final boolean gt) {
+    int l = 0, h = nsize;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      final double d = number(m);
+      if(d < v || gt && d == v) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the value of the specified numeric key.
+   * @param i index of the key
+   * @return value
+   */
+  private double number(final int i) {
+    final long p = entry(i);
+    return Double.longBitsToDouble((long) idxn.read4(p) << 32 |
+        idxn.read4() & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the number of ids of all numeric keys before the specified entry.
+   * @param i index of the key
+   * @return number of ids
+   */
+  private int offset(final int i) {
+    return i == nsize ? idxn.read4(4) : idxn.read4(entry(i) + 13);
+  }
+
+  /**
+   * Returns the file offset of the specified numeric key.
+   * @param i index of the key
+   * @return offset
+   */
+  private static long entry(final int i) {
+    return NumericKeys.HEADER + (long) i * NumericKeys.ENTRY;
+  }
+
+  /**
+   * Returns an iterator that merges the specified iterators, which return
+   * disjoint and sorted ids. The iterators are organized as a heap, which is
+   * ordered by the current id of each iterator.
+   * @param iters iterators (the array will be modified)
+   * @param total total number of ids
+   * @return iterator
+   */
+  private static IndexIterator merge(final IndexIterator[] iters,
+      final int total) {
+
+    return new IndexIterator() {
+      /** Number of iterators in the heap, or {@code -1} before initialization. */
+      int hs = -1;
+
+      @Override
+      public boolean more() {
+        if(hs == -1) {
+          // initialize heap with all non-empty iterators
+          hs = 0;
+          for(final IndexIterator it : iters) if(it.more()) iters[hs++] = it;
+          for(int i = (hs >>> 1) - 1; i >= 0; i--) down(i);
+        } else if(hs > 0) {
+          // advance the iterator with the smallest id
+          if(!iters[0].more()) iters[0] = iters[--hs];
+          if(hs > 0) down(0);
+        }
+        return hs > 0;
+      }
+
+      /**
+       * Moves the specified heap entry down until the heap is ordered.
+       * @param i index of the entry
+       */
+      private void down(final int i) {
+        final IndexIterator it = iters[i];
+        final int id = it.next();
+        int p = i;
+        while(true) {
+          int c = (p << 1) + 1;
+          if(c >= hs) break;
+          if(c + 1 < hs && iters[c + 1].next() < iters[c].next()) c++;
+          if(id <= iters[c].next()) break;
+          iters[p] = iters[c];
+          p = c;
+        }
+        iters[p] = it;
+      }
+
+      @Override
+      public int next() {
+        return iters[0].next();
+      }
+
+      @Override
+      public double score() {
+        return -1;
+      }
+
+      @Override
+      public int size() {
+        return total;
+      }
+    };
   }
 
   /**
@@ -264,8 +576,8 @@ public class DiskValues implements Index {
    */
   int firstpre(final long pos) {
     // read the number of ids in the list
-    idxl.readNum(pos);
-    return idxl.readNum();
+    final int s = idxl.readNum(pos);
+    return packed ? Postings.first(idxl, idxl.cursor()) : idxl.readNum();
   }
 
   /**
@@ -315,6 +627,7 @@ public class DiskValues implements Index {
   public synchronized void close() {
     idxl.close();
     idxr.close();
+    if(idxn != null) idxn.close();
   }
 
   /**
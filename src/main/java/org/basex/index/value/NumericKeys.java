@@ -0,0 +1,147 @@
+package org.basex.index.value;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+
+/**
+ * <p>This class collects the numeric keys of a value index and writes them to
+ * disk, sorted by their numeric value. It is called by the
+ * {@link ValueBuilder}, and by the {@link UpdatableDiskValues} to update the
+ * keys of an existing file.</p>
+ *
+ * <p>The file {@code DATATXT/ATV + 'n'} has the following format:</p>
+ * <ul>
+ * <li> The first 4 bytes contain the number of numeric keys, the next 4 bytes
+ *   contain the total number of ids of all numeric keys.</li>
+ * <li> All keys are represented by 17-byte entries, which are sorted by the
+ *   numeric value of the keys: the 8-byte double value, a 5-byte reference to
+ *   the id list of the key, and the 4-byte number of ids of all preceding
+ *   entries.</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class NumericKeys {
+  /** Offset of the first entry. */
+  static final int HEADER = 8;
+  /** Size of an entry. */
+  static final int ENTRY = 17;
+
+  /** Numeric values. */
+  private double[] values = new double[1 << 8];
+  /** References to the id lists. */
+  private long[] refs = new long[1 << 8];
+  /** Number of ids. */
+  private int[] counts = new int[1 << 8];
+  /** Number of entries. */
+  private int size;
+
+  /**
+   * Constructor.
+   */
+  NumericKeys() { }
+
+  /**
+   * Constructor, reading the keys of an existing file.
+   * @param da file access
+   */
+  NumericKeys(final DataAccess da) {
+    final int s = da.read4(0);
+    final int total = da.read4();
+    // the number of ids of each key is derived from the offsets of its successor
+    for(int i = 0; i < s; i++) {
+      final long bits = (long) da.read4() << 32 | da.read4() & 0xFFFFFFFFL;
+      add(Double.longBitsToDouble(bits), da.read5(), da.read4());
+    }
+    for(int i = 0; i < s; i++) counts[i] = (i + 1 < s ? counts[i + 1] : total) - counts[i];
+  }
+
+  /**
+   * Adds a key if it is numeric.
+   * @param key key
+   * @param ref reference to the id list
+   * @param count number of ids
+   */
+  void add(final byte[] key, final long ref, final int count) {
+    final double v = Token.toDouble(key);
+    if(v == v) add(v, ref, count);
+  }
+
+  /**
+   * Removes the keys with the specified id lists.
+   * @param rs references to the id lists
+   */
+  void delete(final Set<Long> rs) {
+    int s = 0;
+    for(int i = 0; i < size; i++) {
+      if(rs.contains(refs[i])) continue;
+      values[s] = values[i];
+      refs[s] = refs[i];
+      counts[s++] = counts[i];
+    }
+    size = s;
+  }
+
+  /**
+   * Adds a numeric key.
+   * @param v numeric value
+   * @param ref reference to the id list
+   * @param count number of ids
+   */
+  private void add(final double v, final long ref, final int count) {
+    if(size == values.length) {
+      final int s = Array.newSize(size);
+      values = Arrays.copyOf(values, s);
+      refs = Arrays.copyOf(refs, s);
+      counts = Arrays.copyOf(counts, s);
+    }
+    values[size] = v;
+    refs[size] = ref;
+    counts[size++] = count;
+  }
+
+  /**
+   * Writes the sorted keys to disk. No file is written if no numeric keys
+   * have been found, and an existing file will be deleted.
+   * @param file target file
+   * @throws IOException I/O exception
+   */
+  void write(final IOFile file) throws IOException {
+    if(size == 0) {
+      file.delete();
+      return;
+    }
+
+    // the value array will be sorted as well
+    final double[] vals = Arrays.copyOf(values, size);
+    final int[] order = Array.createOrder(vals, true);
+    int total = 0;
+    for(int i = 0; i < size; i++) total += counts[i];
+
+    final DataOutput out = new DataOutput(file);
+    try {
+      out.write4(size);
+      out.write4(total);
+      int ids = 0;
+      for(int i = 0; i < size; i++) {
+        final long bits = Double.doubleToRawLongBits(vals[i]);
+        out.write4((int) (bits >>> 32));
+        out.write4((int) bits);
+        out.write5(refs[order[i]]);
+        out.write4(ids);
+        ids += counts[order[i]];
+      }
+    } finally {
+      out.close();
+    }
+    values = null;
+    refs = null;
+    counts = null;
+  }
+}
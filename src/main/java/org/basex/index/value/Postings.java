@@ -0,0 +1,144 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This class writes and reads packed id lists of the value indexes.</p>
+ *
+ * <p>An id list starts with the number of ids, stored in the {@code Num}
+ * format. The ids are sorted and split into blocks of {@link #BLOCK} ids.
+ * Each block stores the differences between successive ids (the first
+ * difference refers to the last id of the previous block, or to {@code 0}).
+ * All differences of a block are bit-packed with the same bit width, which
+ * is stored in the first byte of the block. Blocks are stored consecutively
+ * and decoded in sequential order.</p>
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class Postings {
+  /** Number of ids per block. */
+  static final int BLOCK = 1 << 7;
+
+  /** Private constructor. */
+  private Postings() { }
+
+  /**
+   * Writes an id list.
+   * @param out output stream
+   * @param ids sorted ids
+   * @throws IOException I/O exception
+   */
+  static void write(final DataOutput out, final IntList ids) throws IOException {
+    final int n = ids.size();
+    out.writeNum(n);
+    final int bl = blocks(n);
+
+    // pack all blocks
+    final ByteList bytes = new ByteList();
+    for(int b = 0, i = 0, id = 0; b < bl; b++) {
+      final int s = i, e = Math.min(n, i + BLOCK);
+      // find maximum difference
+      int max = 0;
+      for(int p = s, l = id; p < e; p++) {
+        max |= ids.get(p) - l;
+        l = ids.get(p);
+      }
+      final int w = 32 - Integer.numberOfLeadingZeros(max);
+      bytes.add(w);
+      long acc = 0;
+      int bits = 0;
+      for(; i < e; i++) {
+        acc |= (ids.get(i) - id & 0xFFFFFFFFL) << bits;
+        bits += w;
+        id = ids.get(i);
+        for(; bits >= 8; bits -= 8, acc >>>= 8) bytes.add((int) acc);
+      }
+      if(bits > 0) bytes.add((int) acc);
+    }
+    out.write(bytes.toArray());
+  }
+
+  /**
+   * Returns the number of blocks of a list.
+   * @param n number of ids
+   * @return number of blocks
+   */
+  static int blocks(final int n) {
+    return (n + BLOCK - 1) / BLOCK;
+  }
+
+  /**
+   * Returns the first id of a list.
+   * @param da data access
+   * @param p offset of the list, following the list header
+   * @return id
+   */
+  static int first(final DataAccess da, final long p) {
+    final int[] buf = new int[1];
+    decode(da, p, 0, 1, buf, 0);
+    return buf[0];
+  }
+
+  /**
+   * Decodes all ids of a list.
+   * @param da data access
+   * @param p offset of the list, following the list header
+   * @param n number of ids
+   * @param ids target array
+   * @param off offset in the target array
+   */
+  static void decode(final DataAccess da, final long p, final int n,
+      final int[] ids, final int off) {
+    final int bl = blocks(n);
+    long o = p;
+    for(int b = 0, id = 0; b < bl; b++) {
+      final int c = count(n, b);
+      o = decode(da, o, id, c, ids, off + b * BLOCK);
+      id = ids[off + b * BLOCK + c - 1];
+    }
+  }
+
+  /**
+   * Returns the number of ids of the specified block.
+   * @param n number of ids
+   * @param b block
+   * @return number of ids
+   */
+  static int count(final int n, final int b) {
+    return Math.min(BLOCK, n - b * BLOCK);
+  }
+
+  /**
+   * Decodes a block.
+   * @param da data access
+   * @param off offset of the block
+   * @param base last id of the previous block, or {@code 0}
+   * @param c number of ids to decode
+   * @param ids target array
+   * @param o offset in the target array
+   * @return offset of the next block
+   */
+  static long decode(final DataAccess da, final long off, final int base,
+      final int c, final int[] ids, final int o) {
+
+    final int w = da.read1(off);
+    final int l = (int) ((long) c * w + 7 >>> 3);
+    final byte[] bytes = da.readBytes(off + 1, l);
+    final long mask = (1L << w) - 1;
+    long acc = 0;
+    int bits = 0, bp = 0, id = base;
+    for(int i = 0; i < c; i++) {
+      for(; bits < w; bits += 8) acc |= (bytes[bp++] & 0xFFL) << bits;
+      id += (int) (acc & mask);
+      acc >>>= w;
+      bits -= w;
+      ids[o + i] = id;
+    }
+    return off + 1 + l;
+  }
+}
@@ -1,12 +1,14 @@
 package org.basex.index.value;
 
 import static org.basex.data.DataText.*;
-import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
@@ -15,10 +17,23 @@ import org.basex.util.list.*;
  * This class provides access to attribute values and text contents stored on
  * disk. The data structure is described in the {@link ValueBuilder} class.
  *
+ * If numeric keys are changed, the file with the numeric keys is read into
+ * main memory and deleted, and it is written again when the index is flushed.
+ * In the meantime, range queries are answered by scanning all keys.
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 public final class UpdatableDiskValues extends DiskValues {
+  /** File prefix. */
+  private final String prefix;
+  /** References to the original id lists of the changed numeric keys. */
+  private final HashSet<Long> refs = new HashSet<Long>();
+  /** Changed numeric keys ({@code null} if the numeric keys are up-to-date). */
+  private TokenSet changed;
+  /** Numeric keys before the changes ({@code null}: all keys will be scanned). */
+  private NumericKeys nums;
+
   /**
    * Constructor, initializing the index structure.
    * @param d data reference
@@ -40,73 +55,22 @@ public final class UpdatableDiskValues extends DiskValues {
   private UpdatableDiskValues(final Data d, final boolean txt,
       final String pref) throws IOException {
     super(d, txt, pref);
+    prefix = pref;
   }
 
   @Override
-  protected IndexIterator iter(final int s, final long ps) {
+  protected IndexIterator iter(final int[] ids) {
+    // ids are converted to pre values, as the latter may change after updates
+    final int s = ids.length;
     final IntList pres = new IntList(s);
-    long p = ps;
-    for(int l = 0, v = 0; l < s; ++l) {
-      v += idxl.readNum(p);
-      p = idxl.cursor();
-      pres.add(data.pre(v));
-    }
+    for(int l = 0; l < s; ++l) pres.add(data.pre(ids[l]));
     return iter(pres.sort());
   }
 
   @Override
-  IndexIterator idRange(final StringRange tok) {
-    // check if min and max are positive integers with the same number of digits
-    final IntList pres = new IntList();
-    final int i = get(tok.min);
-    for(int l = i < 0 ? -i - 1 : tok.mni ? i : i + 1; l < size; l++) {
-      final int ps = idxl.readNum(idxr.read5(l * 5L));
-      int id = idxl.readNum();
-      final int pre = data.pre(id);
-
-      // value is too large: skip traversal
-      final int d = diff(data.text(pre, text), tok.max);
-      if(d > 0 || !tok.mxi && d == 0) break;
-      // add pre values
-      for(int p = 0; p < ps; ++p) {
-        pres.add(data.pre(id));
-        id += idxl.readNum();
-      }
-    }
-    return iter(pres.sort());
-  }
-
-  @Override
-  protected IndexIterator idRange(final NumericRange tok) {
-    final double min = tok.min;
-    final double max = tok.max;
-
-    // check if min and max are positive integers with the same number of digits
-    final int len = max > 0 && (long) max == max ? token(max).length : 0;
-    final boolean simple = len != 0 && min > 0 && (long) min == min &&
-        token(min).length == len;
-
-    final IntList pres = new IntList();
-    for(int l = 0; l < size; ++l) {
-      final int ds = idxl.readNum(idxr.read5(l * 5L));
-      int id = idxl.readNum();
-      final int pre = data.pre(id);
-
-      final double v = data.textDbl(pre, text);
-      if(v >= min && v <= max) {
-        // value is in range
-        for(int d = 0; d < ds; ++d) {
-          pres.add(data.pre(id));
-          id += idxl.readNum();
-        }
-      } else if(simple && v > max && data.textLen(pre, text) == len) {
-        // if limits are integers, if min, max and current value have the same
-        // string length, and if current value is larger than max, test can be
-        // skipped, as all remaining values will be bigger
-        break;
-      }
-    }
-    return iter(pres.sort());
+  IndexIterator iter(final int s, final long ps) {
+    // the complete list needs to be decoded, as pre values are not sorted
+    return iter(ids(s, ps));
   }
 
   @Override
@@ -118,6 +82,7 @@ public final class UpdatableDiskValues extends DiskValues {
   public void flush() {
     idxl.write4(0, size);
     super.flush();
+    if(changed != null) numbers();
   }
 
   @Override
@@ -132,6 +97,7 @@ public final class UpdatableDiskValues extends DiskValues {
     int p = 0;
     for(final byte[] key : allkeys) {
       p = get(key, p, last);
+      change(key, p);
       if(p < 0) {
         p = -(p + 1);
         nkeys.add(key);
@@ -162,6 +128,72 @@ public final class UpdatableDiskValues extends DiskValues {
     size += nkeys.size();
   }
 
+  /**
+   * Registers a key that is going to be changed. If it is numeric, the numeric
+   * keys will be updated when the index is flushed.
+   * @param key key
+   * @param ix index of the key, or a negative value if the key is new
+   */
+  private void change(final byte[] key, final int ix) {
+    if(changed != null && changed.contains(key)) return;
+    final double v = Token.toDouble(key);
+    if(v != v) return;
+
+    if(changed == null) {
+      // cache the existing keys and delete the outdated file
+      changed = new TokenSet();
+      if(idxn != null) {
+        nums = new NumericKeys(idxn);
+        idxn.close();
+        idxn = null;
+        nsize = 0;
+      }
+      data.meta.drop(prefix + 'n');
+    }
+    changed.add(key);
+    if(ix >= 0) refs.add(idxr.read5(ix * 5L));
+  }
+
+  /**
+   * Writes the numeric keys, including the keys that have been changed since
+   * the last flush. If no numeric keys were available before, all keys are
+   * scanned.
+   */
+  private void numbers() {
+    NumericKeys nk = nums;
+    if(nk == null) {
+      nk = new NumericKeys();
+      for(int i = 0; i < size; i++) {
+        final long pos = idxr.read5(i * 5L);
+        nk.add(data.text(firstpre(pos), text), pos, idxl.readNum(pos));
+      }
+    } else {
+      nk.delete(refs);
+      for(final byte[] key : changed) {
+        final int ix = get(key);
+        if(ix < 0) continue;
+        final long pos = idxr.read5(ix * 5L);
+        nk.add(key, pos, idxl.readNum(pos));
+      }
+    }
+    changed = null;
+    nums = null;
+    refs.clear();
+
+    final IOFile file = data.meta.dbfile(prefix + 'n');
+    try {
+      nk.write(file);
+      if(file.exists()) {
+        idxn = new DataAccess(file);
+        nsize = idxn.read4(0);
+      }
+    } catch(final IOException ex) {
+      // range queries will be answered by scanning all keys
+      Util.debug(ex);
+      file.delete();
+    }
+  }
+
   /**
    * Add record ids to an index entry.
    * @param ix index of the key
@@ -201,6 +233,7 @@ public final class UpdatableDiskValues extends DiskValues {
     int p = 0;
     for(final byte[] key : allkeys) {
       p = get(key, p, size - 1);
+      change(key, p);
       if(p < 0) p = -(p + 1); // should not occur, but anyway
       else if(deleteIds(p, key, m.get(key).sort().toArray()) == 0) empty.add(p);
     }
@@ -268,6 +301,7 @@ public final class UpdatableDiskValues extends DiskValues {
   public void replace(final byte[] o, final byte[] n, final int id) {
     // delete the id from the old key
     final int p = get(o);
+    change(o, p);
     if(p >= 0) {
       final int[] tmp = new int[] { id};
       if(deleteIds(p, o, tmp) == 0) {
@@ -289,6 +323,7 @@ public final class UpdatableDiskValues extends DiskValues {
    */
   private void insertId(final byte[] key, final int id) {
     int ix = get(key);
+    change(key, ix);
     if(ix < 0) {
       ix = -(ix + 1);
 
@@ -5,9 +5,12 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
+import org.basex.data.DiskData.TextReader;
 import org.basex.index.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
@@ -23,14 +26,23 @@ import org.basex.util.list.*;
  * <li> {@code DATATXT/ATV + 'l'}: contains the index values, which are dense id
  *   lists to all text nodes/attribute values, stored in the {@link Num} format:
  *   [size0, id1, id2, ...]. The number of index keys is stored in the first 4
- *   bytes of the file.</li>
+ *   bytes of the file. If the index is not updatable, the id lists are packed
+ *   in blocks, as described in the {@link Postings} class.</li>
  * <li> {@code DATATXT/ATV + 'r'}: contains 5-byte references to the id lists
  *   for all keys. To save space, the keys itself are not stored in the index
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'n'}: contains all numeric keys, sorted by their
+ *   numeric value, and references to their id lists. The format is described
+ *   in the {@link NumericKeys} class.</li>
  * </ul>
  *
+ * <p>If the database is large enough, and if more than one thread is allowed
+ * ({@link Prop#INDEXTHREADS}), the pre range is split into partitions, which
+ * are indexed in parallel. Each partition is written to disk as one or more
+ * sorted runs, which are finally merged.</p>
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
@@ -39,6 +51,12 @@ public final class ValueBuilder extends IndexBuilder {
   private IndexTree index = new IndexTree();
   /** Index type (attributes/texts). */
   private final boolean text;
+  /** Pack id lists. */
+  private boolean packed;
+  /** Included names. */
+  private final IndexNames names;
+  /** Number of partitions that are currently indexed. */
+  private int active;
 
   /**
    * Constructor.
@@ -48,6 +66,7 @@ public final class ValueBuilder extends IndexBuilder {
   public ValueBuilder(final Data d, final boolean txt) {
     super(d);
     text = txt;
+    names = new IndexNames(txt ? d.meta.textinclude : d.meta.attrinclude);
   }
 
   @Override
@@ -60,40 +79,184 @@ public final class ValueBuilder extends IndexBuilder {
 
     final String f = text ? DATATXT : DATAATV;
     final int k = text ? Data.TEXT : Data.ATTR;
+    // updatable indexes modify the id lists in place
+    packed = !data.meta.updindex;
 
-    for(pre = 0; pre < size; ++pre) {
-      if((pre & 0x0FFF) == 0) {
-        check();
-        // check if main memory is exhausted
-        if(memFull()) {
-          write(f + csize++, false);
-          index = new IndexTree();
-          Performance.gc(2);
+    final int threads = threads();
+    if(threads > 1) {
+      // index partitions in parallel and merge the resulting runs
+      index = null;
+      parallel(threads);
+      merge = true;
+    } else {
+      for(pre = 0; pre < size; ++pre) {
+        if((pre & 0x0FFF) == 0) {
+          check();
+          // check if main memory is exhausted
+          if(memFull()) {
+            write(index, f + csize++, false);
+            index = new IndexTree();
+            Performance.gc(2);
+          }
         }
+        index(index, pre, k);
       }
-      // skip too long values
-      if(data.kind(pre) == k && data.textLen(pre, text) <= data.meta.maxlen)
-        index.index(data.text(pre, text),
-            data.meta.updindex ? data.id(pre) : pre);
+      if(merge) write(index, f + csize++, false);
     }
 
     if(merge) {
-      write(f + csize++, false);
       index = null;
       Performance.gc(1);
       merge();
     } else {
-      write(f, true);
+      write(index, f, true);
     }
 
-    if(text) data.meta.textindex = true;
-    else data.meta.attrindex = true;
+    if(text) {
+      data.meta.textindex = true;
+      data.meta.textpacked = packed;
+    } else {
+      data.meta.attrindex = true;
+      data.meta.attrpacked = packed;
+    }
 
     Util.memory(perf);
     return data.meta.updindex ?
         new UpdatableDiskValues(data, text) : new DiskValues(data, text);
   }
 
+  /**
+   * Indexes the value of the specified node.
+   * @param tree index tree
+   * @param p pre value
+   * @param k kind of the nodes to be indexed
+   */
+  private void index(final IndexTree tree, final int p, final int k) {
+    index(tree, p, k, null);
+  }
+
+  /**
+   * Indexes the value of the specified node.
+   * @param tree index tree
+   * @param p pre value
+   * @param k kind of the nodes to be indexed
+   * @param tr text reader (can be {@code null})
+   */
+  private void index(final IndexTree tree, final int p, final int k,
+      final TextReader tr) {
+    // skip too long values and nodes that are not included
+    if(data.kind(p) == k &&
+        (tr != null ? tr.textLen(p) : data.textLen(p, text)) <= data.meta.maxlen &&
+        names.contains(data, p, text)) {
+      final byte[] txt = tr != null ? tr.text(p) : data.text(p, text);
+      tree.index(txt, data.meta.updindex ? data.id(p) : p);
+    }
+  }
+
+  /**
+   * Indexes partitions of the pre range in parallel.
+   * @param threads number of threads
+   * @throws IOException I/O exception
+   */
+  private void parallel(final int threads) throws IOException {
+    // use more partitions than threads to balance the workload
+    final int parts = Math.max(threads, Math.min(threads << 2, size / PARTITION));
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      final ArrayList<Future<Void>> tasks = new ArrayList<Future<Void>>();
+      for(int p = 0; p < parts; p++) {
+        final int s = (int) ((long) size * p / parts);
+        final int e = (int) ((long) size * (p + 1) / parts);
+        tasks.add(pool.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws IOException {
+            partition(s, e);
+            return null;
+          }
+        }));
+      }
+      finish(tasks);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Indexes a partition of the pre range and writes it to disk as sorted runs.
+   * @param s first pre value
+   * @param e pre value after the last node
+   * @throws IOException I/O exception
+   */
+  void partition(final int s, final int e) throws IOException {
+    final String f = text ? DATATXT : DATAATV;
+    final int k = text ? Data.TEXT : Data.ATTR;
+
+    // each worker reads the texts with its own file access
+    final TextReader tr = data instanceof DiskData ? ((DiskData) data).reader(text) : null;
+    synchronized(this) { ++active; }
+    try {
+      IndexTree tree = new IndexTree();
+      // free memory threshold, and number of runs after the last spill
+      int c = -1, runs = 0;
+      for(int p = s; p < e; ++p) {
+        if((p - s & 0x0FFF) == 0 && p != s) {
+          checkStop();
+          progress(0x1000);
+          // check if main memory is exhausted. The memory is shared by all
+          // workers: an exception is only thrown if it is still full after
+          // this worker and all other running workers have written their runs
+          if(memFull(-1)) {
+            if(c >= 0 && exhausted(runs)) {
+              Performance.gc(2);
+              if(memFull(-1)) throw new BaseXException(OUT_OF_MEM + H_OUT_OF_MEM);
+            }
+            if(tree.size() != 0) {
+              write(tree, f + run(), false);
+              tree = new IndexTree();
+            }
+            Performance.gc(1);
+            runs = runs();
+            c = 30;
+          } else {
+            --c;
+          }
+        }
+        index(tree, p, k, tr);
+      }
+      if(tree.size() != 0) write(tree, f + run(), false);
+      if(e > s) progress((e - s - 1 & 0x0FFF) + 1);
+    } finally {
+      synchronized(this) { --active; }
+      if(tr != null) tr.close();
+    }
+  }
+
+  /**
+   * Returns the number of a new temporary run.
+   * @return run number
+   */
+  private synchronized int run() {
+    return csize++;
+  }
+
+  /**
+   * Returns the number of temporary runs.
+   * @return number of runs
+   */
+  private synchronized int runs() {
+    return csize;
+  }
+
+  /**
+   * Checks if all other running workers have written a run since the specified
+   * number of runs has been reached.
+   * @param runs number of runs
+   * @return result of check
+   */
+  private synchronized boolean exhausted(final int runs) {
+    return csize - runs >= active - 1;
+  }
+
   /**
    * Merges cached index files.
    * @throws IOException I/O exception
@@ -109,6 +272,7 @@ public final class ValueBuilder extends IndexBuilder {
     final IntList il = new IntList();
     final ValueMerger[] vm = new ValueMerger[csize];
     for(int i = 0; i < csize; ++i) vm[i] = new ValueMerger(data, text, i);
+    final NumericKeys nums = new NumericKeys();
     int sz = 0;
 
     // parse through all values
@@ -134,6 +298,7 @@ public final class ValueBuilder extends IndexBuilder {
       }
 
       // parse through all values, cache and sort id values
+      final byte[] key = vm[min].key;
       final int ms = ml.size();
       for(int m = 0; m < ms; ++m) {
         final ValueMerger t = vm[ml.get(m)];
@@ -145,7 +310,7 @@ public final class ValueBuilder extends IndexBuilder {
         t.next();
       }
       // write final structure to disk
-      write(outL, outR, il);
+      write(outL, outR, il, key, nums);
       ++sz;
     }
 
@@ -157,24 +322,29 @@ public final class ValueBuilder extends IndexBuilder {
     final DataAccess da = new DataAccess(data.meta.dbfile(f + 'l'));
     da.write4(sz);
     da.close();
+    nums.write(data.meta.dbfile(f + 'n'));
   }
 
   /**
-   * Writes the current value tree to disk.
+   * Writes a value tree to disk.
+   * @param tree value tree
    * @param name name
    * @param all writes the complete tree
    * @throws IOException I/O exception
    */
-  private void write(final String name, final boolean all) throws IOException {
+  private void write(final IndexTree tree, final String name, final boolean all)
+      throws IOException {
     // write id arrays and references
     final DataOutput outL = new DataOutput(data.meta.dbfile(name + 'l'));
     final DataOutput outR = new DataOutput(data.meta.dbfile(name + 'r'));
-    outL.write4(index.size());
+    outL.write4(tree.size());
 
+    final NumericKeys nums = all ? new NumericKeys() : null;
     final IntList il = new IntList();
-    index.init();
-    while(index.more()) {
-      final byte[] values = index.values.get(index.next());
+    tree.init();
+    while(tree.more()) {
+      final int n = tree.next();
+      final byte[] values = tree.values.get(n);
       final int vs = Num.size(values);
 
       if(all) {
@@ -183,7 +353,7 @@ public final class ValueBuilder extends IndexBuilder {
           il.add(Num.get(values, ip));
         }
         // write final structure to disk
-        write(outL, outR, il);
+        write(outL, outR, il, tree.keys.get(n), nums);
       } else {
         // write temporary structure to disk: number of entries, absolute values
         outR.write5(outL.size());
@@ -193,11 +363,13 @@ public final class ValueBuilder extends IndexBuilder {
     outL.close();
     outR.close();
 
-    // temporarily write texts
-    if(!all) {
+    // write numeric keys, or temporarily write texts
+    if(all) {
+      nums.write(data.meta.dbfile(name + 'n'));
+    } else {
       final DataOutput outT = new DataOutput(data.meta.dbfile(name + 't'));
-      index.init();
-      while(index.more()) outT.writeToken(index.keys.get(index.next()));
+      tree.init();
+      while(tree.more()) outT.writeToken(tree.keys.get(tree.next()));
       outT.close();
     }
   }
@@ -207,20 +379,29 @@ public final class ValueBuilder extends IndexBuilder {
    * @param outL index values
    * @param outR references
    * @param il values
+   * @param key key
+   * @param nums numeric keys
    * @throws IOException I/O exception
    */
-  private static void write(final DataOutput outL, final DataOutput outR,
-      final IntList il) throws IOException {
+  private void write(final DataOutput outL, final DataOutput outR,
+      final IntList il, final byte[] key, final NumericKeys nums)
+      throws IOException {
 
     // sort values before writing
     il.sort();
     final int is = il.size();
-    outR.write5(outL.size());
-    outL.writeNum(is);
-    for(int i = 0, o = 0; i < is; i++) {
-      final int v = il.get(i);
-      outL.writeNum(v - o);
-      o = v;
+    final long pos = outL.size();
+    outR.write5(pos);
+    nums.add(key, pos, is);
+    if(packed) {
+      Postings.write(outL, il);
+    } else {
+      outL.writeNum(is);
+      for(int i = 0, o = 0; i < is; i++) {
+        final int v = il.get(i);
+        outL.writeNum(v - o);
+        o = v;
+      }
     }
     il.reset();
   }
@@ -228,8 +409,13 @@ public final class ValueBuilder extends IndexBuilder {
   @Override
   public void abort() {
     data.meta.drop((text ? DATATXT : DATAATV) + ".+");
-    if(text) data.meta.textindex = false;
-    else data.meta.attrindex = false;
+    if(text) {
+      data.meta.textindex = false;
+      data.meta.textpacked = false;
+    } else {
+      data.meta.attrindex = false;
+      data.meta.attrpacked = false;
+    }
   }
 
   @Override
@@ -168,6 +168,15 @@ public final class IOFile extends IO {
     return is == null ? new InputSource(path) : new InputSource(is);
   }
 
+  /**
+   * Checks if the input is read from an archive or a compressed file.
+   * In this case, it can only be read once.
+   * @return result of check
+   */
+  public boolean archived() {
+    return is != null;
+  }
+
   @Override
   public InputStream inputStream() throws IOException {
     return is != null ? is : new FileInputStream(file);
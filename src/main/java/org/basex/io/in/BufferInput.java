@@ -105,6 +105,16 @@ public class BufferInput extends InputStream {
     return buf[bpos++] & 0xFF;
   }
 
+  /**
+   * Returns the number of bytes that can be read from the buffer without
+   * accessing the underlying input stream.
+   * @return number of buffered bytes
+   */
+  @Override
+  public int available() {
+    return bsize - bpos;
+  }
+
   /**
    * Reads a string from the input stream, suffixed by a {@code 0} byte.
    * @return string
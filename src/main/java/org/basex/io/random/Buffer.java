@@ -1,5 +1,7 @@
 package org.basex.io.random;
 
+import java.util.concurrent.atomic.*;
+
 import org.basex.io.IO;
 
 /**
@@ -11,8 +13,48 @@ import org.basex.io.IO;
 final class Buffer {
   /** Buffer data. */
   final byte[] data = new byte[IO.BLOCKSIZE];
-  /** Disk offset, or block position. */
+  /** Block position. */
   long pos = -1;
   /** Dirty flag. */
   boolean dirty;
+
+  /** Buffer manager of the file the block belongs to. */
+  Buffers owner;
+  /** Key in the buffer pool. */
+  volatile long key = -1;
+  /** Number of pins, or {@code -1} while the buffer is assigned to a new block. */
+  final AtomicInteger pins = new AtomicInteger();
+  /** Indicates if the block is currently read from disk. */
+  volatile boolean loading;
+  /** Indicates if the buffer has been pinned without accessing the pool. */
+  volatile boolean ref;
+
+  /**
+   * Pins the buffer without accessing the buffer pool, provided that it still
+   * contains the block with the specified key.
+   * @param k key of the block
+   * @return success flag
+   */
+  boolean pin(final long k) {
+    while(true) {
+      final int p = pins.get();
+      // buffer is currently assigned to another block
+      if(p < 0) return false;
+      if(pins.compareAndSet(p, p + 1)) break;
+    }
+    // the buffer cannot be reassigned while it is pinned
+    if(key == k && !loading) {
+      if(!ref) ref = true;
+      return true;
+    }
+    pins.decrementAndGet();
+    return false;
+  }
+
+  /**
+   * Unpins the buffer.
+   */
+  void unpin() {
+    pins.decrementAndGet();
+  }
 }
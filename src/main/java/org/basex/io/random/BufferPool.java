@@ -0,0 +1,370 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides a buffer pool, which is shared by all opened database files.
+ *
+ * Blocks are replaced with a simplified 2Q strategy, which is resistant against
+ * sequential scans: new blocks are added to a FIFO queue, and they will only be moved
+ * to the main LRU list if they are requested again after having been evicted from
+ * the queue. Blocks that are currently accessed by a file are pinned and will not
+ * be replaced.
+ *
+ * Read cursors can pin the buffer they used last without entering the monitor of
+ * the pool ({@link Buffer#pin(long)}): buffers are only reassigned to other blocks
+ * if their pin counter can be atomically switched from {@code 0} to {@code -1}.
+ * Buffers that have been accessed this way get a second chance before they are
+ * replaced.
+ *
+ * Blocks are identified by the id of their file and their position. The ids of
+ * closed files are reassigned to newly opened files.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferPool {
+  /** Singleton instance. */
+  private static final BufferPool INSTANCE = new BufferPool();
+
+  /** FIFO queue, containing blocks that have been requested once. */
+  private final LinkedHashMap<Long, Buffer> queue = new LinkedHashMap<Long, Buffer>();
+  /** LRU list, containing blocks that have been requested several times. */
+  private final LinkedHashMap<Long, Buffer> main =
+      new LinkedHashMap<Long, Buffer>(16, 0.75f, true);
+  /** Keys of the blocks that have recently been evicted from the FIFO queue. */
+  private final LinkedHashSet<Long> evicted = new LinkedHashSet<Long>();
+  /** Evicted blocks whose dirty contents are currently written back. */
+  private final HashMap<Long, Buffers> writing = new HashMap<Long, Buffers>();
+
+  /** Maximum number of buffers. */
+  private int max;
+  /** Number of assigned file ids. */
+  private int ids;
+  /** Ids of closed files, which can be reassigned. */
+  private final IntList free = new IntList();
+  /** Number of buffer hits. */
+  private long hits;
+  /** Number of buffer misses. */
+  private long misses;
+  /** Number of evicted buffers. */
+  private long evictions;
+
+  /**
+   * Private constructor.
+   */
+  private BufferPool() {
+    size((Integer) MainProp.BUFFERSIZE[1]);
+  }
+
+  /**
+   * Returns the singleton instance.
+   * @return instance
+   */
+  public static BufferPool get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Sets the maximum size of the buffer pool.
+   * @param mb size in megabytes
+   */
+  public synchronized void size(final int mb) {
+    max = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (long) mb << 20 >>> IO.BLOCKPOWER));
+  }
+
+  /**
+   * Returns the maximum size of the buffer pool.
+   * @return size in bytes
+   */
+  public synchronized long max() {
+    return (long) max << IO.BLOCKPOWER;
+  }
+
+  /**
+   * Returns the currently occupied size of the buffer pool.
+   * @return size in bytes
+   */
+  public synchronized long size() {
+    return (long) (queue.size() + main.size()) << IO.BLOCKPOWER;
+  }
+
+  /**
+   * Returns the number of requested blocks that were found in the pool.
+   * @return number of hits
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of requested blocks that had to be read from disk.
+   * @return number of misses
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of blocks that have been replaced.
+   * @return number of evictions
+   */
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  /**
+   * Returns the number of buffers that are currently pinned.
+   * @return number of pinned buffers
+   */
+  public synchronized int pinned() {
+    int c = 0;
+    for(final Buffer bf : queue.values()) if(bf.pins.get() > 0) ++c;
+    for(final Buffer bf : main.values()) if(bf.pins.get() > 0) ++c;
+    return c;
+  }
+
+  /**
+   * Returns a file id that is currently not in use.
+   * @return id
+   */
+  synchronized int id() {
+    return free.size() != 0 ? free.pop() : ids++;
+  }
+
+  /**
+   * Returns the buffer for the specified block of a file and pins it.
+   * If necessary, the block is read from disk. Disk access takes place outside the
+   * monitor of the pool: the assigned buffer is marked as loading, and other
+   * threads requesting the same block will wait until it has been read.
+   * @param owner buffer manager of the file
+   * @param pos block position
+   * @param last buffer that was last used for the block (can be {@code null});
+   *        it is returned if the block is not found in the pool, but still
+   *        contained in this buffer (e.g., after the file has been released)
+   * @return buffer
+   * @throws IOException I/O exception
+   */
+  Buffer pin(final Buffers owner, final long pos, final Buffer last)
+      throws IOException {
+
+    final Long key = owner.key(pos);
+    final Buffer bf;
+    final Buffers wowner;
+    final long wpos;
+    synchronized(this) {
+      Buffer b;
+      while(true) {
+        b = main.get(key);
+        if(b == null) b = queue.get(key);
+        // wait until the block has been read or written back
+        if(b != null ? !b.loading : !writing.containsKey(key)) break;
+        await();
+      }
+      if(b == null && last != null && last.owner == owner && last.key == key) b = last;
+      if(b != null) {
+        ++hits;
+        b.pins.incrementAndGet();
+        return b;
+      }
+      ++misses;
+      bf = victim();
+      // dirty contents of an evicted block will be written back before it is read
+      wowner = bf.dirty ? bf.owner : null;
+      wpos = bf.pos;
+      if(wowner != null) writing.put(bf.key, wowner);
+      bf.owner = owner;
+      bf.pos = pos;
+      bf.key = key;
+      bf.dirty = false;
+      bf.loading = true;
+      bf.pins.set(1);
+      // blocks that are requested again are added to the main list
+      if(evicted.remove(key)) main.put(key, bf);
+      else queue.put(key, bf);
+    }
+
+    boolean ok = false;
+    try {
+      if(wowner != null) wowner.write(bf.data, wpos);
+      owner.read(bf);
+      ok = true;
+    } finally {
+      synchronized(this) {
+        if(wowner != null) writing.remove(wowner.key(wpos));
+        bf.loading = false;
+        if(!ok) {
+          // discard the buffer if the block could not be read
+          if(main.get(key) == bf) main.remove(key);
+          if(queue.get(key) == bf) queue.remove(key);
+          bf.owner = null;
+          bf.key = -1;
+          bf.pins.set(0);
+        }
+        notifyAll();
+      }
+    }
+    return bf;
+  }
+
+  /**
+   * Unpins the specified buffer.
+   * @param bf buffer
+   */
+  void unpin(final Buffer bf) {
+    bf.unpin();
+  }
+
+  /**
+   * Writes all dirty buffers of the specified file to disk.
+   * Disk access takes place outside the monitor of the pool: the dirty buffers
+   * are pinned while they are written back, so they cannot be replaced.
+   * The file must not be modified in the meantime.
+   * @param owner buffer manager of the file
+   * @throws IOException I/O exception
+   */
+  void flush(final Buffers owner) throws IOException {
+    final ArrayList<Buffer> dirty = new ArrayList<Buffer>();
+    synchronized(this) {
+      dirty(queue, owner, dirty);
+      dirty(main, owner, dirty);
+    }
+    try {
+      for(final Buffer bf : dirty) owner.write(bf);
+    } finally {
+      for(final Buffer bf : dirty) bf.unpin();
+    }
+    synchronized(this) {
+      // wait until evicted blocks of the file have been written back
+      while(writing.containsValue(owner)) await();
+    }
+  }
+
+  /**
+   * Removes all buffers of the specified file from the pool.
+   * Dirty buffers will be discarded, and the file id will be reassigned.
+   * @param owner buffer manager of the file
+   */
+  synchronized void release(final Buffers owner) {
+    release(queue, owner);
+    release(main, owner);
+    final Iterator<Long> it = evicted.iterator();
+    while(it.hasNext()) if(it.next() >>> 40 == owner.id) it.remove();
+    free.push(owner.id);
+  }
+
+  // PRIVATE METHODS ==========================================================
+
+  /**
+   * Waits until the state of a buffer has changed.
+   * @throws InterruptedIOException if the thread was interrupted
+   */
+  private void await() throws InterruptedIOException {
+    try {
+      wait();
+    } catch(final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(ex.getMessage());
+    }
+  }
+
+  /**
+   * Pins and collects the dirty buffers of the specified file.
+   * @param list list
+   * @param owner buffer manager of the file
+   * @param dirty list for the collected buffers
+   */
+  private static void dirty(final LinkedHashMap<Long, Buffer> list,
+      final Buffers owner, final ArrayList<Buffer> dirty) {
+    for(final Buffer bf : list.values()) {
+      if(bf.owner == owner && bf.dirty) {
+        bf.pins.incrementAndGet();
+        dirty.add(bf);
+      }
+    }
+  }
+
+  /**
+   * Removes all buffers of the specified file from the specified list.
+   * @param list list
+   * @param owner buffer manager of the file
+   */
+  private static void release(final LinkedHashMap<Long, Buffer> list,
+      final Buffers owner) {
+    final Iterator<Buffer> it = list.values().iterator();
+    while(it.hasNext()) if(it.next().owner == owner) it.remove();
+  }
+
+  /**
+   * Returns a buffer that can be assigned to a new block.
+   * @return buffer
+   */
+  private Buffer victim() {
+    if(queue.size() + main.size() < max) return new Buffer();
+
+    // evict blocks from the queue if it exceeds a quarter of the pool size
+    Buffer bf = null;
+    if(queue.size() > max >>> 2 || main.isEmpty()) bf = evict(queue, true);
+    if(bf == null) bf = evict(main, false);
+    if(bf == null) bf = evict(queue, true);
+    // all buffers are pinned: create a new buffer
+    return bf != null ? bf : new Buffer();
+  }
+
+  /**
+   * Evicts the first unpinned buffer from the specified list.
+   * Dirty contents will be written back by the caller.
+   * @param list list
+   * @param fifo FIFO queue flag
+   * @return evicted buffer, or {@code null}
+   */
+  private Buffer evict(final LinkedHashMap<Long, Buffer> list, final boolean fifo) {
+    // first pass: skip buffers that have recently been pinned by read cursors
+    for(int pass = 0; pass < 2; pass++) {
+      final Buffer bf = evict(list, fifo, pass == 0);
+      if(bf != null) return bf;
+    }
+    return null;
+  }
+
+  /**
+   * Evicts the first unpinned buffer from the specified list.
+   * @param list list
+   * @param fifo FIFO queue flag
+   * @param chance give referenced buffers a second chance
+   * @return evicted buffer, or {@code null}
+   */
+  private Buffer evict(final LinkedHashMap<Long, Buffer> list, final boolean fifo,
+      final boolean chance) {
+
+    final Iterator<Buffer> it = list.values().iterator();
+    while(it.hasNext()) {
+      final Buffer bf = it.next();
+      if(chance && bf.ref) {
+        bf.ref = false;
+        continue;
+      }
+      // claim buffer; fails if it is pinned by a read cursor in the meantime
+      if(!bf.pins.compareAndSet(0, -1)) continue;
+      bf.ref = false;
+      it.remove();
+      if(fifo) {
+        // remember key of evicted block
+        evicted.add(bf.key);
+        if(evicted.size() > max >>> 1) {
+          final Iterator<Long> ev = evicted.iterator();
+          ev.next();
+          ev.remove();
+        }
+      }
+      ++evictions;
+      return bf;
+    }
+    return null;
+  }
+}
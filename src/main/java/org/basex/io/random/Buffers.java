@@ -1,32 +1,51 @@
 package org.basex.io.random;
 
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.basex.io.*;
+
 /**
- * This class provides a simple, clock-based buffer management.
+ * This class manages the buffers of a single file, which are requested from the
+ * shared {@link BufferPool}. The current buffer is pinned in the pool.
+ * If the file is memory-mapped, a single private buffer will be used, and its
+ * contents will be copied from and to the mapped file.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 final class Buffers {
-  /** Number of buffers (must be 1 << n). */
-  private static final int BUFFERS = 1 << 4;
-  /** Buffers. */
-  private final Buffer[] buf = new Buffer[BUFFERS];
-  /** Current buffer offset. */
-  private int off;
+  /** Buffer pool. */
+  private static final BufferPool POOL = BufferPool.get();
+  /** File. */
+  private final RandomAccessFile file;
+  /** Mapped file (can be {@code null}). */
+  private final Mapping map;
+  /** File id, which will be reassigned to other files after this file is closed. */
+  final int id;
+  /** Current buffer. */
+  private Buffer current;
+  /** Indicates if the buffers have been released. */
+  private boolean closed;
 
   /**
    * Constructor.
+   * @param f file
    */
-  Buffers() {
-    for(int b = 0; b < BUFFERS; ++b) buf[b] = new Buffer();
+  Buffers(final RandomAccessFile f) {
+    this(f, null);
   }
 
   /**
-   * Returns all buffers.
-   * @return buffers
+   * Constructor.
+   * @param f file
+   * @param m mapped file (can be {@code null})
    */
-  Buffer[] all() {
-    return buf;
+  Buffers(final RandomAccessFile f, final Mapping m) {
+    file = f;
+    map = m;
+    id = POOL.id();
   }
 
   /**
@@ -34,20 +53,133 @@ final class Buffers {
    * @return current buffer
    */
   Buffer current() {
-    return buf[off];
+    return current;
   }
 
   /**
-   * Chooses a buffer and sets the offset.
-   * @param p buffer pointer
+   * Chooses the buffer for the specified block.
+   * @param p block position
    * @return true if cursor has changed
+   * @throws IOException I/O exception
    */
-  boolean cursor(final long p) {
-    final int o = off;
-    do {
-      if(buf[off].pos == p) return false;
-    } while((off = off + 1 & BUFFERS - 1) != o);
-    off = o + 1 & BUFFERS - 1;
+  boolean cursor(final long p) throws IOException {
+    if(current != null && current.pos == p) return false;
+    if(map == null) {
+      current = pin(p, current);
+    } else {
+      if(current == null) current = new Buffer();
+      else if(current.dirty) write(current);
+      current.pos = p;
+      read(current);
+    }
     return true;
   }
+
+  /**
+   * Returns the pinned buffer for the specified block and unpins the old buffer.
+   * @param p block position
+   * @param old old buffer (can be {@code null})
+   * @return buffer
+   * @throws IOException I/O exception
+   */
+  Buffer pin(final long p, final Buffer old) throws IOException {
+    if(closed) throw new ClosedChannelException();
+    final Buffer bf = POOL.pin(this, p, null);
+    if(old != null) POOL.unpin(old);
+    return bf;
+  }
+
+  /**
+   * Returns the pinned buffer for the specified block, which must be unpinned
+   * after it has been accessed.
+   * @param p block position
+   * @param last buffer that was last used for the block (can be {@code null})
+   * @return buffer
+   * @throws IOException I/O exception
+   */
+  Buffer fetch(final long p, final Buffer last) throws IOException {
+    if(closed) throw new ClosedChannelException();
+    return POOL.pin(this, p, last);
+  }
+
+  /**
+   * Writes all dirty buffers to disk.
+   * @throws IOException I/O exception
+   */
+  void flush() throws IOException {
+    if(map == null) POOL.flush(this);
+    else if(current != null && current.dirty) write(current);
+  }
+
+  /**
+   * Removes all buffers from the pool and returns the file id.
+   * Should be called after {@link #flush}. The current buffer remains accessible.
+   */
+  void close() {
+    if(closed) return;
+    closed = true;
+    POOL.release(this);
+  }
+
+  /**
+   * Returns the pool key for the specified block.
+   * @param p block position
+   * @return key
+   */
+  long key(final long p) {
+    return (long) id << 40 | p;
+  }
+
+  /**
+   * Reads the block of the specified buffer from disk.
+   * Bytes beyond the end of the file will be set to zero.
+   * @param bf buffer
+   * @throws IOException I/O exception
+   */
+  void read(final Buffer bf) throws IOException {
+    final long off = bf.pos << IO.BLOCKPOWER;
+    if(map != null) {
+      map.read(off, bf.data, 0, IO.BLOCKSIZE);
+      bf.dirty = false;
+      return;
+    }
+    int n = 0;
+    synchronized(file) {
+      final long len = file.length();
+      if(off < len) {
+        n = (int) Math.min(len - off, IO.BLOCKSIZE);
+        file.seek(off);
+        file.readFully(bf.data, 0, n);
+      }
+    }
+    Arrays.fill(bf.data, n, IO.BLOCKSIZE, (byte) 0);
+    bf.dirty = false;
+  }
+
+  /**
+   * Writes the block of the specified buffer to disk and resets the dirty flag.
+   * @param bf buffer
+   * @throws IOException I/O exception
+   */
+  void write(final Buffer bf) throws IOException {
+    write(bf.data, bf.pos);
+    bf.dirty = false;
+  }
+
+  /**
+   * Writes the contents of a block to disk.
+   * @param data block data
+   * @param p block position
+   * @throws IOException I/O exception
+   */
+  void write(final byte[] data, final long p) throws IOException {
+    if(map != null) {
+      map.write(p << IO.BLOCKPOWER, data, 0, IO.BLOCKSIZE);
+    } else {
+      synchronized(file) {
+        file.seek(p << IO.BLOCKPOWER);
+        file.write(data);
+      }
+    }
+  }
 }
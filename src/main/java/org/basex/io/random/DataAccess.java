@@ -10,13 +10,17 @@ import org.basex.util.Util;
 
 /**
  * This class allows positional read and write access to a database file.
+ * If the file is memory-mapped, bytes will directly be read from and written to
+ * the mapped memory.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 public final class DataAccess {
-  /** Buffer manager. */
-  private final Buffers bm = new Buffers();
+  /** Buffer manager ({@code null} if file is memory-mapped). */
+  private final Buffers bm;
+  /** Mapped file ({@code null} if file is not memory-mapped). */
+  private final Mapping map;
   /** Reference to the data input stream. */
   private final RandomAccessFile file;
   /** File length. */
@@ -25,6 +29,8 @@ public final class DataAccess {
   private boolean changed;
   /** Offset. */
   private int off;
+  /** File position (memory-mapped file). */
+  private long pos;
 
   /**
    * Constructor, initializing the file reader.
@@ -32,20 +38,38 @@ public final class DataAccess {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile f) throws IOException {
+    this(f, false);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param f the file to be read
+   * @param mapped memory-map file
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile f, final boolean mapped) throws IOException {
     file = new RandomAccessFile(f.file(), "rw");
     len = file.length();
+    map = mapped ? new Mapping(file) : null;
+    bm = mapped ? null : new Buffers(file);
     cursor(0);
   }
 
   /**
-   * Flushes the buffered data.
+   * Flushes the buffered data. If the file is memory-mapped, the mapped segments
+   * are written back and kept, and the file will only be truncated when it is
+   * closed.
    */
   public synchronized void flush() {
     try {
-      for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
-      if(changed) {
-        file.setLength(len);
-        changed = false;
+      if(map != null) {
+        map.flush();
+      } else {
+        bm.flush();
+        if(changed) {
+          file.setLength(len);
+          changed = false;
+        }
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -58,6 +82,13 @@ public final class DataAccess {
   public synchronized void close() {
     flush();
     try {
+      if(map != null) {
+        // mapped segments may exceed the file length and are unmapped first.
+        // if they cannot be unmapped, the trailing bytes of the file are kept
+        if(map.close() && file.length() != len) file.setLength(len);
+      } else {
+        bm.close();
+      }
       file.close();
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -69,7 +100,7 @@ public final class DataAccess {
    * @return position in the file
    */
   public long cursor() {
-    return buffer(false).pos + off;
+    return map != null ? pos : (buffer(false).pos << IO.BLOCKPOWER) + off;
   }
 
   /**
@@ -198,6 +229,13 @@ public final class DataAccess {
    * @return byte array
    */
   public synchronized byte[] readBytes(final int n) {
+    if(map != null) {
+      final byte[] b = new byte[n];
+      map.read(pos, b, 0, n);
+      pos += n;
+      return b;
+    }
+
     int l = n;
     int ll = IO.BLOCKSIZE - off;
     final byte[] b = new byte[l];
@@ -221,19 +259,15 @@ public final class DataAccess {
    * @param p read position
    */
   public void cursor(final long p) {
+    if(map != null) {
+      pos = p;
+      return;
+    }
     off = (int) (p & IO.BLOCKSIZE - 1);
-    final long b = p - off;
-    if(!bm.cursor(b)) return;
-
-    final Buffer bf = bm.current();
     try {
-      if(bf.dirty) writeBlock(bf);
-      bf.pos = b;
-      file.seek(bf.pos);
-      if(bf.pos < file.length())
-        file.readFully(bf.data, 0, (int) Math.min(len - bf.pos, IO.BLOCKSIZE));
+      bm.cursor(p >>> IO.BLOCKPOWER);
     } catch(final IOException ex) {
-      Util.stack(ex);
+      throw Util.notexpected(ex);
     }
   }
 
@@ -341,6 +375,13 @@ public final class DataAccess {
   public void writeToken(final byte[] buf, final int offset, final int length) {
     writeNum(length);
 
+    if(map != null) {
+      map.write(pos, buf, offset, length);
+      pos += length;
+      if(pos > len) length(pos);
+      return;
+    }
+
     final int last = offset + length;
     int o = offset;
 
@@ -354,7 +395,7 @@ public final class DataAccess {
     }
 
     // adjust file size if needed
-    final long nl = bm.current().pos + off;
+    final long nl = (bm.current().pos << IO.BLOCKPOWER) + off;
     if(nl > len) length(nl);
   }
 
@@ -416,22 +457,12 @@ public final class DataAccess {
 
   // PRIVATE METHODS ==========================================================
 
-  /**
-   * Writes the specified block to disk.
-   * @param bf buffer to write
-   * @throws IOException I/O exception
-   */
-  private void writeBlock(final Buffer bf) throws IOException {
-    file.seek(bf.pos);
-    file.write(bf.data);
-    bf.dirty = false;
-  }
-
   /**
    * Reads the next byte.
    * @return next byte
    */
   private int read() {
+    if(map != null) return map.read(pos++) & 0xFF;
     final Buffer bf = buffer(off == IO.BLOCKSIZE);
     return bf.data[off++] & 0xFF;
   }
@@ -441,10 +472,15 @@ public final class DataAccess {
    * @param b byte to be written
    */
   private void write(final int b) {
+    if(map != null) {
+      map.write(pos++, b);
+      if(pos > len) length(pos);
+      return;
+    }
     final Buffer bf = buffer(off == IO.BLOCKSIZE);
     bf.dirty = true;
     bf.data[off++] = (byte) b;
-    final long nl = bf.pos + off;
+    final long nl = (bf.pos << IO.BLOCKPOWER) + off;
     if(nl > len) length(nl);
   }
 
@@ -455,7 +491,7 @@ public final class DataAccess {
    */
   private Buffer buffer(final boolean next) {
     if(next) {
-      cursor(bm.current().pos + IO.BLOCKSIZE);
+      cursor(bm.current().pos + 1 << IO.BLOCKPOWER);
     }
     return bm.current();
   }
@@ -0,0 +1,253 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides positional access to a memory-mapped file.
+ *
+ * The file is mapped in segments of {@link #SEGSIZE} bytes. The last segment
+ * grows on demand; as a consequence, the physical file may be longer than
+ * the contents that have been written. Read operations can be performed by
+ * several threads at the same time, whereas write operations must not be run
+ * in parallel with other operations.
+ *
+ * The array of segments is never modified after it has been published. Segments
+ * are only unmapped by {@link #close}, which is called before the file is
+ * truncated; threads that access the mapping in parallel must {@link #pin} it.
+ * If a segment cannot be unmapped explicitly, it will only be released by the
+ * garbage collector, and the file must not be truncated.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+final class Mapping {
+  /** Power of segment size. */
+  private static final int SEGPOWER = 28;
+  /** Segment size. */
+  private static final int SEGSIZE = 1 << SEGPOWER;
+  /** Minimum size of a mapped segment. */
+  private static final int MINSIZE = 1 << 16;
+
+  /** File channel. */
+  private final FileChannel channel;
+  /** Lock, preventing segments from being unmapped while they are accessed. */
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  /** Mapped segments. */
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+  /**
+   * Constructor.
+   * @param file file to be mapped
+   * @throws IOException I/O exception
+   */
+  Mapping(final RandomAccessFile file) throws IOException {
+    channel = file.getChannel();
+    final long len = channel.size();
+    if(len != 0) segment(len - 1);
+  }
+
+  /**
+   * Reads a byte from the specified position.
+   * @param p position
+   * @return byte value
+   */
+  byte read(final long p) {
+    return segment(p).get((int) (p & SEGSIZE - 1));
+  }
+
+  /**
+   * Reads bytes from the specified position.
+   * @param p position
+   * @param b target array
+   * @param o array offset
+   * @param l number of bytes
+   */
+  void read(final long p, final byte[] b, final int o, final int l) {
+    long pos = p;
+    int off = o, len = l;
+    while(len > 0) {
+      final int so = (int) (pos & SEGSIZE - 1);
+      final int n = Math.min(len, SEGSIZE - so);
+      final ByteBuffer bb = segment(pos + n - 1).duplicate();
+      bb.position(so);
+      bb.get(b, off, n);
+      pos += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Writes a byte to the specified position.
+   * @param p position
+   * @param b byte value
+   */
+  void write(final long p, final int b) {
+    segment(p).put((int) (p & SEGSIZE - 1), (byte) b);
+  }
+
+  /**
+   * Writes bytes to the specified position.
+   * @param p position
+   * @param b source array
+   * @param o array offset
+   * @param l number of bytes
+   */
+  void write(final long p, final byte[] b, final int o, final int l) {
+    long pos = p;
+    int off = o, len = l;
+    while(len > 0) {
+      final int so = (int) (pos & SEGSIZE - 1);
+      final int n = Math.min(len, SEGSIZE - so);
+      final ByteBuffer bb = segment(pos + n - 1).duplicate();
+      bb.position(so);
+      bb.put(b, off, n);
+      pos += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  /**
+   * Pins the mapping: its segments will not be unmapped until {@link #unpin}
+   * is called.
+   */
+  void pin() {
+    lock.readLock().lock();
+  }
+
+  /**
+   * Unpins the mapping.
+   */
+  void unpin() {
+    lock.readLock().unlock();
+  }
+
+  /**
+   * Writes back all segments.
+   */
+  void flush() {
+    for(final MappedByteBuffer mb : segments) mb.force();
+  }
+
+  /**
+   * Writes back and unmaps all segments. This method must be called before the
+   * file is truncated. Segments will be mapped again when they are accessed.
+   * @return {@code true} if all segments have been unmapped, and if the file
+   * can be truncated
+   */
+  boolean close() {
+    lock.writeLock().lock();
+    try {
+      return unmap();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the segment containing the specified position.
+   * Segments are created or enlarged if necessary.
+   * @param p position
+   * @return segment
+   */
+  private MappedByteBuffer segment(final long p) {
+    final int s = (int) (p >>> SEGPOWER);
+    final int o = (int) (p & SEGSIZE - 1);
+    final MappedByteBuffer[] segs = segments;
+    if(s < segs.length && o < segs[s].capacity()) return segs[s];
+    return grow(s, o);
+  }
+
+  /**
+   * Creates or enlarges the specified segment and publishes a new segment array.
+   * @param s segment
+   * @param o offset in the segment
+   * @return segment
+   */
+  private synchronized MappedByteBuffer grow(final int s, final int o) {
+    final MappedByteBuffer[] segs = segments;
+    // segment may have been enlarged by another thread
+    if(s < segs.length && o < segs[s].capacity()) return segs[s];
+
+    try {
+      final MappedByteBuffer[] ns = Arrays.copyOf(segs, Math.max(segs.length, s + 1));
+      // preceding segments are mapped completely
+      for(int i = Math.max(segs.length - 1, 0); i < s; i++) {
+        if(ns[i] == null || ns[i].capacity() < SEGSIZE) ns[i] = map(i, SEGSIZE);
+      }
+      // last segment: double size, but at least cover the requested block
+      final int cap = ns[s] == null ? 0 : ns[s].capacity();
+      final long need = (long) (o | IO.BLOCKSIZE - 1) + 1;
+      ns[s] = map(s, (int) Math.min(SEGSIZE, Math.max(Math.max(need, cap << 1), MINSIZE)));
+      segments = ns;
+      return ns[s];
+    } catch(final IOException ex) {
+      throw Util.notexpected(ex);
+    }
+  }
+
+  /**
+   * Writes back and unmaps all segments.
+   * @return {@code true} if all segments have been unmapped
+   */
+  private synchronized boolean unmap() {
+    final MappedByteBuffer[] segs = segments;
+    segments = new MappedByteBuffer[0];
+    boolean ok = true;
+    for(final MappedByteBuffer mb : segs) {
+      mb.force();
+      ok &= clean(mb);
+    }
+    return ok;
+  }
+
+  /**
+   * Unmaps a segment. If the buffer cannot be unmapped explicitly, the mapped
+   * memory will be freed by the garbage collector.
+   * @param mb mapped segment
+   * @return {@code true} if the segment has been unmapped
+   */
+  private static boolean clean(final MappedByteBuffer mb) {
+    // Java 9 and later: Unsafe.invokeCleaner
+    try {
+      final Class<?> clz = Class.forName("sun.misc.Unsafe");
+      final Field f = clz.getDeclaredField("theUnsafe");
+      f.setAccessible(true);
+      clz.getMethod("invokeCleaner", ByteBuffer.class).invoke(f.get(null), mb);
+      return true;
+    } catch(final Exception ex) {
+      // method is not available: try internal cleaner of older Java versions
+    }
+    try {
+      final Method cleaner = mb.getClass().getMethod("cleaner");
+      cleaner.setAccessible(true);
+      final Object cl = cleaner.invoke(mb);
+      if(cl != null) cl.getClass().getMethod("clean").invoke(cl);
+      return true;
+    } catch(final Exception ex) {
+      Util.debug("Mapped segment cannot be unmapped; file will not be truncated: %", ex);
+      return false;
+    }
+  }
+
+  /**
+   * Maps a segment.
+   * @param s segment
+   * @param size size of the segment
+   * @return mapped segment
+   * @throws IOException I/O exception
+   */
+  private MappedByteBuffer map(final int s, final int size) throws IOException {
+    return channel.map(MapMode.READ_WRITE, (long) s << SEGPOWER, size);
+  }
+}
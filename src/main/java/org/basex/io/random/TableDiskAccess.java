@@ -16,15 +16,32 @@ import org.basex.util.*;
 /**
  * This class stores the table on disk and reads it block-wise.
  *
+ * Read operations are not synchronized: each thread has its own read cursor,
+ * which remembers the position of the current block. The block is pinned in
+ * the buffer pool while an entry is read, and unpinned afterwards. As long as
+ * the last buffer of a cursor still contains the block, it is pinned without
+ * entering the monitor of the shared pool. Updates are
+ * performed via a separate cursor. As the database locks prevent updates from
+ * running in parallel with other processes, cached read cursors will only be
+ * invalidated if the block structure has been changed.
+ *
+ * If {@link MetaData#mmap} is enabled, the file will be memory-mapped, and
+ * entries will directly be read from the mapped memory. Updated blocks are
+ * written back to the mapped memory after each operation. While an entry is
+ * read, the mapping is pinned, so that it cannot be unmapped by a parallel
+ * {@link #close} operation.
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  * @author Tim Petrowsky
  */
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
-  private final Buffers bm = new Buffers();
+  private final Buffers bm;
   /** File storing all blocks. */
   private final RandomAccessFile file;
+  /** Mapped file ({@code null} if file is not memory-mapped). */
+  private final Mapping map;
   /** File lock. */
   private FileLock fl;
 
@@ -47,6 +64,16 @@ public final class TableDiskAccess extends TableAccess {
   /** Index of the current block number in the {@link #pages} array. */
   private int index = -1;
 
+  /** Version of the block structure; incremented by every structural update. */
+  private int version;
+  /** Read cursors of the current threads. */
+  private final ThreadLocal<Reader> readers = new ThreadLocal<Reader>() {
+    @Override
+    protected Reader initialValue() {
+      return new Reader(map);
+    }
+  };
+
   /**
    * Constructor.
    * @param md meta data
@@ -77,6 +104,8 @@ public final class TableDiskAccess extends TableAccess {
 
     // initialize data file
     file = new RandomAccessFile(meta.dbfile(DATATBL).file(), "rw");
+    map = md.mmap ? new Mapping(file) : null;
+    bm = new Buffers(file, map);
     if(lock) exclusiveLock();
     else sharedLock();
     if(fl == null) throw new BaseXException(Text.DB_PINNED_X, md.name);
@@ -113,7 +142,8 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void flush() throws IOException {
-    for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
+    bm.flush();
+    if(map != null) map.flush();
     if(!dirty) return;
     final DataOutput out = new DataOutput(meta.dbfile(DATATBL + 'i'));
     out.writeNum(allBlocks);
@@ -133,6 +163,13 @@ public final class TableDiskAccess extends TableAccess {
   @Override
   public synchronized void close() throws IOException {
     flush();
+    bm.close();
+    if(map != null) {
+      // mapped segments may exceed the file length and are unmapped first.
+      // if they cannot be unmapped, the trailing bytes of the file are kept
+      final long len = (long) allBlocks << IO.BLOCKPOWER;
+      if(map.close() && file.length() > len) file.setLength(len);
+    }
     file.close();
   }
 
@@ -185,33 +222,45 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   @Override
-  public synchronized int read1(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return b[o] & 0xFF;
+  public int read1(final int pre, final int off) {
+    final Reader r = reader(pre);
+    try {
+      return r.read(off);
+    } finally {
+      unpin(r);
+    }
   }
 
   @Override
-  public synchronized int read2(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((b[o] & 0xFF) << 8) + (b[o + 1] & 0xFF);
+  public int read2(final int pre, final int off) {
+    final Reader r = reader(pre);
+    try {
+      return (r.read(off) << 8) + r.read(off + 1);
+    } finally {
+      unpin(r);
+    }
   }
 
   @Override
-  public synchronized int read4(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
-      ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
+  public int read4(final int pre, final int off) {
+    final Reader r = reader(pre);
+    try {
+      return (r.read(off) << 24) + (r.read(off + 1) << 16) +
+        (r.read(off + 2) << 8) + r.read(off + 3);
+    } finally {
+      unpin(r);
+    }
   }
 
   @Override
-  public synchronized long read5(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
-      ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
+  public long read5(final int pre, final int off) {
+    final Reader r = reader(pre);
+    try {
+      return ((long) r.read(off) << 32) + ((long) r.read(off + 1) << 24) +
+        (r.read(off + 2) << 16) + (r.read(off + 3) << 8) + r.read(off + 4);
+    } finally {
+      unpin(r);
+    }
   }
 
   @Override
@@ -221,6 +270,7 @@ public final class TableDiskAccess extends TableAccess {
     final byte[] b = bf.data;
     b[o] = (byte) v;
     bf.dirty = true;
+    sync();
   }
 
   @Override
@@ -231,6 +281,7 @@ public final class TableDiskAccess extends TableAccess {
     b[o] = (byte) (v >>> 8);
     b[o + 1] = (byte) v;
     bf.dirty = true;
+    sync();
   }
 
   @Override
@@ -243,6 +294,7 @@ public final class TableDiskAccess extends TableAccess {
     b[o + 2] = (byte) (v >>> 8);
     b[o + 3] = (byte) v;
     bf.dirty = true;
+    sync();
   }
 
   @Override
@@ -256,6 +308,7 @@ public final class TableDiskAccess extends TableAccess {
     b[o + 3] = (byte) (v >>> 8);
     b[o + 4] = (byte) v;
     bf.dirty = true;
+    sync();
   }
 
   @Override
@@ -266,12 +319,14 @@ public final class TableDiskAccess extends TableAccess {
       System.arraycopy(entries, o, bf.data, off, IO.NODESIZE);
       bf.dirty = true;
     }
+    sync();
   }
 
   @Override
   public void delete(final int pre, final int nr) {
     if(nr == 0) return;
     dirty = true;
+    ++version;
 
     // get first block
     cursor(pre);
@@ -297,6 +352,7 @@ public final class TableDiskAccess extends TableAccess {
         --blocks;
         readIndex(index);
       }
+      sync();
       return;
     }
 
@@ -340,12 +396,14 @@ public final class TableDiskAccess extends TableAccess {
     fpres[index] = pre;
     fpre = pre;
     updatePre(nr);
+    sync();
   }
 
   @Override
   public void insert(final int pre, final byte[] entries) {
     if(entries.length == 0) return;
     dirty = true;
+    ++version;
 
     // go to the block and find the offset within the block where the new
     // records will be inserted
@@ -371,6 +429,7 @@ public final class TableDiskAccess extends TableAccess {
       // update cached variables (fpre is not changed)
       npre += nr;
       meta.size += nr;
+      sync();
       return;
     }
 
@@ -448,10 +507,77 @@ public final class TableDiskAccess extends TableAccess {
     fpre = fpres[index];
     npre = index + 1 < blocks && fpres[index + 1] < meta.size ?
         fpres[index + 1] : meta.size;
+    sync();
   }
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Writes the updated block to a memory-mapped file, which makes it visible
+   * to subsequent read operations.
+   */
+  private void sync() {
+    if(map == null) return;
+    try {
+      bm.flush();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Returns the read cursor of the current thread, pointing to the block
+   * containing the entry for the specified pre value. The block is pinned and
+   * must be unpinned via {@link #unpin} after the entry has been read.
+   * @param pre pre value
+   * @return read cursor
+   */
+  private Reader reader(final int pre) {
+    final Reader r = readers.get();
+    if(r.version != version || pre < r.fpre || pre >= r.npre) {
+      // find block via binary search
+      int l = 0, h = blocks - 1;
+      while(l < h) {
+        final int m = l + h + 1 >>> 1;
+        if(pre < fpres[m]) h = m - 1;
+        else l = m;
+      }
+      if(pre < 0 || pre >= meta.size) Util.notexpected(
+          "Data Access out of bounds [pre:" + pre + ", size:" + meta.size + ']');
+
+      r.page = pages[l];
+      r.block = (long) pages[l] << IO.BLOCKPOWER;
+      r.fpre = fpres[l];
+      r.npre = l + 1 >= blocks ? meta.size : fpres[l + 1];
+      r.version = version;
+    }
+    if(map == null) {
+      // the last buffer can be pinned without accessing the buffer pool
+      // if it still contains the requested block
+      final Buffer bf = r.buffer;
+      if(bf == null || !bf.pin(bm.key(r.page))) {
+        try {
+          r.buffer = bm.fetch(r.page, bf);
+        } catch(final IOException ex) {
+          throw Util.notexpected(ex);
+        }
+      }
+    } else {
+      map.pin();
+    }
+    r.off = pre - r.fpre << IO.NODEPOWER;
+    return r;
+  }
+
+  /**
+   * Unpins the block or mapping of the specified read cursor.
+   * @param r read cursor
+   */
+  private void unpin(final Reader r) {
+    if(map == null) r.buffer.unpin();
+    else map.unpin();
+  }
+
   /**
    * Searches for the block containing the entry for that pre. then it
    * reads the block and returns it's offset inside the block.
@@ -507,20 +633,10 @@ public final class TableDiskAccess extends TableAccess {
    * @param b block to fetch
    */
   private void readBlock(final int b) {
-    if(!bm.cursor(b)) return;
-
-    final Buffer bf = bm.current();
     try {
-      if(bf.dirty) writeBlock(bf);
-      bf.pos = b;
-      if(b >= allBlocks) {
-        allBlocks = b + 1;
-      } else {
-        file.seek(bf.pos * IO.BLOCKSIZE);
-        file.readFully(bf.data);
-      }
+      if(bm.cursor(b) && b >= allBlocks) allBlocks = b + 1;
     } catch(final IOException ex) {
-      Util.stack(ex);
+      throw Util.notexpected(ex);
     }
   }
 
@@ -535,17 +651,6 @@ public final class TableDiskAccess extends TableAccess {
     ++index;
   }
 
-  /**
-   * Writes the specified block to disk and resets the dirty flag.
-   * @param bf buffer to write
-   * @throws IOException I/O exception
-   */
-  private void writeBlock(final Buffer bf) throws IOException {
-    file.seek(bf.pos * IO.BLOCKSIZE);
-    file.write(bf.data);
-    bf.dirty = false;
-  }
-
   /**
    * Updates the firstPre index entries.
    * @param nr number of entries to move
@@ -596,4 +701,43 @@ public final class TableDiskAccess extends TableAccess {
   private int occSpace(final int i) {
     return (i + 1 < blocks ? fpres[i + 1] : meta.size) - fpres[i];
   }
+
+  /** Read cursor of a single thread. */
+  private static final class Reader {
+    /** Mapped file ({@code null} if file is not memory-mapped). */
+    final Mapping map;
+    /** Buffer that was last used for the current block; it is only pinned
+     * while an entry is read (not used for mapped files). */
+    Buffer buffer;
+    /** Current block. */
+    int page;
+    /** File offset of the current block. */
+    long block;
+    /** Pre value of the first entry in the current block. */
+    int fpre;
+    /** First pre value of the next block. */
+    int npre;
+    /** Offset of the requested entry in the current block. */
+    int off;
+    /** Version of the block structure. */
+    int version = -1;
+
+    /**
+     * Constructor.
+     * @param m mapped file (can be {@code null})
+     */
+    Reader(final Mapping m) {
+      map = m;
+    }
+
+    /**
+     * Returns an unsigned byte of the current entry.
+     * @param o offset in the entry
+     * @return byte value
+     */
+    int read(final int o) {
+      final int p = off + o;
+      return (map != null ? map.read(block + p) : buffer.data[p]) & 0xFF;
+    }
+  }
 }
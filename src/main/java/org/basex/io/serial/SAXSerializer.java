@@ -1,45 +1,83 @@
 package org.basex.io.serial;
 
 import static org.basex.data.DataText.*;
+import static org.basex.query.QueryText.XMLURI;
 import static org.basex.util.Token.*;
 import java.io.IOException;
 
 import org.basex.core.BaseXException;
 import org.basex.data.Result;
 import org.basex.query.item.Item;
-import org.basex.util.Util;
+import org.basex.util.Atts;
+import org.basex.util.list.IntList;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.DTDHandler;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.AttributesImpl;
 
 /**
- * This class serializes data via SAX.
+ * This class serializes data via SAX. Namespace declarations are reported as
+ * prefix mappings, and element and attribute events contain the resolved
+ * namespace URIs. Instances can be used as {@link XMLReader} of a
+ * {@link javax.xml.transform.sax.SAXSource}.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 public final class SAXSerializer extends Serializer implements XMLReader {
+  /** Feature: namespaces. */
+  private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
+  /** Feature: namespace prefixes. */
+  private static final String PREFIXES =
+    "http://xml.org/sax/features/namespace-prefixes";
+  /** Property: lexical handler. */
+  private static final String LEXHANDLER =
+    "http://xml.org/sax/properties/lexical-handler";
+
+  /** Declared namespaces. */
+  private final Atts nsp = new Atts(XML, XMLURI);
+  /** Number of declared namespaces before the opened elements. */
+  private final IntList nss = new IntList();
+  /** Attributes of the current element. */
+  private final Atts attr = new Atts();
+  /** Result to be serialized ({@code null} if a single item is serialized). */
+  private final Result result;
+  /** Item to be serialized. */
+  private final Item item;
   /** Content handler reference. */
   private ContentHandler content;
   /** Lexical handler reference. */
   private LexicalHandler lexical;
-  /** Content handler reference. */
-  private final Result result;
-  /** Caches attributes. */
-  private AttributesImpl atts;
+  /** DTD handler reference. */
+  private DTDHandler dtd;
+  /** Error handler reference. */
+  private ErrorHandler error;
+  /** Entity resolver reference. */
+  private EntityResolver resolver;
 
   /**
-   * Constructor.
+   * Constructor. All items of the result are wrapped into result elements.
    * @param res result
    */
   public SAXSerializer(final Result res) {
     result = res;
+    item = null;
+  }
+
+  /**
+   * Constructor, specifying a single node to be serialized.
+   * @param it item
+   */
+  public SAXSerializer(final Item it) {
+    result = null;
+    item = it;
   }
 
   @Override
@@ -49,27 +87,30 @@ public final class SAXSerializer extends Serializer implements XMLReader {
 
   @Override
   public DTDHandler getDTDHandler() {
-    return null;
+    return dtd;
   }
 
   @Override
   public EntityResolver getEntityResolver() {
-    return null;
+    return resolver;
   }
 
   @Override
   public ErrorHandler getErrorHandler() {
-    return null;
+    return error;
   }
 
   @Override
-  public boolean getFeature(final String name) {
-    return false;
+  public boolean getFeature(final String name) throws SAXNotRecognizedException {
+    if(name.equals(NAMESPACES)) return true;
+    if(name.equals(PREFIXES)) return false;
+    throw new SAXNotRecognizedException(name);
   }
 
   @Override
-  public Object getProperty(final String name) {
-    return null;
+  public Object getProperty(final String name) throws SAXNotRecognizedException {
+    if(name.equals(LEXHANDLER)) return lexical;
+    throw new SAXNotRecognizedException(name);
   }
 
   @Override
@@ -82,7 +123,8 @@ public final class SAXSerializer extends Serializer implements XMLReader {
     try {
       // execute query
       content.startDocument();
-      result.serialize(this);
+      if(result != null) result.serialize(this);
+      else item.serialize(this);
       content.endDocument();
     } catch(final Exception ex) {
       throw new SAXException(ex);
@@ -104,27 +146,32 @@ public final class SAXSerializer extends Serializer implements XMLReader {
 
   @Override
   public void setDTDHandler(final DTDHandler h) {
-    throw Util.notimplemented();
+    dtd = h;
   }
 
   @Override
-  public void setEntityResolver(final EntityResolver resolver) {
-    throw Util.notimplemented();
+  public void setEntityResolver(final EntityResolver r) {
+    resolver = r;
   }
 
   @Override
   public void setErrorHandler(final ErrorHandler h) {
-    throw Util.notimplemented();
+    error = h;
   }
 
   @Override
-  public void setFeature(final String name, final boolean value) {
-    throw Util.notimplemented();
+  public void setFeature(final String name, final boolean value)
+      throws SAXNotRecognizedException, SAXNotSupportedException {
+    // the serialized events are always namespace aware
+    if(getFeature(name) != value) throw new SAXNotSupportedException(name);
   }
 
   @Override
-  public void setProperty(final String name, final Object value) {
-    throw Util.notimplemented();
+  public void setProperty(final String name, final Object value)
+      throws SAXNotRecognizedException, SAXNotSupportedException {
+    if(!name.equals(LEXHANDLER)) throw new SAXNotRecognizedException(name);
+    if(!(value instanceof LexicalHandler)) throw new SAXNotSupportedException(name);
+    lexical = (LexicalHandler) value;
   }
 
   @Override
@@ -139,19 +186,32 @@ public final class SAXSerializer extends Serializer implements XMLReader {
 
   @Override
   public void attribute(final byte[] n, final byte[] v) {
-    final String an = string(n);
-    atts.addAttribute("", an, an, "", string(v));
+    if(eq(n, XMLNS)) nsp.add(EMPTY, v);
+    else if(startsWith(n, XMLNSC)) nsp.add(local(n), v);
+    else attr.add(n, v);
   }
 
   @Override
   protected void startOpen(final byte[] t) {
-    atts = new AttributesImpl();
+    nss.push(nsp.size());
+    attr.reset();
   }
 
   @Override
   protected void finishOpen() throws IOException {
     try {
-      content.startElement("", string(tag), string(tag), atts);
+      for(int n = nss.peek(); n < nsp.size(); n++) {
+        content.startPrefixMapping(string(nsp.name(n)), string(nsp.string(n)));
+      }
+      final AttributesImpl atts = new AttributesImpl();
+      for(int a = 0; a < attr.size(); a++) {
+        final byte[] an = attr.name(a);
+        // attributes without prefix have no namespace
+        final byte[] pref = prefix(an);
+        atts.addAttribute(pref.length == 0 ? "" : uri(pref), string(local(an)),
+            string(an), "CDATA", string(attr.string(a)));
+      }
+      content.startElement(uri(prefix(tag)), string(local(tag)), string(tag), atts);
     } catch(final SAXException ex) {
       throw new BaseXException(ex);
     }
@@ -166,7 +226,12 @@ public final class SAXSerializer extends Serializer implements XMLReader {
   @Override
   protected void finishClose() throws IOException {
     try {
-      content.endElement("", string(tag), string(tag));
+      content.endElement(uri(prefix(tag)), string(local(tag)), string(tag));
+      final int s = nss.pop();
+      for(int n = nsp.size() - 1; n >= s; n--) {
+        content.endPrefixMapping(string(nsp.name(n)));
+      }
+      nsp.size(s);
     } catch(final SAXException ex) {
       throw new BaseXException(ex);
     }
@@ -186,7 +251,7 @@ public final class SAXSerializer extends Serializer implements XMLReader {
   public void finishComment(final byte[] t) throws IOException {
     try {
       final char[] c = string(t).toCharArray();
-      if(lexical != null) lexical.comment(c, 0, t.length);
+      if(lexical != null) lexical.comment(c, 0, c.length);
     } catch(final SAXException ex) {
       throw new BaseXException(ex);
     }
@@ -205,4 +270,16 @@ public final class SAXSerializer extends Serializer implements XMLReader {
   public void finishAtomic(final Item b) throws IOException {
     throw new BaseXException("Atomic values cannot be serialized");
   }
+
+  /**
+   * Returns the namespace URI bound to the specified prefix.
+   * @param pref prefix
+   * @return URI, or an empty string if the prefix is unknown
+   */
+  private String uri(final byte[] pref) {
+    for(int n = nsp.size() - 1; n >= 0; n--) {
+      if(eq(nsp.name(n), pref)) return string(nsp.string(n));
+    }
+    return "";
+  }
 }
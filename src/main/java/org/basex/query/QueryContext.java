@@ -16,6 +16,7 @@ import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.serial.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.Expr.Use;
 import org.basex.query.func.*;
 import org.basex.query.item.*;
 import org.basex.query.iter.*;
@@ -51,6 +52,11 @@ public final class QueryContext extends Progress {
   public final QueryResources resource = new QueryResources(this);
   /** Database context. */
   public final Context context;
+  /**
+   * Registered process: its read locks will be converted into write locks
+   * before updates are applied (can be {@code null}).
+   */
+  public Progress process;
   /** XQuery version flag. */
   public boolean xquery3;
 
@@ -128,6 +134,8 @@ public final class QueryContext extends Progress {
   private boolean firstOpt = true;
   /** Evaluation flag. */
   private boolean firstEval = true;
+  /** Initial context value, assigned after compilation. */
+  private Value initValue;
 
   /**
    * Constructor.
@@ -142,6 +150,9 @@ public final class QueryContext extends Progress {
     if(!path.isEmpty()) sc.baseURI(path);
     maxCalls = ctx.prop.num(Prop.TAILCALLS);
     modules = new ModuleLoader(ctx);
+    // queries will at least access the currently opened database
+    databases = new StringList();
+    if(nodes != null) databases.add(nodes.data.meta.name);
   }
 
   /**
@@ -212,6 +223,38 @@ public final class QueryContext extends Progress {
 
     // dump resulting query
     if(inf) info.add(NL + RESULT_C + funcs + root + NL);
+    initValue = value;
+  }
+
+  /**
+   * Checks if the compiled query can be evaluated again and yields the same
+   * result as a newly compiled query. This is not the case if the query
+   * is updating or non-deterministic, if it depends on the current time,
+   * on database options or on resources that are not managed as databases.
+   * Should be called after the query has been evaluated.
+   * @return result of check
+   */
+  public boolean reusable() {
+    if(root == null || updating || inf || ftpos != null || jdbc != null ||
+        date != null || dtm != null || time != null || !dbOptions.isEmpty() ||
+        !resource.databases() || root.uses(Use.NDT)) return false;
+    for(final UserFunc uf : funcs.funcs()) if(uf.expr.uses(Use.NDT)) return false;
+    final VarStack vs = vars.globals();
+    for(int v = 0; v < vs.size; ++v) {
+      final Expr e = vs.vars[v].expr();
+      if(e != null && e.uses(Use.NDT)) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Resets the dynamic context before a compiled query is evaluated again.
+   */
+  public void reset() {
+    value = initValue;
+    pos = 1;
+    size = 1;
+    tailCalls = 0;
   }
 
   /**
@@ -238,6 +281,7 @@ public final class QueryContext extends Progress {
     try {
       final Value v = value(root);
       if(updating) {
+        if(process != null) context.upgrade(process);
         updates.apply();
         if(context.data() != null) context.update();
       }
@@ -382,6 +426,14 @@ public final class QueryContext extends Progress {
     updating = up;
   }
 
+  /**
+   * Adds the databases that are accessed by the specified function.
+   * @param fun function
+   */
+  public void databases(final StandardFunc fun) {
+    if(databases != null && !fun.databases(databases)) databases = null;
+  }
+
   @Override
   public String tit() {
     return EVALUATING_C;
@@ -42,6 +42,7 @@ public final class QueryProcessor extends Progress {
   public QueryProcessor(final String qu, final Context cx) {
     query = qu;
     ctx = new QueryContext(cx);
+    ctx.process = this;
     progress(ctx);
   }
 
@@ -53,6 +54,7 @@ public final class QueryProcessor extends Progress {
     if(parsed) return;
     ctx.parse(query);
     updating = ctx.updating();
+    databases = ctx.databases;
     parsed = true;
   }
 
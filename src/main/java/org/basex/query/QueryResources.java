@@ -77,6 +77,18 @@ public final class QueryResources {
     datas = 0;
   }
 
+  /**
+   * Checks if all opened resources are databases that are managed by the
+   * database context.
+   * @return result of check
+   */
+  boolean databases() {
+    for(int d = 0; d < datas; ++d) {
+      if(!ctx.context.datas.contains(data[d])) return false;
+    }
+    return true;
+  }
+
   /**
    * Opens a new database or returns a reference to an already opened database.
    * @param name name of database
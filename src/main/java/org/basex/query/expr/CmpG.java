@@ -301,7 +301,7 @@ public final class CmpG extends Cmp {
     // check which index applies
     final boolean text = s.test.type == NodeType.TXT && ic.data.meta.textindex;
     final boolean attr = s.test.type == NodeType.ATT && ic.data.meta.attrindex;
-    if(!text && !attr) return false;
+    if(!text && !attr || !ic.included(expr[0], text)) return false;
 
     // support expressions
     final IndexType ind = text ? IndexType.TEXT : IndexType.ATTRIBUTE;
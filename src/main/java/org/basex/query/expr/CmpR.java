@@ -131,7 +131,7 @@ public final class CmpR extends Single {
     // check which index applies
     final boolean text = s.test.type == NodeType.TXT && ic.data.meta.textindex;
     final boolean attr = s.test.type == NodeType.ATT && ic.data.meta.attrindex;
-    if(!text && !attr || !mni || !mxi) return false;
+    if(!text && !attr || !mni || !mxi || !ic.included(expr, text)) return false;
 
     final Stats key = key(ic, text);
     if(key == null) return false;
@@ -140,7 +140,7 @@ public final class CmpR extends Single {
     rt = new NumericRange(text ? IndexType.TEXT : IndexType.ATTRIBUTE,
         Math.max(min, key.min), Math.min(max, key.max));
     ic.costs(rt.min > rt.max || rt.max < key.min || rt.min > key.max ? 0 :
-      Math.max(1, ic.data.meta.size / 5));
+      ic.data.count(rt));
 
     // use index if costs are zero, or if min/max is not infinite
     return ic.costs() == 0 || min != Double.NEGATIVE_INFINITY &&
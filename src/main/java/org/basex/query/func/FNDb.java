@@ -689,6 +689,14 @@ public final class FNDb extends StandardFunc {
       super.uses(u);
   }
 
+  @Override
+  public boolean databases(final StringList db) {
+    // all other functions expect the database as first argument
+    return sig == Function._DB_SYSTEM || sig == Function._DB_NODE_ID ||
+      sig == Function._DB_NODE_PRE || sig == Function._DB_EVENT ||
+      databases(db, 0);
+  }
+
   @Override
   public boolean iterable() {
     // index functions will always yield ordered and duplicate-free results
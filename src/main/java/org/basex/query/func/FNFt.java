@@ -27,6 +27,7 @@ import org.basex.util.XMLToken;
 import org.basex.util.ft.FTLexer;
 import org.basex.util.ft.FTOpt;
 import org.basex.util.list.IntList;
+import org.basex.util.list.StringList;
 
 /**
  * Full-text functions.
@@ -229,6 +230,11 @@ public final class FNFt extends StandardFunc {
     };
   }
 
+  @Override
+  public boolean databases(final StringList db) {
+    return sig != Function._FT_TOKENS || databases(db, 0);
+  }
+
   @Override
   public boolean uses(final Use u) {
     // skip pre-evaluation, because cached results may get very large
@@ -17,6 +17,7 @@ import org.basex.query.iter.Iter;
 import org.basex.query.util.Err;
 import org.basex.query.util.Var;
 import org.basex.util.InputInfo;
+import org.basex.util.list.StringList;
 
 /**
  * Functions on functions.
@@ -256,6 +257,12 @@ public final class FNFunc extends StandardFunc {
     return (FItem) f;
   }
 
+  @Override
+  public boolean databases(final StringList db) {
+    // functions found at runtime may access arbitrary databases
+    return sig != Function.FUNCTION_LOOKUP;
+  }
+
   @Override
   public boolean uses(final Use u) {
     return (sig == Function.PARTIAL_APPLY ||
@@ -26,6 +26,7 @@ import org.basex.query.util.Err.ErrType;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.ByteList;
+import org.basex.util.list.StringList;
 
 /**
  * Generating functions.
@@ -304,6 +305,13 @@ public final class FNGen extends StandardFunc {
     return Str.get(delete(ao.toArray(), '\r'));
   }
 
+  @Override
+  public boolean databases(final StringList db) {
+    return sig != Function.COLLECTION && sig != Function.DOC &&
+      sig != Function.DOC_AVAILABLE && sig != Function.URI_COLLECTION ||
+      databases(db, 0);
+  }
+
   @Override
   public boolean uses(final Use u) {
     return
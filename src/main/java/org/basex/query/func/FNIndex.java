@@ -15,6 +15,7 @@ import org.basex.query.expr.*;
 import org.basex.query.item.*;
 import org.basex.query.iter.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Index functions.
@@ -240,6 +241,11 @@ public final class FNIndex extends StandardFunc {
     }
   }
 
+  @Override
+  public boolean databases(final StringList db) {
+    return databases(db, 0);
+  }
+
   @Override
   public boolean uses(final Use u) {
     // skip pre-evaluation, because cached results may get very large
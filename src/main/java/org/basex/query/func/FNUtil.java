@@ -31,6 +31,7 @@ import org.basex.query.util.Compare;
 import org.basex.query.util.Compare.Flag;
 import org.basex.util.*;
 import org.basex.util.list.ByteList;
+import org.basex.util.list.StringList;
 
 /**
  * Project specific functions.
@@ -112,6 +113,7 @@ public final class FNUtil extends StandardFunc {
       throws QueryException {
 
     final QueryContext qc = new QueryContext(ctx.context);
+    qc.process = ctx.process;
     qc.parse(string(qu));
     qc.compile();
     return qc.value();
@@ -476,6 +478,12 @@ public final class FNUtil extends StandardFunc {
     return fn.isEmpty() ? null : Str.get(fn);
   }
 
+  @Override
+  public boolean databases(final StringList db) {
+    // evaluated queries may access arbitrary databases
+    return sig != Function._UTIL_EVAL && sig != Function._UTIL_RUN;
+  }
+
   @Override
   public boolean uses(final Use u) {
     return u == Use.NDT && (sig == Function._UTIL_EVAL ||
@@ -6,16 +6,29 @@ import static org.basex.util.Reflect.*;
 import static org.basex.util.Token.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
 
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamSource;
 
+import org.basex.build.SingleParser;
+import org.basex.build.xml.SAXHandler;
+import org.basex.core.BaseXException;
+import org.basex.core.Prop;
 import org.basex.io.IO;
 import org.basex.io.IOContent;
+import org.basex.io.IOFile;
 import org.basex.io.out.ArrayOutput;
+import org.basex.io.serial.SAXSerializer;
 import org.basex.io.serial.Serializer;
 import org.basex.query.QueryContext;
 import org.basex.query.QueryException;
@@ -31,10 +44,17 @@ import org.basex.query.iter.AxisIter;
 import org.basex.util.InputInfo;
 import org.basex.util.Util;
 import org.basex.util.hash.TokenObjMap;
+import org.xml.sax.InputSource;
 
 /**
  * Project specific functions.
  *
+ * <p>Compiled stylesheets are cached and reused as long as the digest of
+ * their content (or, for files, their modification date and size) does not
+ * change. Input nodes
+ * are passed on to the XSLT processor as SAX events, and the result is built
+ * from the SAX events of the processor.</p>
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
@@ -51,6 +71,17 @@ public final class FNXslt extends StandardFunc {
   };
   /** Implementation offset. */
   private static final int OFFSET;
+  /** Maximum number of cached stylesheets. */
+  private static final int CACHE = 32;
+  /** Compiled stylesheets, ordered by their last access. */
+  private static final LinkedHashMap<String, Templates> TEMPLATES =
+    new LinkedHashMap<String, Templates>(CACHE, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(
+          final java.util.Map.Entry<String, Templates> eldest) {
+        return size() > CACHE;
+      }
+    };
 
   static {
     final String fac = TransformerFactory.class.getName();
@@ -94,12 +125,15 @@ public final class FNXslt extends StandardFunc {
   public Item item(final QueryContext ctx, final InputInfo ii) throws QueryException {
     checkCreate(ctx);
     try {
-      final IO in = read(expr[0], ctx);
-      final IO xsl = read(expr[1], ctx);
+      // parameters are checked before the input is accessed
       final TokenObjMap<Object> map = xsltParams(2, E_PARAM, ctx);
+      final Source in = source(expr[0], ctx);
+      final Templates xsl = templates(expr[1], ctx);
 
-      final byte[] result = transform(in, xsl, map);
-      return new DBNode(new IOContent(result), ctx.context.prop);
+      // bind parameters
+      final Transformer tr = xsl.newTransformer();
+      for(final byte[] key : map) tr.setParameter(string(key), map.get(key));
+      return new DBNode(new XSLTParser(tr, in, ctx.context.prop));
     } catch(final Exception ex) {
       Util.debug(ex);
       // return cause of reflection error, or error itself
@@ -148,25 +182,85 @@ public final class FNXslt extends StandardFunc {
   }
 
   /**
-   * Returns an input reference (possibly cached) to the specified input.
+   * Returns a source for the specified input. Nodes are passed on as SAX
+   * events.
+   * @param e expression to be evaluated
+   * @param ctx query context
+   * @return source
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  private Source source(final Expr e, final QueryContext ctx)
+      throws QueryException, IOException {
+
+    final Item it = checkNoEmpty(e.item(ctx, info));
+    final Type ip = it.type;
+    if(ip.isNode()) return new SAXSource(new SAXSerializer(it), new InputSource());
+    if(ip.isString()) return new StreamSource(
+        new ByteArrayInputStream(IO.get(string(it.string(info))).read()));
+    throw STRNODTYPE.thrw(info, this, ip);
+  }
+
+  /**
+   * Returns the compiled version of the specified stylesheet, which is
+   * possibly retrieved from the cache.
    * @param e expression to be evaluated
    * @param ctx query context
-   * @return item
+   * @return compiled stylesheet
    * @throws QueryException query exception
    * @throws Exception exception
    */
-  private IO read(final Expr e, final QueryContext ctx) throws Exception {
+  private Templates templates(final Expr e, final QueryContext ctx)
+      throws Exception {
+
     final Item it = checkNoEmpty(e.item(ctx, info));
     final Type ip = it.type;
+    IO io = null;
+    byte[] cont = null;
+    final String key;
     if(ip.isNode()) {
       final ArrayOutput ao = new ArrayOutput();
       final Serializer ser = Serializer.get(ao);
       it.serialize(ser);
       ser.close();
-      return new IOContent(ao.toArray());
+      cont = ao.toArray();
+      key = digest(cont);
+    } else if(ip.isString()) {
+      io = IO.get(string(it.string(info)));
+      if(io instanceof IOFile) {
+        // digests contain no null characters
+        key = io.path() + '\0' + io.timeStamp() + '\0' + io.length();
+      } else {
+        cont = io.read();
+        key = digest(cont);
+      }
+    } else {
+      throw STRNODTYPE.thrw(info, this, ip);
     }
-    if(ip.isString()) return IO.get(string(it.string(info)));
-    throw STRNODTYPE.thrw(info, this, ip);
+
+    Templates tmp;
+    synchronized(TEMPLATES) {
+      tmp = TEMPLATES.get(key);
+    }
+    if(tmp == null) {
+      if(cont == null) cont = io.read();
+      tmp = TransformerFactory.newInstance().newTemplates(
+          new StreamSource(new ByteArrayInputStream(cont)));
+      synchronized(TEMPLATES) {
+        TEMPLATES.put(key, tmp);
+      }
+    }
+    return tmp;
+  }
+
+  /**
+   * Returns a digest of the specified stylesheet, which serves as cache key.
+   * @param cont stylesheet content
+   * @return digest
+   * @throws Exception exception
+   */
+  private static String digest(final byte[] cont) throws Exception {
+    return string(hex(MessageDigest.getInstance("SHA-256").digest(cont), false));
   }
 
   @Override
@@ -175,30 +269,37 @@ public final class FNXslt extends StandardFunc {
   }
 
   /**
-   * Uses Java's XSLT implementation to perform an XSL transformation.
-   * @param in input
-   * @param xsl style sheet
-   * @param par parameters
-   * @return transformed result
-   * @throws Exception exception
+   * Uses Java's XSLT implementation to perform an XSL transformation, and
+   * sends the resulting SAX events to the database builder.
    */
-  private static byte[] transform(final IO in, final IO xsl,
-      final TokenObjMap<Object> par) throws Exception {
-
-    // create transformer
-    final TransformerFactory tc = TransformerFactory.newInstance();
-    final Transformer tr =  tc.newTransformer(
-        new StreamSource(new ByteArrayInputStream(xsl.read())));
+  private static final class XSLTParser extends SingleParser {
+    /** Transformer. */
+    private final Transformer tr;
+    /** Input. */
+    private final Source in;
 
-    // bind parameters
-    for(final byte[] key : par) tr.setParameter(string(key), par.get(key));
-
-    // create serializer
-    final ArrayOutput ao = new ArrayOutput();
+    /**
+     * Constructor.
+     * @param t transformer
+     * @param i input
+     * @param pr database properties
+     */
+    XSLTParser(final Transformer t, final Source i, final Prop pr) {
+      super(new IOContent(EMPTY), pr);
+      tr = t;
+      in = i;
+    }
 
-    // do transformation and return result
-    tr.transform(new StreamSource(new ByteArrayInputStream(in.read())),
-        new StreamResult(ao));
-    return ao.toArray();
+    @Override
+    public void parse() throws IOException {
+      final SAXHandler sh = new SAXHandler(builder, prop.is(Prop.CHOP));
+      final SAXResult res = new SAXResult(sh);
+      res.setLexicalHandler(sh);
+      try {
+        tr.transform(in, res);
+      } catch(final TransformerException ex) {
+        throw new BaseXException(ex);
+      }
+    }
   }
 }
@@ -150,6 +150,7 @@ public final class Functions extends TokenSet {
     // pre-defined functions
     final StandardFunc fun = Functions.get().get(name, args, ctx, ii);
     if(fun != null) {
+      ctx.databases(fun);
       for(final Function f : Function.UPDATING) {
         if(fun.sig == f) {
           ctx.updating(true);
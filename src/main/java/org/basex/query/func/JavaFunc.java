@@ -5,6 +5,7 @@ import static org.basex.query.util.Err.*;
 
 import java.io.*;
 import java.lang.reflect.*;
+import java.util.*;
 
 import org.basex.io.serial.*;
 import org.basex.query.*;
@@ -12,18 +13,38 @@ import org.basex.query.expr.*;
 import org.basex.query.item.*;
 import org.basex.query.item.Type;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Java function binding.
  *
+ * <p>The constructors, methods and fields that may be addressed by a function
+ * call are looked up once when the call is created. If several candidates
+ * exist, the candidate chosen for the specific classes and types of the
+ * arguments is cached, so the overloaded signatures need not be checked again
+ * if a function is repeatedly called with the same kind of arguments.</p>
+ *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
 public final class JavaFunc extends JavaMapping {
+  /** Maximum number of cached argument signatures. */
+  private static final int CACHE = 8;
+
   /** Java class. */
   private final Class<?> cls;
   /** Java method. */
   private final String mth;
+  /** Field with the name of the method ({@code null} if it does not exist). */
+  private final Field field;
+  /** Constructors or methods with the specified name and number of arguments. */
+  private final Member[] members;
+  /** Parameter types of the candidates. */
+  private final Class<?>[][] params;
+  /** Static flags of the candidates (constructors are treated as static). */
+  private final boolean[] statics;
+  /** Cached argument signatures and the resulting candidates. */
+  private volatile Target[] targets = {};
 
   /**
    * Constructor.
@@ -36,6 +57,39 @@ public final class JavaFunc extends JavaMapping {
     super(ii, a);
     cls = c;
     mth = m;
+
+    // find candidates with a matching number of arguments
+    final ArrayList<Member> mem = new ArrayList<Member>();
+    final ArrayList<Class<?>[]> par = new ArrayList<Class<?>[]>();
+    final BoolList st = new BoolList();
+    Field f = null;
+    if(m.equals(NEW)) {
+      for(final Constructor<?> con : c.getConstructors()) {
+        final Class<?>[] pt = con.getParameterTypes();
+        if(pt.length != a.length) continue;
+        mem.add(con);
+        par.add(pt);
+        st.add(true);
+      }
+    } else {
+      try {
+        f = c.getField(m);
+      } catch(final NoSuchFieldException ex) { /* ignored */ }
+
+      for(final Method meth : c.getMethods()) {
+        if(!meth.getName().equals(m)) continue;
+        final boolean s = Modifier.isStatic(meth.getModifiers());
+        final Class<?>[] pt = meth.getParameterTypes();
+        if(pt.length != a.length - (s ? 0 : 1)) continue;
+        mem.add(meth);
+        par.add(pt);
+        st.add(s);
+      }
+    }
+    field = f;
+    members = mem.toArray(new Member[mem.size()]);
+    params = par.toArray(new Class<?>[par.size()][]);
+    statics = st.toArray();
   }
 
   @Override
@@ -43,7 +97,7 @@ public final class JavaFunc extends JavaMapping {
       throws QueryException {
 
     try {
-      return mth.equals(NEW) ? constructor(args) : method(args, ctx);
+      return call(args, ctx);
     } catch(final InvocationTargetException ex) {
       final Throwable cause = ex.getCause();
       throw cause instanceof QueryException ? ((QueryException) cause).info(info) :
@@ -54,50 +108,78 @@ public final class JavaFunc extends JavaMapping {
   }
 
   /**
-   * Calls a constructor.
+   * Returns the value of a field, or calls a constructor or method.
    * @param ar arguments
+   * @param ctx query context
    * @return resulting object
    * @throws Exception exception
    */
-  private Object constructor(final Value[] ar) throws Exception {
-    for(final Constructor<?> con : cls.getConstructors()) {
-      final Object[] arg = args(con.getParameterTypes(), ar, true);
-      if(arg != null) return con.newInstance(arg);
+  private Object call(final Value[] ar, final QueryContext ctx) throws Exception {
+    // check if a field with the specified name exists
+    if(field != null) {
+      final boolean st = Modifier.isStatic(field.getModifiers());
+      if(ar.length == (st ? 0 : 1)) return field.get(st ? null : instObj(ar[0]));
+    }
+
+    // single candidate: no need to cache the argument signature
+    final int ms = members.length;
+    if(ms == 1) return call(0, ar, ctx);
+
+    // check cached argument signatures
+    final Target[] tgts = targets;
+    for(final Target t : tgts) {
+      if(t.matches(ar)) return call(t.member, ar, ctx);
+    }
+    // find first matching candidate
+    for(int m = 0; m < ms; m++) {
+      final Object[] arg = args(params[m], ar, statics[m]);
+      if(arg == null) continue;
+      if(tgts.length < CACHE) {
+        final Target[] tmp = Arrays.copyOf(tgts, tgts.length + 1);
+        tmp[tgts.length] = new Target(ar, m);
+        targets = tmp;
+      }
+      return invoke(m, arg, ar, ctx);
     }
     throw new Exception();
   }
 
   /**
-   * Calls a method.
+   * Calls the specified candidate.
+   * @param m index of the candidate
    * @param ar arguments
    * @param ctx query context
    * @return resulting object
    * @throws Exception exception
    */
-  private Object method(final Value[] ar, final QueryContext ctx) throws Exception {
-    // check if a field with the specified name exists
-    try {
-      final Field f = cls.getField(mth);
-      final boolean st = Modifier.isStatic(f.getModifiers());
-      if(ar.length == (st ? 0 : 1)) {
-        return f.get(st ? null : instObj(ar[0]));
-      }
-    } catch(final NoSuchFieldException ex) { /* ignored */ }
-
-    for(final Method meth : cls.getMethods()) {
-      if(!meth.getName().equals(mth)) continue;
-      final boolean st = Modifier.isStatic(meth.getModifiers());
-      final Object[] arg = args(meth.getParameterTypes(), ar, st);
-      if(arg != null) {
-        Object inst = null;
-        if(!st) {
-          inst = instObj(ar[0]);
-          if(inst instanceof QueryModule) ((QueryModule) inst).context = ctx;
-        }
-        return meth.invoke(inst, arg);
-      }
+  private Object call(final int m, final Value[] ar, final QueryContext ctx)
+      throws Exception {
+    final Object[] arg = args(params[m], ar, statics[m]);
+    if(arg == null) throw new Exception();
+    return invoke(m, arg, ar, ctx);
+  }
+
+  /**
+   * Invokes a constructor or method.
+   * @param m index of the candidate
+   * @param arg converted arguments
+   * @param ar arguments
+   * @param ctx query context
+   * @return resulting object
+   * @throws Exception exception
+   */
+  private Object invoke(final int m, final Object[] arg, final Value[] ar,
+      final QueryContext ctx) throws Exception {
+
+    final Member mem = members[m];
+    if(mem instanceof Constructor) return ((Constructor<?>) mem).newInstance(arg);
+
+    Object inst = null;
+    if(!statics[m]) {
+      inst = instObj(ar[0]);
+      if(inst instanceof QueryModule) ((QueryModule) inst).context = ctx;
     }
-    throw new Exception();
+    return ((Method) mem).invoke(inst, arg);
   }
 
   /**
@@ -170,4 +252,47 @@ public final class JavaFunc extends JavaMapping {
   public String toString() {
     return cls + "." + mth + PAR1 + toString(SEP) + PAR2;
   }
+
+  /**
+   * Argument signature and the candidate that has been chosen for it.
+   * Whether a candidate accepts an argument only depends on the class and the
+   * type of the argument.
+   */
+  private static final class Target {
+    /** Classes of the arguments. */
+    private final Class<?>[] classes;
+    /** Types of the arguments. */
+    private final Type[] types;
+    /** Index of the chosen candidate. */
+    final int member;
+
+    /**
+     * Constructor.
+     * @param ar arguments
+     * @param m index of the chosen candidate
+     */
+    Target(final Value[] ar, final int m) {
+      final int al = ar.length;
+      classes = new Class<?>[al];
+      types = new Type[al];
+      for(int a = 0; a < al; a++) {
+        classes[a] = ar[a].getClass();
+        types[a] = ar[a].type;
+      }
+      member = m;
+    }
+
+    /**
+     * Checks if the specified arguments have the cached signature.
+     * @param ar arguments
+     * @return result of check
+     */
+    boolean matches(final Value[] ar) {
+      final int al = ar.length;
+      for(int a = 0; a < al; a++) {
+        if(ar[a].getClass() != classes[a] || ar[a].type != types[a]) return false;
+      }
+      return true;
+    }
+  }
 }
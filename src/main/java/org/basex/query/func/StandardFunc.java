@@ -12,6 +12,7 @@ import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.item.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Standard (built-in) functions.
@@ -57,6 +58,32 @@ public abstract class StandardFunc extends Arr {
     return this;
   }
 
+  /**
+   * Collects the names of all databases that are accessed by this function.
+   * @param db database names
+   * @return {@code false} if the accessed databases cannot be statically determined
+   */
+  @SuppressWarnings("unused")
+  public boolean databases(final StringList db) {
+    return true;
+  }
+
+  /**
+   * Adds the name of the database that is referenced by the specified argument.
+   * The name may be followed by a path.
+   * @param db database names
+   * @param a index of the argument
+   * @return {@code false} if the argument is no string literal
+   */
+  final boolean databases(final StringList db, final int a) {
+    if(expr.length <= a) return true;
+    if(!(expr[a] instanceof Str)) return false;
+    final String path = string(((Str) expr[a]).string()).replaceAll("^/+", "");
+    final int i = path.indexOf('/');
+    db.add(i == -1 ? path : path.substring(0, i));
+    return true;
+  }
+
   /**
    * Atomizes the specified item.
    * @param it input item
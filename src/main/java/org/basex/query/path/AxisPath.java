@@ -23,6 +23,13 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public class AxisPath extends Path {
+  /**
+   * Maximum ratio between the costs of an additional index access and the
+   * cheapest index access of a step. If the ratio is exceeded, the predicate
+   * will be evaluated sequentially.
+   */
+  private static final int INTERSECT = 8;
+
   /** Flag for result caching. */
   private boolean cache;
   /** Cached result. */
@@ -137,6 +144,8 @@ public class AxisPath extends Path {
 
     // cache index access costs
     IndexContext ics = null;
+    // index contexts of all predicates of the cheapest step
+    IndexContext[] icps = null;
     // cheapest predicate and step
     int pmin = 0;
     int smin = 0;
@@ -151,9 +160,11 @@ public class AxisPath extends Path {
       final boolean i = pathNodes(data, s) != null;
 
       // choose cheapest index access
+      final IndexContext[] icp = new IndexContext[stp.preds.length];
       for(int p = 0; p < stp.preds.length; ++p) {
         final IndexContext ic = new IndexContext(ctx, data, stp, i);
         if(!stp.preds[p].indexAccessible(ic)) continue;
+        icp[p] = ic;
 
         if(ic.costs() == 0) {
           if(ic.not) {
@@ -167,6 +178,7 @@ public class AxisPath extends Path {
         }
         if(ics == null || ics.costs() > ic.costs()) {
           ics = ic;
+          icps = icp;
           pmin = p;
           smin = s;
         }
@@ -178,7 +190,7 @@ public class AxisPath extends Path {
 
     // replace expressions for index access
     final AxisStep stp = step(smin);
-    final Expr ie = stp.preds[pmin].indexEquivalent(ics);
+    Expr ie = stp.preds[pmin].indexEquivalent(ics);
 
     if(ics.seq) {
       // sequential evaluation; do not invert path
@@ -187,11 +199,38 @@ public class AxisPath extends Path {
       // inverted path, which will be represented as predicate
       AxisStep[] invSteps = {};
 
+      // choose other predicates of the same step that are cheap enough to be
+      // answered by the index as well
+      final int pl = stp.preds.length;
+      final boolean[] ix = new boolean[pl];
+      final int[] costs = new int[pl];
+      ix[pmin] = true;
+      int ixs = 1;
+      for(int p = 0; p != pl; ++p) {
+        final IndexContext ic = icps[p];
+        if(p == pmin || ic == null || ic.seq ||
+            ic.costs() / INTERSECT > ics.costs()) continue;
+        ix[p] = true;
+        costs[p] = ic.costs();
+        ++ixs;
+      }
+      if(ixs > 1) {
+        // intersect index results, starting with the smallest one
+        final int[] ord = Array.createOrder(costs, true);
+        final Expr[] ies = new Expr[ixs];
+        ies[0] = ie;
+        int c = 1;
+        for(final int p : ord) {
+          if(ix[p] && p != pmin) ies[c++] = stp.preds[p].indexEquivalent(icps[p]);
+        }
+        ie = new InterSect(info, ies);
+      }
+
       // collect remaining predicates
-      final Expr[] newPreds = new Expr[stp.preds.length - 1];
+      final Expr[] newPreds = new Expr[pl - ixs];
       int c = 0;
-      for(int p = 0; p != stp.preds.length; ++p) {
-        if(p != pmin) newPreds[c++] = stp.preds[p];
+      for(int p = 0; p != pl; ++p) {
+        if(!ix[p]) newPreds[c++] = stp.preds[p];
       }
 
       // check if path before index step needs to be inverted and traversed
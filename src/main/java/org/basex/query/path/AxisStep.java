@@ -25,7 +25,7 @@ import org.basex.util.*;
  */
 public class AxisStep extends Preds {
   /** Axis. */
-  Axis axis;
+  public Axis axis;
   /** Kind test. */
   public Test test;
 
@@ -73,39 +73,80 @@ public final class DBAdd extends InsertBase {
   public void prepare() throws QueryException {
     // build data with all documents, to prevent dirty reads
     md = new MemData(data);
+    // consecutive string inputs are parsed in a single run
+    BatchParser bp = new BatchParser(ctx.prop);
     for(int i = 0; i < docs.size(); i++) {
-      md.insert(md.meta.size, -1, docData(docs.get(i),  paths.get(i)));
+      final Item doc = docs.get(i);
+      final byte[] pth = paths.get(i);
+      if(doc.type.isString()) {
+        bp.add(parser(doc, pth));
+      } else if(doc.type.isNode()) {
+        // preserve the order of the documents
+        bp = insert(bp);
+        md.insert(md.meta.size, -1, docData((ANode) doc, pth));
+      } else {
+        STRNODTYPE.thrw(info, this, doc.type);
+      }
       // clear entries to recover memory
       docs.set(i, null);
       paths.set(i, null);
       size++;
     }
+    insert(bp);
     docs = null;
     paths = null;
   }
 
   /**
-   * Creates a {@link Data} instance for the specified document.
+   * Parses the inputs of the specified batch parser and adds the resulting
+   * documents.
+   * @param bp batch parser
+   * @return new batch parser
+   * @throws QueryException query exception
+   */
+  private BatchParser insert(final BatchParser bp) throws QueryException {
+    if(bp.size() == 0) return bp;
+    try {
+      md.insert(md.meta.size, -1, new MemBuilder(data.meta.name, bp).build());
+    } catch(final IOException ex) {
+      IOERR.thrw(info, ex);
+    }
+    return new BatchParser(ctx.prop);
+  }
+
+  /**
+   * Creates a {@link Data} instance for the specified document node.
+   * @param nd document node
+   * @param pth target path
+   * @return {@link Data} instance with the document
+   * @throws QueryException if {@code nd} is no document node
+   */
+  private Data docData(final ANode nd, final byte[] pth) throws QueryException {
+    final String name = string(pth);
+    if(name.endsWith(".") || name.substring(name.lastIndexOf('/') + 1).isEmpty())
+      RESINV.thrw(info, pth);
+    if(nd.type != NodeType.DOC) UPDOCTYPE.thrw(info, nd);
+    final MemData mdata = new MemData(data);
+    new DataBuilder(mdata).build(nd);
+    mdata.update(0, Data.DOC, pth);
+    return mdata;
+  }
+
+  /**
+   * Creates a parser for the specified input.
    * @param doc item representing document(s)
    * @param pth target path
-   * @return {@link Data} instance from the parsed document(s)
+   * @return parser
    * @throws QueryException if {@code doc} does not represent valid document(s)
    */
-  private Data docData(final Item doc, final byte[] pth)
-      throws QueryException {
-
-    final MemData mdata;
+  private Parser parser(final Item doc, final byte[] pth) throws QueryException {
     String name = string(pth);
     if(name.endsWith(".")) RESINV.thrw(info, pth);
 
     // add slash to the target if the addressed file is an archive or directory
-    IO io = null;
-    final Type dt = doc.type;
-    if(dt.isString()) {
-      io = IO.get(string(doc.string(info)));
-      if(!io.exists()) RESFNF.thrw(info, pth);
-      if(!name.endsWith("/") && (io.isDir() || io.isArchive())) name += "/";
-    }
+    final IO io = IO.get(string(doc.string(info)));
+    if(!io.exists()) RESFNF.thrw(info, pth);
+    if(!name.endsWith("/") && (io.isDir() || io.isArchive())) name += "/";
 
     String target = "";
     final int s = name.lastIndexOf('/');
@@ -114,35 +155,14 @@ public final class DBAdd extends InsertBase {
       name = name.substring(s + 1);
     }
 
-    if(dt.isString()) {
-      // set name of document
-      if(!name.isEmpty()) io.name(name);
-      // get name from io reference
-      else if(!(io instanceof IOContent)) name = io.name();
-    }
+    // set name of document
+    if(!name.isEmpty()) io.name(name);
+    // get name from io reference
+    else if(!(io instanceof IOContent)) name = io.name();
 
     // ensure that the final name is not empty
     if(name.isEmpty()) RESINV.thrw(info, pth);
-
-    if(dt.isNode()) {
-      // adding a document node
-      final ANode nd = (ANode) doc;
-      if(nd.type != NodeType.DOC) UPDOCTYPE.thrw(info, nd);
-      mdata = new MemData(data);
-      new DataBuilder(mdata).build(nd);
-      mdata.update(0, Data.DOC, pth);
-    } else if(dt.isString()) {
-      final Parser p = new DirParser(io, ctx.prop, data.meta.path).target(target);
-      final MemBuilder b = new MemBuilder(data.meta.name, p);
-      try {
-        mdata = b.build();
-      } catch(final IOException ex) {
-        throw IOERR.thrw(info, ex);
-      }
-    } else {
-      throw STRNODTYPE.thrw(info, this, doc.type);
-    }
-    return mdata;
+    return new DirParser(io, ctx.prop, data.meta.path).target(target);
   }
 
   @Override
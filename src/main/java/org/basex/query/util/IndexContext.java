@@ -1,6 +1,7 @@
 package org.basex.query.util;
 
 import org.basex.data.Data;
+import org.basex.index.IndexNames;
 import org.basex.query.QueryContext;
 import org.basex.query.expr.Context;
 import org.basex.query.expr.Expr;
@@ -8,6 +9,7 @@ import org.basex.query.expr.ParseExpr;
 import org.basex.query.path.Axis;
 import org.basex.query.path.AxisPath;
 import org.basex.query.path.AxisStep;
+import org.basex.query.path.NameTest;
 import org.basex.query.path.Path;
 import org.basex.util.Array;
 
@@ -82,6 +84,34 @@ public final class IndexContext {
     return path;
   }
 
+  /**
+   * Checks if the nodes addressed by the specified expression are included
+   * in the value index. If the index is restricted to some element or
+   * attribute names, the name of the attribute, or of the parent element of
+   * the text, must be specified in the query.
+   * @param ex path expression or context item
+   * @param text text or attribute index
+   * @return result of check
+   */
+  public boolean included(final Expr ex, final boolean text) {
+    final IndexNames names = new IndexNames(text ?
+        data.meta.textinclude : data.meta.attrinclude);
+    if(names.all()) return true;
+
+    final AxisStep s;
+    if(ex instanceof Context) {
+      // the parent element of a text step is unknown
+      s = text ? null : step;
+    } else {
+      final AxisPath path = (AxisPath) ex;
+      final int st = path.steps.length;
+      s = !text ? path.step(st - 1) : path.step(st - 1).axis != Axis.CHILD ?
+        null : st == 1 ? step : path.step(st - 2);
+    }
+    return s != null && s.test instanceof NameTest && s.test.name != null &&
+        names.contains(((NameTest) s.test).ln);
+  }
+
   /**
    * Adds the estimated costs.
    * @param c cost to be added
@@ -2,6 +2,9 @@ package org.basex.query.util.json;
 
 import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
+
+import java.util.*;
+
 import org.basex.query.QueryException;
 import org.basex.query.item.ANode;
 import org.basex.query.item.FAttr;
@@ -19,8 +22,8 @@ import org.basex.util.hash.TokenObjMap;
  * both well readable and lossless, i.e., the converted document can be
  * serialized back to the original JSON representation.</p>
  *
- * <p>The specified JSON input is first transformed into a tree representation
- * and then converted to an XML document, according to the following rules:</p>
+ * <p>The specified JSON input is converted to an XML document while it is
+ * being parsed, according to the following rules:</p>
  *
  * <ol>
  * <li>The resulting document has a {@code <json/>} root node.</li>
@@ -54,24 +57,38 @@ import org.basex.util.hash.TokenObjMap;
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-public final class JSONConverter extends XMLConverter {
+public final class JSONConverter extends XMLConverter implements JsonHandler {
   /** Plural. */
   private static final byte[] S = { 's' };
+  /** Types that are listed in the root node. */
+  private static final byte[][] TYPES = {
+    T_BOOLEAN, T_NUMBER, NULL, T_ARRAY, T_OBJECT };
   /** Global data type attributes. */
   private static final byte[][] ATTRS = {
     concat(T_BOOLEAN, S), concat(T_NUMBER, S),
     concat(NULL, S), concat(T_ARRAY, S), concat(T_OBJECT, S) };
-  /** Names of data type classes. */
-  private static final Class<?>[] CLASSES = {
-      JBoolean.class, JNumber.class, JNull.class, JArray.class, JObject.class
-  };
   /** Name: type. */
   private static final QNm Q_TYPE = new QNm(T_TYPE);
+  /** Name: value. */
+  private static final QNm Q_VALUE = new QNm(T_VALUE);
 
-  /** Cached names. */
+  /** Cached names, indexed by the original keys. */
   private final TokenObjMap<QNm> qnames = new TokenObjMap<QNm>();
-  /** Cached types. */
-  private final TokenObjMap<Class<?>> types = new TokenObjMap<Class<?>>();
+  /** Types of the converted names; {@code null} marks names with mixed types. */
+  private final TokenObjMap<byte[]> types = new TokenObjMap<byte[]>();
+  /**
+   * Elements with non-string values, indexed by the converted names. An entry
+   * is dropped as soon as its name has mixed types, and {@code type}
+   * attributes are attached to all elements of the name.
+   */
+  private final TokenObjMap<ArrayList<FElem>> typed =
+    new TokenObjMap<ArrayList<FElem>>();
+  /** Opened elements. */
+  private final ArrayList<FElem> elems = new ArrayList<FElem>();
+  /** Name of the next element. */
+  private QNm name;
+  /** Root node. */
+  private FElem root;
 
   /**
    * Constructor.
@@ -83,80 +100,140 @@ public final class JSONConverter extends XMLConverter {
 
   @Override
   public ANode parse(final byte[] in) throws QueryException {
-    final JStruct node = new JSONParser(in, info).parse();
-    // find unique data types
-    types.add(T_JSON, node.getClass());
-    analyze(node);
-    // create XML fragment
-    final FElem root = create(T_JSON, node);
+    name = new QNm(T_JSON);
+    JSONParser.parse(in, info, this);
     // attach data types to root node
-    attach(root);
-    // return node
+    attach();
     return root;
   }
 
+  @Override
+  public void openObject() {
+    elems.add(elem(T_OBJECT));
+  }
+
+  @Override
+  public void openEntry(final byte[] key) {
+    QNm qname = qnames.get(key);
+    if(qname == null) {
+      qname = new QNm(convert(key));
+      qnames.add(key, qname);
+    }
+    name = qname;
+  }
+
+  @Override
+  public void closeObject() {
+    elems.remove(elems.size() - 1);
+  }
+
+  @Override
+  public void openArray() {
+    elems.add(elem(T_ARRAY));
+  }
+
+  @Override
+  public void openItem() {
+    name = Q_VALUE;
+  }
+
+  @Override
+  public void closeArray() {
+    elems.remove(elems.size() - 1);
+  }
+
+  @Override
+  public void stringLit(final byte[] value) {
+    atom(T_STRING, value);
+  }
+
+  @Override
+  public void numberLit(final byte[] value) {
+    atom(T_NUMBER, value);
+  }
+
+  @Override
+  public void booleanLit(final boolean value) {
+    atom(T_BOOLEAN, value ? TRUE : FALSE);
+  }
+
+  @Override
+  public void nullLit() {
+    atom(NULL, null);
+  }
+
+  /**
+   * Creates an element for an atomic value.
+   * @param type type of the value
+   * @param value value
+   */
+  private void atom(final byte[] type, final byte[] value) {
+    final FElem elem = elem(type);
+    if(value != null && value.length != 0) elem.add(new FTxt(value));
+  }
+
   /**
-   * Analyzes the data types: caches names and their corresponding types.
-   * @param value node to be analyzed
+   * Creates an element for the current name, registers its type and adds it
+   * to the currently opened element.
+   * @param type type of the value
+   * @return element
    */
-  private void analyze(final JValue value) {
-    if(value instanceof JStruct) {
-      final JStruct n = (JStruct) value;
-      for(int s = 0; s < n.size(); s++) {
-        final boolean obj = value instanceof JObject;
-        final byte[] name = convert(obj ? ((JObject) n).name(s) : T_VALUE);
-        final Class<?> clz = n.value(s).getClass();
-        final Class<?> type = types.get(name);
-        if(type == null) {
-          types.add(name, clz);
-        } else if(type != JValue.class && type != clz) {
-          types.add(name, JValue.class);
+  private FElem elem(final byte[] type) {
+    final FElem elem = new FElem(name);
+    if(root == null) root = elem;
+    else elems.get(elems.size() - 1).add(elem);
+
+    final byte[] nm = name.string();
+    final boolean string = type == T_STRING;
+    if(!types.contains(nm)) {
+      // first occurrence of the name
+      types.add(nm, type);
+      if(!string) list(nm).add(elem);
+    } else {
+      final byte[] tp = types.get(nm);
+      if(tp == type) {
+        if(!string) list(nm).add(elem);
+      } else {
+        if(tp != null) {
+          // name has mixed types: attach types to all previous elements
+          types.add(nm, null);
+          final ArrayList<FElem> list = typed.get(nm);
+          if(list != null) {
+            for(final FElem e : list) e.add(new FAttr(Q_TYPE, tp));
+            typed.delete(nm);
+          }
         }
-        analyze(n.value(s));
+        if(!string) elem.add(new FAttr(Q_TYPE, type));
       }
     }
+    return elem;
   }
 
   /**
-   * Converts the JSON tree to XML.
-   * @param name of root node
-   * @return root node
-   * @param value node to be converted
+   * Returns the list of elements with the specified name and a uniform type.
+   * @param nm name
+   * @return list
    */
-  private FElem create(final byte[] name, final JValue value) {
-    final byte[] nm = convert(name);
-    final FElem root = new FElem(qname(nm));
-    final Class<?> clz = types.get(nm);
-    final boolean type = clz == null || clz == JValue.class;
-
-    if(value instanceof JStruct) {
-      final boolean obj = value instanceof JObject;
-      if(type) root.add(new FAttr(Q_TYPE, value.type()));
-      final JStruct n = (JStruct) value;
-      for(int s = 0; s < n.size(); s++) {
-        root.add(create(obj ? ((JObject) n).name(s) : T_VALUE, n.value(s)));
-      }
-    } else {
-      final JAtom a = (JAtom) value;
-      if(type && !(a instanceof JString)) root.add(new FAttr(Q_TYPE, a.type()));
-      final byte[] v = a.value();
-      if(v != null && v.length != 0) root.add(new FTxt(v));
+  private ArrayList<FElem> list(final byte[] nm) {
+    ArrayList<FElem> list = typed.get(nm);
+    if(list == null) {
+      list = new ArrayList<FElem>();
+      typed.add(nm, list);
     }
-    return root;
+    return list;
   }
 
   /**
    * Attaches the data types to the root node.
-   * @param root root node
    */
-  private void attach(final FElem root) {
-    final TokenBuilder[] builders = new TokenBuilder[CLASSES.length];
+  private void attach() {
+    final TokenBuilder[] builders = new TokenBuilder[TYPES.length];
     for(int b = 0; b < builders.length; b++) builders[b] = new TokenBuilder();
 
     for(int i = 1; i <= types.size(); i++) {
-      final Class<?> clz = types.value(i);
+      final byte[] type = types.value(i);
       for(int b = 0; b < builders.length; b++) {
-        if(clz == CLASSES[b]) {
+        if(type == TYPES[b]) {
           if(!builders[b].isEmpty()) builders[b].add(' ');
           builders[b].add(types.key(i));
           break;
@@ -165,7 +242,7 @@ public final class JSONConverter extends XMLConverter {
     }
     for(int b = 0; b < builders.length; b++) {
       if(builders[b].isEmpty()) continue;
-      root.add(new FAttr(qname(ATTRS[b]), builders[b].trim().finish()));
+      root.add(new FAttr(new QNm(ATTRS[b]), builders[b].trim().finish()));
     }
   }
 
@@ -174,7 +251,7 @@ public final class JSONConverter extends XMLConverter {
    * @param name name
    * @return converted name
    */
-  private static byte[] convert(final byte[] name) {
+  public static byte[] convert(final byte[] name) {
     // convert name to valid XML representation
     final TokenBuilder tb = new TokenBuilder();
     for(int n = 0; n < name.length; n += cl(name, n)) {
@@ -198,19 +275,4 @@ public final class JSONConverter extends XMLConverter {
     if(tb.isEmpty()) tb.add('_');
     return tb.finish();
   }
-
-  /**
-   * Returns a cached {@link QNm} instance for the specified name.
-   * @param name name
-   * @return cached QName
-   */
-  private QNm qname(final byte[] name) {
-    // retrieve name from cache, or create new instance
-    QNm qname = qnames.get(name);
-    if(qname == null) {
-      qname = new QNm(name);
-      qnames.add(name, qname);
-    }
-    return qname;
-  }
 }
@@ -2,19 +2,25 @@ package org.basex.query.util.json;
 
 import static org.basex.query.util.Err.*;
 import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.io.in.*;
 import org.basex.query.QueryException;
 import org.basex.util.InputInfo;
-import org.basex.util.InputParser;
 import org.basex.util.TokenBuilder;
 import org.basex.util.Util;
 
 /**
- * <p>This class converts a JSON document to a tree representation.</p>
+ * <p>This class parses a JSON document and passes the parsed structures and
+ * values to a {@link JsonHandler}. No intermediate representation of the
+ * document is created. The input is streamed, so the parser is used both for
+ * converting strings and for importing JSON files into a database.</p>
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-final class JSONParser extends InputParser {
+public final class JSONParser {
   /** Error: invalid character. */
   private static final String INVALID = "Invalid character: \"%\"";
   /** Error: invalid and expected character. */
@@ -22,116 +28,174 @@ final class JSONParser extends InputParser {
 
   /** Token builder. */
   private final TokenBuilder tb = new TokenBuilder();
-  /** Input info. */
+  /** Input. */
+  private final TextInput input;
+  /** Input info (can be {@code null}). */
   private final InputInfo info;
+  /** Current character. */
+  private int curr;
+  /** Current line. */
+  private int line = 1;
+  /** Current column. */
+  private int col;
 
   /**
    * Constructor.
    * @param in input
-   * @param inf input info
+   * @param ii input info (can be {@code null})
    */
-  public JSONParser(final byte[] in, final InputInfo inf) {
-    super(string(in));
-    info = inf;
+  public JSONParser(final TextInput in, final InputInfo ii) {
+    input = in;
+    info = ii;
   }
 
   /**
-   * Parses the input.
-   * @return resulting node
+   * Parses the specified string and passes all events to the specified handler.
+   * @param in input
+   * @param ii input info
+   * @param handler handler
    * @throws QueryException query exception
    */
-  public JStruct parse() throws QueryException {
-    JStruct root = object();
-    if(root == null) root = array();
-    if(root == null) error(INVALEXP, curr(), "\"{\" or \"[\"");
-    skipWS();
-    if(more()) error(INVALEXP, curr(), "end of file");
-    return root;
+  static void parse(final byte[] in, final InputInfo ii, final JsonHandler handler)
+      throws QueryException {
+    try {
+      new JSONParser(new TextInput(new ArrayInput(in)), ii).parse(handler);
+    } catch(final IOException ex) {
+      // input is read from main memory, and the converters raise no I/O errors
+      throw Util.notexpected(ex);
+    }
   }
 
   /**
-   * Returns an object.
-   * @return success flag
+   * Parses the input and passes all events to the specified handler.
+   * @param handler handler
    * @throws QueryException query exception
+   * @throws IOException I/O exception
    */
-  private JObject object() throws QueryException {
-    if(!wsConsume('{')) return null;
-    final JObject o = new JObject();
-    do {
-      final byte[] key = str();
-      if(key == null) {
-        if(o.size() != 0) error(INVALEXP, curr(), '"');
-        break;
-      }
-      wsCheck(':');
-      o.add(key, value(true));
-    } while(wsConsume(','));
-    wsCheck('}');
-    return o;
+  public void parse(final JsonHandler handler) throws QueryException, IOException {
+    next();
+    ws();
+    if(curr == '{') object(handler);
+    else if(curr == '[') array(handler);
+    else error(INVALEXP, chr(), "\"{\" or \"[\"");
+    ws();
+    if(curr != -1) error(INVALEXP, chr(), "end of file");
   }
 
   /**
-   * Parses an array.
-   * @return success flag
+   * Returns the current line.
+   * @return line
+   */
+  public int line() {
+    return line;
+  }
+
+  /**
+   * Parses an object. The current character is the opening brace.
+   * @param handler handler
    * @throws QueryException query exception
+   * @throws IOException I/O exception
    */
-  private JArray array() throws QueryException {
-    if(!wsConsume('[')) return null;
-    final JArray a = new JArray();
-    do {
-      final JValue val = value(a.size() != 0);
-      if(val != null) a.add(val);
-    } while(wsConsume(','));
-    wsCheck(']');
-    return a;
+  private void object(final JsonHandler handler) throws QueryException, IOException {
+    next();
+    handler.openObject();
+    ws();
+    if(!consume('}')) {
+      do {
+        ws();
+        if(curr != '"') error(INVALEXP, chr(), '"');
+        final byte[] key = string();
+        ws();
+        check(':');
+        handler.openEntry(key);
+        value(handler);
+        ws();
+      } while(consume(','));
+      check('}');
+    }
+    handler.closeObject();
+  }
+
+  /**
+   * Parses an array. The current character is the opening bracket.
+   * @param handler handler
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  private void array(final JsonHandler handler) throws QueryException, IOException {
+    next();
+    handler.openArray();
+    ws();
+    if(!consume(']')) {
+      do {
+        handler.openItem();
+        value(handler);
+        ws();
+      } while(consume(','));
+      check(']');
+    }
+    handler.closeArray();
   }
 
   /**
    * Parses a value.
-   * @param mand mandatory flag
-   * @return success flag
+   * @param handler handler
    * @throws QueryException query exception
+   * @throws IOException I/O exception
    */
-  private JValue value(final boolean mand) throws QueryException {
-    skipWS();
-    final char ch = curr();
-    if(digit(ch) || ch == '-') return new JNumber(number());
-    if(ch == '"') return new JString(str());
-    if(ch == '{') return object();
-    if(ch == '[') return array();
-    if(ch == 't' || ch == 'f') return new JBoolean(bool());
-    if(ch == 'n') {
-      for(final byte b : NULL) check((char) b);
-      return new JNull();
+  private void value(final JsonHandler handler) throws QueryException, IOException {
+    ws();
+    final int ch = curr;
+    if(digit(ch) || ch == '-') {
+      handler.numberLit(number());
+    } else if(ch == '"') {
+      handler.stringLit(string());
+    } else if(ch == '{') {
+      object(handler);
+    } else if(ch == '[') {
+      array(handler);
+    } else if(ch == 't') {
+      for(final byte b : TRUE) check(b);
+      handler.booleanLit(true);
+    } else if(ch == 'f') {
+      for(final byte b : FALSE) check(b);
+      handler.booleanLit(false);
+    } else if(ch == 'n') {
+      for(final byte b : NULL) check(b);
+      handler.nullLit();
+    } else {
+      error(INVALEXP, chr(), '"');
     }
-    if(mand) error(INVALEXP, curr(), '"');
-    return null;
   }
 
   /**
-   * Parses an string.
-   * @return resulting string
+   * Parses a string. The current character is the opening quote.
+   * @return string
    * @throws QueryException query exception
+   * @throws IOException I/O exception
    */
-  private byte[] str() throws QueryException {
-    if(!wsConsume('"')) return null;
+  private byte[] string() throws QueryException, IOException {
     tb.reset();
-    while(more()) {
-      int ch = consume();
-      if(ch == '"') return tb.finish();
+    // pending high surrogate
+    int hs = 0;
+    while(true) {
+      int ch = next();
+      if(ch == -1) error(INVALEXP, "", '"');
+      if(ch == '"') break;
       if(ch == '\\') {
-        ch = consume();
+        ch = next();
         if(ch == 'u') {
-          int i = 0;
-          for(int s = 0; s < 4; s++) {
-            ch = consume();
-            i <<= 4;
-            if(ch >= '0' && ch <= '9') i += ch - 0x30;
-            else if(ch >= 'A' && ch <= 'F') i += ch - 0x37;
-            else if(ch >= 'a' && ch <= 'f') i += ch - 0x57;
-            else error(INVALID, ch, "hex digit");
+          ch = hex();
+          // combine surrogate pairs
+          if(ch >= 0xD800 && ch < 0xDC00) {
+            if(hs != 0) tb.add(hs);
+            hs = ch;
+            continue;
+          }
+          if(ch >= 0xDC00 && ch < 0xE000 && hs != 0) {
+            ch = (hs - 0xD800 << 10) + ch - 0xDC00 + 0x10000;
+            hs = 0;
           }
-          ch = i;
         } else if(ch == 'b') {
           ch = '\b';
         } else if(ch == 'f') {
@@ -142,118 +206,144 @@ final class JSONParser extends InputParser {
           ch = '\r';
         } else if(ch == 't') {
           ch = '\t';
-        } else if("\\\"/".indexOf(ch) == -1) {
-          error(INVALID, "\\" + (char) ch);
+        } else if(ch != '\\' && ch != '"' && ch != '/') {
+          error(INVALID, "\\" + chr());
         }
       }
+      if(hs != 0) {
+        tb.add(hs);
+        hs = 0;
+      }
       tb.add(ch);
     }
-    throw error(INVALEXP, 0, '"');
+    if(hs != 0) tb.add(hs);
+    next();
+    return tb.finish();
+  }
+
+  /**
+   * Parses four hex digits.
+   * @return resulting codepoint
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  private int hex() throws QueryException, IOException {
+    int i = 0;
+    for(int s = 0; s < 4; s++) {
+      final int ch = next();
+      i <<= 4;
+      if(ch >= '0' && ch <= '9') i += ch - 0x30;
+      else if(ch >= 'A' && ch <= 'F') i += ch - 0x37;
+      else if(ch >= 'a' && ch <= 'f') i += ch - 0x57;
+      else error(INVALID, chr());
+    }
+    return i;
   }
 
   /**
-   * Parses an number.
-   * @return resulting number
+   * Parses a number.
+   * @return number
    * @throws QueryException query exception
+   * @throws IOException I/O exception
    */
-  private byte[] number() throws QueryException {
+  private byte[] number() throws QueryException, IOException {
     tb.reset();
-    if(curr() == '-') tb.add(consume());
-
-    if(curr() == '0') {
-      tb.add(consume());
-    } else {
+    if(curr == '-') add();
+    if(curr == '0') add();
+    else digits();
+    if(curr == '.') {
+      add();
       digits();
     }
-    if(curr() == '.') {
-      tb.add(consume());
-      digits();
-    }
-    if(curr() == 'e' || curr() == 'E') {
-      tb.add(consume());
-      if(curr() == '+' || curr() == '-') tb.add(consume());
+    if(curr == 'e' || curr == 'E') {
+      add();
+      if(curr == '+' || curr == '-') add();
       digits();
     }
     return tb.finish();
   }
 
   /**
-   * Parses a boolean.
-   * @return resulting number
+   * Adds digits to the token builder.
    * @throws QueryException query exception
+   * @throws IOException I/O exception
    */
-  private byte[] bool() throws QueryException {
-    if(curr() == 't') {
-      for(final byte b : TRUE) check((char) b);
-      return TRUE;
-    }
-    for(final byte b : FALSE) check((char) b);
-    return FALSE;
+  private void digits() throws QueryException, IOException {
+    if(!digit(curr)) error(INVALEXP, chr(), "digit");
+    do add(); while(digit(curr));
   }
 
-
   /**
-   * Consumes digits.
-   * @throws QueryException query exception
+   * Adds the current character to the token builder and reads the next one.
+   * @throws IOException I/O exception
    */
-  private void digits() throws QueryException {
-    if(!digit(curr())) throw error(INVALEXP, curr(), "digit");
-    do tb.add(consume()); while(digit(curr()));
+  private void add() throws IOException {
+    tb.add(curr);
+    next();
   }
 
   /**
-   * Consumes leading whitespaces and the specified character.
-   * @param c character to consume
-   * @return true if token was found
+   * Skips whitespaces.
+   * @throws IOException I/O exception
    */
-  private boolean wsConsume(final int c) {
-    skipWS();
-    return consume(c);
+  private void ws() throws IOException {
+    while(curr != -1 && curr <= ' ' && curr != 0) next();
   }
 
   /**
-   * Consumes consecutive whitespace characters.
+   * Consumes the specified character.
+   * @param ch character
+   * @return {@code true} if the character was consumed
+   * @throws IOException I/O exception
    */
-  private void skipWS() {
-    while(more()) {
-      final int c = curr();
-      if(c == 0 || c > ' ') break;
-      ++ip;
-    }
+  private boolean consume(final int ch) throws IOException {
+    if(curr != ch) return false;
+    next();
+    return true;
   }
 
   /**
-   * Skips whitespaces, raises an error if the specified character cannot be
-   * consumed.
-   *
-   * @param ch character to be found
+   * Consumes the specified character, or raises an error.
+   * @param ch character
    * @throws QueryException query exception
+   * @throws IOException I/O exception
    */
-  private void wsCheck(final char ch) throws QueryException {
-    if(!wsConsume(ch)) error(INVALEXP, curr(), "\"" + ch + '"');
+  private void check(final int ch) throws QueryException, IOException {
+    if(!consume(ch)) error(INVALEXP, chr(), "\"" + (char) ch + '"');
   }
 
   /**
-   * Raises an error if the specified character cannot be consumed.
-   *
-   * @param ch character to be found
-   * @throws QueryException query exception
+   * Reads the next character.
+   * @return next character
+   * @throws IOException I/O exception
+   */
+  private int next() throws IOException {
+    if(curr == '\n') {
+      ++line;
+      col = 0;
+    }
+    curr = input.read();
+    ++col;
+    return curr;
+  }
+
+  /**
+   * Returns the current character as string.
+   * @return string
    */
-  private void check(final char ch) throws QueryException {
-    if(!consume(ch)) error(INVALEXP, curr(), "\"" + ch + '"');
+  private String chr() {
+    return curr == -1 ? "" : new TokenBuilder().add(curr).toString();
   }
 
   /**
    * Raises an error with the specified message.
    * @param msg error message
    * @param ext error details
-   * @return build exception
+   * @return query exception (indicates that an error is raised)
    * @throws QueryException query exception
    */
   private QueryException error(final String msg, final Object... ext)
       throws QueryException {
-
-    final int[] lc = new InputInfo(this).lineCol();
-    throw JSONPARSE.thrw(info, lc[0], lc[1], Util.inf(msg, ext));
+    throw JSONPARSE.thrw(info, line, col, Util.inf(msg, ext));
   }
 }
@@ -0,0 +1,91 @@
+package org.basex.query.util.json;
+
+import java.io.*;
+
+import org.basex.query.QueryException;
+
+/**
+ * Receives the events of the {@link JSONParser}. Each value starts with
+ * exactly one call of {@link #openObject()}, {@link #openArray()},
+ * {@link #stringLit(byte[])}, {@link #numberLit(byte[])},
+ * {@link #booleanLit(boolean)} or {@link #nullLit()}.
+ * Handlers that send the events to a database builder may raise I/O errors.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public interface JsonHandler {
+  /**
+   * Called when an object is opened.
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void openObject() throws QueryException, IOException;
+
+  /**
+   * Called before the value of an object entry is parsed.
+   * @param key key of the entry
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void openEntry(final byte[] key) throws QueryException, IOException;
+
+  /**
+   * Called when an object is closed.
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void closeObject() throws QueryException, IOException;
+
+  /**
+   * Called when an array is opened.
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void openArray() throws QueryException, IOException;
+
+  /**
+   * Called before the value of an array member is parsed.
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void openItem() throws QueryException, IOException;
+
+  /**
+   * Called when an array is closed.
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void closeArray() throws QueryException, IOException;
+
+  /**
+   * Called for a string value.
+   * @param value string
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void stringLit(final byte[] value) throws QueryException, IOException;
+
+  /**
+   * Called for a number value.
+   * @param value string representation of the number
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void numberLit(final byte[] value) throws QueryException, IOException;
+
+  /**
+   * Called for a boolean value.
+   * @param value boolean value
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void booleanLit(final boolean value) throws QueryException, IOException;
+
+  /**
+   * Called for a {@code null} value.
+   * @throws QueryException query exception
+   * @throws IOException I/O exception
+   */
+  void nullLit() throws QueryException, IOException;
+}
@@ -4,6 +4,8 @@ import static org.basex.data.DataText.*;
 import static org.basex.query.util.Err.*;
 import static org.basex.util.Token.*;
 
+import java.util.*;
+
 import org.basex.query.QueryException;
 import org.basex.query.item.ANode;
 import org.basex.query.item.FAttr;
@@ -15,19 +17,32 @@ import org.basex.util.InputInfo;
 import org.basex.util.Util;
 import org.basex.util.XMLToken;
 import org.basex.util.hash.TokenObjMap;
+import org.basex.util.list.IntList;
 
 /**
  * <p>This class converts a <a href="http://jsonml.org">JsonML</a>
  * document to XML.
- * The specified JSON input is first transformed into a tree representation
- * and then converted to an XML document.
+ * The specified JSON input is converted to an XML document while it is
+ * being parsed.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Christian Gruen
  */
-public final class JsonMLConverter extends XMLConverter {
+public final class JsonMLConverter extends XMLConverter implements JsonHandler {
   /** Cached names. */
   private final TokenObjMap<QNm> qnames = new TokenObjMap<QNm>();
+  /** Opened elements; {@code null} if the element name has not been parsed. */
+  private final ArrayList<FElem> elems = new ArrayList<FElem>();
+  /** Number of parsed members of the opened arrays. */
+  private final IntList members = new IntList();
+  /** Root node. */
+  private FElem root;
+  /** Flag for a preceding text node. */
+  private boolean txt;
+  /** Flag for parsing an attribute object. */
+  private boolean atts;
+  /** Name of the next attribute. */
+  private byte[] attr;
 
   /**
    * Constructor.
@@ -40,64 +55,128 @@ public final class JsonMLConverter extends XMLConverter {
   @Override
   public ANode parse(final byte[] in) throws QueryException {
     // create and return XML fragment
-    return create(new JSONParser(in, info).parse());
+    JSONParser.parse(in, info, this);
+    return root;
+  }
+
+  @Override
+  public void openObject() throws QueryException {
+    if(atts) attr(T_OBJECT);
+    final int m = member(T_OBJECT);
+    if(m != 1) unexpected(m, T_OBJECT);
+    atts = true;
+  }
+
+  @Override
+  public void openEntry(final byte[] key) {
+    attr = key;
+  }
+
+  @Override
+  public void closeObject() {
+    atts = false;
+  }
+
+  @Override
+  public void openArray() throws QueryException {
+    if(atts) attr(T_ARRAY);
+    if(!elems.isEmpty()) {
+      final int m = member(T_ARRAY);
+      if(m == 0) unexpected(m, T_ARRAY);
+    }
+    elems.add(null);
+    members.push(0);
+    txt = false;
+  }
+
+  @Override
+  public void openItem() {
+    // members are counted by their values
+  }
+
+  @Override
+  public void closeArray() throws QueryException {
+    final int s = elems.size() - 1;
+    if(elems.get(s) == null) error("No element name specified in array");
+    elems.remove(s);
+    members.pop();
+    txt = false;
+  }
+
+  @Override
+  public void stringLit(final byte[] value) throws QueryException {
+    final int s = elems.size() - 1;
+    if(atts) {
+      elems.get(s).add(new FAttr(qname(attr), value));
+    } else if(member(T_STRING) == 0) {
+      final FElem elem = new FElem(qname(value));
+      if(s == 0) root = elem;
+      else elems.get(s - 1).add(elem);
+      elems.set(s, elem);
+    } else {
+      if(txt) error("No subsequent texts allowed");
+      txt = true;
+      elems.get(s).add(new FTxt(value));
+    }
+  }
+
+  @Override
+  public void numberLit(final byte[] value) throws QueryException {
+    atom(T_NUMBER);
+  }
+
+  @Override
+  public void booleanLit(final boolean value) throws QueryException {
+    atom(T_BOOLEAN);
+  }
+
+  @Override
+  public void nullLit() throws QueryException {
+    atom(NULL);
   }
 
   /**
-   * Converts the JSON tree to XML.
-   * @param value node to be converted
-   * @return root node
+   * Rejects a number, boolean or null value.
+   * @param type type of the value
    * @throws QueryException query exception
    */
-  private FElem create(final JValue value) throws QueryException {
-    return elem((JArray) check(value, T_ARRAY, "element constructor"));
+  private void atom(final byte[] type) throws QueryException {
+    if(atts) attr(type);
+    unexpected(member(type), type);
   }
 
   /**
-   * Converts an element node.
-   * @param value node to be converted
-   * @return root node
+   * Counts a new member of the current array and returns its position.
+   * @param type type of the member
+   * @return position of the member
    * @throws QueryException query exception
    */
-  private FElem elem(final JArray value) throws QueryException {
-    FElem elem = null;
-    boolean txt = false;
-    for(int s = 0; s < value.size(); s++) {
-      final JValue val = value.value(s);
-      if(s == 0) {
-        final JString str = (JString) check(val, T_STRING, "element name");
-        elem = new FElem(qname(str.value));
-      } else if(s == 1 && val instanceof JObject) {
-        attr(elem, (JObject) val);
-      } else if(val instanceof JArray) {
-        elem.add(elem((JArray) val));
-        txt = false;
-      } else if(val instanceof JString) {
-        if(txt) error("No subsequent texts allowed");
-        txt = true;
-        elem.add(new FTxt(((JString) val).value));
-      } else {
-        error("No % allowed at this stage", val.type());
-      }
-    }
-    if(elem == null) error("No element name specified in array");
-    return elem;
+  private int member(final byte[] type) throws QueryException {
+    final int s = members.size() - 1;
+    if(s < 0) error("% expected for %, % found", T_ARRAY, "element constructor", type);
+    final int m = members.get(s);
+    members.set(s, m + 1);
+    return m;
   }
 
   /**
-   * Converts attributes.
-   * @param elem root node
-   * @param attr attributes
+   * Raises an error for an array member with an unexpected type.
+   * @param m position of the member
+   * @param type type of the member
    * @throws QueryException query exception
    */
-  private void attr(final FElem elem, final JObject attr)
-      throws QueryException {
+  private void unexpected(final int m, final byte[] type) throws QueryException {
+    if(m == 0) error("% expected for %, % found", T_STRING, "element name", type);
+    error("No % allowed at this stage", type);
+  }
 
-    for(int s = 0; s < attr.size(); s++) {
-      final JString v = (JString) check(attr.value(s), T_STRING,
-          "attribute value");
-      elem.add(new FAttr(qname(attr.name(s)), v.value));
-    }
+  /**
+   * Raises an error for an attribute value that is no string.
+   * @param type type of the value
+   * @throws QueryException query exception
+   */
+  private void attr(final byte[] type) throws QueryException {
+    error("% expected for %, % found", T_STRING, "attribute value", type);
   }
 
   /**
@@ -117,21 +196,6 @@ public final class JsonMLConverter extends XMLConverter {
     return qname;
   }
 
-  /**
-   * Checks the type of the specified value.
-   * @param val value to be checked
-   * @param type expected type
-   * @param ext error extension
-   * @return checked value
-   * @throws QueryException query exception
-   */
-  private JValue check(final JValue val, final byte[] type, final String ext)
-      throws QueryException {
-    if(!eq(val.type(), type))
-      error("% expected for %, % found", type, ext, val.type());
-    return val;
-  }
-
   /**
    * Raises an error with the specified message.
    * @param msg error message
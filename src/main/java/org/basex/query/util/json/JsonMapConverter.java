@@ -1,19 +1,21 @@
 package org.basex.query.util.json;
 
+import java.util.ArrayList;
+
 import org.basex.query.QueryException;
 import org.basex.query.item.Bln;
 import org.basex.query.item.Dbl;
 import org.basex.query.item.Empty;
 import org.basex.query.item.Int;
+import org.basex.query.item.Item;
 import org.basex.query.item.Str;
 import org.basex.query.item.Value;
 import org.basex.query.item.map.Map;
 import org.basex.util.InputInfo;
-import org.basex.util.list.TokenList;
 
 /**
  * <p>Provides a method for parsing a JSON string and converting it to an XQuery
- * item made of nested maps.
+ * item made of nested maps. The maps are built while the input is parsed.
  *
  * <p>The mapping from JSON to XQuery is the following:
  * <p><dl>
@@ -31,10 +33,23 @@ import org.basex.util.list.TokenList;
  * @author BaseX Team 2005-12, BSD License
  * @author Leo Woerteler
  */
-public final class JsonMapConverter {
+public final class JsonMapConverter implements JsonHandler {
+  /** Opened maps. */
+  private final ArrayList<Map> maps = new ArrayList<Map>();
+  /** Keys of the values that are currently parsed. */
+  private final ArrayList<Item> keys = new ArrayList<Item>();
+  /** Input info. */
+  private final InputInfo info;
+  /** Resulting value. */
+  private Value result;
 
-  /** Hidden default constructor. */
-  private JsonMapConverter() { /* void */ }
+  /**
+   * Private constructor.
+   * @param ii input info
+   */
+  private JsonMapConverter(final InputInfo ii) {
+    info = ii;
+  }
 
   /**
    * Parses a JSON string and converts it to an XQuery item made of nested maps.
@@ -45,32 +60,83 @@ public final class JsonMapConverter {
    */
   public static Value parse(final byte[] json, final InputInfo ii)
       throws QueryException {
-    return convert(new JSONParser(json, ii).parse());
+    final JsonMapConverter conv = new JsonMapConverter(ii);
+    JSONParser.parse(json, ii, conv);
+    return conv.result;
+  }
+
+  @Override
+  public void openObject() {
+    maps.add(Map.EMPTY);
+    keys.add(null);
+  }
+
+  @Override
+  public void openEntry(final byte[] key) {
+    keys.set(keys.size() - 1, Str.get(key));
+  }
+
+  @Override
+  public void closeObject() throws QueryException {
+    close();
+  }
+
+  @Override
+  public void openArray() {
+    maps.add(Map.EMPTY);
+    keys.add(null);
+  }
+
+  @Override
+  public void openItem() {
+    final int s = keys.size() - 1;
+    final Item key = keys.get(s);
+    keys.set(s, Int.get(key == null ? 1 : ((Int) key).itr(info) + 1));
+  }
+
+  @Override
+  public void closeArray() throws QueryException {
+    close();
+  }
+
+  @Override
+  public void stringLit(final byte[] value) throws QueryException {
+    add(Str.get(value));
+  }
+
+  @Override
+  public void numberLit(final byte[] value) throws QueryException {
+    add(Dbl.get(value, info));
+  }
+
+  @Override
+  public void booleanLit(final boolean value) throws QueryException {
+    add(Bln.get(value));
+  }
+
+  @Override
+  public void nullLit() throws QueryException {
+    add(Empty.SEQ);
   }
 
   /**
-   * Converts a JSON AST into an XQuery expression.
-   * @param nd JSON node
-   * @return XQuery value
-   * @throws QueryException exception
+   * Closes the current map and adds it to its parent.
+   * @throws QueryException query exception
+   */
+  private void close() throws QueryException {
+    final int s = maps.size() - 1;
+    keys.remove(s);
+    add(maps.remove(s));
+  }
+
+  /**
+   * Adds a value to the current map, or assigns the result.
+   * @param value value to be added
+   * @throws QueryException query exception
    */
-  private static Value convert(final JValue nd) throws QueryException {
-    if(nd instanceof JAtom) {
-      final byte[] type = nd.type(), val = ((JAtom) nd).value();
-      switch(type[0]) {
-        case 'b': return Bln.get(val[0] == 't');
-        case 'n': return type[2] == 'm' ? Dbl.get(val, null) : Empty.SEQ;
-        default:  return Str.get(val);
-      }
-    }
-
-    Map map = Map.EMPTY;
-    final JStruct st = (JStruct) nd;
-    final TokenList names = st instanceof JObject ? ((JObject) st).names : null;
-    for(int i = st.size(); --i >= 0;) {
-      map = map.insert(names == null ? Int.get(i + 1) : Str.get(names.get(i)),
-          convert(st.value(i)), null);
-    }
-    return map;
+  private void add(final Value value) throws QueryException {
+    final int s = maps.size() - 1;
+    if(s < 0) result = value;
+    else maps.set(s, maps.get(s).insert(keys.get(s), value, info));
   }
 }
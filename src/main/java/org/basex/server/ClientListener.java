@@ -2,9 +2,15 @@ package org.basex.server;
 
 import static org.basex.core.Text.*;
 import static org.basex.util.Token.*;
+import java.io.File;
 import java.io.IOException;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.atomic.*;
+
 import org.basex.BaseXServer;
 import org.basex.core.*;
 import org.basex.core.cmd.Add;
@@ -13,6 +19,8 @@ import org.basex.core.cmd.CreateDB;
 import org.basex.core.cmd.Exit;
 import org.basex.core.cmd.Replace;
 import org.basex.core.cmd.Store;
+import org.basex.io.IO;
+import org.basex.io.IOFile;
 import org.basex.io.in.BufferInput;
 import org.basex.io.in.DecodingInput;
 import org.basex.io.out.EncodingOutput;
@@ -24,12 +32,15 @@ import org.basex.util.list.ByteList;
 
 /**
  * Server-side client session in the client-server architecture.
+ * Requests are processed by the worker threads of the {@link Dispatcher}.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Andreas Weiler
  * @author Christian Gruen
  */
-public final class ClientListener extends Thread {
+public final class ClientListener {
+  /** Session id counter. */
+  private static final AtomicLong IDS = new AtomicLong();
   /** Active queries. */
   private final HashMap<String, QueryListener> queries =
     new HashMap<String, QueryListener>();
@@ -44,6 +55,8 @@ public final class ClientListener extends Thread {
   private final BaseXServer server;
   /** Log reference. */
   private final Log log;
+  /** Session id. */
+  private final long sid = IDS.incrementAndGet();
 
   /** Socket for events. */
   private Socket esocket;
@@ -59,8 +72,10 @@ public final class ClientListener extends Thread {
   private Command command;
   /** Query id counter. */
   private int id;
-  /** Indicates if the server thread is running. */
-  private boolean running;
+  /** Indicates if the session is running. */
+  private volatile boolean running;
+  /** Timestamp for the cram-md5 authentication. */
+  private String ts;
 
   /** Timestamp of last interaction. */
   public long last;
@@ -81,23 +96,46 @@ public final class ClientListener extends Thread {
     last = System.currentTimeMillis();
   }
 
-  @Override
-  public void run() {
-    // initialize the session via cram-md5 authentication
+  /**
+   * Sends the timestamp for the cram-md5 authentication to the client.
+   * @return {@code true} if the timestamp has been sent
+   */
+  boolean greet() {
     try {
-      final String ts = Long.toString(System.nanoTime());
-      final byte[] address = socket.getInetAddress().getAddress();
+      ts = Long.toString(System.nanoTime());
+
+      // responses are buffered and explicitly flushed
+      socket.setTcpNoDelay(true);
 
       // send {TIMESTAMP}0
       out = PrintOutput.get(socket.getOutputStream());
       out.print(ts);
       send(true);
+      return true;
+    } catch(final IOException ex) {
+      Util.stack(ex);
+      log.write(ex.getMessage());
+      close();
+      return false;
+    }
+  }
+
+  /**
+   * Initializes the session via cram-md5 authentication. Must be called after
+   * {@link #greet()}, as soon as the client has sent its login data.
+   * @return {@code true} if the client has successfully been authenticated
+   */
+  boolean login() {
+    try {
+      final byte[] address = socket.getInetAddress().getAddress();
 
-      // evaluate login data
+      // evaluate login data; incomplete data will not block the worker
+      socket.setSoTimeout(context.mprop.num(MainProp.CLIENTTIMEOUT) * 1000);
       in = new BufferInput(socket.getInputStream());
       // receive {USER}0{PASSWORD}0
       final String us = in.readString();
       final String pw = in.readString();
+      socket.setSoTimeout(0);
       context.user = context.users.get(us);
       running = context.user != null && md5(context.user.password + ts).equals(pw);
 
@@ -115,16 +153,51 @@ public final class ClientListener extends Thread {
     } catch(final IOException ex) {
       Util.stack(ex);
       log.write(ex.getMessage());
-      return;
+      close();
+      return false;
     }
-    if(!running) return;
+    return running;
+  }
+
+  /**
+   * Checks if the client has been authenticated.
+   * @return result of check
+   */
+  boolean authenticated() {
+    return running;
+  }
+
+  /**
+   * Checks if the client has not been authenticated within the timeout.
+   * @return result of check
+   */
+  boolean expired() {
+    final long to = context.mprop.num(MainProp.CLIENTTIMEOUT) * 1000L;
+    return !running && to > 0 && System.currentTimeMillis() - last > to;
+  }
+
+  /**
+   * Closes the connection of a client that has not been authenticated.
+   */
+  void close() {
+    try {
+      socket.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+  }
 
-    // authentication done, start command loop
+  /**
+   * Processes incoming requests. Returns after all buffered requests
+   * have been processed, or if the session has been closed.
+   * @return {@code true} if the session is still running
+   */
+  boolean process() {
     ServerCmd sc = null;
     String cmd = null;
 
     try {
-      while(running) {
+      do {
         command = null;
         try {
           final int b = in.read();
@@ -142,6 +215,8 @@ public final class ClientListener extends Thread {
             create();
           } else if(sc == ServerCmd.ADD) {
             add();
+          } else if(sc == ServerCmd.ADDALL) {
+            addAll();
           } else if(sc == ServerCmd.WATCH) {
             watch();
           } else if(sc == ServerCmd.UNWATCH) {
@@ -204,7 +279,7 @@ public final class ClientListener extends Thread {
           command = null;
           quit();
         }
-      }
+      } while(running && in.available() > 0);
     } catch(final IOException ex) {
       log.write(this, sc == ServerCmd.COMMAND ? cmd : sc,
           ERROR_C + ex.getMessage());
@@ -213,6 +288,7 @@ public final class ClientListener extends Thread {
       quit();
     }
     command = null;
+    return running;
   }
 
   /**
@@ -230,6 +306,8 @@ public final class ClientListener extends Thread {
       while(command != null) Performance.sleep(50);
     }
     context.delete(this);
+    // close cached queries of this session
+    context.queries.remove(context);
 
     try {
       new Close().execute(context);
@@ -245,6 +323,22 @@ public final class ClientListener extends Thread {
     }
   }
 
+  /**
+   * Returns the socket channel of this session.
+   * @return channel
+   */
+  SocketChannel channel() {
+    return socket.getChannel();
+  }
+
+  /**
+   * Returns the id of this session.
+   * @return id
+   */
+  public long id() {
+    return sid;
+  }
+
   /**
    * Returns the context of this session.
    * @return user reference
@@ -341,6 +435,46 @@ public final class ClientListener extends Thread {
     execute(new Add(in.readString()));
   }
 
+  /**
+   * Adds multiple documents to a database.
+   * @throws IOException I/O exception
+   */
+  private void addAll() throws IOException {
+    final String count = in.readString();
+    if(!count.matches("\\d{1,9}")) {
+      // the remaining request cannot be parsed: send error and exit session
+      log.write(this, ServerCmd.ADDALL + " [...]");
+      error(Util.info(INVALID_X, count));
+      quit();
+      return;
+    }
+
+    // inputs are streamed to temporary files and parsed in a single run
+    final Add cmd = new Add(null);
+    final ArrayList<IOFile> files = new ArrayList<IOFile>();
+    try {
+      for(int n = Integer.parseInt(count); n > 0; n--) {
+        final String path = in.readString();
+        final IOFile file = new IOFile(File.createTempFile(
+            Util.name(BaseXServer.class), IO.XMLSUFFIX));
+        files.add(file);
+        file.write(new DecodingInput(in));
+        // documents without name are rejected (the temporary name is hidden)
+        file.name("");
+        cmd.add(path, file);
+      }
+      log.write(this, cmd + " [...]");
+      try {
+        cmd.execute(context);
+        success(cmd.info());
+      } catch(final BaseXException ex) {
+        error(ex.getMessage());
+      }
+    } finally {
+      for(final IOFile file : files) file.delete();
+    }
+  }
+
   /**
    * Replace a document in a database.
    * @throws IOException I/O exception
@@ -385,7 +519,7 @@ public final class ClientListener extends Thread {
     // initialize server-based event handling
     if(!events) {
       out.writeString(Integer.toString(context.mprop.num(MainProp.EVENTPORT)));
-      out.writeString(Long.toString(getId()));
+      out.writeString(Long.toString(sid));
       out.flush();
       events = true;
     }
@@ -466,11 +600,25 @@ public final class ClientListener extends Thread {
           qp.context(val, typ);
           log.write(this, sc + "(" + arg + ')', val, typ, OK, perf);
         } else if(sc == ServerCmd.ITER) {
-          qp.execute(true, out, true, false);
+          qp.execute(true, out, true, false, null, 0);
+        } else if(sc == ServerCmd.STREAM) {
+          final int size = Math.max(1, Integer.parseInt(in.readString()));
+          // the client must request each batch within the timeout
+          socket.setSoTimeout(context.mprop.num(MainProp.CLIENTTIMEOUT) * 1000);
+          try {
+            qp.execute(true, out, true, false, in, size);
+          } catch(final SocketTimeoutException ex) {
+            // the request cannot be completed: close session
+            log.write(this, sc + "(" + arg + ')', ERROR_C + TIMEOUT_EXCEEDED);
+            quit();
+            return;
+          } finally {
+            if(running) socket.setSoTimeout(0);
+          }
         } else if(sc == ServerCmd.EXEC) {
-          qp.execute(false, out, true, false);
+          qp.execute(false, out, true, false, null, 0);
         } else if(sc == ServerCmd.FULL) {
-          qp.execute(true, out, true, true);
+          qp.execute(true, out, true, true, null, 0);
         } else if(sc == ServerCmd.INFO) {
           out.print(qp.info());
         } else if(sc == ServerCmd.OPTIONS) {
@@ -478,7 +626,7 @@ public final class ClientListener extends Thread {
         } else if(sc == ServerCmd.UPDATING) {
           out.print(Boolean.toString(qp.updating()));
         } else if(sc == ServerCmd.CLOSE) {
-          queries.remove(arg);
+          queries.remove(arg).close();
         } else if(sc == ServerCmd.NEXT) {
           throw new Exception("Protocol for query iteration is out-of-dated.");
         }
@@ -65,6 +65,17 @@ public class ClientQuery extends Query {
     return cs.exec(ServerCmd.EXEC, id, out);
   }
 
+  /**
+   * Executes the query and returns an instance for lazily retrieving the results.
+   * The results are sent by the server in batches of the specified size.
+   * @param size number of results per batch
+   * @return results
+   * @throws IOException I/O exception
+   */
+  public ClientResults stream(final int size) throws IOException {
+    return cs.stream(id, size, out);
+  }
+
   @Override
   public void close() throws IOException {
     cs.exec(ServerCmd.CLOSE, id, null);
@@ -72,6 +83,7 @@ public class ClientQuery extends Query {
 
   @Override
   protected void cache() throws IOException {
+    cs.skip();
     cs.sout.write(ServerCmd.ITER.code);
     cs.send(id);
     cs.sout.flush();
@@ -0,0 +1,144 @@
+package org.basex.server;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.in.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class lazily retrieves the results of a query, which are streamed by the
+ * server in batches of a fixed size. The next batch is only requested after all
+ * results of the current batch have been consumed, so that the memory
+ * consumption of both the client and the server is bounded by the batch size.
+ *
+ * The session is blocked as long as results are streamed. If another request
+ * is sent via the same session, the remaining results will be skipped.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientResults {
+  /** Client session. */
+  private final ClientSession cs;
+  /** Client output stream. */
+  private final OutputStream out;
+  /** Buffered server input. */
+  private final BufferInput bi;
+  /** Current item. */
+  private final ByteList item = new ByteList();
+  /** Flag for a pending item. */
+  private boolean pending;
+  /** Flag for all results having been received. */
+  private boolean done;
+
+  /**
+   * Constructor.
+   * @param session client session
+   * @param id query id
+   * @param size number of results per batch
+   * @param os output stream (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  ClientResults(final ClientSession session, final String id, final int size,
+      final OutputStream os) throws IOException {
+
+    cs = session;
+    out = os;
+    cs.sout.write(ServerCmd.STREAM.code);
+    cs.send(id + '\0' + size);
+    cs.sout.flush();
+    bi = new BufferInput(cs.sin);
+  }
+
+  /**
+   * Returns {@code true} if more items are available.
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  public boolean more() throws IOException {
+    return pending || read(true);
+  }
+
+  /**
+   * Returns the next item. If an output stream has been specified, the item
+   * is written to that stream, and {@code null} is returned.
+   * @return item string or {@code null}
+   * @throws IOException I/O exception
+   */
+  public String next() throws IOException {
+    if(!more()) return null;
+    pending = false;
+    if(out == null) return item.toString();
+    out.write(item.toArray());
+    return null;
+  }
+
+  /**
+   * Returns an input stream, which lazily returns the bytes of the remaining
+   * items. Further batches are requested as soon as the bytes of the current
+   * batch have been consumed.
+   * @return input stream
+   */
+  public InputStream input() {
+    return new InputStream() {
+      /** Position in the current item ({@code -1}: no item has been consumed). */
+      private int pos = -1;
+
+      @Override
+      public int read() throws IOException {
+        while(pos == -1 || pos == item.size()) {
+          if(!more()) return -1;
+          pending = false;
+          pos = 0;
+        }
+        return item.get(pos++) & 0xFF;
+      }
+
+      @Override
+      public void close() throws IOException {
+        ClientResults.this.close();
+      }
+    };
+  }
+
+  /**
+   * Skips all remaining results and stops the query.
+   * @throws IOException I/O exception
+   */
+  public void close() throws IOException {
+    pending = false;
+    while(read(false));
+  }
+
+  /**
+   * Reads the next item from the server.
+   * @param cont continue with next batch
+   * @return {@code true} if an item has been read
+   * @throws IOException I/O exception
+   */
+  private boolean read(final boolean cont) throws IOException {
+    while(!done) {
+      final int b = bi.read();
+      if(b == -1) throw new EOFException();
+      if(b == ServerCmd.BATCH) {
+        // request next batch, or stop query
+        cs.sout.write(cont ? 1 : 0);
+        cs.sout.flush();
+      } else if(b != 0) {
+        item.reset();
+        final DecodingInput di = new DecodingInput(bi);
+        for(int d; (d = di.read()) != -1;) item.add(d);
+        pending = cont;
+        return true;
+      } else {
+        // end of results
+        done = true;
+        cs.finish(this);
+        if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+      }
+    }
+    return false;
+  }
+}
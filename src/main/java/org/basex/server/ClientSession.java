@@ -54,6 +54,8 @@ public class ClientSession extends Session {
   private final String ehost;
   /** Socket event reference. */
   private Socket esocket;
+  /** Results that are currently streamed (can be {@code null}). */
+  private ClientResults results;
 
   /**
    * Constructor, specifying login data.
@@ -114,6 +116,8 @@ public class ClientSession extends Session {
     // 5 seconds timeout
     socket = new Socket();
     socket.connect(new InetSocketAddress(host, port), 5000);
+    // send small requests (such as requests for streamed results) immediately
+    socket.setTcpNoDelay(true);
     sin = socket.getInputStream();
 
     // receive timestamp
@@ -140,6 +144,19 @@ public class ClientSession extends Session {
     send(ServerCmd.ADD, input, path);
   }
 
+  @Override
+  public void add(final String[] paths, final InputStream[] inputs) throws IOException {
+    skip();
+    sout.write(ServerCmd.ADDALL.code);
+    send(Integer.toString(paths.length));
+    for(int i = 0; i < paths.length; i++) {
+      send(paths[i]);
+      write(inputs[i]);
+    }
+    sout.flush();
+    receive(null);
+  }
+
   @Override
   public void replace(final String path, final InputStream input) throws IOException {
     send(ServerCmd.REPLACE, input, path);
@@ -164,6 +181,7 @@ public class ClientSession extends Session {
   @Override
   protected void execute(final String cmd, final OutputStream os)
       throws IOException {
+    skip();
     send(cmd);
     sout.flush();
     receive(os);
@@ -184,6 +202,7 @@ public class ClientSession extends Session {
   public void watch(final String name, final EventNotifier notifier)
       throws IOException {
 
+    skip();
     sout.write(ServerCmd.WATCH.code);
     if(esocket == null) {
       sout.flush();
@@ -212,6 +231,7 @@ public class ClientSession extends Session {
    * @throws IOException I/O exception
    */
   public void unwatch(final String name) throws IOException {
+    skip();
     sout.write(ServerCmd.UNWATCH.code);
     send(name);
     sout.flush();
@@ -247,11 +267,20 @@ public class ClientSession extends Session {
    * @throws IOException I/O exception
    */
   private void send(final InputStream input) throws IOException {
+    write(input);
+    sout.flush();
+    receive(null);
+  }
+
+  /**
+   * Writes an input stream to the server.
+   * @param input xml input
+   * @throws IOException I/O exception
+   */
+  private void write(final InputStream input) throws IOException {
     final EncodingOutput eo = new EncodingOutput(sout);
     for(int b; (b = input.read()) != -1;) eo.write(b);
     sout.write(0);
-    sout.flush();
-    receive(null);
   }
 
   /**
@@ -287,6 +316,7 @@ public class ClientSession extends Session {
   protected void send(final ServerCmd cmd, final InputStream input,
       final String... strings) throws IOException {
 
+    skip();
     sout.write(cmd.code);
     for(final String s : strings) send(s);
     send(input);
@@ -314,6 +344,37 @@ public class ClientSession extends Session {
     sout.write(0);
   }
 
+  /**
+   * Starts streaming the results of a query.
+   * @param id query id
+   * @param size number of results per batch
+   * @param os output stream (can be {@code null})
+   * @return results
+   * @throws IOException I/O exception
+   */
+  ClientResults stream(final String id, final int size, final OutputStream os)
+      throws IOException {
+    skip();
+    results = new ClientResults(this, id, size, os);
+    return results;
+  }
+
+  /**
+   * Finalizes the streaming of results.
+   * @param cr results
+   */
+  void finish(final ClientResults cr) {
+    if(results == cr) results = null;
+  }
+
+  /**
+   * Skips the remaining results of a stream before a new request is sent.
+   * @throws IOException I/O exception
+   */
+  void skip() throws IOException {
+    if(results != null) results.close();
+  }
+
   /**
    * Executes a command and sends the result to the specified output stream.
    * @param cmd server command
@@ -325,6 +386,7 @@ public class ClientSession extends Session {
   protected String exec(final ServerCmd cmd, final String arg, final OutputStream os)
       throws IOException {
 
+    skip();
     final OutputStream o = os == null ? new ArrayOutput() : os;
     sout.write(cmd.code);
     send(arg);
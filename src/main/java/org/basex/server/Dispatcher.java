@@ -0,0 +1,205 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * This class dispatches the requests of all client sessions to a bounded pool
+ * of worker threads. Idle connections are watched by a single selector thread;
+ * as soon as a request arrives, the connection is switched to blocking mode and
+ * processed by a worker, using the existing client/server protocol. After the
+ * request has been answered, the connection is passed back to the selector.
+ *
+ * New connections are watched by the selector as well: a worker is only
+ * assigned after the client has sent its login data. Connections that are not
+ * authenticated within {@link MainProp#CLIENTTIMEOUT} will be closed.
+ * If the queue of waiting tasks is full, new connections are rejected.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class Dispatcher extends Thread {
+  /** Maximum number of waiting tasks per worker thread. */
+  private static final int QUEUE = 16;
+  /** Interval for checking the login timeout of new connections (ms). */
+  private static final long CHECK = 1000;
+
+  /** Selector for idle connections. */
+  private final Selector selector;
+  /** Worker threads. */
+  private final ThreadPoolExecutor workers;
+  /** Sessions waiting to be registered with the selector. */
+  private final ConcurrentLinkedQueue<ClientListener> pending =
+      new ConcurrentLinkedQueue<ClientListener>();
+  /** Running flag. */
+  private volatile boolean running = true;
+
+  /**
+   * Constructor.
+   * @param threads maximum number of worker threads
+   * @throws IOException I/O exception
+   */
+  public Dispatcher(final int threads) throws IOException {
+    super(Util.name(Dispatcher.class));
+    selector = Selector.open();
+    final int t = Math.max(1, threads);
+    workers = new ThreadPoolExecutor(t, t, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(t * QUEUE), new ThreadFactory() {
+          @Override
+          public Thread newThread(final Runnable r) {
+            final Thread th = new Thread(r, Util.name(ClientListener.class));
+            th.setDaemon(true);
+            return th;
+          }
+        });
+    workers.allowCoreThreadTimeOut(true);
+    setDaemon(true);
+  }
+
+  /**
+   * Sends a login request to a new client. The session will be authenticated
+   * in a worker thread as soon as the client has sent its login data.
+   * @param cl client session
+   */
+  public void login(final ClientListener cl) {
+    if(workers.getQueue().remainingCapacity() == 0) {
+      // reject new connections if the server is overloaded
+      cl.close();
+    } else if(cl.greet()) {
+      idle(cl);
+    }
+  }
+
+  /**
+   * Returns the number of worker threads.
+   * @return number of threads
+   */
+  public int workers() {
+    return workers.getPoolSize();
+  }
+
+  /**
+   * Stops the dispatcher and all worker threads.
+   */
+  public void close() {
+    running = false;
+    selector.wakeup();
+    workers.shutdown();
+  }
+
+  @Override
+  public void run() {
+    final ArrayList<ClientListener> ready = new ArrayList<ClientListener>();
+    try {
+      long checked = System.currentTimeMillis();
+      while(running) {
+        selector.select(CHECK);
+        if(!running) break;
+
+        // close connections that have not been authenticated in time
+        final long time = System.currentTimeMillis();
+        if(time - checked >= CHECK) {
+          checked = time;
+          for(final SelectionKey key : selector.keys()) {
+            final ClientListener cl = (ClientListener) key.attachment();
+            if(key.isValid() && cl.expired()) {
+              key.cancel();
+              cl.close();
+            }
+          }
+        }
+
+        // register sessions that wait for their next request
+        for(ClientListener cl; (cl = pending.poll()) != null;) {
+          try {
+            final SelectableChannel ch = cl.channel();
+            ch.configureBlocking(false);
+            ch.register(selector, SelectionKey.OP_READ, cl);
+          } catch(final IOException ex) {
+            // channel has been closed in the meantime
+            cl.quit();
+          }
+        }
+
+        // collect sessions with incoming requests
+        final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while(it.hasNext()) {
+          final SelectionKey key = it.next();
+          it.remove();
+          key.cancel();
+          if(key.channel().isOpen()) ready.add((ClientListener) key.attachment());
+        }
+        if(ready.isEmpty()) continue;
+
+        // deregister cancelled keys before switching channels to blocking mode
+        selector.selectNow();
+        for(final ClientListener cl : ready) {
+          try {
+            cl.channel().configureBlocking(true);
+            process(cl);
+          } catch(final IOException ex) {
+            cl.quit();
+          }
+        }
+        ready.clear();
+      }
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    } finally {
+      try {
+        selector.close();
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+    }
+  }
+
+  /**
+   * Authenticates the specified client session, or processes its requests,
+   * in a worker thread.
+   * @param cl client session
+   */
+  private void process(final ClientListener cl) {
+    final boolean auth = cl.authenticated();
+    final boolean ok = execute(new Runnable() {
+      @Override
+      public void run() {
+        if(auth ? cl.process() : cl.login()) idle(cl);
+      }
+    });
+    if(!ok) {
+      if(auth) cl.quit();
+      else cl.close();
+    }
+  }
+
+  /**
+   * Waits for the next request of the specified client session.
+   * @param cl client session
+   */
+  private void idle(final ClientListener cl) {
+    pending.add(cl);
+    selector.wakeup();
+  }
+
+  /**
+   * Runs a task in a worker thread.
+   * @param task task
+   * @return {@code false} if the task was rejected, because the dispatcher has
+   *         been stopped or too many tasks are waiting
+   */
+  private boolean execute(final Runnable task) {
+    try {
+      workers.execute(task);
+      return true;
+    } catch(final RejectedExecutionException ex) {
+      Util.debug(ex);
+      return false;
+    }
+  }
+}
@@ -42,14 +42,14 @@ public class LocalQuery extends Query {
   @Override
   protected void cache() throws IOException {
     final ArrayOutput ao = new ArrayOutput();
-    ql.execute(true, ao, true, false);
+    ql.execute(true, ao, true, false, null, 0);
     cache(new ArrayInput(ao.toArray()));
   }
 
   @Override
   public String execute() throws IOException {
     final OutputStream os = out == null ? new ArrayOutput() : out;
-    ql.execute(false, os, false, false);
+    ql.execute(false, os, false, false, null, 0);
     return out == null ? os.toString() : null;
   }
 
@@ -12,6 +12,8 @@ import org.basex.core.cmd.CreateDB;
 import org.basex.core.cmd.Exit;
 import org.basex.core.cmd.Replace;
 import org.basex.core.cmd.Store;
+import org.basex.io.IOContent;
+import org.basex.io.in.BufferInput;
 import org.basex.query.QueryException;
 import org.basex.util.Token;
 import org.basex.util.Util;
@@ -84,6 +86,16 @@ public class LocalSession extends Session {
     execute(new Add(path), input);
   }
 
+  @Override
+  public void add(final String[] paths, final InputStream[] inputs) throws IOException {
+    final Add cmd = new Add(null);
+    for(int i = 0; i < paths.length; i++) {
+      cmd.add(paths[i], new IOContent(new BufferInput(inputs[i]).content()));
+    }
+    cmd.execute(ctx);
+    info = cmd.info();
+  }
+
   @Override
   public void replace(final String path, final InputStream input) throws IOException {
     execute(new Replace(path), input);
@@ -0,0 +1,214 @@
+package org.basex.server;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.query.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class caches compiled queries of client sessions, which can be evaluated
+ * again if the same query string is sent with the same bindings. Queries with
+ * different bindings are cached separately, as bound values may be inlined by
+ * the compiler.
+ *
+ * Compiled queries are bound to the database context of the session in which they
+ * have been created (including its user, options and opened database), and they
+ * are checked out exclusively for evaluation. Entries are evicted in LRU order if
+ * the number of entries exceeds {@link MainProp#QUERYCACHE}, and they are
+ * invalidated as soon as a referenced database is updated, dropped or replaced.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Cached queries, ordered by their last access. */
+  private final LinkedList<Entry> list = new LinkedList<Entry>();
+
+  /** Versions of databases, incremented whenever a database is invalidated. */
+  private final HashMap<String, Long> versions = new HashMap<String, Long>();
+  /** Number of invalidations of all databases. */
+  private long all;
+  /** Number of invalidations. */
+  private long invalidations;
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+  /** Time saved by reusing compiled queries (nano seconds). */
+  private long saved;
+
+  /**
+   * Returns a compiled query for the specified session and key and removes it
+   * from the cache, or returns {@code null}.
+   * @param ctx database context of the session
+   * @param key query key
+   * @return cache entry or {@code null}
+   */
+  synchronized Entry checkout(final Context ctx, final String key) {
+    final Iterator<Entry> it = list.descendingIterator();
+    while(it.hasNext()) {
+      final Entry e = it.next();
+      if(e.ctx != ctx || !e.key.equals(key)) continue;
+      it.remove();
+      try {
+        // skip queries that have been stopped, or that refer to another database
+        e.qp.checkStop();
+        if(e.data == ctx.data()) {
+          e.version = version(e.qp.databases);
+          ++hits;
+          saved += e.time;
+          return e;
+        }
+      } catch(final ProgressException ex) {
+        Util.debug(ex);
+      }
+      e.qp.close();
+      break;
+    }
+    ++misses;
+    return null;
+  }
+
+  /**
+   * Adds a compiled query to the cache. The query will be closed if it cannot
+   * be cached.
+   * @param ctx database context of the session
+   * @param key query key
+   * @param qp query processor
+   * @param time time needed for parsing and compiling the query (nano seconds)
+   */
+  synchronized void checkin(final Context ctx, final String key,
+      final QueryProcessor qp, final long time) {
+
+    final int max = ctx.mprop.num(MainProp.QUERYCACHE);
+    if(max <= 0 || !qp.ctx.reusable()) {
+      qp.close();
+      return;
+    }
+    list.add(new Entry(ctx, key, qp, time));
+    while(list.size() > max) list.removeFirst().qp.close();
+  }
+
+  /**
+   * Invalidates all queries that may access one of the specified databases.
+   * @param dbs names of databases, or {@code null} for all databases
+   */
+  public synchronized void invalidate(final StringList dbs) {
+    ++invalidations;
+    if(dbs == null) {
+      ++all;
+    } else {
+      for(final String db : dbs) {
+        final Long v = versions.get(db);
+        versions.put(db, v == null ? 1 : v + 1);
+      }
+    }
+    final Iterator<Entry> it = list.iterator();
+    while(it.hasNext()) {
+      final Entry e = it.next();
+      final StringList db = e.qp.databases;
+      boolean inv = dbs == null || db == null;
+      for(int d = 0; !inv && d < dbs.size(); ++d) inv = db.contains(dbs.get(d));
+      if(!inv) continue;
+      it.remove();
+      e.qp.close();
+    }
+  }
+
+  /**
+   * Removes all queries of the specified session.
+   * @param ctx database context of the session
+   */
+  public synchronized void remove(final Context ctx) {
+    final Iterator<Entry> it = list.iterator();
+    while(it.hasNext()) {
+      final Entry e = it.next();
+      if(e.ctx != ctx) continue;
+      it.remove();
+      e.qp.close();
+    }
+  }
+
+  /**
+   * Returns the version of the specified databases. The version changes whenever
+   * one of the databases is updated, dropped or replaced, and it can be used to
+   * check if a query refers to outdated database contents.
+   * @param dbs names of databases, or {@code null} for all databases
+   * @return version
+   */
+  synchronized long version(final StringList dbs) {
+    if(dbs == null) return invalidations;
+    long v = all;
+    for(final String db : dbs) {
+      final Long l = versions.get(db);
+      if(l != null) v += l;
+    }
+    return v;
+  }
+
+  /**
+   * Returns the number of cached queries.
+   * @return number of queries
+   */
+  public synchronized int size() {
+    return list.size();
+  }
+
+  /**
+   * Returns the number of requests that were answered with a cached query.
+   * @return number of hits
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of requests for which no cached query was found.
+   * @return number of misses
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /**
+   * Returns the time that has been saved by reusing compiled queries.
+   * @return saved time (nano seconds)
+   */
+  public synchronized long saved() {
+    return saved;
+  }
+
+  /** Cache entry. */
+  static final class Entry {
+    /** Database context of the session. */
+    final Context ctx;
+    /** Opened database of the session. */
+    final Data data;
+    /** Query key. */
+    final String key;
+    /** Compiled query. */
+    final QueryProcessor qp;
+    /** Time needed for parsing and compiling the query (nano seconds). */
+    final long time;
+    /** Version of the accessed databases when the query was checked out. */
+    long version;
+
+    /**
+     * Constructor.
+     * @param c database context of the session
+     * @param k query key
+     * @param q compiled query
+     * @param t time needed for parsing and compiling the query
+     */
+    Entry(final Context c, final String k, final QueryProcessor q, final long t) {
+      ctx = c;
+      data = c.data();
+      key = k;
+      qp = q;
+      time = t;
+    }
+  }
+}
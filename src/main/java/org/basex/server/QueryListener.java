@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 import static org.basex.io.serial.SerializerProp.*;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 
 import org.basex.core.*;
@@ -20,6 +21,8 @@ import org.basex.util.TokenBuilder;
 
 /**
  * Server-side query session in the client-server architecture.
+ * If a query has been compiled before in the same session, with the same bindings,
+ * the compiled query will be requested from the {@link QueryCache}.
  *
  * @author BaseX Team 2005-12, BSD License
  * @author Andreas Weiler
@@ -28,15 +31,27 @@ import org.basex.util.TokenBuilder;
 final class QueryListener extends Progress {
   /** Performance. */
   private final Performance perf = new Performance();
-  /** Query processor. */
+  /** Query processor, containing the bindings of the client. */
   private final QueryProcessor qp;
   /** Database context. */
   private final Context ctx;
+  /** Query and bindings, used for caching the compiled query. */
+  private final StringBuilder binds;
+  /** Cache key (can be {@code null}). */
+  private String key;
 
   /** Query info. */
   private String info = "";
   /** Serialization options. */
   private SerializerProp options;
+  /** Updating flag. */
+  private boolean updating;
+  /** Query processor to be evaluated (newly created or cached instance). */
+  private QueryProcessor proc;
+  /** Version of the accessed databases when a cached query was requested. */
+  private long version;
+  /** Time needed for parsing and compiling the query (nano seconds). */
+  private long time;
 
   /**
    * Constructor.
@@ -46,6 +61,7 @@ final class QueryListener extends Progress {
   QueryListener(final String qu, final Context c) {
     qp = new QueryProcessor(qu, c);
     ctx = c;
+    binds = new StringBuilder(qu);
   }
 
   /**
@@ -58,6 +74,7 @@ final class QueryListener extends Progress {
   void bind(final String n, final Object v, final String t) throws IOException {
     try {
       qp.bind(n, v, t);
+      binds.append('\1').append(n).append('\2').append(v).append('\2').append(t);
     } catch(final QueryException ex) {
       throw new BaseXException(ex);
     }
@@ -72,6 +89,7 @@ final class QueryListener extends Progress {
   void context(final Object v, final String t) throws IOException {
     try {
       qp.context(v, t);
+      binds.append('\3').append(v).append('\2').append(t);
     } catch(final QueryException ex) {
       throw new BaseXException(ex);
     }
@@ -91,7 +109,7 @@ final class QueryListener extends Progress {
    * @throws IOException I/O Exception
    */
   String options() throws IOException {
-    init();
+    if(options == null) init();
     return options.toString();
   }
 
@@ -101,8 +119,8 @@ final class QueryListener extends Progress {
    * @throws IOException I/O Exception
    */
   boolean updating() throws IOException {
-    init();
-    return qp.updating;
+    if(options == null) init();
+    return updating;
   }
 
   /**
@@ -111,20 +129,46 @@ final class QueryListener extends Progress {
    * @param out output stream
    * @param enc encode stream
    * @param full return full type information
+   * @param in input stream, from which requests for the next batch of results
+   *        are read (can be {@code null}). While the server is waiting for the
+   *        next request, the locks of the query are released
+   * @param batch number of results per batch; if {@code 0}, all results will
+   *        be sent at once
    * @throws IOException I/O Exception
    */
   void execute(final boolean iter, final OutputStream out, final boolean enc,
-      final boolean full) throws IOException {
+      final boolean full, final InputStream in, final int batch) throws IOException {
 
+    boolean ok = false;
+    boolean cached = false;
     try {
       // parses the query
       init();
+      // indicates if the process is registered
+      boolean reg = false;
       try {
-        // registers the process
-        ctx.register(qp);
+        // registers the process; updating queries are evaluated before
+        // write locks are acquired
+        proc.intent = proc.updating;
+        ctx.register(proc);
+        reg = true;
+        if(proc != qp && ctx.queries.version(proc.databases) != version) {
+          // databases have been updated in the meantime: parse query again
+          ctx.unregister(proc);
+          proc.close();
+          parse();
+          proc.intent = proc.updating;
+          ctx.register(proc);
+        }
+
+        // compile query, or reset cached query
+        final long start = System.nanoTime();
+        proc.compile();
+        if(proc == qp) time += System.nanoTime() - start;
+        proc.ctx.reset();
 
         // create serializer
-        final Iter ir = qp.iter();
+        final Iter ir = proc.ctx.iter();
         final boolean wrap = !options.get(S_WRAP_PREFIX).isEmpty();
 
         // iterate through results
@@ -150,43 +194,102 @@ final class QueryListener extends Progress {
             out.write(0);
           }
           c++;
+          // wait until the client requests the next batch, or stops the query.
+          // other processes may access the databases in the meantime
+          if(batch != 0 && !wrap && c % batch == 0) {
+            ctx.unregister(proc);
+            reg = false;
+            final long vers = ctx.queries.version(proc.databases);
+            out.write(ServerCmd.BATCH);
+            out.flush();
+            if(in.read() != 1) break;
+            ctx.register(proc);
+            reg = true;
+            // results may refer to outdated database contents
+            if(ctx.queries.version(proc.databases) != vers) {
+              throw new BaseXException(STREAM_UPDATED);
+            }
+          }
         }
         ser.close();
         if(iter && wrap) out.write(0);
 
         // generate query info
-        final int up = qp.updates();
+        final int up = proc.updates();
         final TokenBuilder tb = new TokenBuilder();
         tb.addExt(HITS_X_CC + "% %" + NL, c, c == 1 ? ITEM : ITEMS);
         tb.addExt(UPDATED_CC + "% %" + NL, up, up == 1 ? ITEM : ITEMS);
         tb.addExt(TOTAL_TIME_CC + '%', perf);
         info = tb.toString();
+        ok = true;
 
       } catch(final QueryException ex) {
         throw new BaseXException(ex);
       } catch(final ProgressException ex) {
         throw new BaseXException(TIMEOUT_EXCEEDED);
       } finally {
-        // unregisters the process
-        ctx.unregister(qp);
+        // cache successfully evaluated query before other processes may update
+        // the accessed databases
+        if(reg) {
+          cached = ok && key != null;
+          if(cached) ctx.queries.checkin(ctx, key, proc, time);
+          // unregisters the process
+          ctx.unregister(proc);
+        }
       }
     } finally {
-      // close processor and stop monitoring
-      qp.close();
+      // close processors that have not been cached
+      if(!cached && proc != null) proc.close();
+      if(proc != qp) qp.close();
+      proc = null;
     }
   }
 
   /**
-   * Parses the query and retrieves the serialization options.
+   * Closes a query that has been parsed, but not evaluated.
+   */
+  void close() {
+    if(proc == null) return;
+    proc.close();
+    if(proc != qp) qp.close();
+    proc = null;
+  }
+
+  /**
+   * Requests a compiled query from the cache, or parses the query, and
+   * retrieves the serialization options.
    * @throws IOException I/O Exception
    */
   private void init() throws IOException {
-    if(options != null) return;
+    if(proc != null) return;
+    // queries on a subset of the opened database will not be cached
+    key = null;
+    if(ctx.current() == null || ctx.root()) {
+      key = binds.toString() + '\0' + ctx.prop;
+      final QueryCache.Entry e = ctx.queries.checkout(ctx, key);
+      if(e != null) {
+        proc = e.qp;
+        time = e.time;
+        version = e.version;
+      }
+    }
+    if(proc == null) parse();
+    options = proc.ctx.serParams(false);
+    updating = proc.updating;
+  }
+
+  /**
+   * Parses the query.
+   * @throws IOException I/O Exception
+   */
+  private void parse() throws IOException {
+    proc = qp;
     try {
+      final long start = System.nanoTime();
       qp.parse();
+      time += System.nanoTime() - start;
     } catch(final QueryException ex) {
       throw new BaseXException(ex);
     }
-    options = qp.ctx.serParams(false);
   }
 }
@@ -37,6 +37,10 @@ public enum ServerCmd {
   STORE(13),
   /** Code for binding a context item: {id}0{val}0{type}0. */
   CONTEXT(14),
+  /** Code for executing the query and streaming the results in batches: {id}0{size}0. */
+  STREAM(15),
+  /** Code for adding multiple documents to a database: {count}0({path}0{input}0)*. */
+  ADDALL(16),
   /** Code for returning the update flag: {id}0. */
   UPDATING(30),
   /** Code for executing a query and returning all information relevant for XQJ: {id}0. */
@@ -44,6 +48,9 @@ public enum ServerCmd {
   /** Code for running a database command: {path}0{input}0. */
   COMMAND(-1);
 
+  /** Marker, sent by the server after each batch of streamed results. */
+  public static final int BATCH = 0xFF;
+
   /** Control code (soon obsolete). */
   public final int code;
 
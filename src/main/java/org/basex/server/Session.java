@@ -78,6 +78,19 @@ public abstract class Session {
   public abstract void add(final String path, final InputStream input)
       throws IOException;
 
+  /**
+   * Adds multiple documents to the opened database. By default, the
+   * documents are added one by one; implementations may parse all documents
+   * in a single run and add them in a single operation.
+   * @param paths target paths
+   * @param inputs xml inputs
+   * @throws IOException I/O exception
+   */
+  public void add(final String[] paths, final InputStream[] inputs)
+      throws IOException {
+    for(int i = 0; i < paths.length; i++) add(paths[i], inputs[i]);
+  }
+
   /**
    * Replaces a document in an open database.
    * @param path document(s) to replace
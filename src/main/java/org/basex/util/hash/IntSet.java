@@ -49,6 +49,15 @@ public class IntSet {
     return size++;
   }
 
+  /**
+   * Checks if the set contains the specified key.
+   * @param key key to be looked up
+   * @return result of check
+   */
+  public final boolean contains(final int key) {
+    return id(key) > 0;
+  }
+
   /**
    * Returns the id of the specified key or -1 if key was not found.
    * @param key key to be found
@@ -0,0 +1,56 @@
+package org.basex.util.list;
+
+import java.util.Arrays;
+
+/**
+ * This is a simple container for native long values.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class LongList extends ElementList {
+  /** Element container. */
+  private long[] list;
+
+  /**
+   * Default constructor.
+   */
+  public LongList() {
+    list = new long[CAP];
+  }
+
+  /**
+   * Adds an entry to the array.
+   * @param e entry to be added
+   */
+  public void add(final long e) {
+    if(size == list.length) list = Arrays.copyOf(list, newSize());
+    list[size++] = e;
+  }
+
+  /**
+   * Returns the element at the specified index position.
+   * @param i index
+   * @return element
+   */
+  public long get(final int i) {
+    return list[i];
+  }
+
+  /**
+   * Returns an array with all elements.
+   * @return array
+   */
+  public long[] toArray() {
+    return Arrays.copyOf(list, size);
+  }
+
+  /**
+   * Sorts the data.
+   * @return self reference
+   */
+  public LongList sort() {
+    Arrays.sort(list, 0, size);
+    return this;
+  }
+}
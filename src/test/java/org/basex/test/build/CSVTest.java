@@ -106,6 +106,43 @@ public final class CSVTest extends SandboxTest {
     assertEquals("0", new XQuery("count(//Name)").execute(context));
   }
 
+  /**
+   * Parses a CSV file with multiple chunks in parallel and compares the result
+   * with a sequential run.
+   * @throws Exception exception
+   */
+  @Test
+  public void parallel() throws Exception {
+    final StringBuilder sb = new StringBuilder("A,B,\"C\"\"D\",E\n");
+    for(int i = 0; i < 100000; i++) {
+      if(i % 97 == 0) sb.append('\n');
+      else if(i % 31 == 0) sb.append(i).append(",\"x\ny \"\"z\"\"\",,").append(i).append('\n');
+      else sb.append("a").append(i).append(",b,c").append(i % 7).append(',').append(i).append('\n');
+    }
+    write(sb.append("last").toString());
+
+    for(final String format : new String[] { "simple", "verbose" }) {
+      for(final String header : new String[] { "true", "false" }) {
+        final String opts = "format=" + format + ",header=" + header;
+        final String exp = parse(opts + ",threads=1");
+        assertEquals(exp, parse(opts + ",threads=4"));
+        assertEquals(exp, parse(opts + ",threads=0"));
+      }
+    }
+  }
+
+  /**
+   * Creates a database from the temporary CSV file and returns its contents.
+   * @param opts parser options
+   * @return database contents
+   * @throws BaseXException exception
+   */
+  private static String parse(final String opts) throws BaseXException {
+    new Set(Prop.PARSEROPT, opts).execute(context);
+    new CreateDB(NAME, TEMP).execute(context);
+    return new XQuery(".").execute(context);
+  }
+
   /**
    * Writes the specified test file.
    * @param data data to write
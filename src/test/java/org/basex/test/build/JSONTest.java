@@ -0,0 +1,176 @@
+package org.basex.test.build;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.basex.io.serial.*;
+import org.basex.query.*;
+import org.basex.query.util.*;
+import org.basex.query.util.json.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * JSON Parser Test.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class JSONTest extends SandboxTest {
+  /** Temporary JSON file. */
+  private static final String TEMP = Prop.TMP + NAME + ".json";
+  /** JSON snippets. */
+  private static final String[] JSON = {
+    "[]", "{}", " { } ", "{ \"a\" : 0 }", "{ \"\" : 0.0e0, \"\": -1 }",
+    "{ \"\" : null }", "{ \"\\t\" : true }", "{ \"a\" : {}, \"b\" : [] }",
+    "{ \"A\" : [ 0, 1, [ \"x\", { \"_\" : false } ] ] }",
+    "{ \"a\" : 1, \"b\" : { \"a\" : \"x\" }, \"c\" : [ 1, \"2\", null ] }",
+    "{ \"json\" : \"x\" }", "{ \"s\" : \"  a \\\" \\\\ \\/ \\n \\u00e4 \\ud83d\\ude00 \" }",
+    "[ { \"1a\" : 1, \"a b\" : 2, \"\\u00e4\" : [ {} ] } ]",
+  };
+  /** JsonML snippets. */
+  private static final String[] JSONML = {
+    "[\"a\"]", "[\"a\", {}]", "[\"a\", { \"b\" : \"c\", \"d\" : \"e\" }, \"t\"]",
+    "[\"a\", \"t\", [\"b\", [\"c\"]], \"u\", [\"d\", {\"x\":\"y\"}]]",
+  };
+  /** Invalid JSON snippets. */
+  private static final String[] INVALID = {
+    "", "{", "0", "{ \"", "{ \"\\c\" : 0 }", "{ \"\" : 00 }", "{ \"\" : 0. }",
+    "{ \"\" : 0e }", "{ \"\" : 0.1. }", "{ \"a\" : 0, }", "{ \"a\" : 0 }}",
+    "[ 1, ]", "[ tru ]",
+  };
+  /** Invalid JsonML snippets. */
+  private static final String[] INVALIDML = {
+    "{}", "[]", "[1]", "[\"a b\"]", "[\"a\", \"t\", \"u\"]", "[\"a\", 1]",
+    "[\"a\", \"t\", {}]", "[\"a\", { \"b\" : 1 }]",
+  };
+
+  /**
+   * Resets the options and removes the temporary file.
+   * @throws BaseXException exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.PARSER, "xml").execute(context);
+    new Set(Prop.PARSEROPT, "").execute(context);
+    new Set(Prop.CREATEFILTER, "*.xml").execute(context);
+    new Set(Prop.CHOP, true).execute(context);
+    new IOFile(TEMP).delete();
+  }
+
+  /**
+   * Compares imported JSON documents with the results of the converter.
+   * @throws Exception exception
+   */
+  @Test
+  public void json() throws Exception {
+    new Set(Prop.PARSER, "json").execute(context);
+    new Set(Prop.CHOP, false).execute(context);
+    for(final String json : JSON) {
+      assertEquals(json, convert(new JSONConverter(null), json), create(json));
+    }
+  }
+
+  /**
+   * Compares imported JsonML documents with the results of the converter.
+   * @throws Exception exception
+   */
+  @Test
+  public void jsonml() throws Exception {
+    new Set(Prop.PARSER, "json").execute(context);
+    new Set(Prop.PARSEROPT, "jsonml=true").execute(context);
+    for(final String json : JSONML) {
+      assertEquals(json, convert(new JsonMLConverter(null), json), create(json));
+    }
+  }
+
+  /**
+   * Checks that invalid input is rejected.
+   * @throws Exception exception
+   */
+  @Test
+  public void invalid() throws Exception {
+    new Set(Prop.PARSER, "json").execute(context);
+    for(final String json : INVALID) invalid(json);
+    new Set(Prop.PARSEROPT, "jsonml=true").execute(context);
+    for(final String json : INVALIDML) invalid(json);
+  }
+
+  /**
+   * Imports a JSON document from an archive, which can only be read once.
+   * @throws Exception exception
+   */
+  @Test
+  public void archive() throws Exception {
+    final String json = JSON[9];
+    final ArrayOutput ao = new ArrayOutput();
+    final java.util.zip.ZipOutputStream zos = new java.util.zip.ZipOutputStream(ao);
+    zos.putNextEntry(new java.util.zip.ZipEntry("a.json"));
+    zos.write(token(json));
+    zos.close();
+    new IOFile(Prop.TMP + NAME + IO.ZIPSUFFIX).write(ao.toArray());
+
+    new Set(Prop.PARSER, "json").execute(context);
+    new Set(Prop.CREATEFILTER, "*.json").execute(context);
+    try {
+      new CreateDB(NAME, Prop.TMP + NAME + IO.ZIPSUFFIX).execute(context);
+      assertEquals(convert(new JSONConverter(null), json),
+          new XQuery(".").execute(context));
+    } finally {
+      new IOFile(Prop.TMP + NAME + IO.ZIPSUFFIX).delete();
+    }
+  }
+
+  /**
+   * Creates a database from the specified JSON string and returns its contents.
+   * @param json json string
+   * @return serialized document
+   * @throws IOException I/O exception
+   */
+  private static String create(final String json) throws IOException {
+    new IOFile(TEMP).write(token(json));
+    new CreateDB(NAME, TEMP).execute(context);
+    return new XQuery(".").execute(context);
+  }
+
+  /**
+   * Checks that the specified input is rejected.
+   * @param json json string
+   * @throws IOException I/O exception
+   */
+  private static void invalid(final String json) throws IOException {
+    try {
+      create(json);
+      fail("Invalid input was accepted: " + json);
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains(NAME));
+    }
+  }
+
+  /**
+   * Converts the specified input with the given converter, and serializes it.
+   * @param conv converter
+   * @param json json string
+   * @return serialized node
+   * @throws Exception exception
+   */
+  private static String convert(final XMLConverter conv, final String json)
+      throws Exception {
+    final ArrayOutput ao = new ArrayOutput();
+    try {
+      final Serializer ser = Serializer.get(ao);
+      conv.parse(token(json)).serialize(ser);
+      ser.close();
+    } catch(final QueryException ex) {
+      fail(ex.getMessage());
+    }
+    return ao.toString();
+  }
+}
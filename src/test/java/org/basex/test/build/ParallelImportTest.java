@@ -0,0 +1,121 @@
+package org.basex.test.build;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * Tests the parallel import of multiple files.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelImportTest extends SandboxTest {
+  /** Number of files. */
+  private static final int FILES = 200;
+  /** Query for comparing the database contents, including the document order. */
+  private static final String QUERY =
+    "for $d in db:open('" + NAME + "') return (document-uri($d), $d)";
+  /** Test ZIP file. */
+  private static final String ZIPFILE = "src/test/resources/xml.zip";
+  /** Input directory. */
+  private static IOFile dir;
+
+  /**
+   * Creates the input files.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void files() throws IOException {
+    dir = new IOFile(sandbox(), "input");
+    for(int i = 0; i < FILES; i++) {
+      final IOFile sub = new IOFile(dir, "d" + i % 7);
+      sub.md();
+      new IOFile(sub, "f" + i + IO.XMLSUFFIX).write(Token.token(
+        "<?xml version='1.0'?><!--c" + i + "--><x:a xmlns:x='u" + i % 3 + "' n='" +
+        i + "'><b xmlns='v'>text " + i + "<?p " + i + "?></b><c/>" +
+        (i % 5 == 0 ? "<d><e a='1' b='2'>" + i + "</e></d>" : "") + "</x:a>"));
+    }
+  }
+
+  /**
+   * Resets the options.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.PARSETHREADS, 1).execute(context);
+    new Set(Prop.SKIPCORRUPT, false).execute(context);
+    new IOFile(dir, "corrupt.xml").delete();
+  }
+
+  /**
+   * Compares the database contents with the result of a sequential import.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void directory() throws BaseXException {
+    final String exp = create(1, dir.path());
+    final CreateDB cmd = new CreateDB(NAME, dir.path());
+    cmd.execute(context);
+    assertFalse(cmd.info().contains("parallel"));
+    assertEquals(exp, create(4, dir.path()));
+    assertEquals(String.valueOf(FILES), new XQuery("count(/)").execute(context));
+  }
+
+  /**
+   * Compares the contents of an archive with the result of a sequential import.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void archive() throws BaseXException {
+    assertEquals(create(1, ZIPFILE), create(3, ZIPFILE));
+  }
+
+  /**
+   * Checks the handling of corrupt files.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void corrupt() throws IOException {
+    new IOFile(dir, "corrupt.xml").write(Token.token("<x>"));
+    new Set(Prop.PARSETHREADS, 4).execute(context);
+    try {
+      new CreateDB(NAME, dir.path()).execute(context);
+      fail("Corrupt file was not rejected.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage().contains("corrupt.xml"));
+    }
+
+    new Set(Prop.SKIPCORRUPT, true).execute(context);
+    final CreateDB cmd = new CreateDB(NAME, dir.path());
+    cmd.execute(context);
+    assertTrue(cmd.info().contains("corrupt.xml"));
+    final String exp = new XQuery(QUERY).execute(context);
+    assertEquals(exp, create(1, dir.path()));
+  }
+
+  /**
+   * Creates a database and returns its contents.
+   * @param threads number of threads
+   * @param input input
+   * @return contents
+   * @throws BaseXException database exception
+   */
+  private static String create(final int threads, final String input)
+      throws BaseXException {
+    new Set(Prop.PARSETHREADS, threads).execute(context);
+    final CreateDB cmd = new CreateDB(NAME, input);
+    cmd.execute(context);
+    assertEquals(threads > 1, cmd.info().contains("parallel"));
+    return new XQuery(QUERY).execute(context);
+  }
+}
@@ -0,0 +1,281 @@
+package org.basex.test.core;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * This class tests the database-specific locking of processes.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class LockTest extends SandboxTest {
+  /** Second database name. */
+  private static final String NAME2 = NAME + '2';
+
+  /**
+   * Checks the databases that are detected for queries.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void queryDatabases() throws QueryException {
+    databases("1", true);
+    databases("db:open('" + NAME + "')", true, NAME);
+    databases("doc('" + NAME + "/doc.xml')", true, NAME);
+    databases("collection('" + NAME + "'), db:text('" + NAME2 + "', 'x')",
+        true, NAME, NAME2);
+    databases("db:open(<a>" + NAME + "</a>)", false);
+    databases("util:eval('1')", false);
+    databases("function-lookup(xs:QName('db:open'), 1)", false);
+  }
+
+  /**
+   * Checks the databases that are detected for commands.
+   */
+  @Test
+  public void commandDatabases() {
+    assertEquals(NAME, databases(new CreateDB(NAME)).get(0));
+    assertEquals(NAME, databases(new Open(NAME + "/path")).get(0));
+    assertEquals(2, databases(new Copy(NAME, NAME2)).size());
+    assertNull(databases(new DropDB(NAME + '*')));
+    assertNull(databases(new Info()));
+  }
+
+  /**
+   * Checks that writers only block processes on the same database.
+   * @throws Exception exception
+   */
+  @Test
+  public void concurrency() throws Exception {
+    final Progress writer = process(true, NAME);
+    context.register(writer);
+    try {
+      // reader on another database is not blocked
+      assertTrue(start(process(false, NAME2)));
+      // reader on the same database is blocked
+      assertFalse(start(process(false, NAME)));
+      // reader accessing all databases is blocked
+      assertFalse(start(process(false)));
+    } finally {
+      context.unregister(writer);
+    }
+    assertTrue(context.lock().requests() > 3);
+  }
+
+  /**
+   * Checks that the maximum number of parallel readers applies to each database.
+   * @throws Exception exception
+   */
+  @Test
+  public void parallel() throws Exception {
+    context.mprop.set(MainProp.PARALLEL, 1);
+    final Progress reader = process(false, NAME);
+    context.register(reader);
+    try {
+      // reader on another database is not blocked
+      assertTrue(start(process(false, NAME2)));
+      // readers on the same database are blocked
+      assertFalse(start(process(false, NAME)));
+      assertFalse(start(process(false, NAME, NAME2)));
+      assertFalse(start(process(false)));
+    } finally {
+      context.unregister(reader);
+      context.mprop.set(MainProp.PARALLEL, (Integer) MainProp.PARALLEL[1]);
+    }
+    assertTrue(start(process(false, NAME)));
+  }
+
+  /**
+   * Checks that read locks can be converted into write locks.
+   * @throws Exception exception
+   */
+  @Test
+  public void upgrade() throws Exception {
+    final Progress optimizer = process(false, NAME);
+    final Progress reader = process(false, NAME);
+    context.register(optimizer);
+    context.register(reader);
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        context.upgrade(optimizer);
+      }
+    };
+    try {
+      // upgrade waits for running readers
+      t.start();
+      t.join(500);
+      assertTrue(t.isAlive());
+      // new readers are blocked by the pending upgrade
+      assertFalse(start(process(false, NAME)));
+      context.unregister(reader);
+      t.join(500);
+      assertFalse(t.isAlive());
+      assertTrue(optimizer.updating);
+      // readers are blocked by the upgraded process
+      assertFalse(start(process(false, NAME)));
+      assertTrue(start(process(false, NAME2)));
+    } finally {
+      context.unregister(reader);
+      context.unregister(optimizer);
+    }
+    assertTrue(start(process(false, NAME)));
+  }
+
+  /**
+   * Checks that processes with an update intent do not block readers.
+   * @throws Exception exception
+   */
+  @Test
+  public void intent() throws Exception {
+    final Progress updater = process(true, NAME);
+    updater.intent = true;
+    context.register(updater);
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        context.upgrade(updater);
+      }
+    };
+    try {
+      // readers are not blocked by the update intent
+      assertTrue(start(process(false, NAME)));
+      assertTrue(start(process(false)));
+      // writers and other processes with update intent are blocked
+      assertFalse(start(process(true, NAME)));
+      final Progress updater2 = process(true, NAME);
+      updater2.intent = true;
+      assertFalse(start(updater2));
+      assertTrue(start(process(true, NAME2)));
+      // readers are blocked after the upgrade
+      t.start();
+      t.join(500);
+      assertFalse(t.isAlive());
+      assertTrue(updater.updating);
+      assertFalse(updater.intent);
+      assertFalse(start(process(false, NAME)));
+    } finally {
+      context.unregister(updater);
+    }
+    assertTrue(start(process(false, NAME)));
+  }
+
+  /**
+   * Checks that updating queries are evaluated while other processes read
+   * the database.
+   * @throws Exception exception
+   */
+  @Test
+  public void query() throws Exception {
+    new CreateDB(NAME, "<x/>").execute(context);
+    final Progress reader = process(false, NAME);
+    context.register(reader);
+    final Context ctx = new Context(context, null);
+    ctx.user = context.user;
+    final XQuery xq = new XQuery("insert node <a/> into db:open('" + NAME + "')/x");
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        try {
+          xq.execute(ctx);
+        } catch(final BaseXException ex) {
+          Util.stack(ex);
+        }
+      }
+    };
+    try {
+      t.start();
+      t.join(500);
+      // the query has been evaluated and waits for the write lock
+      assertTrue(t.isAlive());
+      assertTrue(xq.updating);
+      assertFalse(xq.intent);
+    } finally {
+      context.unregister(reader);
+    }
+    t.join();
+    assertEquals("1", new XQuery("count(db:open('" + NAME + "')//a)").execute(context));
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Checks the databases that are detected for the specified query.
+   * @param query query
+   * @param known accessed databases can be statically determined
+   * @param dbs expected database names
+   * @throws QueryException query exception
+   */
+  private static void databases(final String query, final boolean known,
+      final String... dbs) throws QueryException {
+
+    final QueryProcessor qp = new QueryProcessor(query, context);
+    try {
+      qp.parse();
+      if(!known) {
+        assertNull(query, qp.databases);
+      } else {
+        assertNotNull(query, qp.databases);
+        assertEquals(query, dbs.length, qp.databases.size());
+        for(final String db : dbs) assertTrue(query, qp.databases.contains(db));
+      }
+    } finally {
+      qp.close();
+    }
+  }
+
+  /**
+   * Returns the databases that are detected for the specified command.
+   * @param cmd command
+   * @return database names, or {@code null}
+   */
+  private static StringList databases(final Command cmd) {
+    final StringList db = new StringList();
+    return cmd.databases(context, db) ? db : null;
+  }
+
+  /**
+   * Creates a process.
+   * @param updating updating flag
+   * @param dbs accessed databases ({@code null}: all databases)
+   * @return process
+   */
+  private static Progress process(final boolean updating, final String... dbs) {
+    final Progress pr = new Progress() { };
+    pr.updating = updating;
+    pr.databases = dbs.length == 0 ? null : new StringList().add(dbs);
+    return pr;
+  }
+
+  /**
+   * Registers the specified process in a separate thread and returns
+   * {@code true} if it could be started within a short time. The process
+   * will be unregistered as soon as it has been started.
+   * @param pr process
+   * @return result of check
+   * @throws InterruptedException interrupted exception
+   */
+  private static boolean start(final Progress pr) throws InterruptedException {
+    final boolean[] started = { false };
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        context.register(pr);
+        synchronized(started) { started[0] = true; }
+        context.unregister(pr);
+      }
+    };
+    t.start();
+    t.join(500);
+    synchronized(started) {
+      if(!started[0]) pr.stop();
+      return started[0];
+    }
+  }
+}
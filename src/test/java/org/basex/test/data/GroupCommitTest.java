@@ -0,0 +1,279 @@
+package org.basex.test.data;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.test.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * This class tests the group commit of updates.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class GroupCommitTest extends SandboxTest {
+  /** Number of clients. */
+  private static final int CLIENTS = 4;
+  /** Number of updates per client. */
+  private static final int UPDATES = 25;
+
+  /**
+   * Creates the test database and enables group commits.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    new CreateDB(NAME, "<x/>").execute(context);
+    new Set(Prop.GROUPCOMMIT, 100).execute(context);
+  }
+
+  /**
+   * Drops the test database and resets the options.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.GROUPCOMMIT, 0).execute(context);
+  }
+
+  /**
+   * Checks that updates are flushed by the last process of a group.
+   * @throws Exception exception
+   */
+  @Test
+  public void deferred() throws Exception {
+    final Data data = context.data();
+    assertTrue(update(data));
+    // the update file is removed after the queued writer has finished
+    assertFalse(((DiskData) data).updateFile().exists());
+  }
+
+  /**
+   * Checks that updates are flushed immediately if group commits are disabled.
+   * @throws Exception exception
+   */
+  @Test
+  public void disabled() throws Exception {
+    new Set(Prop.GROUPCOMMIT, 0).execute(context);
+    assertFalse(update(context.data()));
+    // group commits are disabled by default
+    assertEquals(0, Prop.GROUPCOMMIT[1]);
+  }
+
+  /**
+   * Checks that deferred updates are flushed if the database is closed.
+   * @throws Exception exception
+   */
+  @Test
+  public void close() throws Exception {
+    final DiskData data = (DiskData) context.data();
+    final Progress writer = process();
+    final Progress waiting = process();
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        context.register(waiting);
+        context.unregister(waiting);
+      }
+    };
+    context.register(writer);
+    try {
+      t.start();
+      t.join(500);
+      assertTrue(data.startUpdate());
+      data.finishUpdate();
+      assertTrue(data.updateFile().exists());
+      data.close();
+      assertFalse(data.updateFile().exists());
+    } finally {
+      context.unregister(writer);
+    }
+    t.join();
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+  }
+
+  /**
+   * Checks that deferred updates are flushed by a waiting process
+   * that has an update intent, but does not perform updates.
+   * @throws Exception exception
+   */
+  @Test
+  public void intent() throws Exception {
+    final DiskData data = (DiskData) context.data();
+    final Progress writer = process();
+    final Progress waiting = process();
+    waiting.intent = true;
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        context.register(waiting);
+        context.unregister(waiting);
+      }
+    };
+    context.register(writer);
+    try {
+      t.start();
+      t.join(500);
+      assertTrue(data.startUpdate());
+      data.finishUpdate();
+      assertTrue(data.updateFile().exists());
+    } finally {
+      context.unregister(writer);
+    }
+    t.join();
+    assertFalse(data.updateFile().exists());
+  }
+
+  /**
+   * Checks that deferred updates are flushed if the waiting process
+   * is stopped before it has been started.
+   * @throws Exception exception
+   */
+  @Test
+  public void stopped() throws Exception {
+    final DiskData data = (DiskData) context.data();
+    final Progress writer = process();
+    final Progress waiting = process();
+    final Progress reader = new Progress() { };
+    reader.databases = new StringList().add(NAME);
+    final CountDownLatch read = new CountDownLatch(1);
+    final ArrayList<Exception> errors = new ArrayList<Exception>();
+    final Thread r = new Thread() {
+      @Override
+      public void run() {
+        context.register(reader);
+        try {
+          read.await();
+        } catch(final InterruptedException ex) {
+          synchronized(errors) { errors.add(ex); }
+        }
+        context.unregister(reader);
+      }
+    };
+    final Thread w = new Thread() {
+      @Override
+      public void run() {
+        try {
+          context.register(waiting);
+          context.unregister(waiting);
+        } catch(final ProgressException ex) {
+          synchronized(errors) { errors.add(ex); }
+        }
+      }
+    };
+    context.register(writer);
+    try {
+      // queue reader, which will block the waiting process
+      r.start();
+      r.join(200);
+      w.start();
+      w.join(200);
+      assertTrue(data.startUpdate());
+      data.finishUpdate();
+      assertTrue(data.updateFile().exists());
+    } finally {
+      context.unregister(writer);
+    }
+    // stop waiting process and wake it up by running another process
+    waiting.stop();
+    final Progress other = new Progress() { };
+    other.databases = new StringList().add(NAME + '2');
+    context.register(other);
+    context.unregister(other);
+    w.join(200);
+    read.countDown();
+    r.join();
+    w.join();
+    assertEquals(1, errors.size());
+    assertFalse(data.updateFile().exists());
+  }
+
+  /**
+   * Performs concurrent updates and checks the stored database.
+   * @throws Exception exception
+   */
+  @Test
+  public void concurrent() throws Exception {
+    final ArrayList<Thread> threads = new ArrayList<Thread>();
+    final ArrayList<Exception> errors = new ArrayList<Exception>();
+    for(int c = 0; c < CLIENTS; c++) {
+      final Context ctx = new Context(context, null);
+      ctx.user = context.user;
+      final Thread t = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for(int u = 0; u < UPDATES; u++) {
+              new XQuery("insert node <a/> into db:open('" + NAME + "')/x").execute(ctx);
+            }
+          } catch(final BaseXException ex) {
+            synchronized(errors) { errors.add(ex); }
+          }
+        }
+      };
+      threads.add(t);
+      t.start();
+    }
+    for(final Thread t : threads) t.join();
+    assertTrue(errors.toString(), errors.isEmpty());
+    assertFalse(((DiskData) context.data()).updateFile().exists());
+
+    // reopen database and check contents
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertEquals(String.valueOf(CLIENTS * UPDATES),
+        new XQuery("count(//a)").execute(context));
+  }
+
+  /**
+   * Performs an update while another updating process is waiting.
+   * @param data data reference
+   * @return {@code true} if the update was deferred
+   * @throws Exception exception
+   */
+  private static boolean update(final Data data) throws Exception {
+    final Progress writer = process();
+    final Progress waiting = process();
+    final Thread t = new Thread() {
+      @Override
+      public void run() {
+        context.register(waiting);
+        context.unregister(waiting);
+      }
+    };
+    final boolean deferred;
+    context.register(writer);
+    try {
+      t.start();
+      t.join(500);
+      assertTrue(t.isAlive());
+      assertTrue(data.startUpdate());
+      data.finishUpdate();
+      deferred = ((DiskData) data).updateFile().exists();
+    } finally {
+      context.unregister(writer);
+    }
+    t.join();
+    return deferred;
+  }
+
+  /**
+   * Creates an updating process.
+   * @return process
+   */
+  private static Progress process() {
+    final Progress pr = new Progress() { };
+    pr.updating = true;
+    pr.databases = new StringList().add(NAME);
+    return pr;
+  }
+}
@@ -0,0 +1,79 @@
+package org.basex.test.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests databases with memory-mapped files.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class MappedDataTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/xmark.xml";
+  /** Name of the database with memory-mapped files. */
+  private static final String MAPPED = NAME + "mapped";
+
+  /**
+   * Creates the test databases.
+   * @throws BaseXException database exception
+   */
+  @BeforeClass
+  public static void init() throws BaseXException {
+    new CreateDB(NAME, FILE).execute(context);
+    new Set(Prop.MMAP, true).execute(context);
+    new CreateDB(MAPPED, FILE).execute(context);
+    new Set(Prop.MMAP, false).execute(context);
+  }
+
+  /**
+   * Drops the test databases.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new DropDB(MAPPED).execute(context);
+  }
+
+  /**
+   * Compares the contents of both databases after updates and reopening.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    compare();
+    final String[] updates = {
+      "for $i in .//item return insert node <new>{ $i/name/text() }</new> into $i",
+      "for $d in .//description return delete node $d",
+      "for $a in .//@id return replace value of node $a with concat($a, '-', $a)",
+      "for $t in .//text() return replace value of node $t with upper-case($t)",
+    };
+    for(final String up : updates) {
+      for(final String db : new String[] { NAME, MAPPED }) {
+        new Open(db).execute(context);
+        new XQuery(up).execute(context);
+      }
+      compare();
+    }
+  }
+
+  /**
+   * Compares the serialized contents of both databases.
+   * @throws BaseXException database exception
+   */
+  private static void compare() throws BaseXException {
+    new Open(NAME).execute(context);
+    final String exp = new XQuery(".").execute(context);
+    new Open(MAPPED).execute(context);
+    assertEquals(exp, new XQuery(".").execute(context));
+    new Close().execute(context);
+    new Open(MAPPED).execute(context);
+    assertEquals(exp, new XQuery(".").execute(context));
+  }
+}
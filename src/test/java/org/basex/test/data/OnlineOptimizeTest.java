@@ -0,0 +1,141 @@
+package org.basex.test.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the optimization of databases that are opened by other
+ * processes.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class OnlineOptimizeTest extends SandboxTest {
+  /** Second database context, representing another session. */
+  private Context ctx2;
+
+  /**
+   * Creates the test database and opens it in a second session.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    new Set(Prop.FTINDEX, true).execute(context);
+    new CreateDB(NAME, "<x/>").execute(context);
+    new XQuery("insert node (for $i in 1 to 1000 " +
+      "return <a n='{ $i }'>{ $i mod 7 }</a>) into /x").execute(context);
+    new Set(Prop.FTINDEX, false).execute(context);
+    new XQuery("delete node //a[@n > 500]").execute(context);
+    ctx2 = new Context(context, null);
+    ctx2.user = context.user;
+    new Open(NAME).execute(ctx2);
+  }
+
+  /**
+   * Closes the second session and drops the database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    if(ctx2 != null) new Close().execute(ctx2);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Optimizes a database that is opened by another session.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void optimizeAll() throws BaseXException {
+    final String[] queries = {
+      "count(//a)", "count(//a[text() = '3'])", "count(//a[@n = '333'])",
+      "count(//a[text() contains text '5'])", "sum(//a/@n)"
+    };
+    final String[] results = new String[queries.length];
+    for(int q = 0; q < queries.length; q++) {
+      results[q] = new XQuery(queries[q]).execute(ctx2);
+    }
+    final long size = ctx2.data().meta.dbsize();
+
+    new OptimizeAll().execute(context);
+
+    // the other session still refers to the same, optimized database instance
+    assertSame(context.data(), ctx2.data());
+    assertTrue(ctx2.data().meta.dbsize() < size);
+    for(int q = 0; q < queries.length; q++) {
+      assertEquals(queries[q], results[q], new XQuery(queries[q]).execute(ctx2));
+    }
+    // updates are still possible
+    new XQuery("insert node <a n='1001'>0</a> into /x").execute(ctx2);
+    assertEquals("501", new XQuery("count(//a)").execute(context));
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertEquals("501", new XQuery("count(//a)").execute(context));
+    assertEquals(1, context.mprop.dbpath().children().length);
+  }
+
+  /**
+   * Checks that no updates get lost if they are performed while a database
+   * is optimized.
+   * @throws Exception exception
+   */
+  @Test
+  public void parallelUpdates() throws Exception {
+    final Exception[] error = new Exception[1];
+    final Thread optimize = new Thread() {
+      @Override
+      public void run() {
+        try {
+          for(int i = 0; i < 5; i++) new OptimizeAll().execute(context);
+        } catch(final Exception ex) {
+          error[0] = ex;
+        }
+      }
+    };
+    optimize.start();
+    for(int i = 0; i < 50; i++) {
+      new XQuery("insert node <a n='{ 1000 + " + i + " }'/> into /x").execute(ctx2);
+    }
+    optimize.join();
+    if(error[0] != null) throw error[0];
+    assertEquals("550", new XQuery("count(//a)").execute(ctx2));
+    new Close().execute(ctx2);
+    new Open(NAME).execute(ctx2);
+    assertEquals("550", new XQuery("count(//a)").execute(ctx2));
+  }
+
+  /**
+   * Checks that the original files are restored if the new files of an
+   * optimized database cannot be opened.
+   * @throws Exception exception
+   */
+  @Test
+  public void restore() throws Exception {
+    final DiskData data = (DiskData) ctx2.data();
+    final String count = new XQuery("count(//a)").execute(ctx2);
+    final IOFile dir = context.mprop.dbpath(NAME + "new");
+    dir.md();
+    new IOFile(dir, DataText.DATAINF + IO.BASEXSUFFIX).write(Token.token("invalid"));
+    try {
+      data.replace(dir, context);
+      fail("Replacement is expected to fail.");
+    } catch(final Exception ex) {
+      // original files have been restored
+    } finally {
+      dir.delete();
+    }
+    assertEquals(count, new XQuery("count(//a)").execute(ctx2));
+    assertEquals("1", new XQuery("count(//a[@n = '333'])").execute(ctx2));
+    assertFalse(new IOFile(data.meta.path, DataText.DATABAK).exists());
+    new Close().execute(ctx2);
+    new Open(NAME).execute(ctx2);
+    assertEquals(count, new XQuery("count(//a)").execute(ctx2));
+  }
+}
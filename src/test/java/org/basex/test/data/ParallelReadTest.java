@@ -0,0 +1,115 @@
+package org.basex.test.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.random.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests parallel read access to the table of a database,
+ * and measures the throughput for different numbers of threads.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelReadTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/xmark.xml";
+  /** Number of runs per thread. */
+  private static final int RUNS = 20;
+
+  /**
+   * Creates the test database.
+   * @throws Exception exception
+   */
+  @BeforeClass
+  public static void init() throws Exception {
+    new CreateDB(NAME, FILE).execute(context);
+  }
+
+  /**
+   * Drops the test database.
+   * @throws Exception exception
+   */
+  @AfterClass
+  public static void finish() throws Exception {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Reads the table with several threads and compares the results.
+   * @throws Exception exception
+   */
+  @Test
+  public void read() throws Exception {
+    final Data data = context.data();
+    final long expected = checksum(data);
+    final int cores = Runtime.getRuntime().availableProcessors();
+    for(int t = 1; t <= Math.max(cores, 2); t <<= 1) run(data, t, expected);
+    // updated tables must be read correctly as well
+    new XQuery("insert node <a/> into /site").execute(context);
+    run(data, 4, checksum(data));
+  }
+
+  /**
+   * Checks that the read cursors of finished threads do not keep blocks pinned.
+   * @throws Exception exception
+   */
+  @Test
+  public void unpin() throws Exception {
+    final Data data = context.data();
+    final BufferPool pool = BufferPool.get();
+    final int pinned = pool.pinned();
+    run(data, 4, checksum(data));
+    assertEquals(pinned, pool.pinned());
+  }
+
+  /**
+   * Reads the table with the specified number of threads.
+   * @param data data reference
+   * @param threads number of threads
+   * @param expected expected checksum
+   * @throws InterruptedException interrupted exception
+   */
+  private static void run(final Data data, final int threads,
+      final long expected) throws InterruptedException {
+
+    final long[] results = new long[threads];
+    final Thread[] th = new Thread[threads];
+    for(int t = 0; t < threads; t++) {
+      final int n = t;
+      th[t] = new Thread() {
+        @Override
+        public void run() {
+          long c = 0;
+          for(int r = 0; r < RUNS; r++) c = checksum(data);
+          results[n] = c;
+        }
+      };
+    }
+    for(final Thread t : th) t.start();
+    for(final Thread t : th) t.join();
+    for(final long r : results) assertEquals(expected, r);
+  }
+
+  /**
+   * Computes a checksum for the kind, parent, size and name of all nodes.
+   * @param data data reference
+   * @return checksum
+   */
+  static long checksum(final Data data) {
+    long c = 0;
+    final int s = data.meta.size;
+    for(int pre = 0; pre < s; pre++) {
+      final int k = data.kind(pre);
+      c = c * 31 + k;
+      c = c * 31 + data.parent(pre, k);
+      c = c * 31 + data.size(pre, k);
+      if(k == Data.ELEM || k == Data.ATTR) c = c * 31 + data.name(pre);
+    }
+    return c;
+  }
+}
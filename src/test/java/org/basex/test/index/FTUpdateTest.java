@@ -0,0 +1,159 @@
+package org.basex.test.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.index.IndexToken.IndexType;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests the incremental updates of the full-text index.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class FTUpdateTest extends SandboxTest {
+  /** Test document. */
+  private static final String DOC = "<x><a>red apple</a><a>green apple</a>" +
+    "<b>yellow banana</b><c>red cherry and a cherry</c></x>";
+  /** Searched terms. */
+  private static final String[] TERMS = {
+    "apple", "red", "cherry", "banana", "pear", "plum", "red apple"
+  };
+
+  /**
+   * Drops the test database and resets the options.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+    new Set(Prop.FTINDEX, false).execute(context);
+    new Set(Prop.WILDCARDS, false).execute(context);
+  }
+
+  /**
+   * Checks the results after various updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void updates() throws BaseXException {
+    create();
+    check();
+    update("insert node <d>green pear and red plum</d> into /x");
+    update("delete node /x/b");
+    update("replace value of node /x/a[1] with 'yellow pear'");
+    update("replace node /x/c with <c>apple apple</c>");
+    update("insert node <e>cherry</e> before /x/a[2]");
+    update("rename node /x/d as 'dd'");
+    assertTrue(context.data().meta.ftxtindex);
+    assertTrue(context.data().updated(IndexType.FULLTEXT));
+  }
+
+  /**
+   * Checks that the updates are stored on disk.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void persistent() throws BaseXException {
+    create();
+    update("insert node <d>green pear</d> into /x");
+    update("delete node /x/a[1]");
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertTrue(context.data().meta.ftupdate);
+    check();
+    assertEquals("1", query("count(//*[text() contains text 'pear'])"));
+  }
+
+  /**
+   * Checks that the updates are merged when the database is optimized.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void optimize() throws BaseXException {
+    create();
+    update("insert node <d>green pear</d> into /x");
+    new Optimize().execute(context);
+    assertTrue(context.data().meta.ftxtindex);
+    assertFalse(context.data().updated(IndexType.FULLTEXT));
+    check();
+    update("delete node /x/d");
+  }
+
+  /**
+   * Checks that wildcard indexes are still dropped after updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void wildcards() throws BaseXException {
+    new Set(Prop.WILDCARDS, true).execute(context);
+    create();
+    assertFalse(context.data().meta.ftupdate);
+    new XQuery("insert node <d>pear</d> into /x").execute(context);
+    assertFalse(context.data().meta.ftxtindex);
+  }
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  private static void create() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    new Set(Prop.FTINDEX, true).execute(context);
+    new CreateDB(NAME, DOC).execute(context);
+  }
+
+  /**
+   * Performs an update and checks the results.
+   * @param query updating query
+   * @throws BaseXException database exception
+   */
+  private static void update(final String query) throws BaseXException {
+    new XQuery(query).execute(context);
+    check();
+  }
+
+  /**
+   * Compares the results of queries with and without index access.
+   * @throws BaseXException database exception
+   */
+  private static void check() throws BaseXException {
+    for(final String t : TERMS) {
+      for(final String opt : new String[] { "", " using fuzzy" }) {
+        // the copied nodes are not indexed
+        final String q = "//*[text() contains text '" + t + "'" + opt + "]";
+        final String exp = query("(copy $c := /x modify () return $c)" + q);
+        assertEquals(t + opt, exp, query(q));
+        assertTrue(t + opt, index(q));
+      }
+    }
+  }
+
+  /**
+   * Returns a query result.
+   * @param query query
+   * @return result
+   * @throws BaseXException database exception
+   */
+  private static String query(final String query) throws BaseXException {
+    return new XQuery(query).execute(context);
+  }
+
+  /**
+   * Checks if the specified query is evaluated via an index.
+   * @param query query
+   * @return result of check
+   * @throws BaseXException database exception
+   */
+  private static boolean index(final String query) throws BaseXException {
+    new Set(Prop.QUERYINFO, true).execute(context);
+    final XQuery xq = new XQuery(query);
+    xq.execute(context);
+    new Set(Prop.QUERYINFO, false).execute(context);
+    return xq.info().contains("index");
+  }
+}
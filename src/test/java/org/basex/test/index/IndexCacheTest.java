@@ -64,6 +64,49 @@ public final class IndexCacheTest {
     assertNull(cache.get(key));
   }
 
+  /** Test that the weight of the cache is bounded. */
+  @Test
+  public void testBounded() {
+    cache = new IndexCache(1 << 12);
+    for(int i = 0; i < 1000; ++i) cache.add(token("keyBounded" + i), i, i);
+    assertTrue(cache.weight() <= 1 << 12);
+    assertTrue(cache.evictions() > 0);
+    assertEquals(1000, cache.size() + cache.evictions());
+  }
+
+  /** Test that frequently requested entries are not evicted by a scan. */
+  @Test
+  public void testFrequency() {
+    cache = new IndexCache(1 << 12);
+    final byte[] hot = token("keyHot");
+    cache.add(hot, 1, 1L);
+    assertNotNull(cache.get(hot));
+    for(int i = 0; i < 1000; ++i) cache.add(token("keyScan" + i), i, i);
+    assertCacheEntry(hot, 1, 1L);
+  }
+
+  /** Test for method {@link IndexCache#cache(CacheEntry, int[])}. */
+  @Test
+  public void testIds() {
+    final byte[] key = token("keyIds");
+    final int[] ids = { 1, 2, 3 };
+    cache.add(key, ids.length, 12L);
+
+    // ids are only cached for frequently requested entries
+    CacheEntry entry = cache.get(key);
+    cache.cache(entry, ids);
+    assertNull(entry.ids);
+    cache.get(key);
+    entry = cache.get(key);
+    cache.cache(entry, ids);
+    assertSame(ids, cache.get(key).ids);
+    assertEquals(4, cache.hits());
+
+    // cached ids are discarded when the entry is updated
+    cache.add(key, ids.length + 1, 13L);
+    assertNull(cache.get(key).ids);
+  }
+
   /**
    * Test that new records can be continuously added without hitting
    * {@link OutOfMemoryError}.
@@ -0,0 +1,185 @@
+package org.basex.test.index;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.Commands.CmdIndex;
+import org.basex.core.Commands.CmdIndexInfo;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.IndexToken.IndexType;
+import org.basex.test.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * This class tests value indexes that are restricted to some element and
+ * attribute names.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexIncludeTest extends SandboxTest {
+  /** Test document. */
+  private static final String DOC = "<x>" +
+    "<order id='1' c='a'><status>open</status><note>open</note></order>" +
+    "<order id='2' c='a'><status>closed</status><note>x</note></order>" +
+    "<order id='3' c='b'><status>open</status><note>open</note></order>" +
+    "<status>open</status><b y='1'/><open id='x'>open</open></x>";
+
+  /**
+   * Drops the test database and resets the options.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.TEXTINCLUDE, "").execute(context);
+    new Set(Prop.ATTRINCLUDE, "").execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Checks the results and the index accesses of queries.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void query() throws BaseXException {
+    create();
+    check();
+  }
+
+  /**
+   * Checks that the included names are stored with the database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void meta() throws BaseXException {
+    create();
+    new Set(Prop.TEXTINCLUDE, "").execute(context);
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertEquals("status", context.data().meta.textinclude);
+    assertTrue(new InfoIndex(CmdIndexInfo.TEXT).execute(context).contains("status"));
+    check();
+    // rebuilt index includes all names
+    new DropIndex(CmdIndex.TEXT).execute(context);
+    new CreateIndex(CmdIndex.TEXT).execute(context);
+    assertEquals("", context.data().meta.textinclude);
+    assertTrue(index("//order[note = 'open']"));
+  }
+
+  /**
+   * Checks updatable indexes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void updates() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    create();
+    compare();
+    new XQuery("insert node <order id='4'><status>open</status>" +
+        "<note>open</note></order> into /x").execute(context);
+    compare();
+    new XQuery("rename node (//note)[1] as 'status'").execute(context);
+    compare();
+    new XQuery("rename node (//status)[last()] as 'note'," +
+        "rename node //@y as 'id'").execute(context);
+    compare();
+    new XQuery("replace value of node (//note)[2]/text() with 'closed'," +
+        "replace value of node (//status)[1]/text() with 'closed'").execute(context);
+    compare();
+    new XQuery("replace node (//order)[2] with <order id='5'>" +
+        "<status>open</status></order>").execute(context);
+    compare();
+    new XQuery("delete node (//order)[1]").execute(context);
+    compare();
+    assertEquals("2", new XQuery("count(//order[status = 'open'])").execute(context));
+  }
+
+  /**
+   * Creates the test database.
+   * @throws BaseXException database exception
+   */
+  private static void create() throws BaseXException {
+    new Set(Prop.TEXTINCLUDE, "status").execute(context);
+    new Set(Prop.ATTRINCLUDE, " id , xyz").execute(context);
+    new CreateDB(NAME, DOC).execute(context);
+  }
+
+  /**
+   * Checks the results and the index accesses of queries.
+   * @throws BaseXException database exception
+   */
+  private static void check() throws BaseXException {
+    assertEquals("1 3", query("//order[status = 'open']/@id/string()"));
+    assertTrue(index("//order[status = 'open']"));
+    assertEquals("3", query("count(//status[text() = 'open'])"));
+    assertTrue(index("//status[text() = 'open']"));
+    assertEquals("open", query("//order[@id = '3']/note/string()"));
+    assertTrue(index("//order[@id = '3']"));
+
+    // not included
+    assertEquals("1 3", query("//order[note = 'open']/@id/string()"));
+    assertFalse(index("//order[note = 'open']"));
+    assertEquals("6", query("count(//*[text() = 'open'])"));
+    assertFalse(index("//*[text() = 'open']"));
+    assertEquals("6", query("count(//text()[. = 'open'])"));
+    assertFalse(index("//text()[. = 'open']"));
+    assertEquals("2", query("count(//order[@c = 'a'])"));
+    assertFalse(index("//order[@c = 'a']"));
+    assertEquals("4", query("count(//@*[. = 'a' or . = '1'])"));
+    assertFalse(index("//@*[. = 'a']"));
+  }
+
+  /**
+   * Compares the index entries with the included nodes.
+   */
+  private static void compare() {
+    final Data data = context.data();
+    for(final String v : new String[] { "open", "closed", "x", "1", "a", "4" }) {
+      for(final boolean text : new boolean[] { true, false }) {
+        final IntList exp = new IntList();
+        for(int p = 0; p < data.meta.size; p++) {
+          final int k = data.kind(p);
+          if(k != (text ? Data.TEXT : Data.ATTR) || !eq(data.text(p, text), token(v)))
+            continue;
+          final byte[] nm = text ? data.name(data.parent(p, k), Data.ELEM) :
+            data.name(p, k);
+          if(eq(nm, token(text ? "status" : "id"))) exp.add(p);
+        }
+        final IndexIterator ii = data.iter(new ValuesToken(
+            text ? IndexType.TEXT : IndexType.ATTRIBUTE, token(v)));
+        final IntList res = new IntList();
+        while(ii.more()) res.add(ii.next());
+        assertArrayEquals(v + ", " + text, exp.toArray(), res.sort().toArray());
+      }
+    }
+  }
+
+  /**
+   * Returns a query result.
+   * @param query query
+   * @return result
+   * @throws BaseXException database exception
+   */
+  private static String query(final String query) throws BaseXException {
+    return new XQuery(query).execute(context);
+  }
+
+  /**
+   * Checks if the specified query is evaluated via an index.
+   * @param query query
+   * @return result of check
+   * @throws BaseXException database exception
+   */
+  private static boolean index(final String query) throws BaseXException {
+    new Set(Prop.QUERYINFO, true).execute(context);
+    final XQuery xq = new XQuery(query);
+    xq.execute(context);
+    new Set(Prop.QUERYINFO, false).execute(context);
+    return xq.info().contains("index");
+  }
+}
@@ -0,0 +1,137 @@
+package org.basex.test.index;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.IndexToken.IndexType;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * This class tests the lazy iterators of the value indexes.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexIteratorTest extends SandboxTest {
+  /** Number of nodes. */
+  private static final int NODES = 20000;
+  /** String ranges to be tested. */
+  private static final String[][] RANGES = {
+    { "a", "z" }, { "k0", "k1" }, { "k10", "k15" }, { "k3", "k3" },
+    { "u0", "u1" }, { "u100", "u999" }, { "a", "c" }
+  };
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Compares index results with the results of a full scan.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void values() throws BaseXException {
+    create();
+    check();
+  }
+
+  /**
+   * Compares results of the updatable index with the results of a full scan.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void updatable() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    create();
+    new XQuery("for $a in //a[position() mod 7 = 0] return " +
+      "(delete node $a, insert node <a>k1</a> before /x/a[1])").execute(context);
+    check();
+  }
+
+  /**
+   * Consumes the first results of a large id list.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void first() throws BaseXException {
+    create();
+    final Data data = context.data();
+    final IndexIterator ii = data.iter(new ValuesToken(IndexType.TEXT, token("c")));
+    assertEquals(NODES / 2, ii.size());
+    int last = 0;
+    for(int i = 0; i < 10; i++) {
+      assertTrue(ii.more());
+      final int pre = ii.next();
+      assertTrue(pre > last);
+      assertEquals("c", string(data.text(pre, true)));
+      last = pre;
+    }
+    // concurrent access to the same index
+    assertEquals(NODES / 2, data.count(new ValuesToken(IndexType.TEXT, token("c"))));
+    assertTrue(ii.more());
+    assertEquals("c", string(data.text(ii.next(), true)));
+
+    assertEquals("<a>c</a>", new XQuery("(//a[text() = 'c'])[1]").execute(context));
+    assertEquals("true", new XQuery("exists(//a[text() = 'c'])").execute(context));
+    assertEquals("c", new XQuery(
+        "(//a[text() contains text 'c'])[1]/text()").execute(context));
+    assertEquals(Integer.toString(NODES / 2),
+        new XQuery("count(//a[text() contains text 'c'])").execute(context));
+  }
+
+  /**
+   * Creates a database with frequent and unique values.
+   * @throws BaseXException database exception
+   */
+  private void create() throws BaseXException {
+    new Set(Prop.FTINDEX, true).execute(context);
+    final TokenBuilder tb = new TokenBuilder("<x>");
+    for(int i = 0; i < NODES; i++) {
+      // frequent values, values with a few ids and unique values
+      final String v = i % 2 == 0 ? "c" : i % 3 == 0 ? "k" + i % 50 : "u" + i;
+      tb.add("<a>" + v + "</a>");
+    }
+    new CreateDB(NAME, tb.add("</x>").toString()).execute(context);
+    new Set(Prop.FTINDEX, false).execute(context);
+  }
+
+  /**
+   * Compares all ranges with the results of a full scan.
+   */
+  private void check() {
+    final Data data = context.data();
+    for(final String[] r : RANGES) {
+      for(final boolean in : new boolean[] { true, false }) {
+        final byte[] min = token(r[0]), max = token(r[1]);
+        final StringRange sr = new StringRange(IndexType.TEXT, min, in, max, in);
+        final IntList exp = new IntList();
+        for(int p = 0; p < data.meta.size; p++) {
+          if(data.kind(p) != Data.TEXT) continue;
+          final byte[] t = data.text(p, true);
+          final int mn = diff(t, min), mx = diff(t, max);
+          if((in ? mn >= 0 : mn > 0) && (in ? mx <= 0 : mx < 0)) exp.add(p);
+        }
+        final IntList res = new IntList();
+        final IndexIterator ii = data.iter(sr);
+        final int size = ii.size();
+        while(ii.more()) res.add(ii.next());
+        final String msg = r[0] + " - " + r[1] + ", " + in;
+        assertArrayEquals(msg, exp.toArray(), res.toArray());
+        assertEquals(msg, exp.size(), size);
+      }
+    }
+  }
+}
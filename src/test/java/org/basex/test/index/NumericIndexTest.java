@@ -0,0 +1,158 @@
+package org.basex.test.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.IndexToken.IndexType;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * This class tests the numeric keys of the value indexes.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericIndexTest extends SandboxTest {
+  /** Ranges to be tested. */
+  private static final double[][] RANGES = {
+    { 1, 1 }, { 0, 10 }, { -5, 5 }, { 2.5, 99 }, { 900, 2000 },
+    { Double.NEGATIVE_INFINITY, 0 }, { 10, Double.POSITIVE_INFINITY },
+    { 5000, 6000 }, { -1e10, 1e10 }
+  };
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Compares range results of the index with the results of a full scan.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void ranges() throws BaseXException {
+    create();
+    assertTrue(context.data().meta.dbfile("txtn").exists());
+    assertTrue(context.data().meta.dbfile("atvn").exists());
+    check();
+  }
+
+  /**
+   * Compares range results of updatable indexes.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void updates() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    create();
+    check();
+    // numeric keys are updated when the index is flushed
+    new XQuery("insert node <a n='7'>7</a> into /x," +
+      "delete node /x/a[1]").execute(context);
+    assertTrue(context.data().meta.dbfile("txtn").exists());
+    check();
+    new XQuery("replace value of node /x/a[2] with '1234'," +
+      "replace value of node /x/a[3]/@n with 'abc'," +
+      "replace value of node /x/a[8]/@n with '-17'").execute(context);
+    check();
+    // ...and rebuilt by optimizations
+    new OptimizeAll().execute(context);
+    assertTrue(context.data().meta.dbfile("txtn").exists());
+    check();
+  }
+
+  /**
+   * Checks that numeric keys are created and deleted by updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void add() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    new CreateDB(NAME, "<x><a n='a'>a</a></x>").execute(context);
+    assertFalse(context.data().meta.dbfile("txtn").exists());
+    new XQuery("insert node (for $i in 1 to 100 " +
+      "return <a n='{ $i }'>{ $i }</a>) into /x").execute(context);
+    assertTrue(context.data().meta.dbfile("txtn").exists());
+    check();
+    new XQuery("delete node //a[@n castable as xs:double]").execute(context);
+    assertFalse(context.data().meta.dbfile("txtn").exists());
+    check();
+  }
+
+  /**
+   * Checks if range queries use the numeric keys.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void query() throws BaseXException {
+    new CreateDB(NAME, "<x/>").execute(context);
+    new XQuery("insert node (for $i in 1 to 1000 " +
+      "return <a n='{ $i }'>{ $i }</a>) into /x").execute(context);
+    new Optimize().execute(context);
+    final String q = "count(//a[text() >= 100 and text() <= 199])," +
+        "count(//a[@n > 990]), count(//a[text() >= 2000 and text() <= 3000])";
+    assertEquals("100 10 0", new XQuery(q).execute(context));
+    new Set(Prop.QUERYINFO, true).execute(context);
+    final XQuery xq = new XQuery("//a[text() >= 100 and text() <= 199]");
+    xq.execute(context);
+    new Set(Prop.QUERYINFO, false).execute(context);
+    final String plan = xq.info();
+    assertTrue(plan, plan.contains("text-range"));
+    assertEquals(100, context.data().count(
+        new NumericRange(IndexType.TEXT, 100, 199)));
+  }
+
+  /**
+   * Creates a database with numeric and non-numeric values.
+   * @throws BaseXException database exception
+   */
+  private void create() throws BaseXException {
+    final TokenBuilder tb = new TokenBuilder("<x>");
+    final String[] vals = { "1", "01", " 1.0 ", "-3", "-3.5", "2.5", "1e3",
+      "abc", "", "0", "-0", "1e400", "99", "100", "12a", "4", "-9999" };
+    for(int i = 0; i < 200; i++) {
+      final String v = i < vals.length ? vals[i] : Integer.toString(i * 37 % 1500);
+      tb.add("<a n='" + v + "'>" + v + "</a>");
+    }
+    new CreateDB(NAME, tb.add("</x>").toString()).execute(context);
+  }
+
+  /**
+   * Compares all ranges with the results of a full scan.
+   */
+  private void check() {
+    final Data data = context.data();
+    for(final double[] r : RANGES) {
+      for(final boolean text : new boolean[] { true, false }) {
+        final NumericRange nr = new NumericRange(
+            text ? IndexType.TEXT : IndexType.ATTRIBUTE, r[0], r[1]);
+        final IntList exp = new IntList();
+        final int kind = text ? Data.TEXT : Data.ATTR;
+        for(int p = 0; p < data.meta.size; p++) {
+          if(data.kind(p) != kind) continue;
+          final double d = data.textDbl(p, text);
+          if(d >= r[0] && d <= r[1]) exp.add(p);
+        }
+        final IntList res = new IntList();
+        final IndexIterator ii = data.iter(nr);
+        while(ii.more()) res.add(ii.next());
+        final String msg = r[0] + " - " + r[1];
+        assertArrayEquals(msg, exp.toArray(), res.toArray());
+        if(data.meta.dbfile(text ? "txtn" : "atvn").exists()) {
+          assertEquals(msg, exp.size(), data.count(nr));
+        }
+      }
+    }
+  }
+}
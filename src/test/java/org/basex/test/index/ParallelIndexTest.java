@@ -0,0 +1,166 @@
+package org.basex.test.index;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.Arrays;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.io.in.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the parallel construction of index structures.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelIndexTest extends SandboxTest {
+  /** Name of the database with indexes that have been built in parallel. */
+  private static final String PARALLEL = NAME + "parallel";
+  /** Test document. */
+  private static String doc;
+
+  /** Creates the test document. */
+  @BeforeClass
+  public static void init() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 100000; i++) {
+      sb.append("<a n='").append(i % 1000).append("'>").append(i % 777);
+      sb.append(" text ").append(i % 13).append("</a>");
+    }
+    doc = sb.append("</x>").toString();
+  }
+
+  /**
+   * Drops the test databases.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new DropDB(PARALLEL).execute(context);
+    new Set(Prop.INDEXTHREADS, 0).execute(context);
+    new Set(Prop.FTINDEX, false).execute(context);
+  }
+
+  /**
+   * Creates databases with and without parallel index construction and
+   * compares the index files.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void create() throws IOException {
+    new Set(Prop.FTINDEX, true).execute(context);
+    create(NAME, 1);
+    create(PARALLEL, 4);
+    compare();
+    query();
+  }
+
+  /**
+   * Rebuilds the indexes in parallel and compares the index files.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void optimize() throws IOException {
+    create(NAME, 1);
+    create(PARALLEL, 1);
+    for(final String db : new String[] { NAME, PARALLEL }) {
+      new Open(db).execute(context);
+      new Set(Prop.INDEXTHREADS, db.equals(NAME) ? 1 : 4).execute(context);
+      new XQuery("insert node <a n='1'>1 text 1</a> into /x").execute(context);
+      new Set(Prop.FTINDEX, true).execute(context);
+      new CreateIndex(Commands.CmdIndex.FULLTEXT).execute(context);
+      new OptimizeAll().execute(context);
+    }
+    compare();
+    query();
+  }
+
+  /**
+   * Builds the indexes in parallel in a separate virtual machine with a small
+   * heap, in which all workers need to write their index trees to disk
+   * several times, and compares the index files.
+   * @throws Exception exception
+   */
+  @Test
+  public void smallHeap() throws Exception {
+    final IOFile file = new IOFile(sandbox(), NAME + IO.XMLSUFFIX);
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 400000; i++) {
+      sb.append("<a n='").append(i).append("'>").append(i).append(" text</a>");
+    }
+    file.write(Token.token(sb.append("</x>").toString()));
+
+    final Process pr = new ProcessBuilder("java", "-Xmx64m",
+        "-D" + Prop.PATH + '=' + sandbox().path(),
+        "-cp", System.getProperty("java.class.path"), BaseX.class.getName(),
+        "-c", "set dbpath " + context.mprop.dbpath().path(),
+        "-c", "set indexthreads 4",
+        "-c", "create db " + PARALLEL + ' ' + file.path()).
+        redirectErrorStream(true).start();
+    final String out = Token.string(new BufferInput(pr.getInputStream()).content());
+    assertEquals(out, 0, pr.waitFor());
+
+    new Set(Prop.INDEXTHREADS, 1).execute(context);
+    new CreateDB(NAME, file.path()).execute(context);
+    compare();
+    new Open(PARALLEL).execute(context);
+    assertEquals("1", new XQuery("count(//a[text() = '123456 text'])").execute(context));
+    assertEquals("1", new XQuery("count(//a[@n = '399999'])").execute(context));
+  }
+
+  /**
+   * Creates a database.
+   * @param db name of database
+   * @param threads number of threads
+   * @throws BaseXException database exception
+   */
+  private static void create(final String db, final int threads)
+      throws BaseXException {
+    new Set(Prop.INDEXTHREADS, threads).execute(context);
+    new CreateDB(db, doc).execute(context);
+  }
+
+  /**
+   * Compares the index files of both databases.
+   * @throws IOException I/O exception
+   */
+  private static void compare() throws IOException {
+    new Close().execute(context);
+    final IOFile dir = context.mprop.dbpath(NAME);
+    final IOFile par = context.mprop.dbpath(PARALLEL);
+    int c = 0;
+    for(final IOFile f : dir.children()) {
+      final String n = f.name();
+      if(!n.matches("(txt|atv)[lrn]\\..*|ftx.*")) continue;
+      assertTrue(n, Arrays.equals(f.read(), new IOFile(par, n).read()));
+      ++c;
+    }
+    assertTrue(c > 4);
+  }
+
+  /**
+   * Compares query results of both databases.
+   * @throws BaseXException database exception
+   */
+  private static void query() throws BaseXException {
+    final String[] queries = {
+      "count(//a[text() = '12 text 12'])", "count(//a[@n = '999'])",
+      "count(//a[text() contains text '776'])"
+    };
+    for(final String q : queries) {
+      new Open(NAME).execute(context);
+      final String exp = new XQuery(q).execute(context);
+      assertTrue(q, Integer.parseInt(exp) > 0);
+      new Open(PARALLEL).execute(context);
+      assertEquals(q, exp, new XQuery(q).execute(context));
+    }
+  }
+}
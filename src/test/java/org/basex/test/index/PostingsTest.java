@@ -0,0 +1,140 @@
+package org.basex.test.index;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.IndexToken.IndexType;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+import org.junit.*;
+
+/**
+ * This class tests the packed id lists of the value indexes.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class PostingsTest extends SandboxTest {
+  /** Number of nodes. */
+  private static final int NODES = 5000;
+  /** Tested keys. */
+  private static final String[] KEYS = { "a", "b", "c", "d", "x1", "x4999" };
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Compares the ids of packed lists with the results of a full scan.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void packed() throws BaseXException {
+    create();
+    assertTrue(context.data().meta.textpacked);
+    check();
+    // flags are persistent
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertTrue(context.data().meta.textpacked);
+    assertTrue(context.data().meta.attrpacked);
+    check();
+    assertEquals("1", new XQuery("count(//e[@x = 'x4999'])").execute(context));
+  }
+
+  /**
+   * Checks that lists of updatable indexes are not packed.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void updatable() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    create();
+    assertFalse(context.data().meta.textpacked);
+    check();
+  }
+
+  /**
+   * Creates a database with lists of different lengths.
+   * @throws BaseXException database exception
+   */
+  private static void create() throws BaseXException {
+    final TokenBuilder tb = new TokenBuilder("<x>");
+    for(int i = 0; i < NODES; i++) {
+      // long, short and single-id lists, with small and large gaps
+      final String v = i % 2 == 0 ? "a" : i % 97 == 1 ? "b" : i < 300 ? "c" :
+        i % 1000 == 3 ? "d" : "e" + i % 20;
+      tb.add("<e x='x" + i + "'>" + v + "</e>");
+    }
+    new CreateDB(NAME, tb.add("</x>").toString()).execute(context);
+  }
+
+  /**
+   * Compares the results of all keys with the results of a full scan.
+   */
+  private static void check() {
+    final Data data = context.data();
+    for(final String k : KEYS) {
+      final IndexIterator ii = data.iter(new ValuesToken(type(k), token(k)));
+      final IntList res = new IntList();
+      while(ii.more()) res.add(ii.next());
+      assertArrayEquals(k, scan(k), res.toArray());
+    }
+    final IndexIterator ii = data.iter(new StringRange(IndexType.TEXT,
+        token("a"), true, token("d"), true));
+    final IntList res = new IntList();
+    while(ii.more()) res.add(ii.next());
+    assertEquals(NODES - count("e"), res.size());
+  }
+
+  /**
+   * Returns the index type of the specified value.
+   * @param k value
+   * @return index type
+   */
+  private static IndexType type(final String k) {
+    return k.startsWith("x") ? IndexType.ATTRIBUTE : IndexType.TEXT;
+  }
+
+  /**
+   * Returns the pre values of all text or attribute nodes with the specified
+   * value.
+   * @param k value
+   * @return pre values
+   */
+  private static int[] scan(final String k) {
+    final Data data = context.data();
+    final int kind = k.startsWith("x") ? Data.ATTR : Data.TEXT;
+    final IntList il = new IntList();
+    for(int p = 0; p < data.meta.size; p++) {
+      if(data.kind(p) == kind && eq(data.text(p, kind == Data.TEXT), token(k)))
+        il.add(p);
+    }
+    return il.toArray();
+  }
+
+  /**
+   * Counts the text nodes starting with the specified prefix.
+   * @param k prefix
+   * @return count
+   */
+  private static int count(final String k) {
+    final Data data = context.data();
+    int c = 0;
+    for(int p = 0; p < data.meta.size; p++) {
+      if(data.kind(p) == Data.TEXT && startsWith(data.text(p, true), token(k))) c++;
+    }
+    return c;
+  }
+}
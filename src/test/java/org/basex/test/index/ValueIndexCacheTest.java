@@ -0,0 +1,72 @@
+package org.basex.test.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests the caching of value index results, which may change
+ * after updates.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ValueIndexCacheTest extends SandboxTest {
+  /** Index query. */
+  private static final String QUERY =
+      "db:text('" + NAME + "', 'x')/../@n/string()";
+
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new Set(Prop.UPDINDEX, false).execute(context);
+  }
+
+  /**
+   * Repeatedly requests index results, using a static index.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void read() throws BaseXException {
+    new CreateDB(NAME, "<x><a n='1'>x</a><a n='2'>y</a><a n='3'>x</a></x>").
+      execute(context);
+    for(int i = 0; i < 10; i++) assertEquals("1 3", eval());
+  }
+
+  /**
+   * Repeatedly requests index results, using an updatable index. The pre
+   * values of the results change after updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void update() throws BaseXException {
+    new Set(Prop.UPDINDEX, true).execute(context);
+    new CreateDB(NAME, "<x><a n='1'>x</a><a n='2'>y</a><a n='3'>x</a></x>").
+      execute(context);
+    for(int i = 0; i < 10; i++) assertEquals("1 3", eval());
+    new XQuery("insert node <a n='0'>x</a> as first into /x").execute(context);
+    for(int i = 0; i < 10; i++) assertEquals("0 1 3", eval());
+    new XQuery("delete node /x/a[@n = '1']").execute(context);
+    for(int i = 0; i < 10; i++) assertEquals("0 3", eval());
+    new XQuery("insert node <b>text</b> as first into /x").execute(context);
+    for(int i = 0; i < 10; i++) assertEquals("0 3", eval());
+    assertTrue(new InfoIndex(Commands.CmdIndexInfo.TEXT).execute(context).contains(
+        Text.LI_CACHE));
+  }
+
+  /**
+   * Evaluates the index query.
+   * @return result
+   * @throws BaseXException database exception
+   */
+  private static String eval() throws BaseXException {
+    return new XQuery(QUERY).execute(context).replace(Prop.NL, " ");
+  }
+}
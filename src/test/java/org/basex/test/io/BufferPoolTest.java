@@ -0,0 +1,188 @@
+package org.basex.test.io;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link BufferPool}.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class BufferPoolTest {
+  /** Number of frequently accessed blocks. */
+  private static final int HOT = 10;
+  /** Buffer pool. */
+  private static final BufferPool POOL = BufferPool.get();
+  /** Temporary file. */
+  private IOFile file;
+  /** File access. */
+  private DataAccess da;
+
+  /**
+   * Set up method.
+   * @throws IOException I/O exception
+   */
+  @Before
+  public void setUp() throws IOException {
+    POOL.size(1);
+    file = new IOFile(File.createTempFile("pool", ".basex"));
+    da = new DataAccess(file);
+  }
+
+  /**
+   * Clean up method.
+   */
+  @After
+  public void cleanUp() {
+    da.close();
+    file.delete();
+    POOL.size((Integer) MainProp.BUFFERSIZE[1]);
+  }
+
+  /**
+   * Checks that written blocks can be read again after they have been replaced.
+   */
+  @Test
+  public void replace() {
+    final int blocks = blocks() * 4;
+    for(int b = 0; b < blocks; b++) da.write4(pos(b), b);
+    for(int b = 0; b < blocks; b++) assertEquals(b, da.read4(pos(b)));
+    assertTrue(POOL.size() <= POOL.max());
+  }
+
+  /**
+   * Checks that frequently accessed blocks are not replaced by a sequential scan.
+   */
+  @Test
+  public void scan() {
+    final int blocks = blocks();
+    // access hot blocks; replace them by a first scan; access them again
+    read(0, HOT);
+    read(HOT, blocks + HOT);
+    read(0, HOT);
+
+    // second scan: hot blocks must remain in the pool
+    final long ev = POOL.evictions();
+    read(HOT + blocks, HOT + blocks * 3);
+    assertTrue(POOL.evictions() > ev);
+    final long hits = POOL.hits(), misses = POOL.misses();
+    read(0, HOT);
+    assertEquals(hits + HOT, POOL.hits());
+    assertEquals(misses, POOL.misses());
+  }
+
+  /**
+   * Checks that blocks of several files remain consistent if they are
+   * concurrently read, written and replaced.
+   * @throws Exception exception
+   */
+  @Test
+  public void concurrent() throws Exception {
+    final int blocks = blocks() * 2, pinned = POOL.pinned();
+    final Thread[] threads = new Thread[4];
+    final IOFile[] files = new IOFile[threads.length];
+    final Throwable[] error = new Throwable[1];
+    for(int t = 0; t < threads.length; t++) {
+      files[t] = new IOFile(File.createTempFile("pool", ".basex"));
+      final DataAccess access = new DataAccess(files[t]);
+      final int id = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for(int b = 0; b < blocks; b++) access.write4(pos(b), id + b);
+            for(int r = 0; r < 3; r++) {
+              for(int b = 0; b < blocks; b++) assertEquals(id + b, access.read4(pos(b)));
+            }
+          } catch(final Throwable ex) {
+            synchronized(error) { error[0] = ex; }
+          } finally {
+            access.close();
+          }
+        }
+      };
+    }
+    for(final Thread th : threads) th.start();
+    for(final Thread th : threads) th.join();
+    for(final IOFile f : files) f.delete();
+    if(error[0] != null) throw new AssertionError(error[0]);
+    assertEquals(pinned, POOL.pinned());
+  }
+
+  /**
+   * Checks that the blocks of closed files are not returned for files that
+   * are opened later on.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void reopen() throws IOException {
+    final IOFile f = new IOFile(File.createTempFile("pool", ".basex"));
+    try {
+      for(int i = 1; i <= 3; i++) {
+        final DataAccess access = new DataAccess(f);
+        for(int b = 0; b < HOT; b++) assertEquals(i - 1, access.read4(pos(b)));
+        for(int b = 0; b < HOT; b++) access.write4(pos(b), i);
+        access.close();
+        // the id of the closed file is reassigned to the next file
+        final DataAccess other = new DataAccess(file);
+        for(int b = 0; b < HOT; b++) assertEquals(0, other.read4(pos(b)));
+        other.close();
+      }
+    } finally {
+      f.delete();
+    }
+  }
+
+  /**
+   * Checks that I/O errors are not swallowed when a block is read.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void error() throws IOException {
+    final IOFile f = new IOFile(File.createTempFile("pool", ".basex"));
+    final DataAccess access = new DataAccess(f);
+    access.write4(pos(blocks()), 1);
+    access.close();
+    try {
+      access.read1(0);
+      fail("I/O error expected.");
+    } catch(final RuntimeException ex) {
+      // expected: the file has been closed
+    } finally {
+      f.delete();
+    }
+  }
+
+  /**
+   * Reads the specified blocks.
+   * @param s first block
+   * @param e last block (exclusive)
+   */
+  private void read(final int s, final int e) {
+    for(int b = s; b < e; b++) da.read1(pos(b));
+  }
+
+  /**
+   * Returns the maximum number of blocks in the pool.
+   * @return number of blocks
+   */
+  private static int blocks() {
+    return (int) (POOL.max() >>> IO.BLOCKPOWER);
+  }
+
+  /**
+   * Returns the file offset of the specified block.
+   * @param b block
+   * @return offset
+   */
+  private static long pos(final int b) {
+    return (long) b << IO.BLOCKPOWER;
+  }
+}
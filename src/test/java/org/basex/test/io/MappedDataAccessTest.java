@@ -0,0 +1,48 @@
+package org.basex.test.io;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.io.random.*;
+import org.junit.*;
+
+/**
+ * Tests for class {@link DataAccess}, using a memory-mapped file.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class MappedDataAccessTest extends DataAccessTest {
+  @Override
+  @Before
+  public void setUp() throws IOException {
+    super.setUp();
+    da.close();
+    da = new DataAccess(file, true);
+  }
+
+  /**
+   * Checks that the mapping is kept when the file is flushed, and that the file
+   * is truncated to its logical length when it is closed.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void truncate() throws IOException {
+    final long len = da.length();
+    final int v = da.read4(0);
+    da.write4(len, v);
+    da.flush();
+    assertEquals(len + 4, da.length());
+    assertTrue(file.length() >= len + 4);
+    assertEquals(v, da.read4(len));
+    da.write4(len + 4, v);
+    da.flush();
+    assertEquals(v, da.read4(0));
+    da.close();
+    assertEquals(len + 8, file.length());
+    da = new DataAccess(file, true);
+    assertEquals(len + 8, da.length());
+    assertEquals(v, da.read4(len + 4));
+  }
+}
@@ -165,6 +165,23 @@ public final class IndexOptimizeTest extends SandboxTest {
         "//text()[. contains text { $x }] }; local:x('1')", "1");
   }
 
+  /**
+   * Checks if several predicates of a step are answered by the index.
+   * @throws Exception unexpected exception
+   */
+  @Test
+  public void multiTest() throws Exception {
+    new CreateDB(NAME, "<xml><a x='y' n='1'>1 2</a><a x='y' n='2'>2 3</a>" +
+        "<a x='z' n='1'>2 3</a><a x='y'>4</a></xml>").execute(context);
+    check("data(//a[@x = 'y'][text() = '2 3'])", "2 3", 2);
+    check("data(//a[@x = 'y'][@n = '1'])", "1 2", 2);
+    check("data(//a[@x = 'y'][text() contains text '2'][@n = '2'])", "2 3", 3);
+    check("//a[@x = 'z'][text() = '1 2']", "", 2);
+    check("data(//a[text() = '2 3'][@x = 'y' or @x = 'z'])", "2 3 2 3", 3);
+    // predicates that cannot be answered by the index are filtered
+    check("data(//a[@x = 'y'][@n != '1'][text() = '2 3'])", "2 3", 2);
+  }
+
   /**
    * Creates a test database.
    * @throws Exception exception
@@ -201,6 +218,19 @@ public final class IndexOptimizeTest extends SandboxTest {
    * @param result expected query result
    */
   private static void check(final String query, final String result) {
+    check(query, result, 0);
+  }
+
+  /**
+   * Checks if specified query was rewritten for index access, and checks the
+   * query result.
+   * @param query query to be tested
+   * @param result expected query result
+   * @param count expected number of index accesses, or {@code 0} if at least
+   * one index access is expected
+   */
+  private static void check(final String query, final String result,
+      final int count) {
     // compile query
     ArrayOutput plan = null;
     QueryProcessor qp = new QueryProcessor(query, context);
@@ -217,15 +247,17 @@ public final class IndexOptimizeTest extends SandboxTest {
       plan = new ArrayOutput();
       qp.plan(Serializer.get(plan));
 
-      qp = new QueryProcessor(plan + "/descendant-or-self::*" +
-          "[self::ValueAccess|self::FTIndexAccess]", context);
+      qp = new QueryProcessor("count(" + plan + "/descendant-or-self::*" +
+          "[self::ValueAccess|self::FTIndexAccess])", context);
       ao = new ArrayOutput();
       ser = qp.getSerializer(ao);
       qp.execute().serialize(ser);
 
       // check if IndexAccess is used
-      assertTrue("No index used:\nQuery: " + query + "\nInfo: " + info +
-          "\nPlan: " + plan, !ao.toString().isEmpty());
+      final int c = Integer.parseInt(ao.toString());
+      final String msg = "\nQuery: " + query + "\nInfo: " + info + "\nPlan: " + plan;
+      if(count == 0) assertTrue("No index used:" + msg, c != 0);
+      else assertEquals("Index accesses:" + msg, count, c);
     } catch(final QueryException ex) {
       fail(Util.message(ex) + "\nQuery: " + query + "\nPlan: " + plan);
     } catch(final IOException ex) {
@@ -298,6 +298,27 @@ public final class FNDbTest extends AdvancedQueryTest {
         COLLECTION.args('"' + NAME + "/doc\" || $i")), 3);
   }
 
+  /**
+   * Test method for the db:add() function, adding string and node inputs
+   * in a single query.
+   */
+  @Test
+  public void dbAddBatch() {
+    query(_DB_ADD.args(NAME, "\"<a/>\"", "batch/t1.xml") + ", " +
+        _DB_ADD.args(NAME, "\"<b/>\"", "batch/t2.xml") + ", " +
+        _DB_ADD.args(NAME, " document { <c/> }", "batch/t3.xml") + ", " +
+        _DB_ADD.args(NAME, FILE, "batch/t4.xml") + ", " +
+        _DB_ADD.args(NAME, "\"<d/>\"", "batch/t5.xml"));
+    query(COLLECTION.args(NAME + "/batch") + "/*/name()", "a b c html d");
+    query(_DB_LIST.args(NAME, "batch"), "batch/t1.xml batch/t2.xml " +
+        "batch/t3.xml batch/t4.xml batch/t5.xml");
+
+    // invalid inputs are rejected before the database is updated
+    error(_DB_ADD.args(NAME, "\"<e/>\"", "batch/t6.xml") + ", " +
+        _DB_ADD.args(NAME, "\"unknown.xml\"", "batch/t7.xml"), Err.RESFNF);
+    query(COUNT.args(COLLECTION.args(NAME + "/batch")), 5);
+  }
+
   /**
    * Test method for the db:add() function with document with namespaces.
    */
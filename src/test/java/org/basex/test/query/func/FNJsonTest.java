@@ -52,6 +52,34 @@ public final class FNJsonTest extends AdvancedQueryTest {
     { "{ \"\" : 0.1e }" },
     { "{ \"a\" : 0, }" },
     { "{ \"a\" : 0 }}" },
+    { "[ , 1 ]" },
+    { "[ 1, ]" },
+    { "[ \"\\uD834\\uDD1E\" ]", "...<value>\uD834\uDD1E</value>" },
+    { "{ \"a\" : 1, \"b\" : { \"a\" : \"x\" } }",
+      "<json objects=\"json b\"><a type=\"number\">1</a><b><a>x</a></b></json>" },
+    { "{ \"a\" : \"x\", \"b\" : [ 1, null, { \"a\" : true } ] }",
+      "<json arrays=\"b\" objects=\"json\"><a>x</a><b><value type=\"number\">1</value>" +
+      "<value type=\"null\"/><value type=\"object\"><a type=\"boolean\">true</a>" +
+      "</value></b></json>" },
+    { "{ \"json\" : [] }",
+      "<json type=\"object\"><json type=\"array\"/></json>" },
+  };
+
+  /** JsonML snippets. */
+  private static final String[][] TOML = {
+    { "{}" },
+    { "[]" },
+    { "[1]" },
+    { "[\"a b\"]" },
+    { "[\"a\", \"t\", \"u\"]" },
+    { "[\"a\", \"t\", {}]" },
+    { "[\"a\", { \"b\" : 1 }]" },
+    { "[\"a\", { \"b\" : [] }]" },
+    { "[\"a\"" },
+    { "[\"a\"]", "<a/>" },
+    { "[\"a\", {}]", "<a/>" },
+    { "[\"a\", { \"b\" : \"c\" }, \"t\", [\"d\", \"u\"], \"v\"]",
+      "<a b=\"c\">t<d>u</d>v</a>" },
   };
 
   /** XML snippets. */
@@ -92,6 +120,22 @@ public final class FNJsonTest extends AdvancedQueryTest {
     }
   }
 
+  /**
+   * Test method for the json:parse-ml() function.
+   */
+  @Test
+  public void jsonParseML() {
+    check(_JSON_PARSE_ML);
+    for(final String[] f : TOML) {
+      final String qu = _JSON_PARSE_ML.args(f[0]);
+      if(f.length == 1) {
+        error(qu, Err.JSONMLPARSE, Err.JSONPARSE);
+      } else {
+        query(qu, f[1]);
+      }
+    }
+  }
+
   /**
    * Test method for the json:serialize() function.
    */
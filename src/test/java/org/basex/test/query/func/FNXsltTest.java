@@ -1,8 +1,13 @@
 package org.basex.test.query.func;
 
 import static org.basex.query.func.Function.*;
+import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
 import org.basex.query.func.*;
 import org.basex.test.query.*;
 import org.junit.*;
@@ -50,6 +55,43 @@ public final class FNXsltTest extends AdvancedQueryTest {
     query(_UTIL_TRANSFORM.args(doc, style, param), "<X>1</X>");
   }
 
+  /**
+   * Test method for the xslt:transform() function, using namespaces
+   * and text output.
+   */
+  @Test
+  public void xsltTransformNS() {
+    final String doc = "<a xmlns='x'><p:b xmlns:p='p' p:c='1'>t</p:b></a>";
+    String style = wrap("<xsl:template match='/' xmlns:p='p'><X><xsl:copy-of select='//p:b'/>" +
+      "<xsl:value-of select='count(//@p:c)'/></X></xsl:template>");
+    query(_UTIL_TRANSFORM.args(doc, style),
+        "<X xmlns:p=\"p\"><p:b xmlns=\"x\" p:c=\"1\">t</p:b>1</X>");
+
+    style = wrap("<xsl:output method='text'/>" +
+      "<xsl:template match='/' xmlns:p='p'><xsl:value-of select='//p:b'/></xsl:template>");
+    query(_UTIL_TRANSFORM.args(doc, style) + "/text()", "t");
+  }
+
+  /**
+   * Test method for the xslt:transform() function, using a cached stylesheet
+   * that is updated.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void xsltTransformCache() throws IOException {
+    final IOFile file = new IOFile(Prop.TMP + NAME + ".xsl");
+    try {
+      final String query = _UTIL_TRANSFORM.args("<a/>", file.path());
+      file.write(token(wrap("<xsl:template match='/'><X/></xsl:template>")));
+      query(query, "<X/>");
+      query(query, "<X/>");
+      file.write(token(wrap("<xsl:template match='/'><YY/></xsl:template>")));
+      query(query, "<YY/>");
+    } finally {
+      file.delete();
+    }
+  }
+
   /**
    * Wraps the specified string with an XSLT header and footer.
    * @param content content string
@@ -46,6 +46,13 @@ public class JavaFuncTest extends AdvancedQueryTest {
         "rect:contains(rect:new(xs:int(2), xs:int(2)), xs:int(1), xs:int(1))", true);
   }
 
+  /** Tests calling overloaded Java methods with alternating argument types. */
+  @Test
+  public void overloaded() {
+    query("for $i in (xs:double(-1.5), xs:float(-2.5), xs:double(-3.5), " +
+        "xs:float(-4.5)) return Q{java:java.lang.Math}abs($i)", "1.5 2.5 3.5 4.5");
+  }
+
   /** Tests importing a Java class. */
   @Test
   public void importClass() {
@@ -0,0 +1,157 @@
+package org.basex.test.server;
+
+import static org.basex.core.Text.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.io.in.*;
+import org.basex.server.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class checks that idle client sessions and unauthenticated connections
+ * do not occupy server threads. The number of idle sessions can be raised to
+ * several thousands (note that both the server and the client sockets will be
+ * opened in this process).
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class ConnectionTest extends SandboxTest {
+  /** Number of idle sessions. */
+  private static final int IDLE = 1000;
+  /** Number of active sessions. */
+  private static final int ACTIVE = 8;
+  /** Number of queries per active session. */
+  private static final int RUNS = 50;
+  /** Server reference. */
+  private static BaseXServer server;
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void start() throws IOException {
+    server = createServer();
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterClass
+  public static void stop() throws IOException {
+    server.stop();
+  }
+
+  /**
+   * Opens idle sessions and runs queries with active sessions.
+   * @throws Exception exception
+   */
+  @Test
+  public void idleAndActive() throws Exception {
+    final int threads = Thread.activeCount();
+    final ArrayList<ClientSession> idle = new ArrayList<ClientSession>();
+    try {
+      for(int i = 0; i < IDLE; i++) idle.add(createClient());
+
+      // idle sessions must not be bound to threads
+      final int workers = server.context.mprop.num(MainProp.WORKERS);
+      assertTrue(Thread.activeCount() - threads <= workers + 2);
+
+      final ExecutorService active = Executors.newFixedThreadPool(ACTIVE);
+      final ArrayList<Future<Integer>> results = new ArrayList<Future<Integer>>();
+      for(int a = 0; a < ACTIVE; a++) {
+        results.add(active.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws IOException {
+            final ClientSession cs = createClient();
+            try {
+              int sum = 0;
+              for(int r = 0; r < RUNS; r++) {
+                sum += Integer.parseInt(cs.execute("xquery sum(1 to " + r + ")"));
+              }
+              return sum;
+            } finally {
+              cs.close();
+            }
+          }
+        }));
+      }
+      for(final Future<Integer> f : results) assertEquals(20825, (int) f.get());
+      active.shutdown();
+
+      // idle sessions are still working
+      assertEquals("1", idle.get(0).execute("xquery 1"));
+      assertEquals("2", idle.get(IDLE - 1).execute("xquery 2"));
+    } finally {
+      for(final ClientSession cs : idle) cs.close();
+    }
+  }
+
+  /**
+   * Checks that connections without login data neither block the server
+   * nor remain open.
+   * @throws Exception exception
+   */
+  @Test
+  public void noLogin() throws Exception {
+    server.context.mprop.set(MainProp.CLIENTTIMEOUT, 1);
+    final int workers = server.context.mprop.num(MainProp.WORKERS);
+    final ArrayList<Socket> silent = new ArrayList<Socket>();
+    try {
+      for(int i = 0; i < workers * 2; i++) {
+        final Socket s = new Socket(LOCALHOST, server.context.mprop.num(MainProp.SERVERPORT));
+        // the server sends the timestamp before a worker is assigned
+        assertTrue(new BufferInput(s.getInputStream()).readString().length() > 0);
+        silent.add(s);
+      }
+      // the server still accepts new sessions
+      final ClientSession cs = createClient();
+      try {
+        assertEquals("1", cs.execute("xquery 1"));
+      } finally {
+        cs.close();
+      }
+      // silent connections are closed after the timeout
+      Performance.sleep(3000);
+      for(final Socket s : silent) {
+        s.setSoTimeout(1000);
+        assertEquals(-1, s.getInputStream().read());
+      }
+    } finally {
+      for(final Socket s : silent) s.close();
+      server.context.mprop.set(MainProp.CLIENTTIMEOUT, 30);
+    }
+  }
+
+  /**
+   * Checks that incomplete login data does not block a worker forever.
+   * @throws Exception exception
+   */
+  @Test
+  public void incompleteLogin() throws Exception {
+    server.context.mprop.set(MainProp.CLIENTTIMEOUT, 1);
+    final Socket s = new Socket(LOCALHOST, server.context.mprop.num(MainProp.SERVERPORT));
+    try {
+      new BufferInput(s.getInputStream()).readString();
+      // send user name, but no password
+      s.getOutputStream().write(new byte[] { 'a', 0 });
+      s.getOutputStream().flush();
+      s.setSoTimeout(5000);
+      assertEquals(-1, s.getInputStream().read());
+    } finally {
+      s.close();
+      server.context.mprop.set(MainProp.CLIENTTIMEOUT, 30);
+    }
+  }
+}
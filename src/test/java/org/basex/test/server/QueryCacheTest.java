@@ -0,0 +1,155 @@
+package org.basex.test.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.server.*;
+import org.basex.test.*;
+import org.junit.*;
+
+/**
+ * This class tests the cache for compiled queries of client sessions.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /** Server reference. */
+  private static BaseXServer server;
+  /** Client session. */
+  private ClientSession session;
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void start() throws IOException {
+    server = createServer();
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterClass
+  public static void stop() throws IOException {
+    server.stop();
+  }
+
+  /**
+   * Creates a client session and a database.
+   * @throws IOException I/O exception
+   */
+  @Before
+  public void before() throws IOException {
+    session = createClient();
+    session.execute(new CreateDB(NAME, "<x><a>1</a><a>2</a></x>"));
+    session.execute(new Close());
+  }
+
+  /**
+   * Drops the database and closes the client session.
+   * @throws IOException I/O exception
+   */
+  @After
+  public void after() throws IOException {
+    session.execute(new DropDB(NAME));
+    session.close();
+  }
+
+  /**
+   * Evaluates a query repeatedly.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void reuse() throws IOException {
+    final QueryCache qc = server.context.queries;
+    final long hits = qc.hits();
+    final String query = "sum(doc('" + NAME + "')//a)";
+    for(int i = 0; i < 10; i++) assertEquals("3", query(query));
+    assertEquals(hits + 9, qc.hits());
+  }
+
+  /**
+   * Evaluates a query with different bindings.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void bindings() throws IOException {
+    final String query = "declare variable $n external; " +
+        "doc('" + NAME + "')//a[$n]/text()";
+    for(int i = 0; i < 3; i++) {
+      for(int n = 1; n <= 2; n++) {
+        final ClientQuery cq = session.query(query);
+        cq.bind("n", Integer.toString(n), "xs:integer");
+        assertEquals(Integer.toString(n), cq.execute());
+        cq.close();
+      }
+    }
+  }
+
+  /**
+   * Checks that cached queries are invalidated by updates.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void update() throws IOException {
+    final String query = "count(collection('" + NAME + "')//a)";
+    assertEquals("2", query(query));
+    assertEquals("2", query(query));
+    session.execute(new Open(NAME));
+    session.execute(new Add("b.xml", "<a>3</a>"));
+    session.execute(new Close());
+    assertEquals("3", query(query));
+    session.query("for $a in collection('" + NAME + "')//a " +
+        "return replace value of node $a with 5").execute();
+    assertEquals("15", query("sum(collection('" + NAME + "')//a)"));
+  }
+
+  /**
+   * Checks that non-deterministic queries are not cached.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void nondeterministic() throws IOException {
+    final QueryCache qc = server.context.queries;
+    final long hits = qc.hits();
+    for(int i = 0; i < 3; i++) {
+      query("math:random()");
+      query("current-dateTime()");
+    }
+    assertEquals(hits, qc.hits());
+  }
+
+  /**
+   * Checks that cached queries do not prevent databases from being dropped.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void drop() throws IOException {
+    assertEquals("2", query("count(doc('" + NAME + "')//a)"));
+    session.execute(new DropDB(NAME));
+    session.execute(new CreateDB(NAME, "<x/>"));
+    session.execute(new Close());
+    assertEquals("0", query("count(doc('" + NAME + "')//a)"));
+  }
+
+  /**
+   * Evaluates the specified query.
+   * @param query query
+   * @return result
+   * @throws IOException I/O exception
+   */
+  private String query(final String query) throws IOException {
+    final ClientQuery cq = session.query(query);
+    try {
+      return cq.execute();
+    } finally {
+      cq.close();
+    }
+  }
+}
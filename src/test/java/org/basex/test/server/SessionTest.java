@@ -133,6 +133,27 @@ public abstract class SessionTest extends SandboxTest {
     check("10", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
   }
 
+  /**
+   * Adds a batch of documents to a database.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public final void addBatch() throws IOException {
+    session.execute("create db " + NAME);
+    final int n = 10;
+    final String[] paths = new String[n];
+    final InputStream[] inputs = new InputStream[n];
+    for(int i = 0; i < n; i++) {
+      paths[i] = "dir/doc" + i + ".xml";
+      inputs[i] = new ArrayInput("<X>" + i + "</X>");
+    }
+    session.add(paths, inputs);
+    check("10", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+    check("0 1 2 3 4 5 6 7 8 9", session.query("string-join(" +
+        _DB_OPEN.args(NAME, "dir") + ", ' ')").execute());
+    check("dir/doc9.xml", session.query("db:list('" + NAME + "')[last()]").execute());
+  }
+
   /**
    * Adds a file with an invalid file name.
    * @throws IOException I/O exception
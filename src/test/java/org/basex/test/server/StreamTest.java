@@ -0,0 +1,264 @@
+package org.basex.test.server;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.out.*;
+import org.basex.server.*;
+import org.basex.test.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the streaming of query results in batches.
+ *
+ * @author BaseX Team 2005-12, BSD License
+ * @author Christian Gruen
+ */
+public final class StreamTest extends SandboxTest {
+  /** Number of results for comparing streamed and iterative results. */
+  private static final int RESULTS = 200000;
+  /** Server reference. */
+  private static BaseXServer server;
+  /** Client session. */
+  private ClientSession session;
+
+  /**
+   * Starts the server.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void start() throws IOException {
+    server = createServer();
+  }
+
+  /**
+   * Stops the server.
+   * @throws IOException I/O exception
+   */
+  @AfterClass
+  public static void stop() throws IOException {
+    server.stop();
+  }
+
+  /**
+   * Creates a client session.
+   * @throws IOException I/O exception
+   */
+  @Before
+  public void before() throws IOException {
+    session = createClient();
+  }
+
+  /**
+   * Closes the client session.
+   * @throws IOException I/O exception
+   */
+  @After
+  public void after() throws IOException {
+    session.close();
+  }
+
+  /**
+   * Streams results with different batch sizes.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void stream() throws IOException {
+    for(final int size : new int[] { 1, 2, 3, 10, 100 }) {
+      final ClientQuery cq = session.query("for $i in 1 to 10 return <a>{ $i }</a>");
+      final ClientResults cr = cq.stream(size);
+      for(int i = 1; i <= 10; i++) {
+        assertTrue(cr.more());
+        assertEquals("<a>" + i + "</a>", cr.next());
+      }
+      assertFalse(cr.more());
+      assertNull(cr.next());
+      cq.close();
+    }
+  }
+
+  /**
+   * Stops a stream before all results have been retrieved.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void skip() throws IOException {
+    ClientQuery cq = session.query("1 to 1000000000");
+    ClientResults cr = cq.stream(10);
+    assertEquals("1", cr.next());
+    cr.close();
+    assertFalse(cr.more());
+    cq.close();
+
+    // the session can be reused while results are still pending
+    cq = session.query("1 to 1000000000");
+    cr = cq.stream(100);
+    assertEquals("1", cr.next());
+    assertEquals("6", session.execute("xquery 1 + 5"));
+    assertFalse(cr.more());
+    cq.close();
+  }
+
+  /**
+   * Checks that errors are raised after the results that have been streamed.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void error() throws IOException {
+    final ClientQuery cq = session.query("for $i in 1 to 3 return 1 div (2 - $i)");
+    final ClientResults cr = cq.stream(1);
+    assertEquals("1", cr.next());
+    try {
+      cr.more();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertFalse(cr.more());
+    }
+    assertEquals("1", session.execute("xquery 1"));
+  }
+
+  /**
+   * Checks that databases can be updated while the server is waiting for the
+   * next batch request, and that the stream is stopped afterwards.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void update() throws IOException {
+    session.execute(new CreateDB(NAME, "<a/>"));
+    final ClientQuery cq = session.query(
+        "for $i in 1 to 3 return " + COUNT.args(_DB_OPEN.args(NAME) + "//b"));
+    final ClientResults cr = cq.stream(1);
+    assertEquals("0", cr.next());
+
+    // the locks of the query have been released
+    final ClientSession cs = createClient();
+    try {
+      cs.execute("xquery insert node <b/> into " + _DB_OPEN.args(NAME) + "/a");
+    } finally {
+      cs.close();
+    }
+    try {
+      cr.more();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertFalse(cr.more());
+    }
+    cq.close();
+    session.execute(new DropDB(NAME));
+  }
+
+  /**
+   * Checks that streams are not stopped if other databases are updated.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void updateOther() throws IOException {
+    session.execute(new CreateDB(NAME + '2', "<a/>"));
+    session.execute(new CreateDB(NAME, "<a/>"));
+    final ClientQuery cq = session.query(
+        "for $i in 1 to 3 return " + COUNT.args(_DB_OPEN.args(NAME) + "//b"));
+    final ClientResults cr = cq.stream(1);
+    assertEquals("0", cr.next());
+
+    final ClientSession cs = createClient();
+    try {
+      cs.execute("xquery insert node <b/> into " + _DB_OPEN.args(NAME + '2') + "/a");
+    } finally {
+      cs.close();
+    }
+    assertEquals("0", cr.next());
+    assertEquals("0", cr.next());
+    assertFalse(cr.more());
+    cq.close();
+    session.execute(new DropDB(NAME + '2'));
+    session.execute(new DropDB(NAME));
+  }
+
+  /**
+   * Reads streamed results via an input stream.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void input() throws IOException {
+    final ClientQuery cq = session.query("for $i in 1 to 10 return <a>{ $i }</a>");
+    final ClientResults cr = cq.stream(3);
+    final ArrayOutput ao = new ArrayOutput();
+    final InputStream is = cr.input();
+    for(int b; (b = is.read()) != -1;) ao.write(b);
+    is.close();
+    final StringBuilder sb = new StringBuilder();
+    for(int i = 1; i <= 10; i++) sb.append("<a>").append(i).append("</a>");
+    assertEquals(sb.toString(), ao.toString());
+    cq.close();
+  }
+
+  /**
+   * Checks that a session is closed if the client does not request the next
+   * batch within the timeout.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void stalled() throws IOException {
+    server.context.mprop.set(MainProp.CLIENTTIMEOUT, 1);
+    try {
+      final ClientQuery cq = session.query("1 to 1000000000");
+      final ClientResults cr = cq.stream(10);
+      assertEquals("1", cr.next());
+      Performance.sleep(3000);
+      // remaining results of the current batch have been sent before
+      for(int i = 2; i <= 10; i++) assertEquals(Integer.toString(i), cr.next());
+      try {
+        cr.more();
+        fail("Session is expected to be closed.");
+      } catch(final IOException ex) {
+        // session has been closed by the server
+      }
+      // other sessions are not affected
+      final ClientSession cs = createClient();
+      try {
+        assertEquals("1", cs.execute("xquery 1"));
+      } finally {
+        cs.close();
+      }
+    } finally {
+      server.context.mprop.set(MainProp.CLIENTTIMEOUT, 30);
+      session = createClient();
+    }
+  }
+
+  /**
+   * Compares streamed and iteratively retrieved results.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void results() throws IOException {
+    final String query = "for $i in 1 to " + RESULTS + " return <a>{ $i }</a>";
+
+    ClientQuery cq = session.query(query);
+    int c = 0;
+    while(cq.more()) {
+      cq.next();
+      c++;
+    }
+    cq.close();
+    assertEquals(RESULTS, c);
+
+    for(final int size : new int[] { 1, 100, 10000 }) {
+      cq = session.query(query);
+      final ClientResults cr = cq.stream(size);
+      c = 0;
+      while(cr.more()) {
+        cr.next();
+        c++;
+      }
+      cq.close();
+      assertEquals(RESULTS, c);
+    }
+  }
+}